@@ -2,8 +2,10 @@ package com.security;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 @SpringBootApplication
+@EnableJpaRepositories(basePackages = "com.security.studentrepo") // Keeps the R2DBC repositories of the reactive mode out of JPA
 public class SpringSecurityRbacApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,37 @@
+package com.security.audit;
+
+/**
+ * One pre-allocated slot of the AuditRingBuffer. Slots are reused: a
+ * publisher fills a slot it has claimed, and the writer copies it out before
+ * the slot can be claimed again.
+ */
+public final class AuditEvent {
+
+	long timestampMillis;
+
+	AuditEventType type;
+
+	int status;
+
+	String subject;
+
+	String address;
+
+	String detail;
+
+	void set(long timestampMillis, AuditEventType type, int status, String subject, String address, String detail) {
+		this.timestampMillis = timestampMillis;
+		this.type = type;
+		this.status = status;
+		this.subject = subject;
+		this.address = address;
+		this.detail = detail;
+	}
+
+	// Lets the strings of a written event be collected
+	void clear() {
+		this.subject = null;
+		this.address = null;
+		this.detail = null;
+	}
+}
@@ -0,0 +1,14 @@
+package com.security.audit;
+
+/**
+ * The security events kept in the audit log. The ordinal is written to the
+ * log, so new types go at the end.
+ */
+public enum AuditEventType {
+	LOGIN_SUCCESS, // A token was issued
+	LOGIN_FAILURE, // Wrong user name or password
+	LOGOUT, // A token was revoked by its holder
+	UNAUTHENTICATED, // A protected endpoint was called without a valid token
+	ACCESS_DENIED, // An authenticated user lacked the role for an endpoint
+	ADMIN_DELETE // An admin deleted a student
+}
@@ -0,0 +1,195 @@
+package com.security.audit;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Security audit trail: logins, failed logins, logouts, denied requests and
+ * admin deletes. Request threads only put the event into a pre-allocated
+ * lock-free AuditRingBuffer and never block or touch the disk; one writer
+ * thread drains the buffer in batches into a MappedAuditLog under
+ * audit.directory. When the writer falls behind by more than
+ * audit.buffer-size events, further events are dropped and counted. An idle
+ * writer parks until a publisher unparks it, which costs the publisher a
+ * volatile read and, only while the writer is idle, a non-blocking unpark.
+ *
+ * The binary segments are converted to JSON with AuditLogReader.
+ */
+@Component
+public class AuditLog {
+
+	// Events written per drain, between checks for a due force
+	private static final int BATCH = 256;
+
+	private final boolean enabled;
+
+	private final String directory;
+
+	private final long segmentBytes;
+
+	private final long forceIntervalMillis;
+
+	private final AuditRingBuffer buffer;
+
+	private final AtomicLong written = new AtomicLong();
+
+	private final AtomicLong writeFailures = new AtomicLong();
+
+	private volatile String lastError;
+
+	private volatile MappedAuditLog file;
+
+	private volatile boolean running;
+
+	// Set by the writer before it parks, so that publishers know to unpark it
+	private volatile boolean writerIdle;
+
+	private Thread writer;
+
+	/**
+	 * Creates the audit log.
+	 *
+	 * @param enabled             Whether events are recorded.
+	 * @param directory           Where the segment files are written.
+	 * @param bufferSize          Ring buffer slots, rounded up to a power of two.
+	 * @param segmentBytes        Size of a segment file before rotation.
+	 * @param forceIntervalMillis How often written events are forced to disk.
+	 */
+	@Autowired
+	public AuditLog(@Value("${audit.enabled:true}") boolean enabled,
+			@Value("${audit.directory:logs/audit}") String directory,
+			@Value("${audit.buffer-size:8192}") int bufferSize,
+			@Value("${audit.segment-bytes:16777216}") long segmentBytes,
+			@Value("${audit.force-interval-ms:1000}") long forceIntervalMillis) {
+		this.enabled = enabled;
+		this.directory = directory;
+		this.segmentBytes = segmentBytes;
+		this.forceIntervalMillis = forceIntervalMillis;
+		this.buffer = new AuditRingBuffer(bufferSize);
+	}
+
+	@PostConstruct
+	public void start() throws IOException {
+		if (!enabled) {
+			return;
+		}
+		file = new MappedAuditLog(Paths.get(directory), segmentBytes);
+		running = true;
+		writer = new Thread(this::drainLoop, "audit-log-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		if (writer == null) {
+			return;
+		}
+		running = false;
+		LockSupport.unpark(writer);
+		writer.join(TimeUnit.SECONDS.toMillis(5));
+	}
+
+	/**
+	 * Records an event without blocking. The client address, and the subject
+	 * when none is given, are taken from the current request.
+	 *
+	 * @param type    The event type.
+	 * @param subject The user concerned, or null for the authenticated user.
+	 * @param detail  What happened, such as the request path.
+	 * @param status  The HTTP status the event resulted in.
+	 */
+	public void publish(AuditEventType type, String subject, String detail, int status) {
+		if (!enabled) {
+			return;
+		}
+		if (subject == null) {
+			Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+			subject = authentication == null ? null : authentication.getName();
+		}
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		String address = attributes instanceof ServletRequestAttributes servlet
+				? servlet.getRequest().getRemoteAddr()
+				: null;
+		buffer.offer(System.currentTimeMillis(), type, status, subject, address, detail);
+		if (writerIdle) {
+			LockSupport.unpark(writer);
+		}
+	}
+
+	/**
+	 * Reports the buffer and file state.
+	 *
+	 * @return The audit log statistics.
+	 */
+	public AuditLogStats stats() {
+		MappedAuditLog current = file;
+		return new AuditLogStats(enabled, buffer.capacity(), buffer.publishedCount(), written.get(),
+				buffer.backlog(), buffer.overflowCount(), writeFailures.get(),
+				current == null ? null : current.getSegment().toString(), current == null ? 0 : current.getSegments(),
+				lastError);
+	}
+
+	// The single writer: drains in batches, parks when idle until unparked or a force is due
+	private void drainLoop() {
+		long lastForce = System.currentTimeMillis();
+		boolean dirty = false;
+		while (running) {
+			int drained = buffer.drain(this::write, BATCH);
+			dirty |= drained > 0;
+			long now = System.currentTimeMillis();
+			if (dirty && now - lastForce >= forceIntervalMillis) {
+				file.force();
+				lastForce = now;
+				dirty = false;
+			}
+			if (drained == 0) {
+				writerIdle = true;
+				// Checked after announcing idleness, so an event published meanwhile is not left waiting
+				if (running && buffer.backlog() == 0) {
+					if (dirty) {
+						long untilForce = Math.max(1, forceIntervalMillis - (now - lastForce));
+						LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(untilForce));
+					} else {
+						LockSupport.park(this);
+					}
+				}
+				writerIdle = false;
+			}
+		}
+		// Shutting down: write what is left and close the segment
+		while (buffer.drain(this::write, BATCH) > 0) {
+			// Keep draining
+		}
+		try {
+			file.close();
+		} catch (IOException e) {
+			lastError = "Could not close " + file.getSegment() + ": " + e.getMessage();
+		}
+	}
+
+	private void write(AuditEvent event) {
+		try {
+			file.append(event);
+			written.incrementAndGet();
+		} catch (IOException | RuntimeException e) {
+			writeFailures.incrementAndGet();
+			lastError = "Could not write to " + directory + ": " + e.getMessage();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.security.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import com.security.jsonlines.JsonLinesWriter;
+
+/**
+ * Converts audit log segments written by MappedAuditLog to JSON, one object
+ * per line.
+ *
+ * Usage: java -cp target/classes com.security.audit.AuditLogReader
+ * &lt;segment or directory&gt;... Segments of a directory are read in name
+ * order, which is the order they were written.
+ */
+public final class AuditLogReader {
+
+	private static final AuditEventType[] TYPES = AuditEventType.values();
+
+	private AuditLogReader() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.out.println("usage: AuditLogReader <segment or directory>...");
+			return;
+		}
+		for (String arg : args) {
+			for (Path segment : segments(Paths.get(arg))) {
+				read(segment, System.out::println);
+			}
+		}
+	}
+
+	/**
+	 * Reads one segment.
+	 *
+	 * @param segment The segment file.
+	 * @param out     Receives each record as a JSON object.
+	 * @return The number of records read.
+	 * @throws IOException if the file cannot be read or is not an audit log.
+	 */
+	public static int read(Path segment, Consumer<String> out) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+		if (buffer.remaining() < Integer.BYTES || buffer.getInt() != MappedAuditLog.MAGIC) {
+			throw new IOException(segment + " is not an audit log segment");
+		}
+		int records = 0;
+		while (buffer.remaining() >= Integer.BYTES) {
+			int length = buffer.getInt();
+			if (length <= 0 || length - Integer.BYTES > buffer.remaining()) {
+				break; // End of a segment still being written, or a torn last record
+			}
+			long timestamp = buffer.getLong();
+			int type = buffer.get();
+			int status = buffer.getShort();
+			String subject = string(buffer);
+			String address = string(buffer);
+			String detail = string(buffer);
+
+			StringBuilder json = new StringBuilder(128);
+			json.append("{\"time\":\"").append(Instant.ofEpochMilli(timestamp)).append('"');
+			json.append(",\"type\":\"").append(type >= 0 && type < TYPES.length ? TYPES[type].name() : "UNKNOWN")
+					.append('"');
+			json.append(",\"status\":").append(status);
+			field(json, "subject", subject);
+			field(json, "address", address);
+			field(json, "detail", detail);
+			out.accept(json.append('}').toString());
+			records++;
+		}
+		return records;
+	}
+
+	private static List<Path> segments(Path path) throws IOException {
+		if (!Files.isDirectory(path)) {
+			return List.of(path);
+		}
+		try (Stream<Path> files = Files.list(path)) {
+			return files.filter(file -> file.getFileName().toString().matches("audit-.*\\.log")).sorted().toList();
+		}
+	}
+
+	private static String string(ByteBuffer buffer) {
+		int length = buffer.getShort();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void field(StringBuilder json, String name, String value) {
+		json.append(",\"").append(name).append("\":");
+		if (value == null) {
+			json.append("null");
+		} else {
+			JsonLinesWriter.string(json, value);
+		}
+	}
+}
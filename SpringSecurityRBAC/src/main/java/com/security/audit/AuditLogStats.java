@@ -0,0 +1,19 @@
+package com.security.audit;
+
+/**
+ * State of the audit log.
+ *
+ * @param enabled        Whether events are recorded.
+ * @param capacity       Slots in the ring buffer.
+ * @param published      Events accepted into the ring buffer.
+ * @param written        Events written to the log file.
+ * @param backlog        Events waiting for the writer.
+ * @param overflow       Events dropped because the ring buffer was full.
+ * @param writeFailures  Events lost because the file could not be written.
+ * @param segment        The segment file being written, null if none.
+ * @param segments       Segments started since startup.
+ * @param lastError      The last write failure, null if none.
+ */
+public record AuditLogStats(boolean enabled, int capacity, long published, long written, long backlog,
+		long overflow, long writeFailures, String segment, int segments, String lastError) {
+}
@@ -0,0 +1,133 @@
+package com.security.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, pre-allocated, lock-free queue of audit events with many
+ * publishers and a single consumer. A publisher claims the next sequence with
+ * a compare-and-set, fills the slot of that sequence and then publishes it by
+ * storing the sequence in the slot's published marker. The consumer reads
+ * slots in sequence order for as long as they are published.
+ *
+ * A publisher never waits: when every slot holds an event the consumer has not
+ * taken yet, the event is dropped and counted as an overflow.
+ */
+public class AuditRingBuffer {
+
+	private final AuditEvent[] slots;
+
+	private final int mask;
+
+	// The sequence last published in each slot, -1 for none
+	private final AtomicLongArray published;
+
+	// The next sequence to claim
+	private final AtomicLong claimed = new AtomicLong();
+
+	// The next sequence to consume, advanced by the consumer only
+	private final AtomicLong consumed = new AtomicLong();
+
+	private final AtomicLong overflow = new AtomicLong();
+
+	/**
+	 * Creates an empty buffer.
+	 *
+	 * @param capacity The number of slots, rounded up to a power of two.
+	 */
+	public AuditRingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		this.slots = new AuditEvent[size];
+		this.mask = size - 1;
+		this.published = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			slots[i] = new AuditEvent();
+			published.set(i, -1);
+		}
+	}
+
+	/**
+	 * Adds an event without blocking.
+	 *
+	 * @return false if the buffer was full and the event was dropped.
+	 */
+	public boolean offer(long timestampMillis, AuditEventType type, int status, String subject, String address,
+			String detail) {
+		long sequence;
+		do {
+			sequence = claimed.get();
+			if (sequence - consumed.get() >= slots.length) {
+				overflow.incrementAndGet();
+				return false;
+			}
+		} while (!claimed.compareAndSet(sequence, sequence + 1));
+
+		int index = (int) (sequence & mask);
+		slots[index].set(timestampMillis, type, status, subject, address, detail);
+		published.lazySet(index, sequence); // Release: the slot's fields are visible before the marker
+		return true;
+	}
+
+	/**
+	 * Hands published events to the sink in order. Only one thread may drain.
+	 * The sink must not keep the event, whose slot is reused afterwards.
+	 *
+	 * @param sink      Receives the events.
+	 * @param maxEvents The most events to take.
+	 * @return The number of events taken.
+	 */
+	public int drain(Consumer<AuditEvent> sink, int maxEvents) {
+		long sequence = consumed.get();
+		int taken = 0;
+		while (taken < maxEvents) {
+			int index = (int) (sequence & mask);
+			if (published.get(index) != sequence) {
+				break; // Not yet published
+			}
+			AuditEvent event = slots[index];
+			sink.accept(event);
+			event.clear();
+			sequence++;
+			taken++;
+			consumed.lazySet(sequence); // Frees the slot for publishers
+		}
+		return taken;
+	}
+
+	/**
+	 * Returns the number of slots.
+	 *
+	 * @return The capacity.
+	 */
+	public int capacity() {
+		return slots.length;
+	}
+
+	/**
+	 * Returns the number of events published and not yet drained.
+	 *
+	 * @return The backlog.
+	 */
+	public long backlog() {
+		return Math.max(0, claimed.get() - consumed.get());
+	}
+
+	/**
+	 * Returns the number of events accepted so far.
+	 *
+	 * @return The published count.
+	 */
+	public long publishedCount() {
+		return claimed.get();
+	}
+
+	/**
+	 * Returns the number of events dropped because the buffer was full.
+	 *
+	 * @return The overflow count.
+	 */
+	public long overflowCount() {
+		return overflow.get();
+	}
+}
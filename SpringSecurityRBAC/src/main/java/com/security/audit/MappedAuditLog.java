@@ -0,0 +1,171 @@
+package com.security.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Append-only audit log in memory-mapped segment files of a fixed size. Each
+ * segment starts with the MAGIC number and holds records of the form
+ *
+ * int length | long timestamp | byte type | short status | subject | address | detail
+ *
+ * where length counts the whole record and each string is a short byte count
+ * (-1 for null) followed by that many UTF-8 bytes, at most MAX_STRING_BYTES.
+ * A record that does not fit in the current segment starts a new one. A
+ * finished segment is truncated to its content, so a reader stops at a zero
+ * length (a segment still being written) or at the end of the file.
+ *
+ * Not thread-safe: written by the single audit writer thread.
+ */
+public class MappedAuditLog implements Closeable {
+
+	static final int MAGIC = 0x53414C31; // "SAL1"
+
+	static final int MAX_STRING_BYTES = 1024;
+
+	private static final long MIN_SEGMENT_BYTES = 64 * 1024;
+
+	private static final DateTimeFormatter SEGMENT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS")
+			.withZone(ZoneOffset.UTC);
+
+	private final Path directory;
+
+	private final long segmentBytes;
+
+	private FileChannel channel;
+
+	private MappedByteBuffer buffer;
+
+	private Path segment;
+
+	private int segments;
+
+	/**
+	 * Opens a new segment in the directory.
+	 *
+	 * @param directory    Where the segments are written.
+	 * @param segmentBytes The size of a segment, at least 64 KiB.
+	 * @throws IOException if the directory or segment cannot be created.
+	 */
+	public MappedAuditLog(Path directory, long segmentBytes) throws IOException {
+		this.directory = directory;
+		this.segmentBytes = Math.max(MIN_SEGMENT_BYTES, segmentBytes);
+		Files.createDirectories(directory);
+		open();
+	}
+
+	/**
+	 * Appends one event, starting a new segment when the current one is full.
+	 *
+	 * @param event The event.
+	 * @throws IOException if a new segment cannot be created.
+	 */
+	public void append(AuditEvent event) throws IOException {
+		byte[] subject = encode(event.subject);
+		byte[] address = encode(event.address);
+		byte[] detail = encode(event.detail);
+		int length = Integer.BYTES + Long.BYTES + Byte.BYTES + Short.BYTES + 3 * Short.BYTES + size(subject)
+				+ size(address) + size(detail);
+		if (buffer.remaining() < length) {
+			rotate();
+		}
+		buffer.putInt(length);
+		buffer.putLong(event.timestampMillis);
+		buffer.put((byte) event.type.ordinal());
+		buffer.putShort((short) event.status);
+		put(subject);
+		put(address);
+		put(detail);
+	}
+
+	/**
+	 * Writes the appended records through to the file.
+	 */
+	public void force() {
+		buffer.force();
+	}
+
+	/**
+	 * Returns the segment being written.
+	 *
+	 * @return The path of the current segment.
+	 */
+	public Path getSegment() {
+		return segment;
+	}
+
+	/**
+	 * Returns how many segments this log has started.
+	 *
+	 * @return The segment count.
+	 */
+	public int getSegments() {
+		return segments;
+	}
+
+	@Override
+	public void close() throws IOException {
+		finish();
+	}
+
+	private void rotate() throws IOException {
+		finish();
+		open();
+	}
+
+	private void open() throws IOException {
+		segments++;
+		segment = directory.resolve(String.format("audit-%s-%04d.log",
+				SEGMENT_TIME.format(Instant.now()), segments));
+		channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+		buffer.putInt(MAGIC);
+	}
+
+	// Flushes the segment and cuts off its unused, zero-filled tail
+	private void finish() throws IOException {
+		buffer.force();
+		channel.truncate(buffer.position());
+		channel.close();
+	}
+
+	private static byte[] encode(String value) {
+		if (value == null) {
+			return null;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length <= MAX_STRING_BYTES) {
+			return bytes;
+		}
+		// Cut at a character boundary, never inside a multi-byte sequence
+		int cut = MAX_STRING_BYTES;
+		while (cut > 0 && (bytes[cut] & 0xC0) == 0x80) {
+			cut--;
+		}
+		return Arrays.copyOf(bytes, cut);
+	}
+
+	private static int size(byte[] bytes) {
+		return bytes == null ? 0 : bytes.length;
+	}
+
+	private void put(byte[] bytes) {
+		if (bytes == null) {
+			buffer.putShort((short) -1);
+		} else {
+			buffer.putShort((short) bytes.length);
+			buffer.put(bytes);
+		}
+	}
+}
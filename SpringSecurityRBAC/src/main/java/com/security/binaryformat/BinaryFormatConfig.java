@@ -0,0 +1,38 @@
+package com.security.binaryformat;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Lets clients negotiate a binary representation of the student APIs with the
+ * Accept header (and send one with Content-Type): application/cbor or
+ * application/x-jackson-smile. Both carry the same fields as the JSON
+ * responses, built from the same DTOs, with field names encoded once per
+ * value instead of quoted text and numbers in binary. A client that sends no
+ * Accept header, or accepts JSON, still gets JSON.
+ *
+ * The converters replace the default ones Spring MVC registers for these
+ * formats, so that they are configured from Spring Boot's
+ * Jackson2ObjectMapperBuilder, with the same spring.jackson.* settings and
+ * modules as the JSON converter.
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+	@Bean
+	public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+		// The builder bean is a prototype, so setting its factory does not affect the JSON mapper
+		return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+	}
+
+	@Bean
+	public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+		return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+	}
+}
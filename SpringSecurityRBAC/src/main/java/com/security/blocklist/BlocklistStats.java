@@ -0,0 +1,22 @@
+package com.security.blocklist;
+
+/**
+ * Health of the token blocklist.
+ *
+ * @param breakerState  State of the circuit breaker around Redis.
+ * @param failurePolicy What unknown lookups resolve to: "open" or "closed".
+ * @param localEntries  Revocations held in the in-process store.
+ * @param bitmapBuckets Expiry buckets mirrored locally.
+ * @param mirrorAgeMs   Age of the bitmap mirror, -1 if never refreshed.
+ * @param pendingWrites Logouts waiting to be replayed to Redis.
+ * @param redisFailures Redis calls that failed or timed out.
+ * @param saturated     Redis calls turned away for lack of permits, which do
+ *                      not count as failures.
+ * @param fallbacks     Lookups answered without Redis.
+ * @param replayed      Buffered logouts written to Redis after recovery.
+ * @param dropped       Buffered logouts lost because the buffer was full.
+ */
+public record BlocklistStats(CircuitBreaker.State breakerState, String failurePolicy, int localEntries,
+		int bitmapBuckets, long mirrorAgeMs, int pendingWrites, long redisFailures, long saturated, long fallbacks, long replayed,
+		long dropped) {
+}
@@ -0,0 +1,103 @@
+package com.security.blocklist;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal circuit breaker. After a number of consecutive failures it opens
+ * and callers skip the dependency altogether; once the open period has passed
+ * a single probe call is let through (half-open), and its outcome either
+ * closes the breaker again or re-opens it for another period.
+ */
+public class CircuitBreaker {
+
+	/**
+	 * The breaker states.
+	 */
+	public enum State {
+		CLOSED, // Calls go through
+		OPEN, // Calls are skipped
+		HALF_OPEN // One probe call is in flight
+	}
+
+	private final int failureThreshold;
+
+	private final long openMillis;
+
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+	private final AtomicBoolean probeInFlight = new AtomicBoolean();
+
+	private volatile State state = State.CLOSED;
+
+	private volatile long openedAtMillis;
+
+	/**
+	 * Creates a closed breaker.
+	 *
+	 * @param failureThreshold Consecutive failures that open the breaker.
+	 * @param openMillis       How long the breaker stays open before a probe.
+	 */
+	public CircuitBreaker(int failureThreshold, long openMillis) {
+		this.failureThreshold = failureThreshold;
+		this.openMillis = openMillis;
+	}
+
+	/**
+	 * Tells whether a call may be made now. When it returns true the caller
+	 * must report the outcome with onSuccess, onFailure or onSkipped.
+	 *
+	 * @return true if the dependency should be called.
+	 */
+	public boolean allowRequest() {
+		State current = state;
+		if (current == State.CLOSED) {
+			return true;
+		}
+		if (current == State.OPEN && System.currentTimeMillis() - openedAtMillis < openMillis) {
+			return false;
+		}
+		// Open period over: only one caller gets to probe
+		if (probeInFlight.compareAndSet(false, true)) {
+			state = State.HALF_OPEN;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Records a successful call, closing the breaker.
+	 */
+	public void onSuccess() {
+		consecutiveFailures.set(0);
+		state = State.CLOSED;
+		probeInFlight.set(false);
+	}
+
+	/**
+	 * Hands back the permission of a call that never reached the service, such
+	 * as one turned away for lack of permits, so that it counts as neither a
+	 * success nor a failure. A probe handed back leaves the next call to probe.
+	 */
+	public void onSkipped() {
+		if (state == State.HALF_OPEN && probeInFlight.compareAndSet(true, false)) {
+			state = State.OPEN; // The open period is over, so the next call probes
+		}
+	}
+
+	/**
+	 * Records a failed call, opening the breaker on a failed probe or once the
+	 * failure threshold is reached.
+	 */
+	public void onFailure() {
+		if (state == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+			openedAtMillis = System.currentTimeMillis();
+			state = State.OPEN;
+			probeInFlight.set(false);
+		}
+	}
+
+	public State getState() {
+		return state;
+	}
+}
@@ -0,0 +1,343 @@
+package com.security.blocklist;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import com.security.exception.BlocklistUnavailableException;
+import com.security.exception.ResourceLimitExceededException;
+import com.security.jwtservice.JwtService;
+import com.security.studentdto.Role;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Session store of the opaque token mode (auth.token-mode=opaque). Instead of
+ * a signed JWT of a few hundred bytes, a login gets a random 32 character
+ * token that names a SessionRecord. The records are kept in an in-process
+ * hash map and mirrored to Redis as "session:&lt;token&gt;" keys expiring with
+ * the token, so that every node can resolve every token.
+ *
+ * Resolving a token is one hash map lookup while the local copy is younger
+ * than the recheck interval, and one Redis GET otherwise. Logging out deletes
+ * the session, so there is no blocklist to consult: the other nodes notice
+ * within one recheck interval, the same staleness as the revocation bitmap
+ * mirror. Redis calls share the circuit breaker of the TokenBlocklist; while
+ * Redis is unavailable, sessions known locally keep working and other tokens
+ * are answered with 503.
+ *
+ * JWTs issued before the switch keep working, since an opaque token is told
+ * apart from a JWT by having no dots.
+ */
+@Component
+public class OpaqueSessionStore {
+
+	static final String KEY_PREFIX = "session:";
+
+	// 24 random bytes encode to 32 URL-safe characters
+	private static final int TOKEN_BYTES = 24;
+
+	private final RedisTemplate<String, String> redisTemplate;
+
+	private final TokenBlocklist blocklist;
+
+	private final boolean enabled;
+
+	private final long recheckMillis;
+
+	private final SecureRandom random = new SecureRandom();
+
+	private final Map<String, LocalSession> sessions = new ConcurrentHashMap<>();
+
+	private final AtomicLong localHits = new AtomicLong();
+	private final AtomicLong redisLookups = new AtomicLong();
+
+	// Drops expired sessions from the local map
+	private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "opaque-session-sweeper");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * A session as known on this node, with when Redis last confirmed it.
+	 */
+	private record LocalSession(SessionRecord session, long checkedAtMillis) {
+	}
+
+	/**
+	 * Creates the store.
+	 *
+	 * @param redisTemplate Access to the shared sessions.
+	 * @param blocklist     Provides the circuit breaker around Redis.
+	 * @param tokenMode     "opaque" to issue opaque tokens, "jwt" for JWTs.
+	 * @param recheckMillis How long a local session is trusted before Redis is
+	 *                      asked again.
+	 */
+	@Autowired
+	public OpaqueSessionStore(RedisTemplate<String, String> redisTemplate, TokenBlocklist blocklist,
+			@Value("${auth.token-mode:jwt}") String tokenMode,
+			@Value("${auth.opaque.recheck-ms:2000}") long recheckMillis) {
+		this.redisTemplate = redisTemplate;
+		this.blocklist = blocklist;
+		this.enabled = "opaque".equalsIgnoreCase(tokenMode);
+		this.recheckMillis = recheckMillis;
+	}
+
+	@PostConstruct
+	public void start() {
+		if (enabled) {
+			sweeper.scheduleWithFixedDelay(this::sweep, 1, 1, TimeUnit.MINUTES);
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		sweeper.shutdownNow();
+	}
+
+	/**
+	 * Tells whether logins issue opaque tokens.
+	 *
+	 * @return true in the opaque token mode.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Tells whether a bearer token is an opaque token rather than a JWT.
+	 *
+	 * @param token The bearer token.
+	 * @return true if the token has no dots.
+	 */
+	public static boolean isOpaque(String token) {
+		return token.indexOf('.') < 0;
+	}
+
+	/**
+	 * Starts a session and returns its token.
+	 *
+	 * @param userName The user logging in.
+	 * @param role     The granted authority of the user, such as "ROLE_USER".
+	 * @return The opaque token.
+	 * @throws BlocklistUnavailableException if the session cannot be stored in
+	 *                                       Redis, where the other nodes would
+	 *                                       look for it.
+	 */
+	public String issue(String userName, String role) {
+		byte[] bytes = new byte[TOKEN_BYTES];
+		random.nextBytes(bytes);
+		String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+		long now = System.currentTimeMillis();
+		SessionRecord session = new SessionRecord(userName,
+				Role.valueOf(role.startsWith("ROLE_") ? role.substring("ROLE_".length()) : role),
+				now + JwtService.TOKEN_VALIDITY_MILLIS);
+		blocklist.guarded(() -> {
+			redisTemplate.opsForValue().set(KEY_PREFIX + token, session.format(), JwtService.TOKEN_VALIDITY_MILLIS,
+					TimeUnit.MILLISECONDS);
+			return null;
+		});
+		sessions.put(token, new LocalSession(session, now));
+		return token;
+	}
+
+	/**
+	 * Finds the live session of a token.
+	 *
+	 * @param token The opaque token.
+	 * @return The session, or null if the token is unknown, logged out or
+	 *         expired.
+	 * @throws BlocklistUnavailableException if Redis cannot be reached and the
+	 *                                       session is not known locally.
+	 */
+	public SessionRecord resolve(String token) {
+		long now = System.currentTimeMillis();
+		LocalSession local = sessions.get(token);
+		if (local != null && now - local.checkedAtMillis() < recheckMillis) {
+			localHits.incrementAndGet();
+			return live(token, local.session(), now);
+		}
+
+		String value;
+		try {
+			redisLookups.incrementAndGet();
+			value = blocklist.guarded(() -> redisTemplate.opsForValue().get(KEY_PREFIX + token));
+		} catch (BlocklistUnavailableException e) {
+			if (local != null) {
+				return live(token, local.session(), now); // Trust the last known state during the outage
+			}
+			throw e;
+		}
+
+		SessionRecord session = SessionRecord.parse(value);
+		if (session == null) {
+			sessions.remove(token); // Logged out on another node
+			return null;
+		}
+		sessions.put(token, new LocalSession(session, now));
+		return live(token, session, now);
+	}
+
+	/**
+	 * Finds the live sessions of many tokens. Sessions the local map knows
+	 * recently enough are answered from it, and the rest with one Redis MGET.
+	 * Failures are per token: while Redis is unavailable or saturated, a
+	 * session known locally keeps its last known state and any other token is
+	 * answered as unknown, instead of failing the whole batch.
+	 *
+	 * @param tokens The opaque tokens.
+	 * @return The session of each token, in the order given; null for a token
+	 *         that is unknown, logged out or expired, or that could not be
+	 *         looked up.
+	 */
+	public SessionRecord[] resolveAll(List<String> tokens) {
+		long now = System.currentTimeMillis();
+		SessionRecord[] resolved = new SessionRecord[tokens.size()];
+		List<Integer> unanswered = new ArrayList<>();
+		for (int i = 0; i < tokens.size(); i++) {
+			LocalSession local = sessions.get(tokens.get(i));
+			if (local != null && now - local.checkedAtMillis() < recheckMillis) {
+				localHits.incrementAndGet();
+				resolved[i] = live(tokens.get(i), local.session(), now);
+			} else {
+				unanswered.add(i);
+			}
+		}
+		if (unanswered.isEmpty()) {
+			return resolved;
+		}
+
+		List<String> keys = unanswered.stream().map(i -> KEY_PREFIX + tokens.get(i)).toList();
+		List<String> values;
+		try {
+			redisLookups.addAndGet(unanswered.size());
+			values = blocklist.guarded(() -> redisTemplate.opsForValue().multiGet(keys));
+		} catch (BlocklistUnavailableException | ResourceLimitExceededException e) {
+			for (int i : unanswered) {
+				LocalSession local = sessions.get(tokens.get(i));
+				if (local != null) {
+					resolved[i] = live(tokens.get(i), local.session(), now); // Trust the last known state
+				}
+			}
+			return resolved;
+		}
+
+		for (int k = 0; k < unanswered.size(); k++) {
+			int i = unanswered.get(k);
+			SessionRecord session = values == null ? null : SessionRecord.parse(values.get(k));
+			if (session == null) {
+				sessions.remove(tokens.get(i)); // Logged out on another node
+			} else {
+				sessions.put(tokens.get(i), new LocalSession(session, now));
+				resolved[i] = live(tokens.get(i), session, now);
+			}
+		}
+		return resolved;
+	}
+
+	/**
+	 * Reads the role of a session from the local map only, for cheap request
+	 * classification; never use it for an authorization decision.
+	 *
+	 * @param token The opaque token.
+	 * @return The role claim, such as "ROLE_USER", or null if the session is not
+	 *         known locally.
+	 */
+	public String peekRole(String token) {
+		LocalSession local = sessions.get(token);
+		return local == null ? null : "ROLE_" + local.session().role().name();
+	}
+
+	/**
+	 * Ends a session on this node and in Redis.
+	 *
+	 * @param token The opaque token.
+	 * @return true if the session existed.
+	 * @throws BlocklistUnavailableException if Redis cannot be reached.
+	 */
+	public boolean revoke(String token) {
+		LocalSession local = sessions.remove(token);
+		Boolean deleted = blocklist.guarded(() -> redisTemplate.delete(KEY_PREFIX + token));
+		return local != null || Boolean.TRUE.equals(deleted);
+	}
+
+	/**
+	 * Ends many sessions on this node and in Redis, for a bulk revocation. The
+	 * other nodes notice within one recheck interval.
+	 *
+	 * @param tokens    The opaque tokens.
+	 * @param batchSize Deletions per pipelined round trip.
+	 * @throws BlocklistUnavailableException if Redis cannot be reached.
+	 */
+	public void revokeAll(List<String> tokens, int batchSize) {
+		for (String token : tokens) {
+			sessions.remove(token);
+		}
+		for (int from = 0; from < tokens.size(); from += batchSize) {
+			List<String> batch = tokens.subList(from, Math.min(tokens.size(), from + batchSize));
+			blocklist.guarded(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+				for (String token : batch) {
+					connection.keyCommands().del((KEY_PREFIX + token).getBytes(StandardCharsets.UTF_8));
+				}
+				return null;
+			}));
+		}
+	}
+
+	/**
+	 * Returns the number of sessions known on this node.
+	 *
+	 * @return The local session count.
+	 */
+	public int size() {
+		return sessions.size();
+	}
+
+	/**
+	 * Returns how many lookups were answered by the local map alone.
+	 *
+	 * @return The local hit count.
+	 */
+	public long getLocalHits() {
+		return localHits.get();
+	}
+
+	/**
+	 * Returns how many lookups went to Redis.
+	 *
+	 * @return The Redis lookup count.
+	 */
+	public long getRedisLookups() {
+		return redisLookups.get();
+	}
+
+	private SessionRecord live(String token, SessionRecord session, long now) {
+		if (session.expiresAtMillis() > now) {
+			return session;
+		}
+		sessions.remove(token);
+		return null;
+	}
+
+	void sweep() {
+		long now = System.currentTimeMillis();
+		sessions.values().removeIf(local -> local.session().expiresAtMillis() <= now);
+	}
+}
@@ -0,0 +1,273 @@
+package com.security.blocklist;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Revocation state kept as one bit per issued token. Tokens are grouped by
+ * expiry into fixed-width buckets; at login a token gets the next sequence
+ * number of its bucket ("revocation:seq:&lt;bucket&gt;", INCR), and logout sets
+ * that bit in the bucket's bitmap ("revocation:bits:&lt;bucket&gt;", SETBIT).
+ * Both keys expire together once every token of the bucket has expired, so a
+ * mass logout costs a few bits per token and one key per bucket instead of
+ * one key with its own TTL per token.
+ *
+ * The bitmaps of the live buckets are mirrored locally and refreshed in the
+ * background, so most lookups need no Redis call at all. The Redis calls in
+ * here are made by TokenBlocklist, which guards them with its breaker.
+ */
+public class RevocationBitmap {
+
+	private static final String SEQUENCE_KEY = "revocation:seq:";
+
+	private static final String BITS_KEY = "revocation:bits:";
+
+	private final RedisTemplate<String, String> redisTemplate;
+
+	private final long bucketMillis;
+
+	private final long graceMillis;
+
+	private final Map<Long, BucketBits> mirror = new ConcurrentHashMap<>();
+
+	private volatile long mirrorSyncedAtMillis;
+
+	/**
+	 * Creates the bitmap store.
+	 *
+	 * @param redisTemplate Access to the shared bitmaps.
+	 * @param bucketMillis  Width of an expiry bucket.
+	 * @param graceMillis   How long a bucket outlives its last token.
+	 */
+	public RevocationBitmap(RedisTemplate<String, String> redisTemplate, long bucketMillis, long graceMillis) {
+		this.redisTemplate = redisTemplate;
+		this.bucketMillis = bucketMillis;
+		this.graceMillis = graceMillis;
+	}
+
+	/**
+	 * Returns the bucket of a token expiring at the given time.
+	 *
+	 * @param expiresAtMillis The token expiry.
+	 * @return The bucket number.
+	 */
+	public long bucketOf(long expiresAtMillis) {
+		return expiresAtMillis / bucketMillis;
+	}
+
+	/**
+	 * Reserves the next sequence number of a bucket (one pipelined round trip).
+	 *
+	 * @param bucket The bucket of the new token.
+	 * @return The slot of the new token.
+	 */
+	public RevocationSlot allocate(long bucket) {
+		byte[] key = key(SEQUENCE_KEY, bucket);
+		List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			connection.stringCommands().incr(key);
+			expire(connection, key, bucket);
+			return null;
+		});
+		return new RevocationSlot(bucket, ((Number) results.get(0)).longValue() - 1);
+	}
+
+	/**
+	 * Sets the revocation bit in Redis (one pipelined round trip).
+	 *
+	 * @param slot The slot of the revoked token.
+	 */
+	public void revokeInRedis(RevocationSlot slot) {
+		byte[] key = key(BITS_KEY, slot.bucket());
+		redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			connection.stringCommands().setBit(key, slot.sequence(), true);
+			expire(connection, key, slot.bucket());
+			return null;
+		});
+	}
+
+	/**
+	 * Sets many revocation bits in Redis, batchSize SETBIT commands per
+	 * pipelined round trip, each batch also refreshing the expiry of the
+	 * buckets it touched.
+	 *
+	 * @param slots     The slots of the revoked tokens.
+	 * @param batchSize The number of commands per pipeline.
+	 */
+	public void revokeAllInRedis(List<RevocationSlot> slots, int batchSize) {
+		for (int from = 0; from < slots.size(); from += batchSize) {
+			List<RevocationSlot> batch = slots.subList(from, Math.min(slots.size(), from + batchSize));
+			redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+				Set<Long> buckets = new HashSet<>();
+				for (RevocationSlot slot : batch) {
+					connection.stringCommands().setBit(key(BITS_KEY, slot.bucket()), slot.sequence(), true);
+					buckets.add(slot.bucket());
+				}
+				for (Long bucket : buckets) {
+					expire(connection, key(BITS_KEY, bucket), bucket);
+				}
+				return null;
+			});
+		}
+	}
+
+	/**
+	 * Returns when every token of the slot's bucket has expired, plus the grace
+	 * period.
+	 *
+	 * @param slot The slot.
+	 * @return The time the bucket's keys expire.
+	 */
+	public long expiresAtOf(RevocationSlot slot) {
+		return (slot.bucket() + 1) * bucketMillis + graceMillis;
+	}
+
+	/**
+	 * Reads one revocation bit from Redis with GETBIT.
+	 *
+	 * @param slot The slot of the token.
+	 * @return true if the token was revoked.
+	 */
+	public boolean isRevokedInRedis(RevocationSlot slot) {
+		byte[] key = key(BITS_KEY, slot.bucket());
+		return Boolean.TRUE
+				.equals(redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands()
+						.getBit(key, slot.sequence())));
+	}
+
+	/**
+	 * Queues a GETBIT for the slot on a pipelined connection, for batch
+	 * lookups that mix bitmap and key checks in one round trip.
+	 *
+	 * @param connection The pipelined connection.
+	 * @param slot       The slot of the token.
+	 */
+	void queueIsRevoked(RedisConnection connection, RevocationSlot slot) {
+		connection.stringCommands().getBit(key(BITS_KEY, slot.bucket()), slot.sequence());
+	}
+
+	/**
+	 * Sets the revocation bit in the local mirror.
+	 *
+	 * @param slot The slot of the revoked token.
+	 */
+	public void revokeLocally(RevocationSlot slot) {
+		mirror.computeIfAbsent(slot.bucket(), bucket -> new BucketBits()).set(slot.sequence());
+	}
+
+	/**
+	 * Reads the revocation bit from the local mirror.
+	 *
+	 * @param slot The slot of the token.
+	 * @return true if the token is known to be revoked.
+	 */
+	public boolean isRevokedLocally(RevocationSlot slot) {
+		BucketBits bits = mirror.get(slot.bucket());
+		return bits != null && bits.get(slot.sequence());
+	}
+
+	/**
+	 * Tells whether the mirror was refreshed recently enough to answer a lookup
+	 * on its own.
+	 *
+	 * @param nowMillis    The current time.
+	 * @param maxAgeMillis The staleness accepted.
+	 * @return true if a miss in the mirror can be trusted.
+	 */
+	public boolean isMirrorFresh(long nowMillis, long maxAgeMillis) {
+		return nowMillis - mirrorSyncedAtMillis <= maxAgeMillis;
+	}
+
+	/**
+	 * Downloads the bitmaps of all buckets that can still hold valid tokens in
+	 * one pipelined round trip and merges them into the mirror.
+	 *
+	 * @param nowMillis        The current time.
+	 * @param maxTokenLifetime The validity of a newly issued token.
+	 */
+	public void refreshMirror(long nowMillis, long maxTokenLifetime) {
+		List<Long> buckets = new ArrayList<>();
+		for (long bucket = bucketOf(nowMillis); bucket <= bucketOf(nowMillis + maxTokenLifetime); bucket++) {
+			buckets.add(bucket);
+		}
+		List<Object> bitmaps = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			for (Long bucket : buckets) {
+				connection.stringCommands().get(key(BITS_KEY, bucket));
+			}
+			return null;
+		}, RedisSerializer.byteArray());
+
+		for (int i = 0; i < buckets.size(); i++) {
+			if (bitmaps.get(i) instanceof byte[] bitmap) {
+				mirror.computeIfAbsent(buckets.get(i), bucket -> new BucketBits()).merge(bitmap);
+			}
+		}
+		mirrorSyncedAtMillis = nowMillis;
+	}
+
+	/**
+	 * Forgets the buckets whose tokens have all expired.
+	 *
+	 * @param nowMillis The current time.
+	 */
+	public void dropExpired(long nowMillis) {
+		mirror.keySet().removeIf(bucket -> (bucket + 1) * bucketMillis + graceMillis < nowMillis);
+	}
+
+	public int bucketCount() {
+		return mirror.size();
+	}
+
+	public long getMirrorSyncedAtMillis() {
+		return mirrorSyncedAtMillis;
+	}
+
+	// Both keys of a bucket live until its last token has expired, plus the grace period
+	private void expire(RedisConnection connection, byte[] key, long bucket) {
+		connection.keyCommands().pExpireAt(key, expiresAtOf(new RevocationSlot(bucket, 0)));
+	}
+
+	private static byte[] key(String prefix, long bucket) {
+		return (prefix + bucket).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The local copy of one bucket's bitmap.
+	 */
+	private static final class BucketBits {
+
+		private final BitSet bits = new BitSet();
+
+		synchronized void set(long sequence) {
+			bits.set(Math.toIntExact(sequence));
+		}
+
+		synchronized boolean get(long sequence) {
+			return sequence >= 0 && sequence <= Integer.MAX_VALUE && bits.get((int) sequence);
+		}
+
+		// Redis numbers bits from the most significant bit of the first byte
+		synchronized void merge(byte[] bitmap) {
+			for (int i = 0; i < bitmap.length; i++) {
+				if (bitmap[i] == 0) {
+					continue;
+				}
+				for (int bit = 0; bit < 8; bit++) {
+					if ((bitmap[i] & (0x80 >>> bit)) != 0) {
+						bits.set(i * 8 + bit);
+					}
+				}
+			}
+		}
+	}
+}
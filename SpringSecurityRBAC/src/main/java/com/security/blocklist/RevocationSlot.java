@@ -0,0 +1,57 @@
+package com.security.blocklist;
+
+import java.util.Map;
+
+/**
+ * Where a token's revocation bit lives: the expiry bucket of the token and its
+ * sequence number within that bucket. Carried in the token as the "rvb" and
+ * "rvs" claims.
+ *
+ * @param bucket   The expiry bucket (expiry divided by the bucket width).
+ * @param sequence The bit offset within the bucket's bitmap.
+ */
+public record RevocationSlot(long bucket, long sequence) {
+
+	public static final String BUCKET_CLAIM = "rvb";
+
+	public static final String SEQUENCE_CLAIM = "rvs";
+
+	/**
+	 * Parses the slot from the two claim values. The claims are read before the
+	 * signature is checked, so values no issued token can carry (negative, or
+	 * beyond the bit offsets of a bitmap) are treated as no slot at all rather
+	 * than reaching the bitmap or Redis.
+	 *
+	 * @param bucket   The bucket claim, possibly null.
+	 * @param sequence The sequence claim, possibly null.
+	 * @return The slot, or null if the token has none or an invalid one.
+	 */
+	public static RevocationSlot parse(String bucket, String sequence) {
+		if (bucket == null || sequence == null) {
+			return null;
+		}
+		try {
+			long bucketValue = Long.parseLong(bucket);
+			long sequenceValue = Long.parseLong(sequence);
+			if (!inRange(bucketValue) || !inRange(sequenceValue)) {
+				return null;
+			}
+			return new RevocationSlot(bucketValue, sequenceValue);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static boolean inRange(long value) {
+		return value >= 0 && value <= Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the claims that carry this slot in a token.
+	 *
+	 * @return The bucket and sequence claims.
+	 */
+	public Map<String, Object> claims() {
+		return Map.of(BUCKET_CLAIM, bucket, SEQUENCE_CLAIM, sequence);
+	}
+}
@@ -0,0 +1,48 @@
+package com.security.blocklist;
+
+import com.security.studentdto.Role;
+
+/**
+ * What an opaque token stands for: the user it was issued to, their role and
+ * when it expires. Stored in Redis as "&lt;expiry&gt;:&lt;ROLE&gt;:&lt;user&gt;",
+ * the user name last so that it may itself contain a colon.
+ *
+ * @param userName        The user the token was issued to.
+ * @param role            The role of the user at login.
+ * @param expiresAtMillis When the token expires, in epoch milliseconds.
+ */
+public record SessionRecord(String userName, Role role, long expiresAtMillis) {
+
+	/**
+	 * Encodes the record for Redis.
+	 *
+	 * @return The encoded record.
+	 */
+	public String format() {
+		return expiresAtMillis + ":" + role.name() + ":" + userName;
+	}
+
+	/**
+	 * Decodes a record read from Redis.
+	 *
+	 * @param value The encoded record, possibly null.
+	 * @return The record, or null if the value is missing or malformed.
+	 */
+	public static SessionRecord parse(String value) {
+		if (value == null) {
+			return null;
+		}
+		int expirySeparator = value.indexOf(':');
+		int roleSeparator = value.indexOf(':', expirySeparator + 1);
+		if (expirySeparator < 0 || roleSeparator < 0) {
+			return null;
+		}
+		try {
+			return new SessionRecord(value.substring(roleSeparator + 1),
+					Role.valueOf(value.substring(expirySeparator + 1, roleSeparator)),
+					Long.parseLong(value.substring(0, expirySeparator)));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package com.security.blocklist;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import com.security.studentdto.Role;
+import com.security.studentdto.SessionRevocationResponse;
+
+/**
+ * Registry of the active sessions of each user, so that an admin can revoke
+ * every token of a user, or of every user with a role, at once. A session is
+ * the revocation slot of a JWT, or the token of an opaque session: each user
+ * has a sorted set "sessions:user:&lt;user&gt;" of "bucket:sequence" or
+ * "opaque:&lt;token&gt;" members scored by the time the session expires, and
+ * each role a sorted set "sessions:role-users:&lt;ROLE&gt;" of the users that
+ * logged in with it, scored the same way. Each login trims the expired
+ * members of both and pushes the expiry of both keys to that of its own
+ * session, the latest yet, so they expire with the last token they describe.
+ * Revoking a JWT session sets its slot in the blocklist; revoking an opaque
+ * session deletes it from the OpaqueSessionStore.
+ *
+ * All Redis work is pipelined: a login costs one round trip, and a bulk
+ * revocation a few round trips per batch of users and of slots, so revoking
+ * 100k sessions takes seconds rather than 100k round trips.
+ */
+@Component
+public class SessionRegistry {
+
+	private static final String USER_KEY = "sessions:user:";
+
+	private static final String ROLE_KEY = "sessions:role-users:";
+
+	private static final String OPAQUE_MEMBER = "opaque:";
+
+	private final RedisTemplate<String, String> redisTemplate;
+
+	private final TokenBlocklist blocklist;
+
+	private final OpaqueSessionStore sessionStore;
+
+	private final int batchSize;
+
+	private final AtomicLong registerFailures = new AtomicLong();
+
+	/**
+	 * Creates the registry.
+	 *
+	 * @param redisTemplate Access to the registry.
+	 * @param blocklist     Revokes the slots of the JWT sessions.
+	 * @param sessionStore  Ends the opaque sessions.
+	 * @param batchSize     Commands per pipelined round trip when revoking.
+	 */
+	@Autowired
+	public SessionRegistry(RedisTemplate<String, String> redisTemplate, TokenBlocklist blocklist,
+			OpaqueSessionStore sessionStore, @Value("${sessions.revoke-batch-size:10000}") int batchSize) {
+		this.redisTemplate = redisTemplate;
+		this.blocklist = blocklist;
+		this.sessionStore = sessionStore;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Records a newly issued JWT of a user. Expired sessions of the user, and
+	 * users of the role without live sessions, are trimmed in the same round
+	 * trip. A failure is counted and ignored, so a Redis outage never fails a
+	 * login; such a token can still be revoked by a logout, only not in bulk.
+	 *
+	 * @param userName The user the token was issued to.
+	 * @param role     The role claim of the token, with or without "ROLE_".
+	 * @param slot     The revocation slot of the token.
+	 */
+	public void register(String userName, String role, RevocationSlot slot) {
+		register(userName, role, member(slot), blocklist.slotExpiresAt(slot));
+	}
+
+	/**
+	 * Records a newly started opaque session of a user, in the same way as a
+	 * JWT.
+	 *
+	 * @param userName  The user the session was started for.
+	 * @param role      The role of the session, with or without "ROLE_".
+	 * @param token     The opaque token.
+	 * @param expiresAt When the session expires, in epoch milliseconds.
+	 */
+	public void registerOpaque(String userName, String role, String token, long expiresAt) {
+		register(userName, role, OPAQUE_MEMBER + token, expiresAt);
+	}
+
+	private void register(String userName, String role, String member, long expiresAt) {
+		byte[] userKey = bytes(USER_KEY + userName);
+		byte[] roleKey = bytes(ROLE_KEY + roleName(role));
+		try {
+			blocklist.guarded(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+				long now = System.currentTimeMillis();
+				connection.zSetCommands().zAdd(userKey, expiresAt, bytes(member));
+				connection.zSetCommands().zRemRangeByScore(userKey, Double.NEGATIVE_INFINITY, now);
+				connection.keyCommands().pExpireAt(userKey, expiresAt);
+				connection.zSetCommands().zAdd(roleKey, expiresAt, bytes(userName));
+				connection.zSetCommands().zRemRangeByScore(roleKey, Double.NEGATIVE_INFINITY, now);
+				connection.keyCommands().pExpireAt(roleKey, expiresAt);
+				return null;
+			}));
+		} catch (RuntimeException e) {
+			registerFailures.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Revokes every active token of the given users and forgets their
+	 * sessions.
+	 *
+	 * @param userNames The users to log out everywhere.
+	 * @return How many users and sessions were affected and how long it took.
+	 * @throws com.security.exception.BlocklistUnavailableException if Redis
+	 *                                                              cannot be
+	 *                                                              reached.
+	 */
+	public SessionRevocationResponse revokeUsers(Collection<String> userNames) {
+		long start = System.currentTimeMillis();
+		List<String> users = new ArrayList<>(new LinkedHashSet<>(userNames));
+		List<RevocationSlot> slots = new ArrayList<>();
+		List<String> tokens = new ArrayList<>();
+		for (int from = 0; from < users.size(); from += batchSize) {
+			List<String> batch = users.subList(from, Math.min(users.size(), from + batchSize));
+			List<Object> members = blocklist.guarded(() -> redisTemplate.executePipelined(
+					(RedisCallback<Object>) connection -> {
+						for (String user : batch) {
+							connection.zSetCommands().zRangeByScore(bytes(USER_KEY + user), start,
+									Double.POSITIVE_INFINITY);
+						}
+						return null;
+					}, RedisSerializer.string()));
+			for (Object userMembers : members) {
+				if (userMembers instanceof Collection<?> collection) {
+					for (Object member : collection) {
+						String value = String.valueOf(member);
+						if (value.startsWith(OPAQUE_MEMBER)) {
+							tokens.add(value.substring(OPAQUE_MEMBER.length()));
+							continue;
+						}
+						RevocationSlot slot = parseMember(value);
+						if (slot != null) {
+							slots.add(slot);
+						}
+					}
+				}
+			}
+		}
+
+		if (!slots.isEmpty()) {
+			blocklist.revokeSlots(slots, batchSize);
+		}
+		if (!tokens.isEmpty()) {
+			sessionStore.revokeAll(tokens, batchSize);
+		}
+
+		// Forget the revoked sessions, and the users in the role index, so a repeated revocation finds nothing
+		for (int from = 0; from < users.size(); from += batchSize) {
+			List<String> batch = users.subList(from, Math.min(users.size(), from + batchSize));
+			blocklist.guarded(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+				byte[][] members = new byte[batch.size()][];
+				for (int i = 0; i < batch.size(); i++) {
+					members[i] = bytes(batch.get(i));
+					connection.keyCommands().del(bytes(USER_KEY + batch.get(i)));
+				}
+				for (Role role : Role.values()) {
+					connection.zSetCommands().zRem(bytes(ROLE_KEY + role.name()), members);
+				}
+				return null;
+			}));
+		}
+		return new SessionRevocationResponse(users.size(), slots.size() + tokens.size(),
+				System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Revokes every active token of every user that logged in with the given
+	 * role.
+	 *
+	 * @param role The role.
+	 * @return How many users and sessions were affected and how long it took.
+	 * @throws com.security.exception.BlocklistUnavailableException if Redis
+	 *                                                              cannot be
+	 *                                                              reached.
+	 */
+	public SessionRevocationResponse revokeRole(Role role) {
+		Set<String> users = blocklist.guarded(() -> redisTemplate.opsForZSet().rangeByScore(ROLE_KEY + role.name(),
+				System.currentTimeMillis(), Double.POSITIVE_INFINITY));
+		return revokeUsers(users == null ? Set.of() : users);
+	}
+
+	/**
+	 * Returns how many logins could not be registered because of Redis
+	 * failures.
+	 *
+	 * @return The number of failed registrations.
+	 */
+	public long getRegisterFailures() {
+		return registerFailures.get();
+	}
+
+	static String member(RevocationSlot slot) {
+		return slot.bucket() + ":" + slot.sequence();
+	}
+
+	static RevocationSlot parseMember(String member) {
+		int separator = member.indexOf(':');
+		return separator < 0 ? null : RevocationSlot.parse(member.substring(0, separator), member.substring(separator + 1));
+	}
+
+	private static String roleName(String role) {
+		return role.startsWith("ROLE_") ? role.substring("ROLE_".length()) : role;
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,137 @@
+package com.security.blocklist;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process store of keys with an expiry, used when Redis cannot be reached.
+ * Lookups are a single hash map read; expired keys are removed by a
+ * hierarchical timing wheel so that expiry costs O(1) per key instead of a
+ * scan of the whole store. The wheel has four levels of 64 slots: level 0
+ * slots are one tick wide, level 1 slots 64 ticks, and so on. A key is placed
+ * in the lowest level whose range covers its expiry and moves down a level
+ * each time the wheel above it turns, until it expires in level 0.
+ */
+public class TimingWheelTtlStore {
+
+	private static final int SLOT_BITS = 6;
+
+	private static final int SLOTS = 1 << SLOT_BITS;
+
+	private static final int LEVELS = 4;
+
+	private final long tickMillis;
+
+	private final long startMillis;
+
+	private final Map<String, Long> expiries = new ConcurrentHashMap<>();
+
+	// Guarded by this
+	private final Set<String>[][] wheels;
+	private long currentTick;
+
+	/**
+	 * Creates an empty store.
+	 *
+	 * @param tickMillis  Width of a level 0 slot, the expiry resolution.
+	 * @param startMillis The time of tick 0, usually now.
+	 */
+	@SuppressWarnings("unchecked")
+	public TimingWheelTtlStore(long tickMillis, long startMillis) {
+		this.tickMillis = tickMillis;
+		this.startMillis = startMillis;
+		this.wheels = new Set[LEVELS][SLOTS];
+		for (int level = 0; level < LEVELS; level++) {
+			for (int slot = 0; slot < SLOTS; slot++) {
+				wheels[level][slot] = new HashSet<>();
+			}
+		}
+	}
+
+	/**
+	 * Stores a key until the given time. Storing it again extends the expiry.
+	 *
+	 * @param key             The key.
+	 * @param expiresAtMillis When the key expires, in epoch milliseconds.
+	 */
+	public void put(String key, long expiresAtMillis) {
+		Long expiry = expiries.merge(key, expiresAtMillis, Math::max);
+		synchronized (this) {
+			schedule(key, expiry);
+		}
+	}
+
+	/**
+	 * Tells whether the key is stored and not expired. Exact to the
+	 * millisecond, whatever the tick width.
+	 *
+	 * @param key       The key.
+	 * @param nowMillis The current time.
+	 * @return true if the key is present.
+	 */
+	public boolean contains(String key, long nowMillis) {
+		Long expiry = expiries.get(key);
+		return expiry != null && expiry > nowMillis;
+	}
+
+	/**
+	 * Turns the wheel up to the given time, dropping the keys that expired.
+	 *
+	 * @param nowMillis The current time.
+	 */
+	public synchronized void advance(long nowMillis) {
+		long targetTick = (nowMillis - startMillis) / tickMillis;
+		while (currentTick < targetTick) {
+			currentTick++;
+
+			// Cascade the upper levels whose slot boundary was just crossed, top down
+			for (int level = LEVELS - 1; level > 0; level--) {
+				if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+					reschedule(wheels[level][slotOf(currentTick, level)]);
+				}
+			}
+
+			Set<String> due = wheels[0][slotOf(currentTick, 0)];
+			for (String key : due.toArray(new String[0])) {
+				due.remove(key);
+				Long expiry = expiries.get(key);
+				if (expiry != null && expiry <= nowMillis) {
+					expiries.remove(key, expiry);
+				} else if (expiry != null) {
+					schedule(key, expiry); // Extended since it was scheduled
+				}
+			}
+		}
+	}
+
+	public int size() {
+		return expiries.size();
+	}
+
+	private void reschedule(Set<String> slot) {
+		String[] keys = slot.toArray(new String[0]);
+		slot.clear();
+		for (String key : keys) {
+			Long expiry = expiries.get(key);
+			if (expiry != null) {
+				schedule(key, expiry);
+			}
+		}
+	}
+
+	private void schedule(String key, long expiresAtMillis) {
+		long tick = Math.max(currentTick + 1, (expiresAtMillis - startMillis + tickMillis - 1) / tickMillis);
+		long delta = tick - currentTick;
+		int level = 0;
+		while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+			level++;
+		}
+		wheels[level][slotOf(tick, level)].add(key);
+	}
+
+	private static int slotOf(long tick, int level) {
+		return (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+	}
+}
@@ -0,0 +1,469 @@
+package com.security.blocklist;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import com.security.concurrency.BlockingResourceLimiter;
+import com.security.concurrency.BlockingResourceLimiter.Resource;
+import com.security.exception.BlocklistUnavailableException;
+import com.security.exception.ResourceLimitExceededException;
+import com.security.jwtservice.JwtService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * The revoked-token list. Redis is the shared source of truth: tokens issued
+ * with a revocation slot are revoked by setting one bit in the RevocationBitmap
+ * of their expiry bucket, other tokens (issued while Redis was down, or by the
+ * reactive gateway) by a "blacklisted:&lt;token&gt;" key. Calls to Redis are
+ * bounded by the Redis command timeout
+ * (spring.data.redis.timeout) and guarded by a circuit breaker, so a Redis
+ * outage costs a few slow calls and then none at all.
+ *
+ * Every revocation made on this node, and every revoked token seen in Redis,
+ * is also kept in an in-process TimingWheelTtlStore. While Redis is
+ * unavailable lookups are answered from that store, logouts are buffered and
+ * replayed to Redis once it recovers, and a token unknown to the local store
+ * is let through (failure-policy=open) or refused (failure-policy=closed).
+ */
+@Component
+public class TokenBlocklist {
+
+	static final String KEY_PREFIX = "blacklisted:";
+
+	// How long a bucket's keys outlive its last token, covering clock skew between nodes
+	private static final long BUCKET_GRACE_MILLIS = 60_000;
+
+	private final RedisTemplate<String, String> redisTemplate;
+
+	private final JwtService jwtService;
+
+	private final RevocationBitmap bitmap;
+
+	private final boolean bitmapEnabled;
+
+	private final long mirrorIntervalMillis;
+
+	private volatile long lastMirrorRefreshMillis;
+
+	private final BlockingResourceLimiter limiter;
+
+	private final boolean failClosed;
+
+	private final long localTtlMillis;
+
+	private final int pendingCapacity;
+
+	private final long tickMillis;
+
+	private final CircuitBreaker breaker;
+
+	private final TimingWheelTtlStore localStore;
+
+	// Logouts not yet written to Redis, oldest first
+	private final Deque<PendingRevocation> pending = new ConcurrentLinkedDeque<>();
+	private final AtomicInteger pendingSize = new AtomicInteger();
+
+	private final AtomicLong redisFailures = new AtomicLong();
+	private final AtomicLong saturated = new AtomicLong();
+	private final AtomicLong fallbacks = new AtomicLong();
+	private final AtomicLong replayed = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+
+	// Turns the timing wheel and replays buffered logouts
+	private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "token-blocklist-maintenance");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Creates the blocklist.
+	 *
+	 * @param redisTemplate        Access to the shared blocklist.
+	 * @param limiter              Bounds concurrent Redis calls.
+	 * @param jwtService           Reads the revocation slot claims of a token.
+	 * @param failurePolicy        "open" to allow, "closed" to refuse tokens that
+	 *                             cannot be checked.
+	 * @param failureThreshold     Consecutive Redis failures that open the breaker.
+	 * @param openMillis           How long the breaker stays open before a probe.
+	 * @param localTtlMillis       How long a revocation seen in Redis is remembered
+	 *                             locally; at least the token lifetime.
+	 * @param pendingCapacity      Maximum buffered logouts during an outage.
+	 * @param tickMillis           Resolution of local expiry and replay interval.
+	 * @param bitmapEnabled        Whether new tokens get a revocation slot.
+	 * @param bucketMillis         Width of a revocation bitmap expiry bucket.
+	 * @param mirrorIntervalMillis How often the bitmaps are mirrored locally,
+	 *                             or 0 to always ask Redis.
+	 */
+	@Autowired
+	public TokenBlocklist(RedisTemplate<String, String> redisTemplate, BlockingResourceLimiter limiter,
+			JwtService jwtService,
+			@Value("${blocklist.failure-policy:open}") String failurePolicy,
+			@Value("${blocklist.breaker.failure-threshold:5}") int failureThreshold,
+			@Value("${blocklist.breaker.open-ms:5000}") long openMillis,
+			@Value("${blocklist.local-ttl-ms:2700000}") long localTtlMillis,
+			@Value("${blocklist.pending-capacity:10000}") int pendingCapacity,
+			@Value("${blocklist.tick-ms:1000}") long tickMillis,
+			@Value("${blocklist.bitmap.enabled:true}") boolean bitmapEnabled,
+			@Value("${blocklist.bitmap.bucket-ms:300000}") long bucketMillis,
+			@Value("${blocklist.bitmap.mirror-interval-ms:2000}") long mirrorIntervalMillis) {
+		this.redisTemplate = redisTemplate;
+		this.limiter = limiter;
+		this.jwtService = jwtService;
+		this.bitmap = new RevocationBitmap(redisTemplate, bucketMillis, BUCKET_GRACE_MILLIS);
+		this.bitmapEnabled = bitmapEnabled;
+		this.mirrorIntervalMillis = mirrorIntervalMillis;
+		this.failClosed = "closed".equalsIgnoreCase(failurePolicy);
+		this.localTtlMillis = localTtlMillis;
+		this.pendingCapacity = pendingCapacity;
+		this.tickMillis = tickMillis;
+		this.breaker = new CircuitBreaker(failureThreshold, openMillis);
+		this.localStore = new TimingWheelTtlStore(tickMillis, System.currentTimeMillis());
+	}
+
+	@PostConstruct
+	public void start() {
+		maintenance.scheduleWithFixedDelay(this::maintain, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		maintenance.shutdownNow();
+	}
+
+	/**
+	 * Tells whether the token has been revoked.
+	 *
+	 * @param token The bearer token.
+	 * @return true if the token was revoked.
+	 * @throws BlocklistUnavailableException  if Redis cannot be reached, the
+	 *                                        token is not known locally and the
+	 *                                        failure policy is closed.
+	 * @throws ResourceLimitExceededException if no Redis permit became
+	 *                                        available, whatever the failure
+	 *                                        policy.
+	 */
+	public boolean isRevoked(String token) {
+		long now = System.currentTimeMillis();
+		RevocationSlot slot = slotOf(token);
+		if (slot != null ? bitmap.isRevokedLocally(slot) : localStore.contains(token, now)) {
+			return true;
+		}
+		// A recent mirror of the bitmaps answers a miss without asking Redis
+		if (slot != null && mirrorIntervalMillis > 0 && bitmap.isMirrorFresh(now, 2 * mirrorIntervalMillis)) {
+			return false;
+		}
+
+		if (breaker.allowRequest()) {
+			try {
+				boolean revoked = slot != null ? limiter.call(Resource.REDIS, () -> bitmap.isRevokedInRedis(slot))
+						: Boolean.TRUE.equals(
+								limiter.call(Resource.REDIS, () -> redisTemplate.hasKey(KEY_PREFIX + token)));
+				breaker.onSuccess();
+				if (revoked && slot != null) {
+					bitmap.revokeLocally(slot);
+				} else if (revoked) {
+					localStore.put(token, now + localTtlMillis);
+				}
+				return revoked;
+			} catch (ResourceLimitExceededException e) {
+				// Redis is not failing, this node is overloaded: never accept the token unchecked
+				breaker.onSkipped();
+				saturated.incrementAndGet();
+				throw e;
+			} catch (RuntimeException e) {
+				breaker.onFailure();
+				redisFailures.incrementAndGet();
+			}
+		}
+
+		fallbacks.incrementAndGet();
+		if (failClosed) {
+			throw new BlocklistUnavailableException("Token revocation cannot be checked right now, please retry later");
+		}
+		return false;
+	}
+
+	/**
+	 * Tells which of many tokens have been revoked. Tokens not answered
+	 * locally are looked up with one pipelined round trip for the whole batch:
+	 * a GETBIT per slotted token and an EXISTS per other token.
+	 *
+	 * @param tokens The bearer tokens.
+	 * @return Whether each token was revoked, in the order given.
+	 * @throws BlocklistUnavailableException  if Redis cannot be reached, some
+	 *                                        token is not known locally and the
+	 *                                        failure policy is closed.
+	 * @throws ResourceLimitExceededException if no Redis permit became
+	 *                                        available, whatever the failure
+	 *                                        policy.
+	 */
+	public boolean[] areRevoked(List<String> tokens) {
+		long now = System.currentTimeMillis();
+		boolean mirrorFresh = mirrorIntervalMillis > 0 && bitmap.isMirrorFresh(now, 2 * mirrorIntervalMillis);
+		boolean[] revoked = new boolean[tokens.size()];
+		RevocationSlot[] slots = new RevocationSlot[tokens.size()];
+		List<Integer> unanswered = new ArrayList<>();
+		for (int i = 0; i < tokens.size(); i++) {
+			slots[i] = slotOf(tokens.get(i));
+			if (slots[i] != null ? bitmap.isRevokedLocally(slots[i]) : localStore.contains(tokens.get(i), now)) {
+				revoked[i] = true;
+			} else if (slots[i] == null || !mirrorFresh) {
+				unanswered.add(i);
+			}
+		}
+		if (unanswered.isEmpty()) {
+			return revoked;
+		}
+
+		List<Object> answers;
+		try {
+			answers = guarded(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+				for (int i : unanswered) {
+					if (slots[i] != null) {
+						bitmap.queueIsRevoked(connection, slots[i]);
+					} else {
+						connection.keyCommands().exists((KEY_PREFIX + tokens.get(i)).getBytes(StandardCharsets.UTF_8));
+					}
+				}
+				return null;
+			}));
+		} catch (BlocklistUnavailableException e) {
+			fallbacks.addAndGet(unanswered.size());
+			if (failClosed) {
+				throw new BlocklistUnavailableException(
+						"Token revocation cannot be checked right now, please retry later");
+			}
+			return revoked;
+		}
+
+		for (int k = 0; k < unanswered.size(); k++) {
+			int i = unanswered.get(k);
+			if (Boolean.TRUE.equals(answers.get(k))) {
+				revoked[i] = true;
+				if (slots[i] != null) {
+					bitmap.revokeLocally(slots[i]);
+				} else {
+					localStore.put(tokens.get(i), now + localTtlMillis);
+				}
+			}
+		}
+		return revoked;
+	}
+
+	/**
+	 * Revokes a token until it expires. Takes effect on this node at once; when
+	 * Redis is unavailable the write is buffered and replayed later.
+	 *
+	 * @param token           The bearer token.
+	 * @param value           The value stored with the Redis key.
+	 * @param expiresAtMillis When the token expires.
+	 */
+	public void revoke(String token, String value, long expiresAtMillis) {
+		RevocationSlot slot = slotOf(token);
+		if (slot != null) {
+			bitmap.revokeLocally(slot);
+		} else {
+			localStore.put(token, expiresAtMillis);
+		}
+		PendingRevocation revocation = new PendingRevocation(token, slot, value, expiresAtMillis);
+		if (!breaker.allowRequest() || !write(revocation)) {
+			buffer(revocation);
+		}
+	}
+
+	/**
+	 * Reserves a revocation slot for a token about to be issued. Returns null
+	 * when Redis is unavailable; such a token is then revoked with a key of its
+	 * own.
+	 *
+	 * @return The slot to put in the token, or null.
+	 */
+	public RevocationSlot allocateSlot() {
+		if (!bitmapEnabled) {
+			return null;
+		}
+		long bucket = bitmap.bucketOf(System.currentTimeMillis() + JwtService.TOKEN_VALIDITY_MILLIS);
+		try {
+			return guarded(() -> bitmap.allocate(bucket));
+		} catch (BlocklistUnavailableException | ResourceLimitExceededException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Revokes many slotted tokens at once with pipelined SETBIT commands. Takes
+	 * effect on this node at once and on the others with their next mirror
+	 * refresh.
+	 *
+	 * @param slots     The slots of the tokens to revoke.
+	 * @param batchSize The number of commands per pipelined round trip.
+	 * @throws BlocklistUnavailableException if Redis cannot be reached.
+	 */
+	public void revokeSlots(List<RevocationSlot> slots, int batchSize) {
+		for (RevocationSlot slot : slots) {
+			bitmap.revokeLocally(slot);
+		}
+		guarded(() -> {
+			bitmap.revokeAllInRedis(slots, batchSize);
+			return null;
+		});
+	}
+
+	/**
+	 * Returns when the Redis keys of a slot's bucket expire, which is also when
+	 * every token holding a slot of that bucket has expired.
+	 *
+	 * @param slot The slot.
+	 * @return The expiry time in epoch milliseconds.
+	 */
+	public long slotExpiresAt(RevocationSlot slot) {
+		return bitmap.expiresAtOf(slot);
+	}
+
+	/**
+	 * Runs a Redis call under the circuit breaker and the Redis permits, for
+	 * the callers that share this blocklist's view of Redis health.
+	 *
+	 * @param call The Redis call.
+	 * @param <T>  The result type.
+	 * @return The result of the call.
+	 * @throws BlocklistUnavailableException  if the breaker is open or the call
+	 *                                        failed.
+	 * @throws ResourceLimitExceededException if no Redis permit became
+	 *                                        available; the breaker does not
+	 *                                        count it as a failure.
+	 */
+	<T> T guarded(Supplier<T> call) {
+		if (!breaker.allowRequest()) {
+			throw new BlocklistUnavailableException("Redis is unavailable, please retry later");
+		}
+		try {
+			T result = limiter.call(Resource.REDIS, call);
+			breaker.onSuccess();
+			return result;
+		} catch (ResourceLimitExceededException e) {
+			breaker.onSkipped();
+			saturated.incrementAndGet();
+			throw e;
+		} catch (RuntimeException e) {
+			breaker.onFailure();
+			redisFailures.incrementAndGet();
+			throw new BlocklistUnavailableException("Redis is unavailable, please retry later");
+		}
+	}
+
+	/**
+	 * Reports the state of the breaker, the local store and the replay buffer.
+	 *
+	 * @return The blocklist statistics.
+	 */
+	public BlocklistStats stats() {
+		long mirrorSyncedAt = bitmap.getMirrorSyncedAtMillis();
+		return new BlocklistStats(breaker.getState(), failClosed ? "closed" : "open", localStore.size(),
+				bitmap.bucketCount(), mirrorSyncedAt == 0 ? -1 : System.currentTimeMillis() - mirrorSyncedAt,
+				pendingSize.get(), redisFailures.get(), saturated.get(), fallbacks.get(), replayed.get(), dropped.get());
+	}
+
+	// Expires local entries, refreshes the bitmap mirror and replays buffered logouts
+	void maintain() {
+		long now = System.currentTimeMillis();
+		localStore.advance(now);
+		bitmap.dropExpired(now);
+
+		if (mirrorIntervalMillis > 0 && now - lastMirrorRefreshMillis >= mirrorIntervalMillis
+				&& breaker.allowRequest()) {
+			lastMirrorRefreshMillis = now;
+			try {
+				limiter.call(Resource.REDIS, () -> {
+					bitmap.refreshMirror(now, JwtService.TOKEN_VALIDITY_MILLIS);
+					return null;
+				});
+				breaker.onSuccess();
+			} catch (ResourceLimitExceededException e) {
+				breaker.onSkipped();
+				saturated.incrementAndGet();
+			} catch (RuntimeException e) {
+				breaker.onFailure();
+				redisFailures.incrementAndGet();
+			}
+		}
+
+		PendingRevocation next;
+		while ((next = pending.peekFirst()) != null && breaker.allowRequest()) {
+			if (!write(next)) {
+				return; // Still down, keep the buffer for the next tick
+			}
+			if (pending.remove(next)) {
+				pendingSize.decrementAndGet();
+				replayed.incrementAndGet();
+			}
+		}
+	}
+
+	private boolean write(PendingRevocation revocation) {
+		long ttl = revocation.expiresAtMillis - System.currentTimeMillis();
+		if (ttl <= 0) {
+			return true; // Expired meanwhile, nothing left to revoke
+		}
+		try {
+			limiter.call(Resource.REDIS, () -> {
+				if (revocation.slot != null) {
+					bitmap.revokeInRedis(revocation.slot);
+				} else {
+					redisTemplate.opsForValue().set(KEY_PREFIX + revocation.token, revocation.value, ttl,
+							TimeUnit.MILLISECONDS);
+				}
+				return null;
+			});
+			breaker.onSuccess();
+			return true;
+		} catch (ResourceLimitExceededException e) {
+			breaker.onSkipped(); // Buffered and replayed like a failed write, without opening the breaker
+			saturated.incrementAndGet();
+			return false;
+		} catch (RuntimeException e) {
+			breaker.onFailure();
+			redisFailures.incrementAndGet();
+			return false;
+		}
+	}
+
+	private void buffer(PendingRevocation revocation) {
+		pending.addLast(revocation);
+		// Over capacity, drop the oldest: it is still enforced on this node
+		if (pendingSize.incrementAndGet() > pendingCapacity && pending.pollFirst() != null) {
+			pendingSize.decrementAndGet();
+			dropped.incrementAndGet();
+		}
+	}
+
+	// The slot the token was issued with, or null for tokens without one
+	private RevocationSlot slotOf(String token) {
+		return RevocationSlot.parse(jwtService.peekClaim(token, RevocationSlot.BUCKET_CLAIM),
+				jwtService.peekClaim(token, RevocationSlot.SEQUENCE_CLAIM));
+	}
+
+	/**
+	 * A logout not yet written to Redis.
+	 */
+	private record PendingRevocation(String token, RevocationSlot slot, String value, long expiresAtMillis) {
+	}
+}
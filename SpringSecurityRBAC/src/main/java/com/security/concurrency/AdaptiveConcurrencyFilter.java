@@ -0,0 +1,130 @@
+package com.security.concurrency;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sheds load before any authentication work is done. Each endpoint class
+ * (auth, reads, writes) has its own AdaptiveConcurrencyLimit, so a slow
+ * dependency behind one class does not use up the capacity of the others.
+ * A request over the limit is answered right away with Service Unavailable
+ * (503) and a Retry-After header, rather than waiting in the Tomcat queue.
+ */
+@Component
+public class AdaptiveConcurrencyFilter extends OncePerRequestFilter {
+
+	/**
+	 * The endpoint classes that get separate limits.
+	 */
+	public enum EndpointClass {
+		AUTH, // Login, registration and logout: BCrypt and Redis bound
+		READS, // Lookups and searches
+		WRITES // Creates, updates and deletes
+	}
+
+	private static final Set<String> AUTH_PATHS = Set.of("/loginStudent", "/registerStudent", "/logoutStudent");
+
+	// POST endpoints that only read, because their input does not fit in a URL
+	private static final Set<String> READ_POST_PATHS = Set.of("/user/getStudentsByIds", "/introspect",
+			"/introspect/batch");
+
+	private final boolean enabled;
+
+	private final Map<EndpointClass, AdaptiveConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+
+	/**
+	 * Creates the filter and one limit per endpoint class.
+	 *
+	 * @param enabled        Whether load shedding is active.
+	 * @param minLimit       Lowest in-flight limit of any class.
+	 * @param smoothing      Share of a new estimate applied per sample.
+	 * @param authMaxLimit   Highest in-flight limit for auth requests.
+	 * @param readsMaxLimit  Highest in-flight limit for reads.
+	 * @param writesMaxLimit Highest in-flight limit for writes.
+	 */
+	@Autowired
+	public AdaptiveConcurrencyFilter(@Value("${limits.adaptive.enabled:true}") boolean enabled,
+			@Value("${limits.adaptive.min-limit:4}") int minLimit,
+			@Value("${limits.adaptive.smoothing:0.2}") double smoothing,
+			@Value("${limits.adaptive.auth.max-limit:32}") int authMaxLimit,
+			@Value("${limits.adaptive.reads.max-limit:200}") int readsMaxLimit,
+			@Value("${limits.adaptive.writes.max-limit:100}") int writesMaxLimit) {
+		this.enabled = enabled;
+		limits.put(EndpointClass.AUTH, limit("auth", minLimit, authMaxLimit, smoothing));
+		limits.put(EndpointClass.READS, limit("reads", minLimit, readsMaxLimit, smoothing));
+		limits.put(EndpointClass.WRITES, limit("writes", minLimit, writesMaxLimit, smoothing));
+	}
+
+	// Starts at the maximum and lets rising latency lower it, so that a fresh node
+	// does not shed requests, such as slow BCrypt logins, before it has measured anything
+	private static AdaptiveConcurrencyLimit limit(String name, int minLimit, int maxLimit, double smoothing) {
+		return new AdaptiveConcurrencyLimit(name, maxLimit, minLimit, maxLimit, smoothing);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		if (!enabled) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		AdaptiveConcurrencyLimit limit = limits.get(classify(request));
+		if (!limit.tryAcquire()) {
+			// Over the limit, answer with Service Unavailable (503) right away
+			response.setContentType("application/json");
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			response.setHeader("Retry-After", "1");
+			response.getWriter().write("{\"error\": \"Service Unavailable\", \"message\": \"Too many concurrent "
+					+ limit.getName() + " requests, please retry later\"}");
+			return;
+		}
+
+		long start = System.nanoTime();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			limit.release(System.nanoTime() - start);
+		}
+	}
+
+	static EndpointClass classify(HttpServletRequest request) {
+		String path = request.getServletPath();
+		if (AUTH_PATHS.contains(path)) {
+			return EndpointClass.AUTH;
+		}
+		String method = request.getMethod();
+		if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)
+				|| READ_POST_PATHS.contains(path)) {
+			return EndpointClass.READS;
+		}
+		return EndpointClass.WRITES;
+	}
+
+	/**
+	 * Reports the state of the limit of every endpoint class.
+	 *
+	 * @return The statistics of each limit.
+	 */
+	public List<ConcurrencyLimitStats> stats() {
+		List<ConcurrencyLimitStats> stats = new ArrayList<>();
+		for (AdaptiveConcurrencyLimit limit : limits.values()) {
+			stats.add(limit.stats());
+		}
+		return stats;
+	}
+}
@@ -0,0 +1,129 @@
+package com.security.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A concurrency limit that adapts to observed latency, in the style of the
+ * gradient algorithm: it keeps a slow moving average of the latency (the
+ * baseline) and a fast one (the current latency). While the current latency
+ * stays near the baseline the limit grows by a small queue allowance; when a
+ * dependency slows down and the current latency rises, the limit shrinks in
+ * proportion, so excess requests are rejected at once instead of queueing.
+ *
+ * Requests that find the limit reached are not admitted. The limit is only
+ * adjusted from samples taken while the limit was actually being used, so a
+ * quiet period does not inflate it.
+ */
+public class AdaptiveConcurrencyLimit {
+
+	private static final double SHORT_WINDOW = 10; // Samples in the fast average
+
+	private static final double LONG_WINDOW = 600; // Samples in the baseline
+
+	private static final double TOLERANCE = 1.5; // Latency increase accepted before backing off
+
+	private final String name;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final double smoothing;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	private volatile double limit;
+
+	// Guarded by this
+	private double shortRttNanos;
+	private double longRttNanos;
+
+	/**
+	 * Creates a limit.
+	 *
+	 * @param name         The endpoint class the limit applies to.
+	 * @param initialLimit The limit before any latency was observed.
+	 * @param minLimit     The limit never goes below this.
+	 * @param maxLimit     The limit never goes above this.
+	 * @param smoothing    How much of a new estimate is applied per sample,
+	 *                     between 0 and 1.
+	 */
+	public AdaptiveConcurrencyLimit(String name, int initialLimit, int minLimit, int maxLimit, double smoothing) {
+		this.name = name;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.smoothing = smoothing;
+		this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+	}
+
+	/**
+	 * Admits a request if fewer requests than the current limit are in flight.
+	 * An admitted request must be followed by exactly one call to release.
+	 *
+	 * @return true if the request was admitted.
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			int current = inFlight.get();
+			if (current >= (int) limit) {
+				rejected.incrementAndGet();
+				return false;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Ends an admitted request and feeds its latency into the estimate.
+	 *
+	 * @param rttNanos How long the request took.
+	 */
+	public void release(long rttNanos) {
+		int inFlightAtEnd = inFlight.getAndDecrement();
+		onSample(rttNanos, inFlightAtEnd);
+	}
+
+	private synchronized void onSample(long rttNanos, int inFlightAtEnd) {
+		if (longRttNanos == 0) {
+			shortRttNanos = rttNanos;
+			longRttNanos = rttNanos;
+			return;
+		}
+		shortRttNanos += (rttNanos - shortRttNanos) / SHORT_WINDOW;
+		longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+
+		// After a long slowdown the baseline has drifted up; pull it back towards now
+		if (longRttNanos / shortRttNanos > 2) {
+			longRttNanos *= 0.95;
+		}
+
+		// The limit is not the bottleneck, so the sample says nothing about it
+		if (inFlightAtEnd < limit / 2) {
+			return;
+		}
+
+		double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+		double estimate = limit * gradient + Math.sqrt(limit);
+		double next = limit * (1 - smoothing) + estimate * smoothing;
+		limit = Math.max(minLimit, Math.min(maxLimit, next));
+	}
+
+	/**
+	 * Reports the current state of the limit.
+	 *
+	 * @return The limit statistics.
+	 */
+	public synchronized ConcurrencyLimitStats stats() {
+		return new ConcurrencyLimitStats(name, (int) limit, inFlight.get(), rejected.get(), shortRttNanos / 1e6,
+				longRttNanos / 1e6);
+	}
+
+	public String getName() {
+		return name;
+	}
+}
@@ -0,0 +1,30 @@
+package com.security.concurrency;
+
+import com.security.studentdto.Role;
+
+/**
+ * The priority classes used for admission under overload, one per Role plus
+ * one for requests without a token (login and registration).
+ */
+public enum AdmissionPriority {
+	ADMIN, MODERATOR, USER, ANONYMOUS;
+
+	/**
+	 * Maps the role claim of a token ("ROLE_ADMIN", ...) to its priority class.
+	 *
+	 * @param roleClaim The role claim, or null when there is no token.
+	 * @return The priority class, ANONYMOUS for a missing or unknown role.
+	 */
+	public static AdmissionPriority fromRoleClaim(String roleClaim) {
+		if (roleClaim == null) {
+			return ANONYMOUS;
+		}
+		String name = roleClaim.startsWith("ROLE_") ? roleClaim.substring(5) : roleClaim;
+		for (Role role : Role.values()) {
+			if (role.name().equals(name)) {
+				return valueOf(role.name());
+			}
+		}
+		return ANONYMOUS;
+	}
+}
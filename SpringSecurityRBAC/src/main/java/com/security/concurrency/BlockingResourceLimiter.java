@@ -0,0 +1,96 @@
+package com.security.concurrency;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.security.exception.ResourceLimitExceededException;
+
+/**
+ * Bounds the number of concurrent calls into scarce resources. With request
+ * handling on virtual threads the number of in-flight requests is no longer
+ * capped by the Tomcat thread pool, so the truly limited resources are guarded
+ * here instead: Redis connections and CPU-bound password hashing. Database
+ * connections are already bounded the same way by the Hikari pool
+ * (spring.datasource.hikari.maximum-pool-size and connection-timeout).
+ *
+ * A caller that cannot get a permit within the acquire timeout fails fast with
+ * ResourceLimitExceededException instead of queueing forever.
+ */
+@Component
+public class BlockingResourceLimiter {
+
+	/**
+	 * The resources guarded by the limiter.
+	 */
+	public enum Resource {
+		REDIS, // Blocklist lookups and writes
+		HASHING // BCrypt encoding and verification
+	}
+
+	private final Map<Resource, Semaphore> permits = new EnumMap<>(Resource.class);
+
+	private final long acquireTimeoutMillis;
+
+	/**
+	 * Creates the limiter.
+	 *
+	 * @param redisPermits         Maximum concurrent Redis calls.
+	 * @param hashingPermits       Maximum concurrent BCrypt operations, or 0 for
+	 *                             the number of available processors.
+	 * @param acquireTimeoutMillis How long a caller waits for a permit.
+	 */
+	@Autowired
+	public BlockingResourceLimiter(@Value("${limits.redis.permits:64}") int redisPermits,
+			@Value("${limits.hashing.permits:0}") int hashingPermits,
+			@Value("${limits.acquire-timeout-ms:2000}") long acquireTimeoutMillis) {
+		this.permits.put(Resource.REDIS, new Semaphore(redisPermits, true));
+		this.permits.put(Resource.HASHING, new Semaphore(
+				hashingPermits > 0 ? hashingPermits : Runtime.getRuntime().availableProcessors(), true));
+		this.acquireTimeoutMillis = acquireTimeoutMillis;
+	}
+
+	/**
+	 * Runs the action while holding a permit for the given resource.
+	 *
+	 * @param resource The resource the action uses.
+	 * @param action   The blocking call to run.
+	 * @param <T>      The result type of the action.
+	 * @return The result of the action.
+	 * @throws ResourceLimitExceededException If no permit became available in
+	 *                                        time.
+	 */
+	public <T> T call(Resource resource, Supplier<T> action) {
+		Semaphore semaphore = permits.get(resource);
+		try {
+			if (!semaphore.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new ResourceLimitExceededException(resource + " is saturated, please retry later");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ResourceLimitExceededException("Interrupted while waiting for " + resource);
+		}
+
+		try {
+			return action.get();
+		} finally {
+			semaphore.release();
+		}
+	}
+
+	/**
+	 * Returns the number of permits currently free for a resource.
+	 *
+	 * @param resource The resource to inspect.
+	 * @return The free permits.
+	 */
+	public int availablePermits(Resource resource) {
+		return permits.get(resource).availablePermits();
+	}
+}
@@ -0,0 +1,15 @@
+package com.security.concurrency;
+
+/**
+ * State of one adaptive concurrency limit.
+ *
+ * @param endpointClass     The endpoint class the limit applies to.
+ * @param limit             The current in-flight limit.
+ * @param inFlight          The requests currently admitted.
+ * @param rejected          Requests shed since startup.
+ * @param recentLatencyMs   Fast moving average of the latency.
+ * @param baselineLatencyMs Slow moving average of the latency.
+ */
+public record ConcurrencyLimitStats(String endpointClass, int limit, int inFlight, long rejected,
+		double recentLatencyMs, double baselineLatencyMs) {
+}
@@ -0,0 +1,48 @@
+package com.security.concurrency;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.security.concurrency.BlockingResourceLimiter.Resource;
+import com.security.exception.ResourceLimitExceededException;
+
+/**
+ * Runs the CPU-bound work of a PasswordEncoder under a hashing permit of the
+ * BlockingResourceLimiter. Wrapping the encoder, rather than the whole call
+ * to the AuthenticationManager, keeps the permit to the BCrypt computation
+ * itself: the user lookup before it does not hold one, so a slow database
+ * cannot starve logins of hashing permits.
+ */
+public class LimitedPasswordEncoder implements PasswordEncoder {
+
+	private final PasswordEncoder delegate;
+
+	private final BlockingResourceLimiter limiter;
+
+	public LimitedPasswordEncoder(PasswordEncoder delegate, BlockingResourceLimiter limiter) {
+		this.delegate = delegate;
+		this.limiter = limiter;
+	}
+
+	/**
+	 * @throws ResourceLimitExceededException If no hashing permit became
+	 *                                        available in time.
+	 */
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return limiter.call(Resource.HASHING, () -> delegate.encode(rawPassword));
+	}
+
+	/**
+	 * @throws ResourceLimitExceededException If no hashing permit became
+	 *                                        available in time.
+	 */
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return limiter.call(Resource.HASHING, () -> delegate.matches(rawPassword, encodedPassword));
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+}
@@ -0,0 +1,118 @@
+package com.security.concurrency;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.security.blocklist.OpaqueSessionStore;
+import com.security.jwtservice.JwtService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admits requests through WeightedFairAdmission keyed by the Role in the
+ * bearer token, so that when the node is saturated admin and moderator
+ * requests are served ahead of the bulk of user traffic. The role of a JWT
+ * is only taken once its signature and expiry are verified, so a forged role
+ * claim cannot jump the queue; such a request waits as ANONYMOUS. An opaque
+ * token is classified by the session this node already knows, which cannot
+ * be forged either.
+ *
+ * While a slot is free the request is admitted without being classified, so
+ * the token is only verified here, on top of JwtFilter, for the requests
+ * that have to queue.
+ */
+@Component
+public class PriorityAdmissionFilter extends OncePerRequestFilter {
+
+	@Autowired
+	private JwtService jwtService; // Verifies the bearer token and reads its role claim
+
+	@Autowired
+	private OpaqueSessionStore sessionStore; // Knows the role of opaque tokens seen on this node
+
+	private final boolean enabled;
+
+	private final WeightedFairAdmission admission;
+
+	/**
+	 * Creates the filter.
+	 *
+	 * @param enabled            Whether priority admission is active.
+	 * @param permits            Requests allowed in flight past this filter.
+	 * @param maxQueueLength     Requests of one priority allowed to wait.
+	 * @param queueTimeoutMillis How long a request waits for a slot.
+	 * @param adminWeight        Weight of ADMIN requests.
+	 * @param moderatorWeight    Weight of MODERATOR requests.
+	 * @param userWeight         Weight of USER requests.
+	 * @param anonymousWeight    Weight of requests without a token.
+	 */
+	@Autowired
+	public PriorityAdmissionFilter(@Value("${limits.priority.enabled:true}") boolean enabled,
+			@Value("${limits.priority.permits:150}") int permits,
+			@Value("${limits.priority.max-queue-length:10}") int maxQueueLength,
+			@Value("${limits.priority.queue-timeout-ms:1000}") long queueTimeoutMillis,
+			@Value("${limits.priority.weight.admin:8}") int adminWeight,
+			@Value("${limits.priority.weight.moderator:4}") int moderatorWeight,
+			@Value("${limits.priority.weight.user:1}") int userWeight,
+			@Value("${limits.priority.weight.anonymous:1}") int anonymousWeight) {
+		this.enabled = enabled;
+		this.admission = new WeightedFairAdmission(permits,
+				Map.of(AdmissionPriority.ADMIN, adminWeight, AdmissionPriority.MODERATOR, moderatorWeight,
+						AdmissionPriority.USER, userWeight, AdmissionPriority.ANONYMOUS, anonymousWeight),
+				maxQueueLength, queueTimeoutMillis);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		if (!enabled) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		if (!admission.tryAcquire() && !admission.acquire(classify(request))) {
+			// Saturated and this priority's queue is full or waited too long
+			response.setContentType("application/json");
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			response.setHeader("Retry-After", "1");
+			response.getWriter()
+					.write("{\"error\": \"Service Unavailable\", \"message\": \"Server is busy, please retry later\"}");
+			return;
+		}
+
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			admission.release();
+		}
+	}
+
+	private AdmissionPriority classify(HttpServletRequest request) {
+		String authHeader = request.getHeader("Authorization");
+		String roleClaim = null;
+		if (authHeader != null && authHeader.startsWith("Bearer ")) {
+			String token = authHeader.substring(7);
+			roleClaim = sessionStore.isEnabled() && OpaqueSessionStore.isOpaque(token) ? sessionStore.peekRole(token)
+					: jwtService.verifiedRole(token);
+		}
+		return AdmissionPriority.fromRoleClaim(roleClaim);
+	}
+
+	/**
+	 * Reports the queue-wait metrics of every priority class.
+	 *
+	 * @return The statistics of each class.
+	 */
+	public List<PriorityAdmissionStats> stats() {
+		return admission.stats();
+	}
+}
@@ -0,0 +1,18 @@
+package com.security.concurrency;
+
+/**
+ * Queue-wait metrics of one admission priority class.
+ *
+ * @param priority  The priority class.
+ * @param weight    Its share of the capacity under contention.
+ * @param queued    Requests currently waiting.
+ * @param admitted  Requests admitted since startup.
+ * @param rejected  Requests refused because the queue was full.
+ * @param timedOut  Requests that gave up waiting.
+ * @param avgWaitMs Average queue wait of admitted requests.
+ * @param p99WaitMs 99th percentile queue wait (upper bound of its bucket).
+ * @param maxWaitMs Longest queue wait seen.
+ */
+public record PriorityAdmissionStats(AdmissionPriority priority, int weight, int queued, long admitted,
+		long rejected, long timedOut, double avgWaitMs, double p99WaitMs, double maxWaitMs) {
+}
@@ -0,0 +1,287 @@
+package com.security.concurrency;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admits requests into a fixed number of in-flight slots. While slots are
+ * free a request is admitted at once; when the node is saturated, requests
+ * wait in one queue per priority class and freed slots are handed out by
+ * weighted fair queuing: every waiter gets a virtual finish tag of
+ * max(virtual time, last tag of its class) + 1 / weight, and the waiter with
+ * the smallest tag is served next. A class with weight 8 therefore gets eight
+ * slots for every one of a weight 1 class, while no class ever starves.
+ *
+ * Queues are bounded and waits time out, so queued requests cannot hold the
+ * container threads forever.
+ */
+public class WeightedFairAdmission {
+
+	// Upper bounds of the queue-wait histogram buckets, in milliseconds
+	private static final long[] WAIT_BUCKETS_MS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000 };
+
+	private final int permits;
+
+	private final int maxQueueLength;
+
+	private final long queueTimeoutMillis;
+
+	private final Map<AdmissionPriority, PriorityClass> classes = new EnumMap<>(AdmissionPriority.class);
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// Requests admitted by tryAcquire, which are not classified
+	private final AtomicLong immediate = new AtomicLong();
+
+	// Guarded by lock
+	private int inUse;
+	private double virtualTime;
+
+	/**
+	 * Creates the admission controller.
+	 *
+	 * @param permits            The number of requests allowed in flight.
+	 * @param weights            The weight of each priority class.
+	 * @param maxQueueLength     How many requests of one class may wait.
+	 * @param queueTimeoutMillis How long a request waits before giving up.
+	 */
+	public WeightedFairAdmission(int permits, Map<AdmissionPriority, Integer> weights, int maxQueueLength,
+			long queueTimeoutMillis) {
+		this.permits = permits;
+		this.maxQueueLength = maxQueueLength;
+		this.queueTimeoutMillis = queueTimeoutMillis;
+		for (AdmissionPriority priority : AdmissionPriority.values()) {
+			classes.put(priority, new PriorityClass(priority, Math.max(1, weights.getOrDefault(priority, 1))));
+		}
+	}
+
+	/**
+	 * Takes a slot if one is free and nobody is queued, without waiting. Lets
+	 * the caller skip classifying the request while the node is not
+	 * saturated. An admitted request must be followed by exactly one call to
+	 * release.
+	 *
+	 * @return true if admitted, false if the request has to queue.
+	 */
+	public boolean tryAcquire() {
+		lock.lock();
+		try {
+			if (inUse < permits && noneQueued()) {
+				inUse++;
+				immediate.incrementAndGet();
+				return true;
+			}
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits for a slot. An admitted request must be followed by exactly one
+	 * call to release.
+	 *
+	 * @param priority The priority class of the request.
+	 * @return true if admitted, false if the queue was full or the wait timed
+	 *         out.
+	 */
+	public boolean acquire(AdmissionPriority priority) {
+		PriorityClass priorityClass = classes.get(priority);
+		long start = System.nanoTime();
+		Waiter waiter;
+
+		lock.lock();
+		try {
+			if (inUse < permits && noneQueued()) {
+				inUse++;
+				priorityClass.recordWait(0);
+				return true;
+			}
+			if (priorityClass.queue.size() >= maxQueueLength) {
+				priorityClass.rejected.incrementAndGet();
+				return false;
+			}
+			double finish = Math.max(virtualTime, priorityClass.lastFinish) + 1.0 / priorityClass.weight;
+			priorityClass.lastFinish = finish;
+			waiter = new Waiter(finish);
+			priorityClass.queue.add(waiter);
+		} finally {
+			lock.unlock();
+		}
+		onQueued(priority);
+
+		boolean signalled;
+		try {
+			signalled = waiter.latch.await(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			signalled = false;
+		}
+
+		if (!signalled) {
+			lock.lock();
+			try {
+				// The slot may have been handed over right after the timeout
+				if (!waiter.granted) {
+					priorityClass.queue.remove(waiter);
+					priorityClass.timedOut.incrementAndGet();
+					return false;
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+		priorityClass.recordWait(System.nanoTime() - start);
+		return true;
+	}
+
+	/**
+	 * Frees the slot of an admitted request, handing it straight to the waiter
+	 * with the smallest finish tag if there is one.
+	 */
+	public void release() {
+		lock.lock();
+		try {
+			PriorityClass next = null;
+			for (PriorityClass candidate : classes.values()) {
+				Waiter head = candidate.queue.peek();
+				if (head != null && (next == null || head.finish < next.queue.peek().finish)) {
+					next = candidate;
+				}
+			}
+			if (next == null) {
+				inUse--;
+				return;
+			}
+			Waiter waiter = next.queue.poll();
+			virtualTime = waiter.finish;
+			waiter.granted = true;
+			waiter.latch.countDown();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Called once a request has joined the queue of its class, before it
+	 * starts waiting. Does nothing; lets tests fix the arrival order.
+	 *
+	 * @param priority The priority class of the request.
+	 */
+	void onQueued(AdmissionPriority priority) {
+	}
+
+	private boolean noneQueued() {
+		for (PriorityClass priorityClass : classes.values()) {
+			if (!priorityClass.queue.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of requests admitted by tryAcquire.
+	 *
+	 * @return The requests admitted without being classified.
+	 */
+	public long getImmediate() {
+		return immediate.get();
+	}
+
+	/**
+	 * Reports the queue-wait metrics of every priority class. Requests admitted
+	 * by tryAcquire belong to no class and are not included.
+	 *
+	 * @return The statistics of each class, highest priority first.
+	 */
+	public List<PriorityAdmissionStats> stats() {
+		List<PriorityAdmissionStats> stats = new ArrayList<>();
+		lock.lock();
+		try {
+			for (PriorityClass priorityClass : classes.values()) {
+				stats.add(priorityClass.stats());
+			}
+		} finally {
+			lock.unlock();
+		}
+		return stats;
+	}
+
+	/**
+	 * A request waiting for a slot.
+	 */
+	private static final class Waiter {
+
+		private final double finish;
+		private final CountDownLatch latch = new CountDownLatch(1);
+		private volatile boolean granted;
+
+		private Waiter(double finish) {
+			this.finish = finish;
+		}
+	}
+
+	/**
+	 * The queue, finish tag and metrics of one priority class.
+	 */
+	private static final class PriorityClass {
+
+		private final AdmissionPriority priority;
+		private final int weight;
+		private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+		private double lastFinish;
+
+		private final AtomicLong rejected = new AtomicLong();
+		private final AtomicLong timedOut = new AtomicLong();
+		private final AtomicLong admitted = new AtomicLong();
+		private final AtomicLong totalWaitNanos = new AtomicLong();
+		private final AtomicLong maxWaitNanos = new AtomicLong();
+		private final AtomicLongArray waitBuckets = new AtomicLongArray(WAIT_BUCKETS_MS.length + 1);
+
+		private PriorityClass(AdmissionPriority priority, int weight) {
+			this.priority = priority;
+			this.weight = weight;
+		}
+
+		void recordWait(long waitNanos) {
+			admitted.incrementAndGet();
+			totalWaitNanos.addAndGet(waitNanos);
+			maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+			long waitMillis = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+			int bucket = 0;
+			while (bucket < WAIT_BUCKETS_MS.length && waitMillis >= WAIT_BUCKETS_MS[bucket]) {
+				bucket++;
+			}
+			waitBuckets.incrementAndGet(bucket);
+		}
+
+		PriorityAdmissionStats stats() {
+			long count = admitted.get();
+			double avgWaitMs = count == 0 ? 0 : totalWaitNanos.get() / 1e6 / count;
+			return new PriorityAdmissionStats(priority, weight, queue.size(), count, rejected.get(), timedOut.get(),
+					avgWaitMs, percentileMs(count, 0.99), maxWaitNanos.get() / 1e6);
+		}
+
+		// Upper bound of the bucket holding the given percentile
+		private double percentileMs(long count, double percentile) {
+			long target = (long) Math.ceil(count * percentile);
+			long seen = 0;
+			for (int i = 0; i < waitBuckets.length(); i++) {
+				seen += waitBuckets.get(i);
+				if (seen >= target && seen > 0) {
+					return i < WAIT_BUCKETS_MS.length ? WAIT_BUCKETS_MS[i] : maxWaitNanos.get() / 1e6;
+				}
+			}
+			return 0;
+		}
+	}
+}
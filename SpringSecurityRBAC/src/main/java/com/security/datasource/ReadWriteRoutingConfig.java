@@ -0,0 +1,99 @@
+package com.security.datasource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Replaces the single auto-configured DataSource with a read/write routing one
+ * when datasource.routing.enabled=true. Methods running in a read-only
+ * transaction (@Transactional(readOnly = true)) read from the replicas, all
+ * other work goes to the primary, and a request that has written keeps
+ * reading from the primary until it ends.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.routing.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReadWriteRoutingConfig {
+
+	/**
+	 * The pools of the primary and the replicas behind the router.
+	 */
+	@Bean
+	public ReadWriteRoutingDataSource readWriteRoutingDataSource(DataSourceProperties primaryProperties,
+			ReplicaDataSourceProperties routingProperties, Environment environment) {
+		if (routingProperties.getReplicas().isEmpty()) {
+			throw new IllegalStateException(
+					"datasource.routing.enabled is set but no datasource.routing.replicas are configured");
+		}
+
+		// The primary keeps the spring.datasource.hikari.* pool settings
+		HikariDataSource primary = primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+		primary.setPoolName("primary");
+
+		Map<String, DataSource> replicas = new LinkedHashMap<>();
+		int index = 0;
+		for (ReplicaDataSourceProperties.Replica replica : routingProperties.getReplicas()) {
+			String name = replica.getName() != null ? replica.getName() : "replica-" + index;
+			index++;
+
+			HikariDataSource pool = new HikariDataSource();
+			pool.setPoolName(name);
+			pool.setJdbcUrl(replica.getUrl());
+			pool.setUsername(replica.getUsername());
+			pool.setPassword(replica.getPassword());
+			pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+			pool.setConnectionTimeout(primary.getConnectionTimeout());
+			pool.setReadOnly(true);
+			replicas.put(name, pool);
+		}
+
+		return new ReadWriteRoutingDataSource(primary, replicas);
+	}
+
+	/**
+	 * The DataSource used by JPA. The lazy proxy defers fetching a connection to
+	 * the first statement, when the transaction's read-only flag is already set.
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+		return new LazyConnectionDataSourceProxy(routingDataSource);
+	}
+
+	@Bean(initMethod = "start", destroyMethod = "stop")
+	public ReplicaLagMonitor replicaLagMonitor(ReadWriteRoutingDataSource routingDataSource,
+			ReplicaDataSourceProperties routingProperties) {
+		return new ReplicaLagMonitor(routingDataSource,
+				routingProperties.getHeartbeatIntervalMillis(), routingProperties.getMaxLagMillis());
+	}
+
+	/**
+	 * Clears the read-your-writes state around every request, ahead of the
+	 * security filters which already read the login details.
+	 */
+	@Bean
+	public FilterRegistrationBean<ReadWriteRoutingFilter> readWriteRoutingFilter() {
+		FilterRegistrationBean<ReadWriteRoutingFilter> registration = new FilterRegistrationBean<>(
+				new ReadWriteRoutingFilter());
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+}
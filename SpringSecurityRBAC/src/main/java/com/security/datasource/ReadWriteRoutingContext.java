@@ -0,0 +1,59 @@
+package com.security.datasource;
+
+/**
+ * Per-request memory of whether the current request has already written to
+ * the primary. Once it has, its later reads are also sent to the primary, so a
+ * request always reads its own writes even when the replicas lag behind.
+ *
+ * Only ReadWriteRoutingFilter clears the memory at the end of a request, and it
+ * is registered with the routing data source alone; without read/write routing
+ * markWritten therefore does nothing, so that no pooled thread is left holding
+ * a value.
+ */
+public final class ReadWriteRoutingContext {
+
+	private static final ThreadLocal<Boolean> WRITTEN = new ThreadLocal<>();
+
+	// Set once a ReadWriteRoutingDataSource exists, i.e. datasource.routing.enabled=true
+	private static volatile boolean enabled;
+
+	private ReadWriteRoutingContext() {
+	}
+
+	/**
+	 * Pins the rest of the current request to the primary. Called when a
+	 * read-write connection is used, and by write paths before their checks.
+	 */
+	public static void markWritten() {
+		if (enabled) {
+			WRITTEN.set(Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Tells whether the current request has written, or is about to.
+	 *
+	 * @return true if later reads must stay on the primary.
+	 */
+	public static boolean hasWritten() {
+		return WRITTEN.get() != null;
+	}
+
+	/**
+	 * Turns the memory on or off, when the routing data source is created or
+	 * destroyed.
+	 *
+	 * @param routing true while connections are routed between the primary and
+	 *                the replicas.
+	 */
+	static void setEnabled(boolean routing) {
+		enabled = routing;
+	}
+
+	/**
+	 * Forgets the state of the finished request.
+	 */
+	public static void clear() {
+		WRITTEN.remove();
+	}
+}
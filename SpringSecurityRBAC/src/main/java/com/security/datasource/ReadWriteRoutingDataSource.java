@@ -0,0 +1,118 @@
+package com.security.datasource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes connections of read-only transactions to the replicas (round-robin
+ * over the replicas that are currently healthy) and everything else to the
+ * primary. It must be wrapped in a LazyConnectionDataSourceProxy so that the
+ * routing decision is taken at the first statement, once the transaction's
+ * read-only flag is known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+	static final String PRIMARY = "primary";
+
+	private final DataSource primary;
+
+	private final Map<String, DataSource> replicas;
+
+	private final List<String> replicaNames;
+
+	private final AtomicInteger nextReplica = new AtomicInteger();
+
+	// Replaced by the lag monitor, so lagging replicas are skipped
+	private volatile Predicate<String> replicaUsable = name -> true;
+
+	/**
+	 * Creates the routing data source.
+	 *
+	 * @param primary  The read-write primary.
+	 * @param replicas The read replicas by name, in configuration order.
+	 */
+	public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas) {
+		this.primary = primary;
+		this.replicas = new LinkedHashMap<>(replicas);
+		this.replicaNames = new ArrayList<>(replicas.keySet());
+
+		Map<Object, Object> targets = new HashMap<>(replicas);
+		targets.put(PRIMARY, primary);
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+		ReadWriteRoutingContext.setEnabled(true);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+		if (!readOnly) {
+			// A read-write transaction pins the rest of the request to the primary
+			if (TransactionSynchronizationManager.isActualTransactionActive()) {
+				ReadWriteRoutingContext.markWritten();
+			}
+			return PRIMARY;
+		}
+		if (ReadWriteRoutingContext.hasWritten()) {
+			return PRIMARY;
+		}
+
+		// Round-robin, skipping replicas that are unhealthy or too far behind
+		int size = replicaNames.size();
+		int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(size, 1));
+		for (int i = 0; i < size; i++) {
+			String name = replicaNames.get((start + i) % size);
+			if (replicaUsable.test(name)) {
+				return name;
+			}
+		}
+		return PRIMARY;
+	}
+
+	/**
+	 * Sets the check deciding whether a replica may currently serve reads.
+	 *
+	 * @param replicaUsable Tells, by replica name, if it is usable.
+	 */
+	public void setReplicaUsable(Predicate<String> replicaUsable) {
+		this.replicaUsable = replicaUsable;
+	}
+
+	public DataSource getPrimary() {
+		return primary;
+	}
+
+	public Map<String, DataSource> getReplicas() {
+		return replicas;
+	}
+
+	/**
+	 * Closes the pools of the primary and the replicas.
+	 */
+	@Override
+	public void destroy() throws Exception {
+		ReadWriteRoutingContext.setEnabled(false);
+		for (DataSource dataSource : replicas.values()) {
+			close(dataSource);
+		}
+		close(primary);
+	}
+
+	private static void close(DataSource dataSource) throws Exception {
+		if (dataSource instanceof AutoCloseable closeable) {
+			closeable.close();
+		}
+	}
+}
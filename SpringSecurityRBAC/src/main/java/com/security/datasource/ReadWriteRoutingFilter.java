@@ -0,0 +1,29 @@
+package com.security.datasource;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Scopes read-your-writes to a request: every request starts free to read from
+ * the replicas, and whatever it wrote no longer pins the pooled thread once it
+ * is done.
+ */
+public class ReadWriteRoutingFilter extends OncePerRequestFilter {
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		ReadWriteRoutingContext.clear();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			ReadWriteRoutingContext.clear();
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.security.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration of read/write routing, bound from the datasource.routing.*
+ * properties. The primary keeps using the spring.datasource.* properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datasource.routing")
+public class ReplicaDataSourceProperties {
+
+	/**
+	 * Whether read-only transactions are routed to the replicas.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * The read replicas, tried round-robin.
+	 */
+	private List<Replica> replicas = new ArrayList<>();
+
+	/**
+	 * Replicas further behind the primary than this stop serving reads.
+	 */
+	private long maxLagMillis = 5000;
+
+	/**
+	 * How often the primary writes a heartbeat and the replica lag is measured.
+	 */
+	private long heartbeatIntervalMillis = 1000;
+
+	/**
+	 * Connection settings of one read replica.
+	 */
+	@Getter
+	@Setter
+	public static class Replica {
+
+		/**
+		 * Name used in routing and lag reports, "replica-N" when not set.
+		 */
+		private String name;
+
+		private String url;
+
+		private String username;
+
+		private String password;
+
+		private int maximumPoolSize = 20;
+
+	}
+}
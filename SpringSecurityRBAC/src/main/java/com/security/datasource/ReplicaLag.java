@@ -0,0 +1,14 @@
+package com.security.datasource;
+
+/**
+ * Replication lag of one read replica as last measured by ReplicaLagMonitor.
+ *
+ * @param name            The replica name.
+ * @param lagMillis       How far the replica is behind the primary, or -1 when
+ *                        it could not be measured.
+ * @param usable          Whether the replica currently serves reads.
+ * @param checkedAtMillis When the lag was measured, in epoch milliseconds.
+ * @param error           Why the lag could not be measured, or null.
+ */
+public record ReplicaLag(String name, long lagMillis, boolean usable, long checkedAtMillis, String error) {
+}
@@ -0,0 +1,134 @@
+package com.security.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Measures the replication lag of every replica with a heartbeat row. On each
+ * tick the monitor first reads the heartbeat each replica has applied, then
+ * writes a new one on the primary; a replica that has applied the previous
+ * heartbeat is up to date, otherwise it lags by the age of the heartbeat it
+ * shows. The lag is therefore measured with the heartbeat interval as its
+ * resolution, on any database and without replication-specific privileges.
+ *
+ * Replicas that are too far behind, or cannot be read, stop serving reads
+ * until they catch up.
+ */
+public class ReplicaLagMonitor {
+
+	static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS replication_heartbeat "
+			+ "(id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)";
+
+	private final ReadWriteRoutingDataSource routingDataSource;
+
+	private final long heartbeatIntervalMillis;
+
+	private final long maxLagMillis;
+
+	private final Map<String, ReplicaLag> lags = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "replica-lag-monitor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private volatile long lastBeatMillis;
+
+	/**
+	 * Creates the monitor and lets it decide which replicas serve reads.
+	 *
+	 * @param routingDataSource       The routing data source to monitor.
+	 * @param heartbeatIntervalMillis How often the lag is measured.
+	 * @param maxLagMillis            The lag above which a replica is skipped.
+	 */
+	public ReplicaLagMonitor(ReadWriteRoutingDataSource routingDataSource, long heartbeatIntervalMillis,
+			long maxLagMillis) {
+		this.routingDataSource = routingDataSource;
+		this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+		this.maxLagMillis = maxLagMillis;
+		routingDataSource.setReplicaUsable(this::isUsable);
+	}
+
+	/**
+	 * Creates the heartbeat table on the primary, takes a first measurement and
+	 * schedules the next ones.
+	 */
+	public void start() {
+		new JdbcTemplate(routingDataSource.getPrimary()).execute(CREATE_TABLE);
+		beat();
+		scheduler.scheduleWithFixedDelay(this::beat, heartbeatIntervalMillis, heartbeatIntervalMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	public void stop() {
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * Reports the last measured lag of every replica, in configuration order.
+	 *
+	 * @return The lag of each replica.
+	 */
+	public List<ReplicaLag> report() {
+		List<ReplicaLag> report = new ArrayList<>();
+		for (String name : routingDataSource.getReplicas().keySet()) {
+			report.add(lags.getOrDefault(name, new ReplicaLag(name, -1, false, 0, "Not measured yet")));
+		}
+		return report;
+	}
+
+	/**
+	 * Tells whether the replica was within the allowed lag at the last check.
+	 *
+	 * @param name The replica name.
+	 * @return true if it may serve reads.
+	 */
+	public boolean isUsable(String name) {
+		ReplicaLag lag = lags.get(name);
+		return lag != null && lag.usable();
+	}
+
+	// One measurement: read every replica, then advance the heartbeat on the primary
+	void beat() {
+		long previousBeat = lastBeatMillis;
+		for (Map.Entry<String, DataSource> replica : routingDataSource.getReplicas().entrySet()) {
+			lags.put(replica.getKey(), measure(replica.getKey(), replica.getValue(), previousBeat));
+		}
+
+		try {
+			long now = System.currentTimeMillis();
+			JdbcTemplate primary = new JdbcTemplate(routingDataSource.getPrimary());
+			if (primary.update("UPDATE replication_heartbeat SET beat_millis = ? WHERE id = 1", now) == 0) {
+				primary.update("INSERT INTO replication_heartbeat (id, beat_millis) VALUES (1, ?)", now);
+			}
+			lastBeatMillis = now;
+		} catch (RuntimeException e) {
+			System.err.println("Failed to write the replication heartbeat: " + e.getMessage());
+		}
+	}
+
+	private ReplicaLag measure(String name, DataSource replica, long previousBeat) {
+		long now = System.currentTimeMillis();
+		try {
+			List<Long> beats = new JdbcTemplate(replica)
+					.queryForList("SELECT beat_millis FROM replication_heartbeat WHERE id = 1", Long.class);
+			if (beats.isEmpty()) {
+				return new ReplicaLag(name, -1, false, now, "No heartbeat replicated yet");
+			}
+			long lag = beats.get(0) >= previousBeat ? 0 : now - beats.get(0);
+			return new ReplicaLag(name, lag, lag <= maxLagMillis, now, null);
+		} catch (RuntimeException e) {
+			return new ReplicaLag(name, -1, false, now, e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package com.security.exception;
+
+public class BlocklistUnavailableException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -6203857719641360358L;
+
+	public BlocklistUnavailableException(String msg) {
+		super(msg);
+	}
+
+}
@@ -2,6 +2,7 @@ package com.security.exception;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -138,4 +139,89 @@ public class Exceptions {
 		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(expired.getMessage());
 	}
 
+	/**
+	 * Handles the exception when the If-Match precondition of an update does not
+	 * match the current version of the student details.
+	 * 
+	 * @param mismatch the exception object containing details about the error
+	 * @return a ResponseEntity with HTTP status PRECONDITION_FAILED and the
+	 *         exception message as the response body
+	 */
+	@ResponseStatus(code = HttpStatus.PRECONDITION_FAILED)
+	@ExceptionHandler(StudentDetailsVersionMismatchException.class)
+	public ResponseEntity<Object> studentDetailsVersionMismatch(StudentDetailsVersionMismatchException mismatch) {
+		return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(mismatch.getMessage());
+	}
+
+	/**
+	 * Handles the exception when a concurrent update changed the record between
+	 * the version check and the write.
+	 * 
+	 * @param failure the exception object containing details about the error
+	 * @return a ResponseEntity with HTTP status PRECONDITION_FAILED and a custom
+	 *         message as the response body
+	 */
+	@ResponseStatus(code = HttpStatus.PRECONDITION_FAILED)
+	@ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+	public ResponseEntity<Object> optimisticLockingFailure(ObjectOptimisticLockingFailureException failure) {
+		return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+				.body("Student Details were modified concurrently, please reload and retry");
+	}
+
+	/**
+	 * Handles the exception when a scarce resource (Redis, password hashing) has
+	 * no free permit within the acquire timeout.
+	 * 
+	 * @param exceeded the exception object containing details about the error
+	 * @return a ResponseEntity with HTTP status SERVICE_UNAVAILABLE and the
+	 *         exception message as the response body
+	 */
+	@ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
+	@ExceptionHandler(ResourceLimitExceededException.class)
+	public ResponseEntity<Object> resourceLimitExceeded(ResourceLimitExceededException exceeded) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(exceeded.getMessage());
+	}
+
+	/**
+	 * Handles the exception when a write-behind tracking ID is unknown, or its
+	 * status is no longer retained.
+	 * 
+	 * @param notFound the exception object containing details about the error
+	 * @return a ResponseEntity with HTTP status NOT_FOUND and the exception
+	 *         message as the response body
+	 */
+	@ResponseStatus(code = HttpStatus.NOT_FOUND)
+	@ExceptionHandler(IngestTrackingIdNotFoundException.class)
+	public ResponseEntity<Object> ingestTrackingIdNotFound(IngestTrackingIdNotFoundException notFound) {
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(notFound.getMessage());
+	}
+
+	/**
+	 * Handles the exception when token revocation cannot be checked because
+	 * Redis is unavailable and the blocklist fails closed.
+	 * 
+	 * @param unavailable the exception object containing details about the error
+	 * @return a ResponseEntity with HTTP status SERVICE_UNAVAILABLE and the
+	 *         exception message as the response body
+	 */
+	@ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
+	@ExceptionHandler(BlocklistUnavailableException.class)
+	public ResponseEntity<Object> blocklistUnavailable(BlocklistUnavailableException unavailable) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(unavailable.getMessage());
+	}
+
+	/**
+	 * Handles the exception when a token introspection caller does not present
+	 * the configured client secret.
+	 * 
+	 * @param unauthorized the exception object containing details about the error
+	 * @return a ResponseEntity with HTTP status UNAUTHORIZED and the exception
+	 *         message as the response body
+	 */
+	@ResponseStatus(code = HttpStatus.UNAUTHORIZED)
+	@ExceptionHandler(IntrospectionClientUnauthorizedException.class)
+	public ResponseEntity<Object> introspectionClientUnauthorized(IntrospectionClientUnauthorizedException unauthorized) {
+		return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(unauthorized.getMessage());
+	}
+
 }
@@ -0,0 +1,14 @@
+package com.security.exception;
+
+public class IngestTrackingIdNotFoundException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 2760184139475527331L;
+
+	public IngestTrackingIdNotFoundException(String msg) {
+		super(msg);
+	}
+
+}
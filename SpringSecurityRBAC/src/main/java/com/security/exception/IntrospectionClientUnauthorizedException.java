@@ -0,0 +1,14 @@
+package com.security.exception;
+
+public class IntrospectionClientUnauthorizedException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 2861460337157906311L;
+
+	public IntrospectionClientUnauthorizedException(String msg) {
+		super(msg);
+	}
+
+}
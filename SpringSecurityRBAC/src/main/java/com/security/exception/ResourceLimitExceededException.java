@@ -0,0 +1,14 @@
+package com.security.exception;
+
+public class ResourceLimitExceededException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 4129537806017235524L;
+
+	public ResourceLimitExceededException(String msg) {
+		super(msg);
+	}
+
+}
@@ -0,0 +1,14 @@
+package com.security.exception;
+
+public class StudentDetailsVersionMismatchException extends RuntimeException {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -2841066385512873120L;
+
+	public StudentDetailsVersionMismatchException(String msg) {
+		super(msg);
+	}
+
+}
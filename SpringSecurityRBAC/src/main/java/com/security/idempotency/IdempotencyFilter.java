@@ -0,0 +1,598 @@
+package com.security.idempotency;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.security.blocklist.CircuitBreaker;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Makes the POST endpoints in idempotency.paths safe to retry. A request
+ * carrying an Idempotency-Key header claims the key in Redis with SET NX
+ * ("idempotency:&lt;path&gt;:&lt;caller&gt;:&lt;key&gt;", expiring after
+ * idempotency.in-flight-ttl-ms) before it runs, and records its response under
+ * the key for idempotency.ttl-ms once it has finished. A duplicate of the key
+ * does not reach the controller, so neither the DAO nor the password encoder
+ * run again:
+ * <ul>
+ * <li>while the first request is running, the duplicate waits for it, up to
+ * idempotency.wait-ms, and then gets its response replayed. The wait holds
+ * no request thread: the duplicate is put in async mode and completed by a
+ * scheduler thread, woken when the first request finishes on this node and
+ * otherwise re-reading the key every idempotency.wait-poll-ms, since the
+ * first request may run on another node. A duplicate still waiting at the
+ * end, or arriving where async requests are not supported, is answered 409
+ * with Retry-After;</li>
+ * <li>once the response is recorded, the duplicate gets it replayed, with an
+ * Idempotent-Replayed header;</li>
+ * <li>a key reused with a different body is answered 422.</li>
+ * </ul>
+ * The body is read into memory to fingerprint it, so a request with a key
+ * and a body over idempotency.max-request-bytes is answered 413 before it
+ * is read any further.
+ * Server errors (5xx) are not recorded, so a retry runs the request again. On
+ * the paths in idempotency.status-only-paths (/registerStudent, whose response
+ * carries the password hash) only the status and Location are recorded, and
+ * the replay has no body. Keys are scoped to the authenticated user, or to the
+ * client address of an anonymous caller.
+ *
+ * Redis calls have a circuit breaker and permits of their own, so a retry
+ * storm cannot open the breaker that gates revocation checks. While Redis is
+ * unavailable or the permits are used up, requests run as if they carried no
+ * key; so does a request whose key holds a value this filter did not write.
+ *
+ * Added to the security filter chain after authorization, so that rejected
+ * requests never claim a key.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+	public static final String HEADER = "Idempotency-Key";
+
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	static final String KEY_PREFIX = "idempotency:";
+
+	private static final int MAX_KEY_LENGTH = 255;
+
+	private final RedisTemplate<String, String> redisTemplate;
+
+	private final boolean enabled;
+
+	private final List<String> paths;
+
+	private final List<String> statusOnlyPaths;
+
+	private final long ttlMillis;
+
+	private final long inFlightTtlMillis;
+
+	private final int maxResponseBytes;
+
+	private final int maxRequestBytes;
+
+	private final long waitMillis;
+
+	private final long waitPollMillis;
+
+	private final CircuitBreaker breaker;
+
+	// Concurrent Redis calls; a call finding none free skips idempotency instead of waiting
+	private final Semaphore redisPermits;
+
+	// Duplicates waiting for the first request, by key, woken when it finishes on this node
+	private final Map<String, ConcurrentLinkedQueue<DuplicateWait>> waiting = new ConcurrentHashMap<>();
+
+	// Completes waiting duplicates, so that they hold no request thread
+	private final ScheduledExecutorService waitExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "idempotency-wait");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final LongAdder first = new LongAdder();
+
+	private final LongAdder replayed = new LongAdder();
+
+	private final LongAdder conflicts = new LongAdder();
+
+	private final LongAdder mismatches = new LongAdder();
+
+	private final LongAdder bypassed = new LongAdder();
+
+	private final LongAdder unstored = new LongAdder();
+
+	private final LongAdder redisFailures = new LongAdder();
+
+	/**
+	 * Signals that the request runs without idempotency: Redis is unavailable,
+	 * its permits are used up, or the key holds a value of someone else.
+	 */
+	private static final class Bypass extends RuntimeException {
+
+		private static final long serialVersionUID = -4361775950386521934L;
+
+		Bypass() {
+			super(null, null, false, false);
+		}
+	}
+
+	/**
+	 * Creates the filter.
+	 *
+	 * @param redisTemplate           Where keys and responses are recorded.
+	 * @param enabled                 Whether the Idempotency-Key header is
+	 *                                honoured.
+	 * @param paths                   The POST paths it is honoured on.
+	 * @param statusOnlyPaths         Paths whose response body is never
+	 *                                recorded.
+	 * @param ttlMillis               How long a recorded response is replayed.
+	 * @param inFlightTtlMillis       How long a key stays claimed by a request
+	 *                                that never finishes, such as on a crashed
+	 *                                node.
+	 * @param maxResponseBytes        Larger responses are not recorded.
+	 * @param maxRequestBytes         Larger request bodies are refused with
+	 *                                413.
+	 * @param waitMillis              How long a duplicate waits for the
+	 *                                first request; 0 to answer 409 at once.
+	 * @param waitPollMillis          How often a waiting duplicate re-reads
+	 *                                the key.
+	 * @param breakerFailureThreshold Consecutive Redis failures that open the
+	 *                                breaker.
+	 * @param breakerOpenMillis       How long the breaker stays open.
+	 * @param redisPermits            Maximum concurrent Redis calls.
+	 */
+	@Autowired
+	public IdempotencyFilter(RedisTemplate<String, String> redisTemplate,
+			@Value("${idempotency.enabled:true}") boolean enabled,
+			@Value("${idempotency.paths:/user/saveStudent,/registerStudent}") List<String> paths,
+			@Value("${idempotency.status-only-paths:/registerStudent}") List<String> statusOnlyPaths,
+			@Value("${idempotency.ttl-ms:86400000}") long ttlMillis,
+			@Value("${idempotency.in-flight-ttl-ms:30000}") long inFlightTtlMillis,
+			@Value("${idempotency.max-response-bytes:65536}") int maxResponseBytes,
+			@Value("${idempotency.max-request-bytes:65536}") int maxRequestBytes,
+			@Value("${idempotency.wait-ms:5000}") long waitMillis,
+			@Value("${idempotency.wait-poll-ms:100}") long waitPollMillis,
+			@Value("${idempotency.breaker.failure-threshold:5}") int breakerFailureThreshold,
+			@Value("${idempotency.breaker.open-ms:5000}") long breakerOpenMillis,
+			@Value("${idempotency.redis-permits:16}") int redisPermits) {
+		this.redisTemplate = redisTemplate;
+		this.enabled = enabled;
+		this.paths = paths;
+		this.statusOnlyPaths = statusOnlyPaths;
+		this.ttlMillis = ttlMillis;
+		this.inFlightTtlMillis = inFlightTtlMillis;
+		this.maxResponseBytes = maxResponseBytes;
+		this.maxRequestBytes = maxRequestBytes;
+		this.waitMillis = waitMillis;
+		this.waitPollMillis = waitPollMillis;
+		this.breaker = new CircuitBreaker(breakerFailureThreshold, breakerOpenMillis);
+		this.redisPermits = new Semaphore(redisPermits);
+	}
+
+	@PreDestroy
+	public void stop() {
+		waitExecutor.shutdownNow();
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !enabled || !"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null
+				|| !paths.contains(request.getServletPath());
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String idempotencyKey = request.getHeader(HEADER);
+		if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+			writeError(response, HttpServletResponse.SC_BAD_REQUEST, "Bad Request",
+					"Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+			return;
+		}
+		// One byte past the limit tells an oversized body without reading it all
+		byte[] body = request.getContentLengthLong() > maxRequestBytes ? null
+				: request.getInputStream().readNBytes(maxRequestBytes + 1);
+		if (body == null || body.length > maxRequestBytes) {
+			writeError(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Payload Too Large",
+					"Requests with an Idempotency-Key are limited to " + maxRequestBytes + " bytes");
+			return;
+		}
+		CachedBodyRequest cachedRequest = new CachedBodyRequest(request, body);
+		String key = KEY_PREFIX + request.getServletPath() + ":" + caller(request) + ":" + idempotencyKey;
+		String fingerprint = fingerprint(body);
+
+		IdempotentResponse recorded;
+		try {
+			recorded = claim(key, fingerprint);
+		} catch (Bypass e) {
+			bypassed.increment();
+			filterChain.doFilter(cachedRequest, response);
+			return;
+		}
+
+		if (recorded == null) {
+			runFirst(key, fingerprint, statusOnlyPaths.contains(request.getServletPath()), cachedRequest, response,
+					filterChain);
+		} else if (!recorded.fingerprint().equals(fingerprint)) {
+			mismatches.increment();
+			writeError(response, 422, "Unprocessable Entity",
+					"Idempotency-Key was already used with a different request body");
+		} else if (recorded.isInFlight()) {
+			if (waitMillis > 0 && request.isAsyncSupported()) {
+				awaitFirst(key, fingerprint, request, response);
+			} else {
+				conflict(response);
+			}
+		} else {
+			replayed.increment();
+			replay(recorded, response);
+		}
+	}
+
+	/**
+	 * Reports how the Idempotency-Key header was honoured.
+	 *
+	 * @return The statistics.
+	 */
+	public IdempotencyStats stats() {
+		return new IdempotencyStats(enabled, breaker.getState(), first.sum(), replayed.sum(), conflicts.sum(),
+				mismatches.sum(), bypassed.sum(), unstored.sum(), redisFailures.sum());
+	}
+
+	// Claims the key, returning null, or else returns what another request recorded under it
+	private IdempotentResponse claim(String key, String fingerprint) {
+		String marker = IdempotentResponse.inFlight(fingerprint).format();
+		// A second attempt covers a key that expired between the two calls
+		for (int attempt = 0; attempt < 2; attempt++) {
+			Boolean claimed = redis(() -> redisTemplate.opsForValue().setIfAbsent(key, marker, inFlightTtlMillis,
+					TimeUnit.MILLISECONDS));
+			if (Boolean.TRUE.equals(claimed)) {
+				return null;
+			}
+			String value = redis(() -> redisTemplate.opsForValue().get(key));
+			if (value != null) {
+				IdempotentResponse recorded = IdempotentResponse.parse(value);
+				if (recorded == null) {
+					throw new Bypass(); // Not written by this filter, so left alone
+				}
+				return recorded;
+			}
+		}
+		throw new Bypass();
+	}
+
+	// Puts a duplicate of a running request in async mode until that request has finished
+	private void awaitFirst(String key, String fingerprint, HttpServletRequest request, HttpServletResponse response) {
+		AsyncContext async = request.startAsync(request, response);
+		// The deadline is kept by DuplicateWait; the container timeout only backs it up
+		async.setTimeout(waitMillis + waitPollMillis + 1000);
+		DuplicateWait wait = new DuplicateWait(key, fingerprint, async, System.currentTimeMillis() + waitMillis);
+		async.addListener(wait);
+		waiting.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<>()).add(wait);
+		waitExecutor.schedule(wait::check, Math.min(waitPollMillis, waitMillis), TimeUnit.MILLISECONDS);
+	}
+
+	// Lets the duplicates waiting for a key read the response just recorded, or its release
+	private void wake(String key) {
+		ConcurrentLinkedQueue<DuplicateWait> waiters = waiting.remove(key);
+		if (waiters != null) {
+			for (DuplicateWait wait : waiters) {
+				waitExecutor.execute(wait::check);
+			}
+		}
+	}
+
+	private void conflict(HttpServletResponse response) throws IOException {
+		conflicts.increment();
+		response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+		writeError(response, HttpServletResponse.SC_CONFLICT, "Conflict",
+				"A request with this Idempotency-Key is still being processed, please retry later");
+	}
+
+	// Runs the request that claimed the key and records its response
+	private void runFirst(String key, String fingerprint, boolean statusOnly, HttpServletRequest request,
+			HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+		ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+		boolean recorded = false;
+		try {
+			filterChain.doFilter(request, wrapper);
+			int status = wrapper.getStatus();
+			if (status < 500 && (statusOnly || wrapper.getContentSize() <= maxResponseBytes)) {
+				IdempotentResponse result = statusOnly
+						? new IdempotentResponse(fingerprint, status, null, wrapper.getHeader(HttpHeaders.LOCATION),
+								new byte[0])
+						: new IdempotentResponse(fingerprint, status, wrapper.getContentType(),
+								wrapper.getHeader(HttpHeaders.LOCATION), wrapper.getContentAsByteArray());
+				redis(() -> {
+					redisTemplate.opsForValue().set(key, result.format(), ttlMillis, TimeUnit.MILLISECONDS);
+					return null;
+				});
+				recorded = true;
+				first.increment();
+			}
+		} catch (Bypass e) {
+			// The response is still sent; the claim expires after in-flight-ttl-ms
+		} finally {
+			if (!recorded) {
+				unstored.increment();
+				release(key);
+			}
+			wake(key);
+			wrapper.copyBodyToResponse();
+		}
+	}
+
+	// Frees a claimed key so that a retry runs the request again
+	private void release(String key) {
+		try {
+			redis(() -> redisTemplate.delete(key));
+		} catch (Bypass e) {
+			// Expires after in-flight-ttl-ms
+		}
+	}
+
+	// Runs a Redis call under this filter's own permits and circuit breaker
+	private <T> T redis(Supplier<T> call) {
+		// Saturation is not a Redis failure: it skips idempotency without touching the breaker
+		if (!redisPermits.tryAcquire()) {
+			throw new Bypass();
+		}
+		try {
+			if (!breaker.allowRequest()) {
+				throw new Bypass();
+			}
+			try {
+				T result = call.get();
+				breaker.onSuccess();
+				return result;
+			} catch (RuntimeException e) {
+				breaker.onFailure();
+				redisFailures.increment();
+				throw new Bypass();
+			}
+		} finally {
+			redisPermits.release();
+		}
+	}
+
+	private static void replay(IdempotentResponse recorded, HttpServletResponse response) throws IOException {
+		response.setStatus(recorded.status());
+		if (recorded.contentType() != null) {
+			response.setContentType(recorded.contentType());
+		}
+		if (recorded.location() != null) {
+			response.setHeader(HttpHeaders.LOCATION, recorded.location());
+		}
+		response.setHeader(REPLAYED_HEADER, "true");
+		response.setContentLength(recorded.body().length);
+		response.getOutputStream().write(recorded.body());
+	}
+
+	private static void writeError(HttpServletResponse response, int status, String error, String message)
+			throws IOException {
+		response.setContentType("application/json");
+		response.setStatus(status);
+		response.getWriter().write("{\"error\": \"" + error + "\", \"message\": \"" + message + "\"}");
+	}
+
+	// The authenticated user, or the client address of an anonymous caller
+	private static String caller(HttpServletRequest request) {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+				|| !authentication.isAuthenticated()) {
+			return "anonymous@" + request.getRemoteAddr();
+		}
+		return "user@" + authentication.getName();
+	}
+
+	private static String fingerprint(byte[] body) {
+		try {
+			return Base64.getEncoder().withoutPadding()
+					.encodeToString(MessageDigest.getInstance("SHA-256").digest(body));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * A duplicate in async mode, waiting for the request that claimed its key.
+	 * Checked on the wait thread until the key holds a response or the wait
+	 * is over; answered exactly once, by whichever of the checks and the
+	 * container timeout comes first.
+	 */
+	private final class DuplicateWait implements AsyncListener {
+
+		private final String key;
+
+		private final String fingerprint;
+
+		private final AsyncContext async;
+
+		private final long deadlineMillis;
+
+		private final AtomicBoolean done = new AtomicBoolean();
+
+		DuplicateWait(String key, String fingerprint, AsyncContext async, long deadlineMillis) {
+			this.key = key;
+			this.fingerprint = fingerprint;
+			this.async = async;
+			this.deadlineMillis = deadlineMillis;
+		}
+
+		void check() {
+			if (done.get()) {
+				return;
+			}
+			IdempotentResponse recorded;
+			try {
+				String value = redis(() -> redisTemplate.opsForValue().get(key));
+				recorded = value == null ? null : IdempotentResponse.parse(value);
+				if (recorded == null) {
+					// Released after a server error, or expired: a retry runs the request
+					finish(null);
+					return;
+				}
+			} catch (Bypass e) {
+				recorded = null; // Redis unavailable for now; keep waiting
+			}
+			if (recorded != null && !recorded.isInFlight()) {
+				finish(recorded);
+				return;
+			}
+			long remaining = deadlineMillis - System.currentTimeMillis();
+			if (remaining <= 0) {
+				finish(null);
+			} else {
+				waitExecutor.schedule(this::check, Math.min(waitPollMillis, remaining), TimeUnit.MILLISECONDS);
+			}
+		}
+
+		// Answers the duplicate with the recorded response, or 409 if there is none
+		private void finish(IdempotentResponse recorded) {
+			if (!done.compareAndSet(false, true)) {
+				return;
+			}
+			waiting.computeIfPresent(key, (k, waiters) -> {
+				waiters.remove(this);
+				return waiters.isEmpty() ? null : waiters;
+			});
+			HttpServletResponse response = (HttpServletResponse) async.getResponse();
+			try {
+				if (recorded == null) {
+					conflict(response);
+				} else if (!recorded.fingerprint().equals(fingerprint)) {
+					// The key was released and claimed again with another body
+					mismatches.increment();
+					writeError(response, 422, "Unprocessable Entity",
+							"Idempotency-Key was already used with a different request body");
+				} else {
+					replayed.increment();
+					replay(recorded, response);
+				}
+			} catch (IOException e) {
+				// The client has gone
+			} finally {
+				async.complete();
+			}
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			finish(null);
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			finish(null);
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+		}
+	}
+
+	// Lets the controller read the body the filter has already consumed
+	private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+		private final byte[] body;
+
+		CachedBodyRequest(HttpServletRequest request, byte[] body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			ByteArrayInputStream in = new ByteArrayInputStream(body);
+			return new ServletInputStream() {
+
+				@Override
+				public int read() {
+					return in.read();
+				}
+
+				@Override
+				public int read(byte[] buffer, int offset, int length) {
+					return in.read(buffer, offset, length);
+				}
+
+				@Override
+				public boolean isFinished() {
+					return in.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setReadListener(ReadListener listener) {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() {
+			String encoding = getCharacterEncoding();
+			return new BufferedReader(new InputStreamReader(getInputStream(),
+					encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+		}
+
+		@Override
+		public int getContentLength() {
+			return body.length;
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return body.length;
+		}
+	}
+}
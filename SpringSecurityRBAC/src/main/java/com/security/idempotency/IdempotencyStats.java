@@ -0,0 +1,25 @@
+package com.security.idempotency;
+
+import com.security.blocklist.CircuitBreaker;
+
+/**
+ * Idempotency-Key totals since startup.
+ *
+ * @param enabled       Whether the Idempotency-Key header is honoured.
+ * @param breakerState  State of the circuit breaker around the idempotency
+ *                      Redis calls.
+ * @param first         Requests that ran and had their response recorded.
+ * @param replayed      Duplicates answered with the recorded response.
+ * @param conflicts     Duplicates answered 409 because the first request was
+ *                      still running at the end of the wait, or had failed.
+ * @param mismatches    Keys reused with a different body, answered 422.
+ * @param bypassed      Requests run without idempotency because Redis was
+ *                      unavailable or saturated, or the key held a foreign
+ *                      value.
+ * @param unstored      Responses not recorded, being server errors or too
+ *                      large, so that a retry runs again.
+ * @param redisFailures Idempotency Redis calls that failed.
+ */
+public record IdempotencyStats(boolean enabled, CircuitBreaker.State breakerState, long first, long replayed,
+		long conflicts, long mismatches, long bypassed, long unstored, long redisFailures) {
+}
@@ -0,0 +1,72 @@
+package com.security.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * What an Idempotency-Key stands for: the request it was first sent with and,
+ * once that request has finished, its response. Stored in Redis as
+ * "&lt;status&gt;\n&lt;fingerprint&gt;\n&lt;content type&gt;\n&lt;location&gt;\n&lt;base64 body&gt;",
+ * with status 0 while the first request is still in flight.
+ *
+ * @param fingerprint SHA-256 of the first request body, to reject a key reused
+ *                    with a different body.
+ * @param status      The response status, 0 while in flight.
+ * @param contentType The response Content-Type, or null.
+ * @param location    The response Location header, or null.
+ * @param body        The response body.
+ */
+public record IdempotentResponse(String fingerprint, int status, String contentType, String location, byte[] body) {
+
+	/**
+	 * Creates the marker of a request in flight.
+	 *
+	 * @param fingerprint SHA-256 of the request body.
+	 * @return The marker.
+	 */
+	public static IdempotentResponse inFlight(String fingerprint) {
+		return new IdempotentResponse(fingerprint, 0, null, null, new byte[0]);
+	}
+
+	/**
+	 * Tells whether the first request is still running.
+	 *
+	 * @return true if no response has been recorded yet.
+	 */
+	public boolean isInFlight() {
+		return status == 0;
+	}
+
+	/**
+	 * Encodes the record for Redis.
+	 *
+	 * @return The encoded record.
+	 */
+	public String format() {
+		return status + "\n" + fingerprint + "\n" + (contentType == null ? "" : contentType) + "\n"
+				+ (location == null ? "" : location) + "\n" + Base64.getEncoder().encodeToString(body);
+	}
+
+	/**
+	 * Decodes a record read from Redis.
+	 *
+	 * @param value The encoded record, possibly null.
+	 * @return The record, or null if the value is missing or malformed.
+	 */
+	public static IdempotentResponse parse(String value) {
+		if (value == null) {
+			return null;
+		}
+		String[] fields = value.split("\n", 5);
+		if (fields.length != 5) {
+			return null;
+		}
+		try {
+			return new IdempotentResponse(fields[1], Integer.parseInt(fields[0]),
+					fields[2].isEmpty() ? null : fields[2], fields[3].isEmpty() ? null : fields[3],
+					Base64.getDecoder().decode(fields[4].getBytes(StandardCharsets.US_ASCII)));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+}
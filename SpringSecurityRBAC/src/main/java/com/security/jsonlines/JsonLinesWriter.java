@@ -0,0 +1,184 @@
+package com.security.jsonlines;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes items to &lt;name&gt;.jsonl in a local directory, as JSON lines
+ * formatted by the subclass. Callers only enqueue; one daemon thread writes,
+ * so a slow disk never adds to their latency. A full queue drops the item and
+ * counts it. The file is renamed to &lt;name&gt;-&lt;millis&gt;.jsonl once it
+ * reaches the size limit, and writing goes on in a new one.
+ *
+ * @param <T> The type of the items written.
+ */
+public abstract class JsonLinesWriter<T> {
+
+	private final Path directory;
+
+	private final String name;
+
+	private final String threadName;
+
+	private final long maxFileBytes;
+
+	private final BlockingQueue<T> queue;
+
+	private final AtomicLong written = new AtomicLong();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private volatile boolean running;
+
+	private Thread writer;
+
+	private BufferedWriter out;
+
+	private long fileBytes;
+
+	/**
+	 * Creates a writer; nothing is written before start.
+	 *
+	 * @param directory    The directory of the files.
+	 * @param name         The file name without the .jsonl extension.
+	 * @param threadName   The name of the writer thread.
+	 * @param queueSize    The most items waiting to be written.
+	 * @param maxFileBytes The size at which the file is rolled.
+	 */
+	protected JsonLinesWriter(Path directory, String name, String threadName, int queueSize, long maxFileBytes) {
+		this.directory = directory;
+		this.name = name;
+		this.threadName = threadName;
+		this.maxFileBytes = maxFileBytes;
+		this.queue = new ArrayBlockingQueue<>(queueSize);
+	}
+
+	/**
+	 * Appends the lines of one item, each ending with a newline.
+	 *
+	 * @param item  The item to write.
+	 * @param lines Receives the JSON lines.
+	 */
+	protected abstract void format(T item, StringBuilder lines);
+
+	public void start() {
+		running = true;
+		writer = new Thread(this::writeLoop, threadName);
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Writes what is still queued, for at most five seconds, and closes the
+	 * file.
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the writer.
+	 */
+	public void stop() throws InterruptedException {
+		if (writer == null) {
+			return;
+		}
+		running = false;
+		writer.join(TimeUnit.SECONDS.toMillis(5));
+	}
+
+	/**
+	 * Queues an item without blocking.
+	 *
+	 * @param item The item to write.
+	 */
+	public void offer(T item) {
+		if (!queue.offer(item)) {
+			dropped.incrementAndGet();
+		}
+	}
+
+	public long getWritten() {
+		return written.get();
+	}
+
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Appends a JSON string literal, escaping quotes, backslashes and control
+	 * characters.
+	 *
+	 * @param json  Receives the literal.
+	 * @param value The string.
+	 */
+	public static void string(StringBuilder json, String value) {
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+
+	private void writeLoop() {
+		StringBuilder lines = new StringBuilder(256);
+		try {
+			while (running || !queue.isEmpty()) {
+				T item = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (item != null) {
+					if (out == null || fileBytes >= maxFileBytes) {
+						roll();
+					}
+					lines.setLength(0);
+					format(item, lines);
+					out.append(lines);
+					fileBytes += lines.length();
+					written.incrementAndGet();
+				}
+				if (out != null && (item == null || queue.isEmpty())) {
+					out.flush();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			dropped.incrementAndGet(); // The directory is not writable, stop writing
+		} finally {
+			close();
+		}
+	}
+
+	private void roll() throws IOException {
+		close();
+		Files.createDirectories(directory);
+		Path current = directory.resolve(name + ".jsonl");
+		if (Files.exists(current) && Files.size(current) >= maxFileBytes) {
+			Files.move(current, directory.resolve(name + "-" + System.currentTimeMillis() + ".jsonl"));
+		}
+		out = Files.newBufferedWriter(current, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND);
+		fileBytes = Files.size(current);
+	}
+
+	private void close() {
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				// Nothing more can be written anyway
+			}
+			out = null;
+		}
+	}
+}
@@ -6,14 +6,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.security.blocklist.OpaqueSessionStore;
+import com.security.blocklist.SessionRecord;
+import com.security.exception.BlocklistUnavailableException;
+import com.security.exception.ResourceLimitExceededException;
 import com.security.jwtservice.JwtService;
+import com.security.studentdto.StudentLoginDetails;
+import com.security.studentdto.StudentloginDetailsPrinciple;
 import com.security.studentservice.StudentDetailsLoginSecurityDetails;
+import com.security.tracing.Span;
+import com.security.tracing.Tracer;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.context.ApplicationContext;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -34,10 +41,17 @@ public class JwtFilter extends OncePerRequestFilter {
 	@Autowired
 	JwtService jwtService;
 
-	// Autowires the application context to retrieve beans, such as the
-	// LoginUserDetails service
+	// Autowires the LoginUserDetails service, which loads the user named in the token
 	@Autowired
-	ApplicationContext applicationContext;
+	StudentDetailsLoginSecurityDetails userDetailsService;
+
+	// Resolves opaque tokens when auth.token-mode=opaque
+	@Autowired
+	OpaqueSessionStore sessionStore;
+
+	// Opens the filter's span in the request trace
+	@Autowired
+	Tracer tracer;
 
 	/**
 	 * The doFilterInternal method is overridden to provide the JWT token handling
@@ -49,6 +63,25 @@ public class JwtFilter extends OncePerRequestFilter {
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
 			throws ServletException, IOException {
 
+		// Authenticate under a span of its own, so a trace tells token work apart from the rest of the request
+		boolean proceed;
+		try (Span span = tracer.startSpan("JwtFilter", "filter")) {
+			proceed = authenticate(request, response);
+		}
+
+		if (proceed) {
+			// Continue the filter chain for further processing
+			filterChain.doFilter(request, response);
+		}
+	}
+
+	/**
+	 * Authenticates the request from its bearer token, if it has one.
+	 *
+	 * @return false if the response was already written.
+	 */
+	private boolean authenticate(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
 		// Retrieve the Authorization header from the request
 		String authHeader = request.getHeader("Authorization");
 		String token = null;
@@ -58,6 +91,12 @@ public class JwtFilter extends OncePerRequestFilter {
 		if (authHeader != null && authHeader.startsWith("Bearer ")) {
 			// Extract the token from the header (ignoring "Bearer ")
 			token = authHeader.substring(7);
+
+			// An opaque token is resolved with one session lookup, no signature or user query
+			if (sessionStore.isEnabled() && OpaqueSessionStore.isOpaque(token)) {
+				return authenticateSession(token, request, response);
+			}
+
 			// Use JwtService to extract the username (or id) from the token
 			userName = jwtService.extractUserName(token);
 		}
@@ -65,8 +104,7 @@ public class JwtFilter extends OncePerRequestFilter {
 		// Proceed if userId is present and authentication is not yet set
 		if (userName != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 			// Load user details from the UserDetails service using the extracted username
-			UserDetails details = applicationContext.getBean(StudentDetailsLoginSecurityDetails.class)
-					.loadUserByUsername(userName);
+			UserDetails details = userDetailsService.loadUserByUsername(userName);
 
 			// Extract the role from the details object
 			String userRole = details.getAuthorities().stream().map(GrantedAuthority::getAuthority).findFirst()
@@ -86,8 +124,40 @@ public class JwtFilter extends OncePerRequestFilter {
 
 		}
 
-		// Continue the filter chain for further processing
-		filterChain.doFilter(request, response);
+		return true;
+	}
 
+	/**
+	 * Authenticates the request from the session of an opaque token. An unknown
+	 * or ended session leaves the request unauthenticated.
+	 *
+	 * @return false if the response was already written (session store
+	 *         unavailable).
+	 */
+	private boolean authenticateSession(String token, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		SessionRecord session;
+		try {
+			session = sessionStore.resolve(token);
+		} catch (BlocklistUnavailableException | ResourceLimitExceededException e) {
+			// Redis is down or saturated and this node does not know the session, answer with Service Unavailable (503)
+			response.setContentType("application/json");
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			response.getWriter().write("{\"error\": \"Service Unavailable\", \"message\": \"" + e.getMessage() + "\"}");
+			return false;
+		}
+
+		if (session != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+			StudentLoginDetails login = new StudentLoginDetails();
+			login.setUserName(session.userName());
+			login.setRole(session.role());
+			UserDetails details = new StudentloginDetailsPrinciple(login, session.role());
+
+			UsernamePasswordAuthenticationToken passwordAuthenticationToken = new UsernamePasswordAuthenticationToken(
+					details, null, details.getAuthorities());
+			passwordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+			SecurityContextHolder.getContext().setAuthentication(passwordAuthenticationToken);
+		}
+		return true;
 	}
 }
\ No newline at end of file
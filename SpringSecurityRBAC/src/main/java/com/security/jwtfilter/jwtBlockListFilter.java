@@ -3,10 +3,16 @@ package com.security.jwtfilter;
 import java.io.IOException;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.security.blocklist.OpaqueSessionStore;
+import com.security.blocklist.TokenBlocklist;
+import com.security.exception.BlocklistUnavailableException;
+import com.security.exception.ResourceLimitExceededException;
+import com.security.tracing.Span;
+import com.security.tracing.Tracer;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,7 +22,13 @@ import jakarta.servlet.http.HttpServletResponse;
 public class jwtBlockListFilter extends OncePerRequestFilter {
 
     @Autowired
-    private RedisTemplate<String, String> redisTemplate; // Used to interact with Redis for token blacklisting
+    private TokenBlocklist blocklist; // Redis blocklist with breaker and in-process fallback
+
+    @Autowired
+    private OpaqueSessionStore sessionStore; // Opaque tokens are ended by deleting their session instead
+
+    @Autowired
+    private Tracer tracer; // Times the lookup in the request trace
 
     /**
      * This method is executed once per request. It checks if the JWT token in the 
@@ -36,12 +48,24 @@ public class jwtBlockListFilter extends OncePerRequestFilter {
         String authHeader = request.getHeader("Authorization");
 
         // Check if the Authorization header is present and starts with "Bearer "
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && !(sessionStore.isEnabled() && OpaqueSessionStore.isOpaque(authHeader.substring(7)))) {
             // Extract the token by removing the "Bearer " prefix
             String token = authHeader.substring(7);
 
-            // Check in Redis if the token is blacklisted
-            if (redisTemplate.hasKey("blacklisted:" + token)) {
+            // Check if the token is blacklisted, falling back to the local store when Redis is down
+            boolean blacklisted;
+            try (Span span = tracer.startSpan("jwtBlockListFilter", "filter")) {
+                blacklisted = blocklist.isRevoked(token);
+            } catch (BlocklistUnavailableException | ResourceLimitExceededException e) {
+                // Redis is down and the failure policy is closed, or its permits are used up: Service Unavailable (503)
+                response.setContentType("application/json");
+                response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                response.getWriter().write("{\"error\": \"Service Unavailable\", \"message\": \"" + e.getMessage() + "\"}");
+                return;
+            }
+
+            if (blacklisted) {
                 // If blacklisted, set the response as Forbidden (403) with a custom error message
                 response.setContentType("application/json");
                 response.setStatus(HttpServletResponse.SC_FORBIDDEN);
@@ -1,48 +1,62 @@
 package com.security.jwtservice;
 
-import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 
-import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 
 @Service
 public class JwtService {
 
-	// Secret key used to sign JWT tokens, encoded in Base64 format
-	private String secretKey = "";
+	// How long an issued token stays valid (45 minutes)
+	public static final long TOKEN_VALIDITY_MILLIS = 45 * 60 * 1000;
 
-	// Constructor to initialize and generate a secret key using HMAC SHA-256
-	// algorithm
+	// Secret key used to sign JWT tokens, generated once per process
+	private final SecretKey key;
+
+	// Verifying parser, built once since it is immutable and thread-safe
+	private final JwtParser parser;
+
+	// Constructor to generate a random 256-bit secret key for the HMAC SHA-256
+	// algorithm. The bytes come straight from SecureRandom, which avoids the JCA
+	// KeyGenerator lookup and a Base64 round trip on every signature.
 	public JwtService() {
-		try {
-			// Create a KeyGenerator instance for HMAC SHA-256
-			KeyGenerator generator = KeyGenerator.getInstance("HmacSHA256");
-			// Generate a secret key
-			SecretKey sk = generator.generateKey();
-			// Encode the key as a Base64 string for storage and usage
-			secretKey = Base64.getEncoder().encodeToString(sk.getEncoded());
-		} catch (NoSuchAlgorithmException e) {
-			// Log the exception if the algorithm is not found
-			e.printStackTrace();
-		}
+		byte[] keyBytes = new byte[32];
+		new SecureRandom().nextBytes(keyBytes);
+		key = Keys.hmacShaKeyFor(keyBytes);
+		parser = Jwts.parser().verifyWith(key).build();
 	}
 
 	public String generateToken(String userName, String role) {
+		return generateToken(userName, role, Map.of());
+	}
+
+	/**
+	 * Generates a token carrying additional custom claims, such as the
+	 * revocation slot of the token.
+	 *
+	 * @param userName    The user name, stored as the subject.
+	 * @param role        The role, stored as the "role" claim.
+	 * @param extraClaims Further claims to add.
+	 * @return The signed token.
+	 */
+	public String generateToken(String userName, String role, Map<String, Object> extraClaims) {
 		// Add role to claims
-		Map<String, Object> claims = new HashMap<>();
+		Map<String, Object> claims = new HashMap<>(extraClaims);
 		claims.put("role", role); // Add role as a custom claim
 //		 claims.put("jti", UUID.randomUUID().toString()); // Add 'jti' claim
 
@@ -51,24 +65,13 @@ public class JwtService {
 				.add(claims)
 				.subject(userName) // Set the subject (user name)
 				.issuedAt(new Date(System.currentTimeMillis())) // Set the issue date
-				.expiration(new Date(System.currentTimeMillis() + 45 * 60 * 1000)) // Set the expiration date (45 minutes from now)
+				.expiration(new Date(System.currentTimeMillis() + TOKEN_VALIDITY_MILLIS)) // Set the expiration date (45 minutes from now)
 
-				.and().signWith(getKey()) // Sign the token with the generated key
+				.and().signWith(key) // Sign the token with the generated key
 				.compact(); // Build and return the token
 
 	}
 
-	/**
-	 * Retrieves the secret key used for signing JWT tokens.
-	 * 
-	 * @return The secret key as a SecretKey object.
-	 */
-	private SecretKey getKey() {
-		// Decode the Base64-encoded key and create a SecretKey object
-		byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-		return Keys.hmacShaKeyFor(keyBytes);
-	}
-
 	/**
 	 * Extracts the user Name (subject) from the given token.
 	 * 
@@ -90,6 +93,76 @@ public class JwtService {
 		return (String) claims.get("role"); // Extract the role claim
 	}
 
+	/**
+	 * Reads the role claim of a token whose signature and expiry check out,
+	 * with the cached verifying parser. Meant for request classification that
+	 * must not be steered by a forged claim, such as admission priority.
+	 *
+	 * @param token The JWT token.
+	 * @return The role claim, or null if the token is malformed, forged,
+	 *         expired or has none.
+	 */
+	public String verifiedRole(String token) {
+		try {
+			return extractAllClaims(token).get("role", String.class);
+		} catch (JwtException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads a string or number claim from the token payload without verifying
+	 * the signature or the expiry, with a plain text scan instead of a JSON
+	 * parse. The result may be forged: only use it where a forged token is
+	 * rejected later anyway, never to decide authorization or priority.
+	 *
+	 * @param token The JWT token.
+	 * @param name  The claim name.
+	 * @return The claim value as text, or null if the token is malformed or has
+	 *         no such claim.
+	 */
+	public String peekClaim(String token, String name) {
+		int payloadStart = token.indexOf('.') + 1;
+		int payloadEnd = token.indexOf('.', payloadStart);
+		if (payloadStart == 0 || payloadEnd < 0) {
+			return null;
+		}
+		String payload;
+		try {
+			payload = new String(Base64.getUrlDecoder().decode(token.substring(payloadStart, payloadEnd)),
+					StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		String key = "\"" + name + "\":";
+		int valueStart = payload.indexOf(key);
+		if (valueStart < 0) {
+			return null;
+		}
+		valueStart += key.length();
+		if (valueStart < payload.length() && payload.charAt(valueStart) == '"') {
+			int valueEnd = payload.indexOf('"', valueStart + 1);
+			return valueEnd < 0 ? null : payload.substring(valueStart + 1, valueEnd);
+		}
+		int valueEnd = valueStart;
+		while (valueEnd < payload.length() && payload.charAt(valueEnd) != ',' && payload.charAt(valueEnd) != '}') {
+			valueEnd++;
+		}
+		return payload.substring(valueStart, valueEnd);
+	}
+
+	/**
+	 * Verifies the signature and expiry of the token and returns its claims.
+	 *
+	 * @param token The JWT token.
+	 * @return The verified claims.
+	 * @throws io.jsonwebtoken.JwtException if the token is malformed, forged or
+	 *                                      expired.
+	 */
+	public Claims verifyClaims(String token) {
+		return extractAllClaims(token);
+	}
+
 	/**
 	 * Extracts a specific claim from the token using a function.
 	 *
@@ -111,11 +184,7 @@ public class JwtService {
 	 */
 	private Claims extractAllClaims(String token) {
 		// Parse and extract claims using the secret key
-		return Jwts.parser()
-				.verifyWith(getKey())
-				.build()
-				.parseSignedClaims(token)
-				.getPayload();
+		return parser.parseSignedClaims(token).getPayload();
 	}
 
 	/**
@@ -0,0 +1,26 @@
+package com.security.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Entry point of the reactive deployment mode: WebFlux on Netty, reactive
+ * Redis and R2DBC. Only the reactive components are scanned, together with
+ * the pieces shared with the servlet application (JwtService and the
+ * exception handlers), so none of the blocking JPA stack is started.
+ *
+ * Launched from the same jar as the servlet application:
+ * java -Dloader.main=com.security.reactive.ReactiveGatewayApplication -cp SpringSecurityRBAC.jar
+ * org.springframework.boot.loader.launch.PropertiesLauncher
+ */
+@SpringBootApplication(scanBasePackages = { "com.security.reactive", "com.security.jwtservice",
+		"com.security.exception" })
+public class ReactiveGatewayApplication {
+
+	public static void main(String[] args) {
+		SpringApplication application = new SpringApplication(ReactiveGatewayApplication.class);
+		application.setAdditionalProfiles("reactive"); // Loads application-reactive.properties
+		application.run(args);
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.security.reactive;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of jwtBlockListFilter. The blocklist lookup is a
+ * non-blocking Redis EXISTS, so the event loop is never parked on Redis.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveJwtBlockListFilter implements WebFilter {
+
+    @Autowired
+    private ReactiveStringRedisTemplate redisTemplate; // Non-blocking Redis access for token blacklisting
+
+    /**
+     * Rejects the request with 403 when its bearer token is blacklisted.
+     *
+     * @param exchange The current request and response.
+     * @param chain    The rest of the filter chain.
+     * @return Completion of the request processing.
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        // Requests without a bearer token are not subject to the blocklist
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+
+        String token = authHeader.substring(7);
+        return redisTemplate.hasKey("blacklisted:" + token)
+                .flatMap(blacklisted -> Boolean.TRUE.equals(blacklisted) ? forbidden(exchange.getResponse())
+                        : chain.filter(exchange));
+    }
+
+    // Writes the same Forbidden (403) body as the servlet filter
+    private Mono<Void> forbidden(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.FORBIDDEN);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body = "{\"error\": \"Forbidden\", \"message\": \"Token has expired. Please log in again\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
@@ -0,0 +1,83 @@
+package com.security.reactive;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.security.jwtservice.JwtService;
+
+import io.jsonwebtoken.JwtException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of JwtFilter. Token parsing and validation are shared
+ * with the servlet stack through JwtService (pure CPU work); only the
+ * principal lookup goes through the non-blocking ReactiveStudentLoginDetailsService.
+ * A malformed, forged or expired token is answered with 401, as the servlet
+ * stack does, rather than failing the request with 500.
+ */
+@Component
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveJwtFilter implements WebFilter {
+
+	@Autowired
+	private JwtService jwtService; // Shared token parsing and validation
+
+	@Autowired
+	private ReactiveStudentLoginDetailsService userDetailsService; // Non-blocking principal lookup
+
+	/**
+	 * Validates the bearer token, if any, and runs the rest of the chain with the
+	 * resulting authentication in the reactive security context.
+	 *
+	 * @param exchange The current request and response.
+	 * @param chain    The rest of the filter chain.
+	 * @return Completion of the request processing.
+	 */
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+		if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+			return chain.filter(exchange);
+		}
+
+		String token = authHeader.substring(7);
+		return Mono.fromCallable(() -> jwtService.extractUserName(token))
+				.flatMap(userDetailsService::findByUsername)
+				.filter(details -> jwtService.validateTokenWithRole(token, details, roleOf(details)))
+				.map(details -> Optional.<Authentication>of(
+						new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities())))
+				.defaultIfEmpty(Optional.empty())
+				// The chain runs exactly once, with or without an authentication
+				.map(authentication -> authentication.isPresent()
+						? chain.filter(exchange)
+								.contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication.get()))
+						: chain.filter(exchange))
+				// Only token errors are caught: the chain has not started yet
+				.onErrorResume(ReactiveJwtFilter::isInvalidToken, e -> Mono.just(
+						ReactiveSecurityConfig.unauthorized(exchange.getResponse(), "Invalid or expired token")))
+				.flatMap(next -> next);
+	}
+
+	// Thrown by JwtService for a malformed, forged or expired token
+	private static boolean isInvalidToken(Throwable e) {
+		return e instanceof JwtException || e instanceof IllegalArgumentException;
+	}
+
+	// Get the first role (the principal only ever has one)
+	private static String roleOf(UserDetails details) {
+		return details.getAuthorities().stream().map(GrantedAuthority::getAuthority).findFirst().orElse(null);
+	}
+}
@@ -0,0 +1,98 @@
+package com.security.reactive;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.security.jwtservice.JwtService;
+import com.security.studentdto.LogoutRequest;
+import com.security.studentdto.StudentLoginForm;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Login and logout EndPoints for the reactive deployment mode. Same paths and
+ * responses as StudentLoginOrRegisterController; registration stays on the
+ * servlet deployment.
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveLoginController {
+
+	@Autowired
+	private ReactiveAuthenticationManager authenticationManager; // BCrypt check off the event loop
+
+	@Autowired
+	private JwtService jwtService; // Shared token generation and parsing
+
+	@Autowired
+	private ReactiveStringRedisTemplate redisTemplate; // Non-blocking token blacklisting
+
+	/**
+	 * EndPoint for student login.
+	 *
+	 * @param form the login details of the student, including username and
+	 *             password.
+	 * @return a JWT token if authentication is successful, or "fail" otherwise.
+	 */
+	@PostMapping("/loginStudent")
+	public Mono<String> studentLogin(@RequestBody StudentLoginForm form) {
+		return authenticationManager
+				.authenticate(new UsernamePasswordAuthenticationToken(form.getUserName(), form.getPassword()))
+				.map(authentication -> authentication.isAuthenticated()
+						? jwtService.generateToken(form.getUserName(), authentication.getAuthorities().stream()
+								.map(GrantedAuthority::getAuthority)
+								.findFirst()
+								.orElseThrow(() -> new IllegalArgumentException("No roles found")))
+						: "fail");
+	}
+
+	/**
+	 * EndPoint for logging out a student by blacklisting the token until it
+	 * expires.
+	 *
+	 * @param logoutRequest contains the token used for logging out.
+	 * @return a message indicating whether the logout was successful or failed.
+	 */
+	@PostMapping("/logoutStudent")
+	public Mono<ResponseEntity<String>> logout(@RequestBody LogoutRequest logoutRequest) {
+		String token = logoutRequest.getToken();
+
+		// Check if token is provided
+		if (token == null || token.isEmpty()) {
+			return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("No token provided."));
+		}
+
+		String jti;
+		long tokenExpiryDuration;
+		try {
+			jti = jwtService.extractJtiFromToken(token);
+			tokenExpiryDuration = jwtService.extractExpiration(token).getTime() - System.currentTimeMillis();
+		} catch (RuntimeException e) {
+			return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid or malformed token."));
+		}
+		if (jti == null) {
+			return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid or malformed token."));
+		}
+		if (tokenExpiryDuration <= 0) {
+			return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Token has expired."));
+		}
+
+		// Store the token in Redis with a TTL matching its expiration
+		return redisTemplate.opsForValue()
+				.set("blacklisted:" + token, jti, Duration.ofMillis(tokenExpiryDuration))
+				.map(stored -> ResponseEntity.status(HttpStatus.OK).body("Logout successful."))
+				.onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage())));
+	}
+}
@@ -0,0 +1,101 @@
+package com.security.reactive;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of SecurityConfig for the WebFlux deployment mode
+ * (profile "reactive"). Applies the same role rules to the same paths.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    @Autowired
+    ReactiveJwtFilter jwtFilter; // Reactive JWT validation filter
+    @Autowired
+    ReactiveJwtBlockListFilter jwtBlockListFilter; // Reactive filter for blocked JWT tokens
+
+    /**
+     * Configures the security settings for the reactive application.
+     *
+     * @param http The ServerHttpSecurity object to configure security features.
+     * @return A configured SecurityWebFilterChain.
+     */
+    @Bean
+    public SecurityWebFilterChain reactiveSecuritySettings(ServerHttpSecurity http) {
+        // Disable CSRF protection, the API is stateless
+        http.csrf(csrf -> csrf.disable());
+
+        // Same authorization rules as the servlet SecurityConfig
+        http.authorizeExchange(authorize -> authorize
+                .pathMatchers("/registerStudent", "/loginStudent").permitAll()
+                .pathMatchers("/logoutStudent").hasAnyRole("USER", "MODERATOR", "ADMIN")
+                .pathMatchers("/admin/**").hasRole("ADMIN")
+                .pathMatchers("/moderator/**").hasAnyRole("MODERATOR", "ADMIN")
+                .pathMatchers("/user/**").hasAnyRole("USER", "MODERATOR", "ADMIN")
+                .anyExchange().authenticated()
+        );
+
+        // Handle authentication failures with the same JSON body as CustomAuthenticationEntryPoint
+        http.exceptionHandling(exceptionHandling -> exceptionHandling
+                .authenticationEntryPoint((exchange, authException) -> unauthorized(exchange.getResponse(),
+                        authException.getMessage())));
+
+        // Use basic authentication for additional security layers
+        http.httpBasic(Customizer.withDefaults());
+
+        // Never store a security context, every request carries its token
+        http.securityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+
+        // Blocklist check first, then JWT authentication
+        http.addFilterBefore(jwtBlockListFilter, SecurityWebFiltersOrder.AUTHENTICATION);
+        http.addFilterAt(jwtFilter, SecurityWebFiltersOrder.AUTHENTICATION);
+
+        return http.build();
+    }
+
+    /**
+     * Authentication manager for login. BCrypt verification runs on a bounded
+     * elastic scheduler, off the event loop.
+     *
+     * @param detailsService The reactive user details service.
+     * @return A configured ReactiveAuthenticationManager.
+     */
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(
+            ReactiveStudentLoginDetailsService detailsService) {
+        UserDetailsRepositoryReactiveAuthenticationManager manager = new UserDetailsRepositoryReactiveAuthenticationManager(
+                detailsService);
+        manager.setPasswordEncoder(new BCryptPasswordEncoder(12)); // Use BCrypt for password encoding
+        return manager;
+    }
+
+    // Writes the same Unauthorized (401) body as CustomAuthenticationEntryPoint
+    static Mono<Void> unauthorized(ServerHttpResponse response, String message) {
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body = ("{\"error\": \"Unauthorized\", \"message\": \"" + message + "\"}").getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
@@ -0,0 +1,140 @@
+package com.security.reactive;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.security.exception.InvalidStudentDetailsException;
+import com.security.exception.StudentDetailsNotFoundWithId;
+import com.security.studentcontroller.StudentDetailsETag;
+import com.security.studentdto.StudentDetails;
+import com.security.studentdto.StudentDetailsBatchResponse;
+import com.security.studentdto.StudentDetailsResponse;
+import com.security.studentdto.StudentIdsRequest;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read EndPoints of the student API for the reactive deployment mode. Same
+ * paths, parameters and responses as StudentController and
+ * StudentControllerModerator, backed by the non-blocking repository. Writes
+ * stay on the servlet deployment.
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveStudentController {
+
+	@Autowired
+	private ReactiveStudentDetailsRepo detailsRepo; // Non-blocking access to student details
+
+	// Upper bound on the number of IDs accepted by a single batch lookup
+	@Value("${student.batch.max-ids:100}")
+	private int maxBatchIds;
+
+	/**
+	 * EndPoint to retrieve a student's details by their ID, honouring
+	 * If-None-Match like the servlet EndPoint.
+	 *
+	 * @param id          The ID of the student.
+	 * @param ifNoneMatch The entity tag the client already holds, if any.
+	 * @param exchange    The current exchange, used to evaluate the precondition.
+	 * @return The student details with its ETag, or an empty NOT_MODIFIED (304)
+	 *         response.
+	 */
+	@GetMapping("/user/getStudentById/{id}")
+	public Mono<ResponseEntity<StudentDetailsResponse>> getStudentDetailsController(@PathVariable int id,
+			@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch, ServerWebExchange exchange) {
+		// The ETag depends on the negotiated format, so responses vary by Accept
+		String accept = exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT);
+		Mono<ResponseEntity<StudentDetailsResponse>> fullResponse = detailsRepo.findById(id)
+				.switchIfEmpty(Mono.error(() -> notFound(id)))
+				.map(details -> ResponseEntity.status(HttpStatus.OK)
+						.eTag(StudentDetailsETag.of(details.getVersion(), accept))
+						.varyBy(HttpHeaders.ACCEPT)
+						.body(StudentDetailsResponse.from(details)));
+
+		// Only pay for the version lookup when the client sent a conditional request
+		if (ifNoneMatch == null) {
+			return fullResponse;
+		}
+		return detailsRepo.findVersionByStuNumber(id)
+				.switchIfEmpty(Mono.error(() -> notFound(id)))
+				.map(version -> StudentDetailsETag.of(version, accept))
+				.flatMap(eTag -> exchange.checkNotModified(eTag)
+						? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT)
+								.<StudentDetailsResponse>build())
+						: fullResponse);
+	}
+
+	/**
+	 * EndPoint to retrieve several students' details in one query, in request
+	 * order, reporting the missing IDs.
+	 *
+	 * @param request The student IDs to retrieve, up to the configured maximum.
+	 * @return The found students and the missing IDs.
+	 */
+	@PostMapping("/user/getStudentsByIds")
+	public Mono<StudentDetailsBatchResponse> getStudentsByIdsController(@RequestBody StudentIdsRequest request) {
+		if (request.getIds() == null || request.getIds().isEmpty()) {
+			return Mono.error(new InvalidStudentDetailsException("Student Ids Should Not be Empty"));
+		}
+		Set<Integer> requestedIds = new LinkedHashSet<>(request.getIds());
+		requestedIds.remove(null);
+		if (requestedIds.size() > maxBatchIds) {
+			return Mono.error(new InvalidStudentDetailsException(
+					"At most " + maxBatchIds + " Student Ids can be requested at once"));
+		}
+
+		return detailsRepo.findAllById(requestedIds)
+				.collectMap(StudentDetails::getStuNumber)
+				.map(found -> inRequestOrder(requestedIds, found));
+	}
+
+	/**
+	 * EndPoint to retrieve all student details, streamed row by row from the
+	 * database instead of being collected first.
+	 *
+	 * @return All student details.
+	 */
+	@GetMapping("/moderator/getAllStudent")
+	public Flux<StudentDetailsResponse> getAllStudentDetailsController() {
+		return detailsRepo.findAll().map(StudentDetailsResponse::from);
+	}
+
+	private static StudentDetailsBatchResponse inRequestOrder(Set<Integer> requestedIds,
+			Map<Integer, StudentDetails> found) {
+		List<StudentDetailsResponse> students = new ArrayList<>(found.size());
+		List<Integer> missingIds = new ArrayList<>();
+		for (Integer id : requestedIds) {
+			StudentDetails details = found.get(id);
+			if (details != null) {
+				students.add(StudentDetailsResponse.from(details));
+			} else {
+				missingIds.add(id);
+			}
+		}
+		return new StudentDetailsBatchResponse(students, missingIds);
+	}
+
+	private static StudentDetailsNotFoundWithId notFound(int id) {
+		return new StudentDetailsNotFoundWithId("Student Details With Id:" + id + " is Not Found");
+	}
+}
@@ -0,0 +1,24 @@
+package com.security.reactive;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+import com.security.studentdto.StudentDetails;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking repository for the StudentDetails table, used by the reactive
+ * deployment mode. Maps the same table as StudentDetailsRepo through R2DBC.
+ */
+public interface ReactiveStudentDetailsRepo extends R2dbcRepository<StudentDetails, Integer> {
+
+    /**
+     * Fetches only the version column of a student, without loading the row.
+     *
+     * @param stuNumber The ID of the student.
+     * @return The current version, or empty if the student does not exist.
+     */
+    @Query("SELECT version FROM student_details WHERE stu_number = :stuNumber")
+    Mono<Long> findVersionByStuNumber(int stuNumber);
+}
@@ -0,0 +1,22 @@
+package com.security.reactive;
+
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+import com.security.studentdto.StudentLoginDetails;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking repository for student login details, used by the reactive
+ * deployment mode. Maps the same table as StudentloginDetailsRepo through R2DBC.
+ */
+public interface ReactiveStudentLoginDetailsRepo extends R2dbcRepository<StudentLoginDetails, Integer> {
+
+    /**
+     * Finds a student's login details by their userName.
+     *
+     * @param userName The userName of the student to be retrieved.
+     * @return The login details, or empty if no student has this userName.
+     */
+    Mono<StudentLoginDetails> findByUserName(String userName);
+}
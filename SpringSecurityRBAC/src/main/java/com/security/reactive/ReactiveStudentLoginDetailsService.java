@@ -0,0 +1,36 @@
+package com.security.reactive;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import com.security.studentdto.StudentloginDetailsPrinciple;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of StudentDetailsLoginSecurityDetails: loads the
+ * principal for a userName without blocking the event loop.
+ */
+@Service
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveStudentLoginDetailsService implements ReactiveUserDetailsService {
+
+	@Autowired
+	private ReactiveStudentLoginDetailsRepo detailsRepo; // Non-blocking access to student login details
+
+	/**
+	 * Loads the user details by UserName for authentication.
+	 *
+	 * @param username The UserName of the user to load.
+	 * @return The principal, or empty if the user does not exist.
+	 */
+	@Override
+	public Mono<UserDetails> findByUsername(String username) {
+		return detailsRepo.findByUserName(username)
+				.map(details -> new StudentloginDetailsPrinciple(details, details.getRole()));
+	}
+}
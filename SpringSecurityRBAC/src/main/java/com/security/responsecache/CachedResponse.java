@@ -0,0 +1,124 @@
+package com.security.responsecache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * A JSON response body serialized once and kept both as is and gzipped, with
+ * the strong entity tag of each encoding. Immutable, so it is shared by all
+ * the requests it answers.
+ */
+public final class CachedResponse {
+
+	private final byte[] identity;
+
+	private final byte[] gzip;
+
+	private final String identityETag;
+
+	private final String gzipETag;
+
+	private final long builtAtMillis;
+
+	/**
+	 * Wraps a serialized body.
+	 *
+	 * @param identity      The JSON bytes.
+	 * @param gzip          The gzipped JSON bytes, or null when gzip does not
+	 *                      make the body smaller.
+	 * @param digest        A digest of the JSON bytes, the base of the entity
+	 *                      tags.
+	 * @param builtAtMillis When the body was serialized.
+	 */
+	CachedResponse(byte[] identity, byte[] gzip, String digest, long builtAtMillis) {
+		this.identity = identity;
+		this.gzip = gzip;
+		this.identityETag = "\"0" + digest + "\"";
+		this.gzipETag = "\"0" + digest + "-gzip\"";
+		this.builtAtMillis = builtAtMillis;
+	}
+
+	/**
+	 * Builds the response to a request: 304 if the client already has this
+	 * body, else the body in the best encoding the client accepts.
+	 *
+	 * @param acceptEncoding The Accept-Encoding header, or null.
+	 * @param ifNoneMatch    The If-None-Match header, or null.
+	 * @return The response.
+	 */
+	public ResponseEntity<byte[]> toResponse(String acceptEncoding, String ifNoneMatch) {
+		boolean gzipped = gzip != null && acceptsGzip(acceptEncoding);
+		String eTag = gzipped ? gzipETag : identityETag;
+		if (matches(ifNoneMatch)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT_ENCODING)
+					.build();
+		}
+		byte[] body = gzipped ? gzip : identity;
+		ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK).eTag(eTag)
+				.varyBy(HttpHeaders.ACCEPT_ENCODING).contentType(MediaType.APPLICATION_JSON)
+				.contentLength(body.length);
+		if (gzipped) {
+			response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		return response.body(body);
+	}
+
+	public int getIdentityBytes() {
+		return identity.length;
+	}
+
+	public int getGzipBytes() {
+		return gzip == null ? 0 : gzip.length;
+	}
+
+	public long getBuiltAtMillis() {
+		return builtAtMillis;
+	}
+
+	// If-None-Match uses the weak comparison, and both encodings carry the same content
+	private boolean matches(String ifNoneMatch) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			String candidate = tag.trim();
+			if (candidate.startsWith("W/")) {
+				candidate = candidate.substring(2);
+			}
+			if (candidate.equals("*") || candidate.equals(identityETag) || candidate.equals(gzipETag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.split(";");
+			String name = parts[0].trim().toLowerCase();
+			if (!name.equals("gzip") && !name.equals("x-gzip") && !name.equals("*")) {
+				continue;
+			}
+			boolean refused = false;
+			for (int i = 1; i < parts.length; i++) {
+				String parameter = parts[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						refused = Double.parseDouble(parameter.substring(2)) <= 0;
+					} catch (NumberFormatException e) {
+						refused = true;
+					}
+				}
+			}
+			if (!refused) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,21 @@
+package com.security.responsecache;
+
+/**
+ * State of the pre-serialized /moderator/getAllStudent response.
+ *
+ * @param enabled         Whether the response is cached at all.
+ * @param cached          Whether a current body is ready to serve.
+ * @param identityBytes   Size of the cached JSON body.
+ * @param gzipBytes       Size of its gzipped form, 0 if not kept.
+ * @param hits            Requests answered from the cached body.
+ * @param notModified     Of those, requests answered with 304.
+ * @param misses          Requests serialized as before, while no body was
+ *                        ready or the client did not accept JSON.
+ * @param invalidations   Writes that discarded the cached body.
+ * @param rebuilds        Bodies serialized in the background.
+ * @param lastBuildMillis Time taken by the last rebuild.
+ * @param lastError       The last rebuild failure, or null.
+ */
+public record ResponseCacheStats(boolean enabled, boolean cached, int identityBytes, int gzipBytes, long hits,
+		long notModified, long misses, long invalidations, long rebuilds, long lastBuildMillis, String lastError) {
+}
@@ -0,0 +1,308 @@
+package com.security.responsecache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.security.datasource.ReadWriteRoutingContext;
+import com.security.studentcontroller.StudentDetailsETag;
+import com.security.studentdto.StudentDetails;
+import com.security.studentdto.StudentDetailsResponse;
+import com.security.studentrepo.StudentDetailsRepo;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the /moderator/getAllStudent response serialized and gzipped, so that
+ * a request costs a header check and a write of ready bytes instead of a
+ * query, a Jackson run over every student and a compression.
+ *
+ * Every write through StudentDetailsDao discards the cached body at once (and
+ * again when its transaction commits). The rebuild, on a background thread
+ * reading from the primary, is debounced: it runs once no write has arrived
+ * for response-cache.rebuild-quiet-ms, or at the latest
+ * response-cache.rebuild-max-delay-ms after the first write it covers, so a
+ * burst of writes costs one rebuild rather than one per write. Until the new
+ * body is ready, requests are served as before, so a client always sees its
+ * own writes. A body built from data read before a later write is never
+ * published. Writes made by other nodes are picked up once the body is older
+ * than response-cache.max-age-ms.
+ */
+@Component
+public class StudentListResponseCache {
+
+	@Autowired
+	private StudentDetailsRepo detailsRepo;
+
+	@Autowired
+	private ObjectMapper objectMapper; // The one Spring MVC serializes the uncached response with
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${response-cache.enabled:true}")
+	private boolean enabled;
+
+	@Value("${response-cache.max-age-ms:30000}")
+	private long maxAgeMillis;
+
+	// Larger bodies are not kept in memory; they are serialized per request as before
+	@Value("${response-cache.max-bytes:33554432}")
+	private int maxBytes;
+
+	// How long the students must go unwritten before a rebuild runs
+	@Value("${response-cache.rebuild-quiet-ms:250}")
+	private long rebuildQuietMillis;
+
+	// Upper bound on how long a steady stream of writes can put off a rebuild
+	@Value("${response-cache.rebuild-max-delay-ms:5000}")
+	private long rebuildMaxDelayMillis;
+
+	// Single background thread, so requests never wait for a rebuild
+	private final ScheduledExecutorService rebuildExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "student-list-response-rebuild");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+	// Bumped by every invalidation; a rebuild only publishes if it is unchanged
+	private long generation;
+
+	// The last invalidation, and the first one not yet covered by a rebuild (0 if none)
+	private long lastInvalidatedMillis;
+
+	private long firstInvalidatedMillis;
+
+	private volatile CachedResponse current;
+
+	// After a failed or too large build, no rebuild is attempted before this time
+	private volatile long retryAfterMillis;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder notModified = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder invalidations = new LongAdder();
+
+	private final LongAdder rebuilds = new LongAdder();
+
+	private volatile long lastBuildMillis;
+
+	private volatile String lastError;
+
+	/**
+	 * Builds the first body once the application has started.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void buildOnStartup() {
+		if (enabled) {
+			scheduleRebuild();
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		rebuildExecutor.shutdownNow();
+	}
+
+	/**
+	 * Answers a request from the cached body.
+	 *
+	 * @param accept         The Accept header, or null.
+	 * @param acceptEncoding The Accept-Encoding header, or null.
+	 * @param ifNoneMatch    The If-None-Match header, or null.
+	 * @return The response, or null if the request must be served uncached.
+	 */
+	public ResponseEntity<byte[]> serve(String accept, String acceptEncoding, String ifNoneMatch) {
+		CachedResponse response = current();
+		// Only where the converters would write JSON too; otherwise they answer as usual
+		if (response == null || !StudentDetailsETag.negotiatesJson(accept)) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		ResponseEntity<byte[]> entity = response.toResponse(acceptEncoding, ifNoneMatch);
+		if (entity.getBody() == null) {
+			notModified.increment();
+		}
+		return entity;
+	}
+
+	/**
+	 * Discards the cached body after a write to the students and schedules a
+	 * rebuild. Inside a transaction this is repeated once it commits, so that a
+	 * rebuild reading before the commit is not kept.
+	 */
+	public void invalidate() {
+		if (!enabled) {
+			return;
+		}
+		invalidations.increment();
+		discard();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					discard();
+				}
+			});
+		}
+	}
+
+	private void discard() {
+		synchronized (this) {
+			generation++;
+			current = null;
+			lastInvalidatedMillis = System.currentTimeMillis();
+			if (firstInvalidatedMillis == 0) {
+				firstInvalidatedMillis = lastInvalidatedMillis;
+			}
+		}
+		retryAfterMillis = 0;
+		scheduleRebuild();
+	}
+
+	private CachedResponse current() {
+		if (!enabled) {
+			return null;
+		}
+		CachedResponse response = current;
+		if (response == null) {
+			if (System.currentTimeMillis() >= retryAfterMillis) {
+				scheduleRebuild(); // Usually already pending, after an invalidation
+			}
+			return null;
+		}
+		if (System.currentTimeMillis() - response.getBuiltAtMillis() > maxAgeMillis) {
+			discard();
+			return null;
+		}
+		return response;
+	}
+
+	private void scheduleRebuild() {
+		if (rebuildPending.compareAndSet(false, true)) {
+			try {
+				rebuildExecutor.schedule(this::rebuildWhenQuiet, rebuildDelay(System.currentTimeMillis()),
+						TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				rebuildPending.set(false); // Shutting down
+			}
+		}
+	}
+
+	// Runs the pending rebuild, or puts it off while writes keep arriving
+	private void rebuildWhenQuiet() {
+		long delay = rebuildDelay(System.currentTimeMillis());
+		if (delay > 0) {
+			rebuildExecutor.schedule(this::rebuildWhenQuiet, delay, TimeUnit.MILLISECONDS);
+			return;
+		}
+		rebuild();
+	}
+
+	/**
+	 * Returns how long the pending rebuild should still wait: until the
+	 * students have gone unwritten for the quiet period, but no longer than
+	 * the maximum delay after the first write it covers.
+	 */
+	synchronized long rebuildDelay(long now) {
+		if (firstInvalidatedMillis == 0) {
+			return 0;
+		}
+		long due = Math.min(lastInvalidatedMillis + rebuildQuietMillis, firstInvalidatedMillis + rebuildMaxDelayMillis);
+		return Math.max(0, due - now);
+	}
+
+	/**
+	 * Serializes the current list of students and publishes it, unless a write
+	 * happened meanwhile.
+	 */
+	void rebuild() {
+		rebuildPending.set(false); // Invalidations from now on schedule another rebuild
+		long start = System.nanoTime();
+		long builtFor;
+		synchronized (this) {
+			builtFor = generation;
+			firstInvalidatedMillis = 0; // Later invalidations are covered by the next rebuild
+		}
+		try {
+			CachedResponse built = build();
+			synchronized (this) {
+				if (generation == builtFor) {
+					current = built;
+				}
+			}
+			rebuilds.increment();
+			lastBuildMillis = (System.nanoTime() - start) / 1_000_000;
+			if (built == null) {
+				lastError = "body larger than response-cache.max-bytes, served uncached";
+				retryAfterMillis = System.currentTimeMillis() + maxAgeMillis;
+			}
+		} catch (IOException | RuntimeException e) {
+			lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+			retryAfterMillis = System.currentTimeMillis() + Math.min(maxAgeMillis, 1000);
+		}
+	}
+
+	private CachedResponse build() throws IOException {
+		long builtAt = System.currentTimeMillis();
+		List<StudentDetails> students;
+		try {
+			// Read the primary, a replica may not have the write that triggered the rebuild yet
+			ReadWriteRoutingContext.markWritten();
+			TransactionTemplate read = new TransactionTemplate(transactionManager);
+			read.setReadOnly(true);
+			students = read.execute(status -> detailsRepo.findAll());
+		} finally {
+			ReadWriteRoutingContext.clear();
+		}
+
+		byte[] identity = objectMapper.writeValueAsBytes(StudentDetailsResponse.from(students));
+		if (identity.length > maxBytes) {
+			return null;
+		}
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(identity.length / 4 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+			gzip.write(identity);
+		}
+		byte[] gzip = compressed.size() < identity.length ? compressed.toByteArray() : null;
+		return new CachedResponse(identity, gzip, DigestUtils.md5DigestAsHex(identity), builtAt);
+	}
+
+	/**
+	 * Returns the state of the cached response.
+	 *
+	 * @return The statistics.
+	 */
+	public ResponseCacheStats stats() {
+		CachedResponse response = current;
+		return new ResponseCacheStats(enabled, response != null, response == null ? 0 : response.getIdentityBytes(),
+				response == null ? 0 : response.getGzipBytes(), hits.sum(), notModified.sum(), misses.sum(),
+				invalidations.sum(), rebuilds.sum(), lastBuildMillis, lastError);
+	}
+}
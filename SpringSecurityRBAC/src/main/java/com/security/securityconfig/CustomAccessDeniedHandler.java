@@ -0,0 +1,37 @@
+package com.security.securityconfig;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.web.access.AccessDeniedHandler;
+import org.springframework.security.web.access.AccessDeniedHandlerImpl;
+import org.springframework.stereotype.Component;
+
+import com.security.audit.AuditEventType;
+import com.security.audit.AuditLog;
+
+import java.io.IOException;
+
+/**
+ * Audits requests refused because the authenticated user lacks the role for
+ * the endpoint, then answers them with the default 403 response.
+ */
+@Component
+public class CustomAccessDeniedHandler implements AccessDeniedHandler {
+
+    @Autowired
+    private AuditLog auditLog; // Records the denial without blocking
+
+    private final AccessDeniedHandler delegate = new AccessDeniedHandlerImpl();
+
+    @Override
+    public void handle(HttpServletRequest request,
+                       HttpServletResponse response,
+                       AccessDeniedException accessDeniedException) throws IOException, ServletException {
+        auditLog.publish(AuditEventType.ACCESS_DENIED, null, request.getMethod() + " " + request.getRequestURI(),
+                HttpServletResponse.SC_FORBIDDEN);
+        delegate.handle(request, response, accessDeniedException);
+    }
+}
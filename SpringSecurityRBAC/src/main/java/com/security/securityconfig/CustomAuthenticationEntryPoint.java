@@ -2,17 +2,27 @@ package com.security.securityconfig;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
+
+import com.security.audit.AuditEventType;
+import com.security.audit.AuditLog;
+
 import java.io.IOException;
 
 @Component
 public class CustomAuthenticationEntryPoint implements AuthenticationEntryPoint {
 
+    @Autowired
+    private AuditLog auditLog; // Records the rejected request without blocking
+
     @Override
     public void commence(HttpServletRequest request,
                          HttpServletResponse response,
                          org.springframework.security.core.AuthenticationException authException) throws IOException {
+        auditLog.publish(AuditEventType.UNAUTHENTICATED, null, request.getMethod() + " " + request.getRequestURI(),
+                HttpServletResponse.SC_UNAUTHORIZED);
         response.setContentType("application/json");
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         response.getWriter().write("{\"error\": \"Unauthorized\", \"message\": \"" + authException.getMessage() + "\"}");
@@ -14,8 +14,14 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import com.security.concurrency.AdaptiveConcurrencyFilter;
+import com.security.concurrency.BlockingResourceLimiter;
+import com.security.concurrency.LimitedPasswordEncoder;
+import com.security.concurrency.PriorityAdmissionFilter;
+import com.security.idempotency.IdempotencyFilter;
 import com.security.jwtfilter.JwtFilter;
 import com.security.jwtfilter.jwtBlockListFilter;
 
@@ -27,6 +33,16 @@ public class SecurityConfig {
     JwtFilter jwtFilter; // Custom JWT filter for validating JWT tokens
     @Autowired
     jwtBlockListFilter jwtBlockListFilter; // Filter for handling blocked JWT tokens
+    @Autowired
+    PriorityAdmissionFilter priorityAdmissionFilter; // Queues requests by role when saturated
+    @Autowired
+    AdaptiveConcurrencyFilter adaptiveConcurrencyFilter; // Sheds load before any token work
+    @Autowired
+    IdempotencyFilter idempotencyFilter; // Replays the response of a retried POST
+    @Autowired
+    CustomAuthenticationEntryPoint authenticationEntryPoint; // Answers and audits unauthenticated requests
+    @Autowired
+    CustomAccessDeniedHandler accessDeniedHandler; // Audits requests refused for lack of a role
     
     
     /** 
@@ -58,6 +74,8 @@ public class SecurityConfig {
         // Define authorization rules for different request paths
         httpSecurity.authorizeHttpRequests(authorize -> authorize
                 .requestMatchers("/registerStudent", "/loginStudent").permitAll() // Allow public access
+                .requestMatchers("/introspect", "/introspect/batch").permitAll() // Callers present a client secret instead
+                .requestMatchers("/readiness").permitAll() // Load balancer probe
                 .requestMatchers("/logoutStudent").hasAnyRole("USER", "MODERATOR", "ADMIN") // Role-based access
                 .requestMatchers("/admin/**").hasRole("ADMIN") // Admin-only access
                 .requestMatchers("/moderator/**").hasAnyRole("MODERATOR", "ADMIN") // Moderator and Admin access
@@ -65,9 +83,10 @@ public class SecurityConfig {
                 .anyRequest().authenticated() // All other requests require authentication
         );
 
-        // Handle authentication failures with a custom entry point
+        // Handle authentication failures with a custom entry point, and audit role-based denials
         httpSecurity.exceptionHandling(exceptionHandling -> 
-            exceptionHandling.authenticationEntryPoint(new CustomAuthenticationEntryPoint())
+            exceptionHandling.authenticationEntryPoint(authenticationEntryPoint)
+                    .accessDeniedHandler(accessDeniedHandler)
         );
 
         // Use basic authentication for additional security layers
@@ -78,9 +97,14 @@ public class SecurityConfig {
             session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
         );
 
-        // Add custom filters before the default UsernamePasswordAuthenticationFilter
+        // Add custom filters before the default UsernamePasswordAuthenticationFilter,
+        // admission and load shedding first so rejected requests cost no Redis or database call
+        httpSecurity.addFilterBefore(priorityAdmissionFilter, UsernamePasswordAuthenticationFilter.class);
+        httpSecurity.addFilterBefore(adaptiveConcurrencyFilter, UsernamePasswordAuthenticationFilter.class);
         httpSecurity.addFilterBefore(jwtBlockListFilter, UsernamePasswordAuthenticationFilter.class);
         httpSecurity.addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+        // Idempotency-Key handling only sees requests that passed authorization
+        httpSecurity.addFilterAfter(idempotencyFilter, AuthorizationFilter.class);
 
         return httpSecurity.build();
     }
@@ -89,12 +113,15 @@ public class SecurityConfig {
      * Configures the authentication provider with user details service and password encoder.
      * 
      * @param detailsService The UserDetailsService for user authentication.
+     * @param limiter        Bounds concurrent BCrypt work.
      * @return A configured AuthenticationProvider.
      */
     @Bean
-    public AuthenticationProvider authenticationProvider(UserDetailsService detailsService) {
+    public AuthenticationProvider authenticationProvider(UserDetailsService detailsService,
+            BlockingResourceLimiter limiter) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-        provider.setPasswordEncoder(new BCryptPasswordEncoder(12)); // Use BCrypt for password encoding
+        // Use BCrypt for password encoding; only the comparison holds a hashing permit, not the user lookup
+        provider.setPasswordEncoder(new LimitedPasswordEncoder(new BCryptPasswordEncoder(12), limiter));
         provider.setUserDetailsService(detailsService); // Set custom user details service
         return provider;
     }
@@ -0,0 +1,137 @@
+package com.security.sqltiming;
+
+/**
+ * Counts the SQL statements run by the current thread through a
+ * SqlTimingDataSource, for query-count assertions in tests:
+ *
+ * <pre>
+ * try (QueryCount count = QueryCount.start()) {
+ *     dao.getStudentDetailsByIdDao(7);
+ *     count.assertSelects(1);
+ * }
+ * </pre>
+ *
+ * Counts may be nested; a statement is counted by every open QueryCount of
+ * the thread.
+ */
+public final class QueryCount implements AutoCloseable {
+
+	private static final ThreadLocal<QueryCount> CURRENT = new ThreadLocal<>();
+
+	private final QueryCount enclosing;
+
+	private int selects;
+
+	private int inserts;
+
+	private int updates;
+
+	private int deletes;
+
+	private int other;
+
+	private QueryCount(QueryCount enclosing) {
+		this.enclosing = enclosing;
+	}
+
+	/**
+	 * Starts counting the statements of the current thread.
+	 *
+	 * @return The count, to be closed when done.
+	 */
+	public static QueryCount start() {
+		QueryCount count = new QueryCount(CURRENT.get());
+		CURRENT.set(count);
+		return count;
+	}
+
+	// Called by the monitor for every statement of the thread
+	static void record(String sql) {
+		for (QueryCount count = CURRENT.get(); count != null; count = count.enclosing) {
+			count.add(sql);
+		}
+	}
+
+	private void add(String sql) {
+		int start = 0;
+		while (start < sql.length() && (Character.isWhitespace(sql.charAt(start)) || sql.charAt(start) == '(')) {
+			start++;
+		}
+		if (sql.startsWith("/*", start)) { // Skip a leading hibernate.use_sql_comments comment
+			int end = sql.indexOf("*/", start);
+			start = end < 0 ? sql.length() : end + 2;
+			while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+				start++;
+			}
+		}
+		if (sql.regionMatches(true, start, "select", 0, 6) || sql.regionMatches(true, start, "with", 0, 4)) {
+			selects++;
+		} else if (sql.regionMatches(true, start, "insert", 0, 6)) {
+			inserts++;
+		} else if (sql.regionMatches(true, start, "update", 0, 6)) {
+			updates++;
+		} else if (sql.regionMatches(true, start, "delete", 0, 6)) {
+			deletes++;
+		} else {
+			other++;
+		}
+	}
+
+	public int getSelects() {
+		return selects;
+	}
+
+	public int getInserts() {
+		return inserts;
+	}
+
+	public int getUpdates() {
+		return updates;
+	}
+
+	public int getDeletes() {
+		return deletes;
+	}
+
+	public int getTotal() {
+		return selects + inserts + updates + deletes + other;
+	}
+
+	public void assertSelects(int expected) {
+		check("select", expected, selects);
+	}
+
+	public void assertInserts(int expected) {
+		check("insert", expected, inserts);
+	}
+
+	public void assertUpdates(int expected) {
+		check("update", expected, updates);
+	}
+
+	public void assertDeletes(int expected) {
+		check("delete", expected, deletes);
+	}
+
+	public void assertTotal(int expected) {
+		check("total", expected, getTotal());
+	}
+
+	private static void check(String kind, int expected, int actual) {
+		if (expected != actual) {
+			throw new AssertionError("Expected " + expected + " " + kind + " statement(s) but " + actual + " ran");
+		}
+	}
+
+	/**
+	 * Stops counting; the enclosing count, if any, becomes current again.
+	 */
+	@Override
+	public void close() {
+		if (enclosing == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(enclosing);
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.security.sqltiming;
+
+import java.nio.file.Path;
+
+import com.security.jsonlines.JsonLinesWriter;
+
+/**
+ * Writes slow-query and N+1 entries to slow-queries.jsonl, one JSON object
+ * per line. Queueing, the writer thread (so a slow disk never adds to query
+ * latency) and rolling the file at the size limit are those of
+ * JsonLinesWriter.
+ */
+class SlowQueryLog extends JsonLinesWriter<SqlLogEntry> {
+
+	SlowQueryLog(Path directory, int queueSize, long maxFileBytes) {
+		super(directory, "slow-queries", "slow-query-log", queueSize, maxFileBytes);
+	}
+
+	@Override
+	protected void format(SqlLogEntry entry, StringBuilder lines) {
+		lines.append("{\"kind\":");
+		string(lines, entry.kind());
+		lines.append(",\"timestamp\":").append(entry.timestamp());
+		lines.append(",\"micros\":").append(entry.micros());
+		lines.append(",\"rows\":").append(entry.rows());
+		lines.append(",\"executions\":").append(entry.executions());
+		lines.append(",\"caller\":");
+		string(lines, entry.caller());
+		if (entry.request() != null) {
+			lines.append(",\"request\":");
+			string(lines, entry.request());
+		}
+		lines.append(",\"sql\":");
+		string(lines, entry.sql());
+		lines.append("}\n");
+	}
+}
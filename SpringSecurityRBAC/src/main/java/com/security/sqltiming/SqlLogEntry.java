@@ -0,0 +1,20 @@
+package com.security.sqltiming;
+
+/**
+ * One line of the slow-query log.
+ *
+ * @param kind       "slow" for a statement over the threshold, "n+1" for a
+ *                   statement repeated within one request.
+ * @param timestamp  When the entry was made, in epoch millis.
+ * @param micros     Execution time of the statement; for "n+1" the total of
+ *                   all its executions in the request.
+ * @param rows       Rows returned or affected; for "n+1" the total.
+ * @param executions How many times the statement ran (1 for "slow").
+ * @param caller     The repository method, or the first application frame,
+ *                   that ran the statement.
+ * @param request    The request it ran in, null outside a request.
+ * @param sql        The statement.
+ */
+record SqlLogEntry(String kind, long timestamp, long micros, long rows, int executions, String caller,
+		String request, String sql) {
+}
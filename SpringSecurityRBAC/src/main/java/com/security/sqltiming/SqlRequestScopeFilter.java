@@ -0,0 +1,35 @@
+package com.security.sqltiming;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Scopes N+1 detection to a request: the statements counted by
+ * SqlStatementMonitor start from zero for every request and its N+1 patterns
+ * are logged when it ends.
+ */
+public class SqlRequestScopeFilter extends OncePerRequestFilter {
+
+	private final SqlStatementMonitor monitor;
+
+	public SqlRequestScopeFilter(SqlStatementMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		monitor.beginRequest(request.getMethod() + " " + request.getRequestURI());
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			monitor.endRequest();
+		}
+	}
+}
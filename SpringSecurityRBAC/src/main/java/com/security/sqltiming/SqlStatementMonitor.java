@@ -0,0 +1,265 @@
+package com.security.sqltiming;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Receives every statement timed by SqlTimingDataSource. It keeps totals for
+ * /admin/sqlStats, feeds QueryCount, and writes two kinds of entries to the
+ * asynchronous SlowQueryLog:
+ * <ul>
+ * <li>"slow": a statement that ran longer than sql.timing.slow-threshold-ms,
+ * sampled at sql.timing.slow-log-sample-rate;</li>
+ * <li>"n+1": a statement that ran sql.timing.n-plus-one-threshold times or
+ * more within one request, logged once per request when it ends.</li>
+ * </ul>
+ * Each entry names the repository method that ran the statement, as recorded
+ * by SqlTimingAspect, or else the first application frame on the stack. The
+ * caller is only looked up for a statement that is logged.
+ *
+ * Prepared statements already carry "?" placeholders, so the SQL text itself
+ * identifies a repeated statement.
+ */
+@Component
+public class SqlStatementMonitor {
+
+	private static final ThreadLocal<RequestStatements> REQUEST = new ThreadLocal<>();
+
+	private static final ThreadLocal<String> REPOSITORY_METHOD = new ThreadLocal<>();
+
+	private static final StackWalker WALKER = StackWalker.getInstance();
+
+	// Distinct statements tracked per request; a request above this is not an N+1 pattern
+	private static final int MAX_TRACKED_PER_REQUEST = 256;
+
+	private final boolean enabled;
+
+	private final long slowThresholdNanos;
+
+	private final double sampleRate;
+
+	private final int nPlusOneThreshold;
+
+	private final SlowQueryLog log;
+
+	private final LongAdder statements = new LongAdder();
+
+	private final LongAdder statementNanos = new LongAdder();
+
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	private final LongAdder slowStatements = new LongAdder();
+
+	private final LongAdder nPlusOneRequests = new LongAdder();
+
+	/**
+	 * Creates the monitor.
+	 *
+	 * @param enabled           Whether the DataSource is wrapped at all.
+	 * @param slowThresholdMs   Statements at least this slow are logged; below
+	 *                          0 to log none.
+	 * @param sampleRate        Share of slow statements logged, from 0 to 1.
+	 * @param nPlusOneThreshold Executions of one statement in a request that
+	 *                          flag an N+1 pattern; 0 to disable.
+	 * @param directory         Where the slow-query log is written.
+	 * @param queueSize         Entries waiting for the log writer.
+	 * @param maxFileBytes      Size at which the log file is rolled.
+	 */
+	@Autowired
+	public SqlStatementMonitor(@Value("${sql.timing.enabled:true}") boolean enabled,
+			@Value("${sql.timing.slow-threshold-ms:200}") long slowThresholdMs,
+			@Value("${sql.timing.slow-log-sample-rate:1.0}") double sampleRate,
+			@Value("${sql.timing.n-plus-one-threshold:10}") int nPlusOneThreshold,
+			@Value("${sql.timing.directory:logs/sql}") String directory,
+			@Value("${sql.timing.queue-size:1024}") int queueSize,
+			@Value("${sql.timing.file-max-bytes:67108864}") long maxFileBytes) {
+		this.enabled = enabled;
+		this.slowThresholdNanos = slowThresholdMs < 0 ? Long.MAX_VALUE : slowThresholdMs * 1_000_000;
+		this.sampleRate = sampleRate;
+		this.nPlusOneThreshold = nPlusOneThreshold;
+		this.log = new SlowQueryLog(Paths.get(directory), queueSize, maxFileBytes);
+	}
+
+	@PostConstruct
+	public void start() {
+		if (enabled) {
+			log.start();
+		}
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		log.stop();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Records one executed statement.
+	 *
+	 * @param sql   The statement.
+	 * @param nanos How long it took to execute.
+	 * @param rows  Rows returned or affected, -1 if it failed.
+	 */
+	public void record(String sql, long nanos, long rows) {
+		statements.increment();
+		statementNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+		QueryCount.record(sql);
+
+		RequestStatements request = REQUEST.get();
+		if (request != null && nPlusOneThreshold > 0) {
+			request.add(sql, nanos, rows, nPlusOneThreshold);
+		}
+
+		if (nanos >= slowThresholdNanos) {
+			slowStatements.increment();
+			if (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+				log.offer(new SqlLogEntry("slow", System.currentTimeMillis(), nanos / 1000, rows, 1, caller(),
+						request == null ? null : request.name, sql));
+			}
+		}
+	}
+
+	/**
+	 * Starts tracking the statements of a request on the current thread.
+	 *
+	 * @param name The request, such as "GET /moderator/getAllStudent".
+	 */
+	public void beginRequest(String name) {
+		if (enabled && nPlusOneThreshold > 0) {
+			REQUEST.set(new RequestStatements(name));
+		}
+	}
+
+	/**
+	 * Ends the request started by beginRequest and logs its N+1 patterns.
+	 */
+	public void endRequest() {
+		RequestStatements request = REQUEST.get();
+		REQUEST.remove();
+		if (request == null || request.flagged == 0) {
+			return;
+		}
+		nPlusOneRequests.increment();
+		long now = System.currentTimeMillis();
+		for (Map.Entry<String, Executions> statement : request.executions.entrySet()) {
+			Executions executions = statement.getValue();
+			if (executions.caller != null) {
+				log.offer(new SqlLogEntry("n+1", now, executions.nanos / 1000, executions.rows, executions.count,
+						executions.caller, request.name, statement.getKey()));
+			}
+		}
+	}
+
+	/**
+	 * Marks the current thread as running a repository method, until the
+	 * returned previous value is restored with exitRepository.
+	 *
+	 * @param method The repository method, such as "StudentDetailsRepo.findById".
+	 * @return The method that was running before.
+	 */
+	static String enterRepository(String method) {
+		String previous = REPOSITORY_METHOD.get();
+		REPOSITORY_METHOD.set(method);
+		return previous;
+	}
+
+	static void exitRepository(String previous) {
+		if (previous == null) {
+			REPOSITORY_METHOD.remove();
+		} else {
+			REPOSITORY_METHOD.set(previous);
+		}
+	}
+
+	private static String caller() {
+		String repositoryMethod = REPOSITORY_METHOD.get();
+		if (repositoryMethod != null) {
+			return repositoryMethod;
+		}
+		return WALKER.walk(frames -> frames
+				.filter(frame -> frame.getClassName().startsWith("com.security.")
+						&& !isInternal(frame.getClassName(), SqlStatementMonitor.class)
+						&& !isInternal(frame.getClassName(), SqlTimingDataSource.class)
+						&& !frame.getClassName().contains("$$"))
+				.findFirst()
+				.map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1) + "."
+						+ frame.getMethodName())
+				.orElse("unknown"));
+	}
+
+	private static boolean isInternal(String className, Class<?> type) {
+		return className.startsWith(type.getName())
+				&& (className.length() == type.getName().length() || className.charAt(type.getName().length()) == '$');
+	}
+
+	/**
+	 * Returns the statement totals since startup.
+	 *
+	 * @return The statistics.
+	 */
+	public SqlTimingStats stats() {
+		long count = statements.sum();
+		return new SqlTimingStats(enabled, count, count == 0 ? 0 : statementNanos.sum() / count / 1000,
+				maxNanos.get() / 1000, slowStatements.sum(), nPlusOneRequests.sum(), log.getWritten(),
+				log.getDropped());
+	}
+
+	// The statements of one request, confined to its thread
+	private static final class RequestStatements {
+
+		private final String name;
+
+		private final Map<String, Executions> executions = new HashMap<>();
+
+		private int flagged;
+
+		RequestStatements(String name) {
+			this.name = name;
+		}
+
+		void add(String sql, long nanos, long rows, int threshold) {
+			Executions statement = executions.get(sql);
+			if (statement == null) {
+				if (executions.size() >= MAX_TRACKED_PER_REQUEST) {
+					return;
+				}
+				statement = new Executions();
+				executions.put(sql, statement);
+			}
+			statement.count++;
+			statement.nanos += nanos;
+			statement.rows += Math.max(rows, 0);
+			if (statement.count == threshold) {
+				statement.caller = caller();
+				flagged++;
+			}
+		}
+	}
+
+	private static final class Executions {
+
+		private int count;
+
+		private long nanos;
+
+		private long rows;
+
+		// Set once the statement is flagged as N+1
+		private String caller;
+	}
+}
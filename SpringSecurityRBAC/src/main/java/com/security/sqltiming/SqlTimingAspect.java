@@ -0,0 +1,51 @@
+package com.security.sqltiming;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records which repository method is running, so that a slow or repeated
+ * statement can be traced back to the query method that issued it rather than
+ * to Hibernate internals.
+ */
+@Aspect
+@Component
+public class SqlTimingAspect {
+
+	// The application interface a repository proxy implements, such as StudentDetailsRepo
+	private static final ClassValue<String> REPOSITORY_NAMES = new ClassValue<>() {
+		@Override
+		protected String computeValue(Class<?> proxyClass) {
+			for (Class<?> type : proxyClass.getInterfaces()) {
+				if (type.getName().startsWith("com.security.")) {
+					return type.getSimpleName();
+				}
+			}
+			return null;
+		}
+	};
+
+	@Autowired
+	private SqlStatementMonitor monitor;
+
+	@Around("execution(public * org.springframework.data.repository.Repository+.*(..))"
+			+ " || execution(public * com.security.studentrepo.*.*(..))")
+	public Object repository(ProceedingJoinPoint joinPoint) throws Throwable {
+		if (!monitor.isEnabled()) {
+			return joinPoint.proceed();
+		}
+		String repository = REPOSITORY_NAMES.get(joinPoint.getThis().getClass());
+		if (repository == null) {
+			repository = joinPoint.getSignature().getDeclaringType().getSimpleName();
+		}
+		String previous = SqlStatementMonitor.enterRepository(repository + "." + joinPoint.getSignature().getName());
+		try {
+			return joinPoint.proceed();
+		} finally {
+			SqlStatementMonitor.exitRepository(previous);
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.security.sqltiming;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Wraps the DataSource used by JPA (the bean named "dataSource", whether it is
+ * the auto-configured pool or the read/write router) in a
+ * SqlTimingDataSource, and scopes N+1 detection to each request. Disabled
+ * with sql.timing.enabled=false, which leaves the DataSource untouched.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sql.timing.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlTimingConfig {
+
+	@Bean
+	public static BeanPostProcessor sqlTimingDataSourcePostProcessor(ObjectProvider<SqlStatementMonitor> monitor) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+						&& !(bean instanceof SqlTimingDataSource)) {
+					return new SqlTimingDataSource(dataSource, monitor.getObject());
+				}
+				return bean;
+			}
+		};
+	}
+
+	@Bean
+	public FilterRegistrationBean<SqlRequestScopeFilter> sqlRequestScopeFilter(SqlStatementMonitor monitor) {
+		FilterRegistrationBean<SqlRequestScopeFilter> registration = new FilterRegistrationBean<>(
+				new SqlRequestScopeFilter(monitor));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1); // Right after the TracingFilter
+		return registration;
+	}
+}
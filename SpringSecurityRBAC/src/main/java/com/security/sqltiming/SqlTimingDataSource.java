@@ -0,0 +1,261 @@
+package com.security.sqltiming;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource proxy that times every JDBC statement and reports it to the
+ * SqlStatementMonitor, replacing spring.jpa.show-sql. Connections, statements
+ * and result sets are wrapped in JDK proxies: a statement is timed from the
+ * execute call to its return, and for a query the rows are counted as the
+ * result set is read, so the statement is reported when its result set (or
+ * the statement itself) is closed. Updates and batches report the affected
+ * row count.
+ */
+public class SqlTimingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+	private static final ClassLoader LOADER = SqlTimingDataSource.class.getClassLoader();
+
+	private final SqlStatementMonitor monitor;
+
+	public SqlTimingDataSource(DataSource target, SqlStatementMonitor monitor) {
+		super(target);
+		this.monitor = monitor;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return wrap(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return wrap(super.getConnection(username, password));
+	}
+
+	/**
+	 * Closes the wrapped pool, so that the container still shuts it down through
+	 * the inferred destroy method of the DataSource bean.
+	 */
+	@Override
+	public void close() throws Exception {
+		if (getTargetDataSource() instanceof AutoCloseable closeable) {
+			closeable.close();
+		}
+	}
+
+	private Connection wrap(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(LOADER, new Class<?>[] { Connection.class },
+				new ConnectionHandler(connection));
+	}
+
+	private static Object call(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	// Handles equals and hashCode on a proxy; null for every other method
+	private static Object identity(Object proxy, Method method, Object[] args) {
+		if (method.getName().equals("equals") && args != null && args.length == 1) {
+			return proxy == args[0];
+		}
+		if (method.getName().equals("hashCode") && (args == null || args.length == 0)) {
+			return System.identityHashCode(proxy);
+		}
+		return null;
+	}
+
+	private final class ConnectionHandler implements InvocationHandler {
+
+		private final Connection target;
+
+		ConnectionHandler(Connection target) {
+			this.target = target;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object identity = identity(proxy, method, args);
+			if (identity != null) {
+				return identity;
+			}
+			Object result = call(target, method, args);
+			if (!(result instanceof Statement statement)) {
+				return result;
+			}
+
+			// prepareStatement and prepareCall carry the SQL, createStatement passes it to execute
+			String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+			Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+					: statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+			return Proxy.newProxyInstance(LOADER, new Class<?>[] { type },
+					new StatementHandler(statement, sql, (Connection) proxy));
+		}
+	}
+
+	private final class StatementHandler implements InvocationHandler {
+
+		private final Statement target;
+
+		private final String sql;
+
+		private final Connection connection;
+
+		// A query whose rows are still being read
+		private String pendingSql;
+
+		private long pendingNanos;
+
+		private long pendingRows;
+
+		StatementHandler(Statement target, String sql, Connection connection) {
+			this.target = target;
+			this.sql = sql;
+			this.connection = connection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object identity = identity(proxy, method, args);
+			if (identity != null) {
+				return identity;
+			}
+			String name = method.getName();
+			if (name.startsWith("execute")) {
+				return execute(proxy, method, args);
+			}
+			if (name.equals("getConnection")) {
+				return connection;
+			}
+			if (name.equals("close")) {
+				report();
+			}
+			Object result = call(target, method, args);
+			if (name.equals("getResultSet") && result instanceof ResultSet resultSet && pendingSql != null) {
+				return rows(resultSet, proxy);
+			}
+			return result;
+		}
+
+		private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+			report(); // A new execution closes the result set of the previous one
+			String statementSql = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+			if (statementSql == null) {
+				statementSql = "<batch>";
+			}
+
+			long start = System.nanoTime();
+			Object result;
+			try {
+				result = call(target, method, args);
+			} catch (Throwable e) {
+				monitor.record(statementSql, System.nanoTime() - start, -1);
+				throw e;
+			}
+			long nanos = System.nanoTime() - start;
+
+			if (result instanceof ResultSet resultSet) {
+				pending(statementSql, nanos);
+				return rows(resultSet, proxy);
+			}
+			if (result instanceof Boolean isQuery) {
+				if (isQuery) {
+					pending(statementSql, nanos); // Rows are counted once getResultSet is called
+				} else {
+					monitor.record(statementSql, nanos, target.getUpdateCount());
+				}
+			} else if (result instanceof Number count) {
+				monitor.record(statementSql, nanos, count.longValue());
+			} else if (result instanceof int[] counts) {
+				long rows = 0;
+				for (int count : counts) {
+					rows += Math.max(count, 0); // SUCCESS_NO_INFO is negative
+				}
+				monitor.record(statementSql, nanos, rows);
+			} else if (result instanceof long[] counts) {
+				long rows = 0;
+				for (long count : counts) {
+					rows += Math.max(count, 0);
+				}
+				monitor.record(statementSql, nanos, rows);
+			}
+			return result;
+		}
+
+		private void pending(String statementSql, long nanos) {
+			pendingSql = statementSql;
+			pendingNanos = nanos;
+			pendingRows = 0;
+		}
+
+		void countRow() {
+			pendingRows++;
+		}
+
+		void report() {
+			if (pendingSql != null) {
+				String reported = pendingSql;
+				pendingSql = null;
+				monitor.record(reported, pendingNanos, pendingRows);
+			}
+		}
+
+		private ResultSet rows(ResultSet resultSet, Object statement) {
+			return (ResultSet) Proxy.newProxyInstance(LOADER, new Class<?>[] { ResultSet.class },
+					new ResultSetHandler(resultSet, this, (Statement) statement));
+		}
+	}
+
+	private static final class ResultSetHandler implements InvocationHandler {
+
+		private final ResultSet target;
+
+		private final StatementHandler statement;
+
+		private final Statement statementProxy;
+
+		ResultSetHandler(ResultSet target, StatementHandler statement, Statement statementProxy) {
+			this.target = target;
+			this.statement = statement;
+			this.statementProxy = statementProxy;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object identity = identity(proxy, method, args);
+			if (identity != null) {
+				return identity;
+			}
+			switch (method.getName()) {
+			case "next":
+				Object hasRow = call(target, method, args);
+				if (Boolean.TRUE.equals(hasRow)) {
+					statement.countRow();
+				}
+				return hasRow;
+			case "close":
+				statement.report();
+				return call(target, method, args);
+			case "getStatement":
+				return statementProxy;
+			default:
+				return call(target, method, args);
+			}
+		}
+	}
+}
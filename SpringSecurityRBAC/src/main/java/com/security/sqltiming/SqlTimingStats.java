@@ -0,0 +1,17 @@
+package com.security.sqltiming;
+
+/**
+ * SQL statement totals since startup.
+ *
+ * @param enabled          Whether statements are timed.
+ * @param statements       Statements executed.
+ * @param meanMicros       Mean execution time.
+ * @param maxMicros        Slowest execution time.
+ * @param slowStatements   Statements over the slow threshold.
+ * @param nPlusOneRequests Requests in which an N+1 pattern was flagged.
+ * @param logged           Entries written to the slow-query log.
+ * @param dropped          Entries lost because the log queue was full.
+ */
+public record SqlTimingStats(boolean enabled, long statements, long meanMicros, long maxMicros, long slowStatements,
+		long nPlusOneRequests, long logged, long dropped) {
+}
@@ -0,0 +1,56 @@
+package com.security.startup;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records when the first request after startup has been answered. Only
+ * requests arriving once the application accepts traffic count, and probes
+ * (such as /readiness, which answers 503 throughout the warm-up) never do, so
+ * the figure is that of the first real client request. Every later request
+ * costs one volatile read.
+ */
+public class FirstRequestTimingFilter extends OncePerRequestFilter {
+
+	private final StartupTimings timings;
+
+	private final Set<String> probePaths;
+
+	/**
+	 * Creates the filter.
+	 *
+	 * @param timings    Receives the end of the first request.
+	 * @param probePaths Paths of health and readiness probes, which are not
+	 *                   client requests.
+	 */
+	public FirstRequestTimingFilter(StartupTimings timings, Set<String> probePaths) {
+		this.timings = timings;
+		this.probePaths = probePaths;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return timings.isFirstRequestRecorded() || probePaths.contains(request.getRequestURI());
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		// Checked before the request runs: one that was waiting while the warm-up finished does not count
+		boolean counted = timings.isAcceptingTraffic();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			if (counted) {
+				timings.firstRequestCompleted();
+			}
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package com.security.startup;
+
+import java.util.Set;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.security.audit.AuditLog;
+import com.security.blocklist.OpaqueSessionStore;
+import com.security.blocklist.TokenBlocklist;
+import com.security.datasource.ReplicaLagMonitor;
+import com.security.sqltiming.SqlStatementMonitor;
+import com.security.tracing.Tracer;
+
+/**
+ * Startup settings that apply in every mode. With
+ * spring.main.lazy-initialization=true (the faststart profile) beans are only
+ * created when first needed; the beans listed here stay eager because they
+ * start background work (writers, sweepers, heartbeats) that has to run from
+ * startup and not from the first request that happens to touch them.
+ */
+@Configuration
+public class StartupConfig {
+
+	@Bean
+	public static LazyInitializationExcludeFilter eagerBackgroundWorkers() {
+		return LazyInitializationExcludeFilter.forBeanTypes(AuditLog.class, Tracer.class, SqlStatementMonitor.class,
+				TokenBlocklist.class, OpaqueSessionStore.class, ReplicaLagMonitor.class, StartupTimings.class);
+	}
+
+	@Bean
+	public FilterRegistrationBean<FirstRequestTimingFilter> firstRequestTimingFilter(StartupTimings timings) {
+		FilterRegistrationBean<FirstRequestTimingFilter> registration = new FilterRegistrationBean<>(
+				new FirstRequestTimingFilter(timings, Set.of("/readiness")));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE); // Outermost, so the whole first request is measured
+		return registration;
+	}
+}
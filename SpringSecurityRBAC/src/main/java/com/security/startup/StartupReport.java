@@ -0,0 +1,21 @@
+package com.security.startup;
+
+/**
+ * How long the application took to start, measured from JVM start, and the
+ * startup mode it ran in, so that runs in different modes can be compared.
+ *
+ * @param startedMillis      Until the context was refreshed and the web
+ *                           server started.
+ * @param readyMillis        Until it reported ready, after the warm-up; -1
+ *                           if not yet.
+ * @param firstRequestMillis Until the first request was answered; -1 if
+ *                           none yet.
+ * @param lazyInitialization Whether spring.main.lazy-initialization is on.
+ * @param aot                Whether ahead-of-time generated bean definitions
+ *                           are used (-Dspring.aot.enabled=true).
+ * @param cds                Whether the JVM runs with a class data sharing
+ *                           archive (-XX:SharedArchiveFile).
+ */
+public record StartupReport(long startedMillis, long readyMillis, long firstRequestMillis,
+		boolean lazyInitialization, boolean aot, boolean cds) {
+}
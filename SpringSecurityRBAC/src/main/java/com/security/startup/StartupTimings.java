@@ -0,0 +1,110 @@
+package com.security.startup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Measures time-to-first-request: how long after JVM start the context was
+ * started, the application reported ready and the first client request after
+ * it began accepting traffic was answered. That request logs one summary
+ * line, so that startups with and without the faststart profile, AOT and CDS
+ * can be compared from the logs; GET /admin/startupStats returns the same
+ * figures.
+ */
+@Component
+public class StartupTimings {
+
+	private static final Logger log = LoggerFactory.getLogger(StartupTimings.class);
+
+	private final long jvmStartMillis;
+
+	private final boolean cds;
+
+	@Value("${spring.main.lazy-initialization:false}")
+	private boolean lazyInitialization;
+
+	private volatile long startedMillis = -1;
+
+	private volatile long readyMillis = -1;
+
+	private volatile long firstRequestMillis = -1;
+
+	private volatile boolean acceptingTraffic;
+
+	public StartupTimings() {
+		RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+		this.jvmStartMillis = runtime.getStartTime();
+		this.cds = runtime.getInputArguments().stream().anyMatch(arg -> arg.startsWith("-XX:SharedArchiveFile"));
+	}
+
+	@EventListener(ApplicationStartedEvent.class)
+	public void started() {
+		startedMillis = System.currentTimeMillis() - jvmStartMillis;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void ready() {
+		readyMillis = System.currentTimeMillis() - jvmStartMillis;
+	}
+
+	@EventListener
+	public void readinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+		acceptingTraffic = event.getState() == ReadinessState.ACCEPTING_TRAFFIC;
+	}
+
+	/**
+	 * Tells whether the application accepts traffic, after the warm-up; only
+	 * requests from then on count as the first request.
+	 *
+	 * @return true once ReadinessState.ACCEPTING_TRAFFIC has been published.
+	 */
+	public boolean isAcceptingTraffic() {
+		return acceptingTraffic;
+	}
+
+	/**
+	 * Tells whether the first request has been answered, for a cheap check on
+	 * every request.
+	 *
+	 * @return true once firstRequestCompleted has run.
+	 */
+	public boolean isFirstRequestRecorded() {
+		return firstRequestMillis >= 0;
+	}
+
+	/**
+	 * Records the end of the first answered request and logs the startup
+	 * summary. Later calls do nothing.
+	 */
+	public synchronized void firstRequestCompleted() {
+		if (firstRequestMillis >= 0) {
+			return;
+		}
+		firstRequestMillis = System.currentTimeMillis() - jvmStartMillis;
+		StartupReport report = report();
+		log.info("Time to first request: {} ms (started after {} ms, ready after {} ms; lazy-init={}, aot={}, cds={})",
+				report.firstRequestMillis(), report.startedMillis(), report.readyMillis(), report.lazyInitialization(),
+				report.aot(), report.cds());
+	}
+
+	/**
+	 * Returns the startup timings measured so far.
+	 *
+	 * @return The startup report.
+	 */
+	public StartupReport report() {
+		return new StartupReport(startedMillis, readyMillis, firstRequestMillis, lazyInitialization,
+				AotDetector.useGeneratedArtifacts(), cds);
+	}
+}
@@ -0,0 +1,45 @@
+package com.security.studentcontroller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.security.studentdto.ReadinessResponse;
+import com.security.warmup.StartupWarmup;
+
+/**
+ * This controller answers the load balancer's readiness probe. The
+ * application reports ready only once Spring Boot has published
+ * ReadinessState.ACCEPTING_TRAFFIC, which happens after the startup warm-up
+ * (StartupWarmup) has finished.
+ */
+@RestController
+public class ReadinessController {
+
+	@Autowired
+	private ApplicationAvailability availability; // Readiness state published by Spring Boot
+
+	@Autowired
+	private StartupWarmup warmup; // Holds readiness back until it is done
+
+	/**
+	 * EndPoint for the readiness probe.
+	 *
+	 * Example: GET /readiness Response: {"status": "ACCEPTING_TRAFFIC",
+	 * "warmup": {"state": "DONE", ...}}
+	 *
+	 * @return The readiness state and the warm-up report wrapped in a
+	 *         ResponseEntity with an OK (200) status when ready, or a Service
+	 *         Unavailable (503) status while still warming up.
+	 */
+	@GetMapping("/readiness")
+	public ResponseEntity<ReadinessResponse> readiness() {
+		ReadinessState state = availability.getReadinessState();
+		HttpStatus status = state == ReadinessState.ACCEPTING_TRAFFIC ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+		return ResponseEntity.status(status).body(new ReadinessResponse(state.name(), warmup.report()));
+	}
+}
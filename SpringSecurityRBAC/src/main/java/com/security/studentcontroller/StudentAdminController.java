@@ -1,15 +1,51 @@
 package com.security.studentcontroller;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.security.audit.AuditEventType;
+import com.security.audit.AuditLog;
+import com.security.audit.AuditLogStats;
+import com.security.blocklist.BlocklistStats;
+import com.security.blocklist.SessionRegistry;
+import com.security.blocklist.TokenBlocklist;
+import com.security.concurrency.AdaptiveConcurrencyFilter;
+import com.security.concurrency.ConcurrencyLimitStats;
+import com.security.concurrency.PriorityAdmissionFilter;
+import com.security.concurrency.PriorityAdmissionStats;
+import com.security.datasource.ReplicaLag;
+import com.security.datasource.ReplicaLagMonitor;
+import com.security.idempotency.IdempotencyFilter;
+import com.security.idempotency.IdempotencyStats;
+import com.security.sqltiming.SqlStatementMonitor;
+import com.security.responsecache.ResponseCacheStats;
+import com.security.responsecache.StudentListResponseCache;
+import com.security.sqltiming.SqlTimingStats;
+import com.security.startup.StartupReport;
+import com.security.startup.StartupTimings;
+import com.security.studentdto.Role;
+import com.security.studentdto.SessionRevocationRequest;
+import com.security.studentdto.SessionRevocationResponse;
+import com.security.studentdto.StudentSummary;
+import com.security.studentindex.StudentNameIndexStats;
+import com.security.studentindex.StudentNamePrefixIndex;
 import com.security.studentservice.StudentDetailsService;
+import com.security.warmcache.WarmCacheSnapshot;
+import com.security.warmcache.WarmCacheStats;
+import com.security.writebehind.WriteBehindIngestor;
+import com.security.writebehind.WriteBehindStats;
 
 /**
  * The StudentAdminController handles HTTP requests specific to administrative
@@ -25,6 +61,49 @@ public class StudentAdminController {
 	@Autowired
 	private StudentDetailsService studentDetailsService; // Service layer to handle student-related operations
 
+	@Autowired
+	private StudentNamePrefixIndex nameIndex; // In-memory index for name type-ahead
+
+	@Autowired
+	private AdaptiveConcurrencyFilter concurrencyFilter; // Per endpoint class load shedding
+
+	@Autowired
+	private PriorityAdmissionFilter admissionFilter; // Role-aware admission under overload
+
+	@Autowired
+	private TokenBlocklist blocklist; // Revoked tokens with Redis fallback
+
+	@Autowired
+	private SessionRegistry sessionRegistry; // Active sessions per user and role
+
+	@Autowired
+	private AuditLog auditLog; // Security audit trail
+
+	@Autowired
+	private SqlStatementMonitor sqlStatementMonitor; // JDBC statement timings
+
+	@Autowired
+	private StartupTimings startupTimings; // Time-to-first-request measurements
+
+	@Autowired
+	private WarmCacheSnapshot warmCacheSnapshot; // Principal and student caches kept across restarts
+
+	@Autowired
+	private StudentListResponseCache listResponseCache; // Pre-serialized getAllStudent body
+
+	@Autowired
+	private WriteBehindIngestor writeBehindIngestor; // Batched background writes of saveStudent
+
+	@Autowired
+	private IdempotencyFilter idempotencyFilter; // Replays the response of a retried POST
+
+	@Autowired(required = false)
+	private ReplicaLagMonitor replicaLagMonitor; // Only present when read/write routing is enabled
+
+	// Upper bound on the number of autocomplete suggestions
+	@Value("${student.name-index.max-results:20}")
+	private int maxAutocompleteResults;
+
 	/**
 	 * Test end point to verify the functionality of the Admin controller.
 	 * 
@@ -47,7 +126,206 @@ public class StudentAdminController {
 	 */
 	@DeleteMapping("/DeleteStudentById/{id}")
 	public ResponseEntity<String> deletStudentbyId(@PathVariable int id) {
-		return ResponseEntity.status(HttpStatus.OK).body(studentDetailsService.DeleteStudentById(id));
+		String result = studentDetailsService.DeleteStudentById(id);
+		auditLog.publish(AuditEventType.ADMIN_DELETE, null, "student " + id, HttpStatus.OK.value());
+		return ResponseEntity.status(HttpStatus.OK).body(result);
+	}
+
+	/**
+	 * EndPoint for type-ahead lookup of students by the start of their full name.
+	 * Served from the in-memory name index, so it never touches the database.
+	 *
+	 * Example: GET /admin/autocompleteStudents?prefix=jo&limit=10
+	 *
+	 * @param prefix The beginning of the full name, case-insensitive.
+	 * @param limit  The maximum number of suggestions, capped by configuration.
+	 * @return The matching students (number and full name) ordered by name,
+	 *         wrapped in a ResponseEntity with an OK (200) status.
+	 */
+	@GetMapping("/autocompleteStudents")
+	public ResponseEntity<List<StudentSummary>> autocompleteStudents(@RequestParam String prefix,
+			@RequestParam(defaultValue = "10") int limit) {
+		return ResponseEntity.status(HttpStatus.OK)
+				.body(nameIndex.lookup(prefix, Math.min(limit, maxAutocompleteResults)));
+	}
+
+	/**
+	 * EndPoint reporting the size and estimated memory use of the name index.
+	 *
+	 * @return The index statistics wrapped in a ResponseEntity with an OK (200)
+	 *         status.
+	 */
+	@GetMapping("/studentNameIndexStats")
+	public ResponseEntity<StudentNameIndexStats> studentNameIndexStats() {
+		return ResponseEntity.status(HttpStatus.OK).body(nameIndex.stats());
+	}
+
+	/**
+	 * EndPoint reporting the replication lag of every read replica, and whether
+	 * it currently serves reads. Empty when read/write routing is disabled.
+	 *
+	 * @return The lag of each replica wrapped in a ResponseEntity with an OK (200)
+	 *         status.
+	 */
+	@GetMapping("/replicaLag")
+	public ResponseEntity<List<ReplicaLag>> replicaLag() {
+		return ResponseEntity.status(HttpStatus.OK)
+				.body(replicaLagMonitor == null ? List.of() : replicaLagMonitor.report());
+	}
+
+	/**
+	 * EndPoint reporting the adaptive concurrency limit of each endpoint class
+	 * (auth, reads, writes), with the requests in flight and shed so far.
+	 *
+	 * @return The limit statistics wrapped in a ResponseEntity with an OK (200)
+	 *         status.
+	 */
+	@GetMapping("/concurrencyLimits")
+	public ResponseEntity<List<ConcurrencyLimitStats>> concurrencyLimits() {
+		return ResponseEntity.status(HttpStatus.OK).body(concurrencyFilter.stats());
+	}
+
+	/**
+	 * EndPoint reporting the queue-wait metrics of each admission priority
+	 * (ADMIN, MODERATOR, USER and requests without a token). Requests admitted
+	 * while a slot was free are not classified and not counted.
+	 *
+	 * @return The admission statistics wrapped in a ResponseEntity with an OK
+	 *         (200) status.
+	 */
+	@GetMapping("/priorityAdmission")
+	public ResponseEntity<List<PriorityAdmissionStats>> priorityAdmission() {
+		return ResponseEntity.status(HttpStatus.OK).body(admissionFilter.stats());
+	}
+
+	/**
+	 * EndPoint reporting the health of the token blocklist: the circuit breaker
+	 * around Redis, the in-process store and the logouts waiting for replay.
+	 *
+	 * @return The blocklist statistics wrapped in a ResponseEntity with an OK
+	 *         (200) status.
+	 */
+	@GetMapping("/blocklistStats")
+	public ResponseEntity<BlocklistStats> blocklistStats() {
+		return ResponseEntity.status(HttpStatus.OK).body(blocklist.stats());
+	}
+
+	/**
+	 * EndPoint to log users out everywhere: revokes every active token of the
+	 * given users.
+	 *
+	 * @param request The user names whose sessions are revoked.
+	 * @return The number of users and sessions revoked wrapped in a
+	 *         ResponseEntity with an OK (200) status, or 503 if Redis is
+	 *         unavailable.
+	 */
+	@PostMapping("/revokeSessions")
+	public ResponseEntity<SessionRevocationResponse> revokeSessions(@RequestBody SessionRevocationRequest request) {
+		List<String> userNames = request.getUserNames() == null ? List.of() : request.getUserNames();
+		return ResponseEntity.status(HttpStatus.OK).body(sessionRegistry.revokeUsers(userNames));
+	}
+
+	/**
+	 * EndPoint to revoke every active token of every user that logged in with
+	 * a role.
+	 *
+	 * @param role The role, USER, MODERATOR or ADMIN.
+	 * @return The number of users and sessions revoked wrapped in a
+	 *         ResponseEntity with an OK (200) status, or 503 if Redis is
+	 *         unavailable.
+	 */
+	@PostMapping("/revokeSessions/role/{role}")
+	public ResponseEntity<SessionRevocationResponse> revokeRoleSessions(@PathVariable Role role) {
+		return ResponseEntity.status(HttpStatus.OK).body(sessionRegistry.revokeRole(role));
+	}
+
+	/**
+	 * EndPoint reporting the state of the security audit log: events written,
+	 * waiting and dropped because the ring buffer was full.
+	 *
+	 * @return The audit log statistics wrapped in a ResponseEntity with an OK
+	 *         (200) status.
+	 */
+	@GetMapping("/auditStats")
+	public ResponseEntity<AuditLogStats> auditStats() {
+		return ResponseEntity.status(HttpStatus.OK).body(auditLog.stats());
+	}
+
+	/**
+	 * EndPoint reporting the SQL statement timings: statements run, their mean
+	 * and slowest execution time, and how many were logged as slow or as part
+	 * of an N+1 pattern.
+	 *
+	 * @return The SQL timing statistics wrapped in a ResponseEntity with an OK
+	 *         (200) status.
+	 */
+	@GetMapping("/sqlStats")
+	public ResponseEntity<SqlTimingStats> sqlStats() {
+		return ResponseEntity.status(HttpStatus.OK).body(sqlStatementMonitor.stats());
+	}
+
+	/**
+	 * EndPoint reporting how long the application took, from JVM start, to
+	 * start, to report ready and to answer its first request, together with
+	 * the startup mode (lazy initialization, AOT, CDS).
+	 *
+	 * @return The startup report wrapped in a ResponseEntity with an OK (200)
+	 *         status.
+	 */
+	@GetMapping("/startupStats")
+	public ResponseEntity<StartupReport> startupStats() {
+		return ResponseEntity.status(HttpStatus.OK).body(startupTimings.report());
+	}
+
+	/**
+	 * EndPoint reporting the principal and student caches: their size and hit
+	 * rate, the last snapshot written, and what was restored from the snapshot
+	 * at startup.
+	 *
+	 * @return The warm cache statistics wrapped in a ResponseEntity with an OK
+	 *         (200) status.
+	 */
+	@GetMapping("/warmCacheStats")
+	public ResponseEntity<WarmCacheStats> warmCacheStats() {
+		return ResponseEntity.status(HttpStatus.OK).body(warmCacheSnapshot.stats());
+	}
+
+	/**
+	 * EndPoint reporting the pre-serialized /moderator/getAllStudent body: its
+	 * size in each encoding, how many requests it answered, and its rebuilds.
+	 *
+	 * @return The response cache statistics wrapped in a ResponseEntity with an
+	 *         OK (200) status.
+	 */
+	@GetMapping("/responseCacheStats")
+	public ResponseEntity<ResponseCacheStats> responseCacheStats() {
+		return ResponseEntity.status(HttpStatus.OK).body(listResponseCache.stats());
+	}
+
+	/**
+	 * EndPoint reporting the write-behind ingestion of /user/saveStudent: the
+	 * records waiting, written and rejected, the batches committed and the
+	 * retries after database failures.
+	 *
+	 * @return The write-behind statistics wrapped in a ResponseEntity with an OK
+	 *         (200) status.
+	 */
+	@GetMapping("/writeBehindStats")
+	public ResponseEntity<WriteBehindStats> writeBehindStats() {
+		return ResponseEntity.status(HttpStatus.OK).body(writeBehindIngestor.stats());
+	}
+
+	/**
+	 * EndPoint reporting how the Idempotency-Key header was honoured: the
+	 * requests recorded, the duplicates replayed or turned away, and the
+	 * requests run without Redis.
+	 *
+	 * @return The idempotency statistics wrapped in a ResponseEntity with an OK
+	 *         (200) status.
+	 */
+	@GetMapping("/idempotencyStats")
+	public ResponseEntity<IdempotencyStats> idempotencyStats() {
+		return ResponseEntity.status(HttpStatus.OK).body(idempotencyFilter.stats());
 	}
 
 }
@@ -1,17 +1,28 @@
 package com.security.studentcontroller;
 
+import java.net.URI;
+import java.util.Locale;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.security.studentdto.StudentDetails;
+import com.security.studentdto.StudentDetailsBatchResponse;
+import com.security.studentdto.StudentDetailsResponse;
+import com.security.studentdto.StudentIdsRequest;
+import com.security.studentdto.StudentIngestStatus;
 import com.security.studentservice.StudentDetailsService;
+import com.security.writebehind.WriteBehindIngestor;
 
 
 
@@ -24,34 +35,108 @@ public class StudentController {
     @Autowired
     private StudentDetailsService studentDetailsService; // Service layer to handle student-related operations
 
+    @Autowired
+    private WriteBehindIngestor writeBehindIngestor; // Batched background writes of saveStudent
+
     /**
      * EndPoint to save student details.
+     * With ingest.write-behind.enabled, a client sending "Prefer: respond-async" gets
+     * an ACCEPTED (202) response as soon as the record is durably queued, and follows
+     * its progress at the Location returned.
      *
      * @param details The student details provided in the request body.
-     * @return The saved student details wrapped in a ResponseEntity with a CREATED (201) status.
+     * @param prefer  The Prefer header, if any.
+     * @return The saved student details wrapped in a ResponseEntity with a CREATED (201) status,
+     *         or the PENDING ingestion status with an ACCEPTED (202) status.
      */
     @PostMapping("/saveStudent")
-    public ResponseEntity<StudentDetails> saveStudentController(@RequestBody StudentDetails details) {
+    public ResponseEntity<?> saveStudentController(@RequestBody StudentDetails details,
+            @RequestHeader(value = "Prefer", required = false) String prefer) {
+        if (writeBehindIngestor.isEnabled() && prefersAsync(prefer)) {
+            StudentIngestStatus status = writeBehindIngestor.accept(details);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .location(URI.create("/user/ingestStatus/" + status.trackingId()))
+                    .body(status);
+        }
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(studentDetailsService.saveStudentDetailsService(details));
+                .body(StudentDetailsResponse.from(studentDetailsService.saveStudentDetailsService(details)));
+    }
+
+    /**
+     * EndPoint to follow a student record accepted with "Prefer: respond-async".
+     *
+     * @param trackingId The tracking ID returned when the record was accepted.
+     * @return The PENDING, WRITTEN or FAILED status wrapped in a ResponseEntity with an OK (200) status.
+     */
+    @GetMapping("/ingestStatus/{trackingId}")
+    public ResponseEntity<StudentIngestStatus> ingestStatusController(@PathVariable String trackingId) {
+        return ResponseEntity.status(HttpStatus.OK).body(writeBehindIngestor.status(trackingId));
     }
 
     /**
      * EndPoint to retrieve a student's details by their ID.
+     * Supports If-None-Match: when the client already holds the current version,
+     * only the version column is read and a 304 is returned without a body.
+     * Otherwise the body is read at that version or later, bypassing an older
+     * cached copy, so that the body and its ETag come from the same row.
+     * The ETag depends on the negotiated format, so responses vary by Accept.
      *
-     * @param id The ID of the student.
-     * @return The student details wrapped in a ResponseEntity with an OK (200) status.
+     * @param id          The ID of the student.
+     * @param ifNoneMatch The entity tag the client already holds, if any.
+     * @param accept      The Accept header, which picks JSON, CBOR or Smile.
+     * @param request     The current request, used to evaluate the precondition.
+     * @return The student details with its ETag in a ResponseEntity with an OK (200) status,
+     *         or an empty NOT_MODIFIED (304) response.
      */
     @GetMapping("/getStudentById/{id}")
-    public ResponseEntity<StudentDetails> getStudentDetailsController(@PathVariable int id) {
+    public ResponseEntity<StudentDetailsResponse> getStudentDetailsController(@PathVariable int id,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+            @RequestHeader(value = "Accept", required = false) String accept, WebRequest request) {
+        StudentDetails details;
+        // Only pay for the version lookup when the client sent a conditional request
+        if (ifNoneMatch != null) {
+            long version = studentDetailsService.getStudentDetailsVersionService(id);
+            String eTag = StudentDetailsETag.of(version, accept);
+            if (request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+            }
+            details = studentDetailsService.getStudentDetailsService(id, version);
+        } else {
+            details = studentDetailsService.getStudentDetailsService(id);
+        }
+
         return ResponseEntity.status(HttpStatus.OK)
-                .body(studentDetailsService.getStudentDetailsService(id));
+                .eTag(StudentDetailsETag.of(details.getVersion(), accept))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(StudentDetailsResponse.from(details));
     }
 
-    
-
-    
+    /**
+     * EndPoint to retrieve several students' details in one call.
+     * All IDs are resolved with a single query, so a page of students costs one
+     * authentication pass and one round trip instead of one per student.
+     *
+     * @param request The student IDs to retrieve, up to the configured maximum.
+     * @return The found students in request order and the missing IDs wrapped in a
+     *         ResponseEntity with an OK (200) status.
+     */
+    @PostMapping("/getStudentsByIds")
+    public ResponseEntity<StudentDetailsBatchResponse> getStudentsByIdsController(
+            @RequestBody StudentIdsRequest request) {
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(studentDetailsService.getStudentsByIdsService(request.getIds()));
+    }
 
-    
+    // Whether the Prefer header asks for an asynchronous response (RFC 7240)
+    private static boolean prefersAsync(String prefer) {
+        if (prefer == null) {
+            return false;
+        }
+        for (String preference : prefer.split(",")) {
+            if (preference.trim().toLowerCase(Locale.ROOT).startsWith("respond-async")) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
-
@@ -1,17 +1,21 @@
 package com.security.studentcontroller;
 
-import java.util.List;
-
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.security.responsecache.StudentListResponseCache;
 import com.security.studentdto.StudentDetails;
+import com.security.studentdto.StudentDetailsResponse;
+import com.security.studentdto.StudentSearchRequest;
+import com.security.studentdto.StudentSearchResponse;
 import com.security.studentservice.StudentDetailsService;
 
 /**
@@ -28,6 +32,9 @@ public class StudentControllerModerator {
 	@Autowired
 	private StudentDetailsService studentDetailsService; // Service layer to handle student-related operations
 
+	@Autowired
+	private StudentListResponseCache listResponseCache; // Pre-serialized body of getAllStudent
+
 	/**
 	 * Test EndPoint to verify the functionality of the moderator controller.
 	 * 
@@ -42,26 +49,67 @@ public class StudentControllerModerator {
 	}
 
 	/**
-	 * EndPoint to update an existing student's details.
+	 * EndPoint to update an existing student's details. When an If-Match header is
+	 * sent, the update is only applied if the stored version still matches it,
+	 * otherwise a PRECONDITION_FAILED (412) is returned.
 	 *
 	 * @param details The updated student details provided in the request body.
-	 * @return The updated student details wrapped in a ResponseEntity with an OK
-	 *         (200) status.
+	 * @param ifMatch The entity tag the client based its changes on, if any, in
+	 *                any of the formats.
+	 * @param accept  The Accept header, which picks JSON, CBOR or Smile.
+	 * @return The updated student details and its new ETag wrapped in a
+	 *         ResponseEntity with an OK (200) status.
 	 */
 	@PutMapping("/updateStudentDetalis")
-	public ResponseEntity<StudentDetails> updateStudentDetailsController(@RequestBody StudentDetails details) {
-		return ResponseEntity.status(HttpStatus.OK).body(studentDetailsService.UpdateStudentDetailsService(details));
+	public ResponseEntity<StudentDetailsResponse> updateStudentDetailsController(@RequestBody StudentDetails details,
+			@RequestHeader(value = "If-Match", required = false) String ifMatch,
+			@RequestHeader(value = "Accept", required = false) String accept) {
+		StudentDetails updated = studentDetailsService.UpdateStudentDetailsService(details,
+				StudentDetailsETag.expectedVersion(ifMatch));
+		return ResponseEntity.status(HttpStatus.OK).eTag(StudentDetailsETag.of(updated.getVersion(), accept))
+				.varyBy(HttpHeaders.ACCEPT).body(StudentDetailsResponse.from(updated));
 	}
 
 	/**
-	 * EndPoint to retrieve all student details.
+	 * EndPoint to retrieve all student details. Served from the pre-serialized
+	 * (and, if accepted, gzipped) body with its ETag when one is ready, answering
+	 * NOT_MODIFIED (304) to a matching If-None-Match; otherwise serialized as
+	 * usual.
 	 *
+	 * @param accept         The Accept header, if any.
+	 * @param acceptEncoding The Accept-Encoding header, if any.
+	 * @param ifNoneMatch    The entity tag of the copy the client holds, if any.
 	 * @return A list of all student details wrapped in a ResponseEntity with an OK
 	 *         (200) status.
 	 */
 	@GetMapping("/getAllStudent")
-	public ResponseEntity<List<StudentDetails>> getAllStudentDetailsController() {
-		return ResponseEntity.status(HttpStatus.OK).body(studentDetailsService.getAllStudentsService());
+	public ResponseEntity<?> getAllStudentDetailsController(
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		ResponseEntity<byte[]> cached = listResponseCache.serve(accept, acceptEncoding, ifNoneMatch);
+		if (cached != null) {
+			return cached;
+		}
+		return ResponseEntity.status(HttpStatus.OK)
+				.body(StudentDetailsResponse.from(studentDetailsService.getAllStudentsService()));
+	}
+
+	/**
+	 * EndPoint to search students by branch and name prefix. Returns one page of
+	 * lightweight projections containing only the requested fields.
+	 *
+	 * Example: GET
+	 * /moderator/searchStudents?branch=CSE&namePrefix=Jo&fields=stuNumber,fullName&sort=fullName&direction=asc&page=0&size=20
+	 *
+	 * @param request The filters, fields, sort and page bound from the query
+	 *                parameters.
+	 * @return One page of matching students wrapped in a ResponseEntity with an OK
+	 *         (200) status.
+	 */
+	@GetMapping("/searchStudents")
+	public ResponseEntity<StudentSearchResponse> searchStudentsController(StudentSearchRequest request) {
+		return ResponseEntity.status(HttpStatus.OK).body(studentDetailsService.searchStudentsService(request));
 	}
 
 }
@@ -0,0 +1,119 @@
+package com.security.studentcontroller;
+
+import java.util.List;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Converts between the version column of StudentDetails and the strong entity
+ * tags sent in the ETag, If-None-Match and If-Match headers. The JSON, CBOR and
+ * Smile representations of a version are different bytes, so each gets a tag
+ * of its own: "3", "3-cbor" and "3-smile". Responses carrying them must also
+ * send Vary: Accept.
+ */
+public final class StudentDetailsETag {
+
+	// The formats in the order the message converters offer them, so */* picks JSON
+	private static final List<MediaType> FORMATS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR,
+			MediaType.valueOf("application/x-jackson-smile"));
+
+	private static final List<String> SUFFIXES = List.of("", "-cbor", "-smile");
+
+	private StudentDetailsETag() {
+	}
+
+	/**
+	 * Builds the strong ETag of the JSON representation of a version.
+	 * 
+	 * @param version the version of the student details.
+	 * @return the quoted entity tag, e.g. "3".
+	 */
+	public static String of(long version) {
+		return "\"" + version + "\"";
+	}
+
+	/**
+	 * Builds the strong ETag of the representation of a version that content
+	 * negotiation picks for an Accept header.
+	 * 
+	 * @param version the version of the student details.
+	 * @param accept  the raw Accept header, possibly null.
+	 * @return the quoted entity tag, e.g. "3" for JSON or "3-cbor" for CBOR.
+	 */
+	public static String of(long version, String accept) {
+		return "\"" + version + SUFFIXES.get(Math.max(0, formatOf(accept))) + "\"";
+	}
+
+	/**
+	 * Tells whether content negotiation picks JSON for an Accept header, so
+	 * that a body already serialized as JSON may be sent for it.
+	 * 
+	 * @param accept the raw Accept header, possibly null.
+	 * @return true when JSON is the best-ranked acceptable format, false when
+	 *         another format is, or none is, or the header is malformed.
+	 */
+	public static boolean negotiatesJson(String accept) {
+		return formatOf(accept) == 0;
+	}
+
+	/**
+	 * Resolves an If-Match header to the version the client expects.
+	 * 
+	 * @param ifMatch the raw If-Match header value.
+	 * @return null when there is no precondition (header absent or "*"), the
+	 *         expected version for a strong tag, or -1 when the header can never
+	 *         match (weak or malformed tags never match under strong comparison).
+	 */
+	public static Long expectedVersion(String ifMatch) {
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+			return null;
+		}
+
+		String tag = ifMatch.trim();
+		if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+			return -1L;
+		}
+
+		String opaqueTag = tag.substring(1, tag.length() - 1);
+		// The version matches whichever representation the client holds
+		for (int i = 1; i < SUFFIXES.size(); i++) {
+			if (opaqueTag.endsWith(SUFFIXES.get(i))) {
+				opaqueTag = opaqueTag.substring(0, opaqueTag.length() - SUFFIXES.get(i).length());
+				break;
+			}
+		}
+		try {
+			return Long.parseLong(opaqueTag);
+		} catch (NumberFormatException e) {
+			return -1L;
+		}
+	}
+
+	// The index of the format negotiated for the Accept header, most specific and preferred type first,
+	// or -1 when the header is malformed or accepts none of them
+	private static int formatOf(String accept) {
+		if (accept == null || accept.isBlank()) {
+			return 0;
+		}
+		List<MediaType> acceptable;
+		try {
+			acceptable = MediaType.parseMediaTypes(accept);
+		} catch (InvalidMediaTypeException e) {
+			return -1;
+		}
+		MimeTypeUtils.sortBySpecificity(acceptable);
+		for (MediaType type : acceptable) {
+			if (type.getQualityValue() == 0) {
+				continue;
+			}
+			for (int i = 0; i < FORMATS.size(); i++) {
+				if (type.isCompatibleWith(FORMATS.get(i))) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+}
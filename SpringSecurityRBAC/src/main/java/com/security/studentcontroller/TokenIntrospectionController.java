@@ -0,0 +1,67 @@
+package com.security.studentcontroller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.security.studentdto.IntrospectionBatchRequest;
+import com.security.studentdto.IntrospectionBatchResponse;
+import com.security.studentdto.IntrospectionRequest;
+import com.security.studentdto.IntrospectionResult;
+import com.security.studentservice.TokenIntrospectionService;
+
+/**
+ * This controller lets the API gateway and sibling services check tokens
+ * issued by this application without calling a protected endpoint. Callers
+ * authenticate with the shared secret configured as introspect.client-secret,
+ * sent in the X-Introspection-Secret header.
+ */
+@RestController
+public class TokenIntrospectionController {
+
+	@Autowired
+	private TokenIntrospectionService introspectionService; // Verifies tokens and checks the blocklist
+
+	/**
+	 * EndPoint to introspect one token.
+	 *
+	 * Example: POST /introspect {"token": "eyJ..."} Response: {"active": true,
+	 * "sub": "john", "role": "ROLE_USER", "exp": 1760000000}
+	 *
+	 * @param secret  The introspection client secret.
+	 * @param request The token to check.
+	 * @return The introspection result wrapped in a ResponseEntity with an OK
+	 *         (200) status.
+	 */
+	@PostMapping("/introspect")
+	public ResponseEntity<IntrospectionResult> introspect(
+			@RequestHeader(value = "X-Introspection-Secret", required = false) String secret,
+			@RequestBody IntrospectionRequest request) {
+		introspectionService.authorizeClient(secret);
+		return ResponseEntity.status(HttpStatus.OK).body(introspectionService.introspect(request.getToken()));
+	}
+
+	/**
+	 * EndPoint to introspect a batch of tokens in one call, with all Redis
+	 * revocation checks in one round trip.
+	 *
+	 * Example: POST /introspect/batch {"tokens": ["eyJ...", "eyJ..."]}
+	 *
+	 * @param secret  The introspection client secret.
+	 * @param request The tokens to check.
+	 * @return One result per token, in request order, wrapped in a
+	 *         ResponseEntity with an OK (200) status.
+	 */
+	@PostMapping("/introspect/batch")
+	public ResponseEntity<IntrospectionBatchResponse> introspectBatch(
+			@RequestHeader(value = "X-Introspection-Secret", required = false) String secret,
+			@RequestBody IntrospectionBatchRequest request) {
+		introspectionService.authorizeClient(secret);
+		return ResponseEntity.status(HttpStatus.OK)
+				.body(new IntrospectionBatchResponse(introspectionService.introspectAll(request.getTokens())));
+	}
+}
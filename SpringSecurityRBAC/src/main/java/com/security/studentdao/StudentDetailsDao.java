@@ -1,17 +1,26 @@
 package com.security.studentdao;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.security.datasource.ReadWriteRoutingContext;
 import com.security.exception.InvalidStudentDetailsException;
 import com.security.exception.StudentDetailsCreationException;
 import com.security.exception.StudentDetailsNotFoundWithId;
+import com.security.exception.StudentDetailsVersionMismatchException;
+import com.security.responsecache.StudentListResponseCache;
 import com.security.studentdto.StudentDetails;
+import com.security.studentdto.StudentSummary;
+import com.security.studentindex.StudentNamePrefixIndex;
 import com.security.studentrepo.StudentDetailsRepo;
+import com.security.warmcache.StudentCache;
 
 /**
  * The StudentDetailsDao class is responsible for interacting with the database
@@ -24,6 +33,15 @@ public class StudentDetailsDao {
 	@Autowired
 	StudentDetailsRepo detailsRepo;
 
+	@Autowired
+	StudentNamePrefixIndex nameIndex; // Kept in step with every write for name autocomplete
+
+	@Autowired
+	StudentCache studentCache; // Answers lookups by ID, updated by every write here
+
+	@Autowired
+	StudentListResponseCache listResponseCache; // Serialized list of all students, discarded by every write here
+
 	/**
 	 * Saves student details to the database. If the details are null, an exception
 	 * is thrown. If any error occurs during the save operation, it handles data
@@ -42,9 +60,13 @@ public class StudentDetailsDao {
 			throw new InvalidStudentDetailsException("Student Details Should Not be Null");
 		}
 
+		// Writes and the reads that follow them in this request stay on the primary
+		ReadWriteRoutingContext.markWritten();
+
+		StudentDetails savedDetails;
 		try {
 			// Save the student details to the database
-			return detailsRepo.save(details);
+			savedDetails = detailsRepo.save(details);
 		} catch (DataAccessException dae) {
 			// Handle data access issues (e.g., database errors)
 			System.err.println("Data access error while creating Saving Student Details: " + dae.getMessage());
@@ -54,11 +76,60 @@ public class StudentDetailsDao {
 			System.err.println("Unexpected error while Saving Student Details: " + e.getMessage());
 			throw new StudentDetailsCreationException("Failed to Saving Student Details due to an unexpected error");
 		}
+
+		nameIndex.put(savedDetails.getStuNumber(), savedDetails.getFullName());
+		studentCache.put(savedDetails.getStuNumber(), savedDetails);
+		listResponseCache.invalidate();
+		return savedDetails;
+	}
+
+	/**
+	 * Saves several new students with one call, for the write-behind ingestion.
+	 * Unlike saveStudentDetailsDao, data access exceptions are not wrapped, so
+	 * that the caller can tell a failure worth retrying from a rejected record.
+	 * Inside a transaction, the name index and the student cache only see the
+	 * students once it commits.
+	 * 
+	 * @param details the student details to be saved.
+	 * @return the saved student details, in the same order, with their generated
+	 *         IDs.
+	 * @throws InvalidStudentDetailsException if the provided list contains a null
+	 *                                        entry.
+	 */
+	public List<StudentDetails> saveStudentDetailsBatchDao(List<StudentDetails> details) {
+		if (details.contains(null)) {
+			throw new InvalidStudentDetailsException("Student Details Should Not be Null");
+		}
+
+		ReadWriteRoutingContext.markWritten();
+
+		List<StudentDetails> savedDetails = detailsRepo.saveAll(details);
+
+		Runnable publish = () -> {
+			for (StudentDetails saved : savedDetails) {
+				nameIndex.put(saved.getStuNumber(), saved.getFullName());
+				studentCache.put(saved.getStuNumber(), saved);
+			}
+		};
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					publish.run();
+				}
+			});
+		} else {
+			publish.run();
+		}
+		listResponseCache.invalidate();
+		return savedDetails;
 	}
 
 	/**
 	 * Retrieves student details by their unique student number (ID). If the student
-	 * is not found, a custom exception is thrown.
+	 * is not found, a custom exception is thrown. Served from the StudentCache
+	 * when the student was read recently; the copy returned may be changed freely.
+	 * Concurrent misses of one student share a single database lookup.
 	 * 
 	 * @param stuNumber the unique student ID whose details are to be retrieved.
 	 * @return the student details.
@@ -66,15 +137,65 @@ public class StudentDetailsDao {
 	 *                                      found.
 	 */
 	public StudentDetails getStudentDetailsByIdDao(int stuNumber) {
-		// Attempt to find student details by ID
-		Optional<StudentDetails> getStudentDetailsbyId = detailsRepo.findById(stuNumber);
+		return studentCache.getOrLoad(stuNumber, () -> {
+			// Attempt to find student details by ID
+			Optional<StudentDetails> getStudentDetailsbyId = detailsRepo.findById(stuNumber);
 
-		// If not found, throw an exception
-		if (getStudentDetailsbyId.isEmpty()) {
-			throw new StudentDetailsNotFoundWithId("Student Details With Id:" + stuNumber + " is Not Found");
+			// If not found, throw an exception
+			if (getStudentDetailsbyId.isEmpty()) {
+				throw new StudentDetailsNotFoundWithId("Student Details With Id:" + stuNumber + " is Not Found");
+			}
+
+			return getStudentDetailsbyId.get();
+		});
+	}
+
+	/**
+	 * Retrieves student details that are at least as new as a version just read
+	 * from the database, so that a conditional GET sends a body matching the
+	 * version its precondition was evaluated against. A cached copy older than
+	 * that version is dropped and the student read again.
+	 * 
+	 * @param stuNumber      the unique student ID whose details are to be
+	 *                       retrieved.
+	 * @param currentVersion the version read from the database.
+	 * @return the student details.
+	 * @throws StudentDetailsNotFoundWithId if the student with the given ID is not
+	 *                                      found.
+	 */
+	public StudentDetails getStudentDetailsByIdDao(int stuNumber, long currentVersion) {
+		StudentDetails details = getStudentDetailsByIdDao(stuNumber);
+		// A newer cached copy means a write landed after the version was read; it is kept
+		if (details.getVersion() < currentVersion) {
+			studentCache.invalidate(stuNumber);
+			details = getStudentDetailsByIdDao(stuNumber);
 		}
+		return details;
+	}
 
-		return getStudentDetailsbyId.get();
+	/**
+	 * Retrieves the student details for several IDs with a single IN query.
+	 * Students that do not exist are simply absent from the result.
+	 * 
+	 * @param stuNumbers the unique student IDs to retrieve.
+	 * @return the student details found, in no particular order.
+	 */
+	public List<StudentDetails> getStudentDetailsByIdsDao(Collection<Integer> stuNumbers) {
+		return detailsRepo.findAllById(stuNumbers);
+	}
+
+	/**
+	 * Retrieves only the current version of a student's details, without loading
+	 * the full entity. Used to answer conditional GET requests.
+	 * 
+	 * @param stuNumber the unique student ID.
+	 * @return the current version of the student details.
+	 * @throws StudentDetailsNotFoundWithId if the student with the given ID is not
+	 *                                      found.
+	 */
+	public long getStudentDetailsVersionDao(int stuNumber) {
+		return detailsRepo.findVersionByStuNumber(stuNumber).orElseThrow(
+				() -> new StudentDetailsNotFoundWithId("Student Details With Id:" + stuNumber + " is Not Found"));
 	}
 
 	/**
@@ -86,6 +207,24 @@ public class StudentDetailsDao {
 		return detailsRepo.findAll();
 	}
 
+	/**
+	 * Searches student details by branch and name prefix, selecting only the
+	 * requested fields.
+	 * 
+	 * @param branchName the exact branch name, or null for any branch.
+	 * @param namePrefix the prefix of the full name, or null for any name.
+	 * @param fields     the fields to select.
+	 * @param sortField  the field to sort by.
+	 * @param ascending  whether to sort ascending.
+	 * @param offset     the index of the first row to return.
+	 * @param limit      the maximum number of rows to return.
+	 * @return the matching students reduced to the selected fields.
+	 */
+	public List<StudentSummary> searchStudentDetailsDao(String branchName, String namePrefix, List<String> fields,
+			String sortField, boolean ascending, int offset, int limit) {
+		return detailsRepo.searchStudents(branchName, namePrefix, fields, sortField, ascending, offset, limit);
+	}
+
 	/**
 	 * Updates the details of an existing student in the database. If the student
 	 * with the provided ID is not found, a custom exception is thrown.
@@ -96,6 +235,28 @@ public class StudentDetailsDao {
 	 *                                      found.
 	 */
 	public StudentDetails updateStudentDetailsDao(StudentDetails details) {
+		return updateStudentDetailsDao(details, null);
+	}
+
+	/**
+	 * Updates the details of an existing student only if its current version
+	 * matches the expected one (If-Match). The version column is also checked by
+	 * Hibernate on write, so a concurrent update between the check and the save
+	 * fails with an optimistic locking exception instead of being overwritten.
+	 * 
+	 * @param details         the updated student details.
+	 * @param expectedVersion the version the client last saw, or null to skip the
+	 *                        precondition.
+	 * @return the updated student details.
+	 * @throws StudentDetailsNotFoundWithId           if the student with the given
+	 *                                                ID is not found.
+	 * @throws StudentDetailsVersionMismatchException if the current version does
+	 *                                                not match the expected one.
+	 */
+	public StudentDetails updateStudentDetailsDao(StudentDetails details, Long expectedVersion) {
+		// The version check must see the primary, not a lagging replica
+		ReadWriteRoutingContext.markWritten();
+
 		// Check if student exists by ID
 		Optional<StudentDetails> getStudentDetailsById = detailsRepo.findById(details.getStuNumber());
 
@@ -105,14 +266,25 @@ public class StudentDetailsDao {
 					"Student Details With Id: " + details.getStuNumber() + " is Not Found");
 		}
 
-		// Update the student details
 		StudentDetails existingStudentDetails = getStudentDetailsById.get();
+
+		// Reject the update if the client edited a stale copy
+		if (expectedVersion != null && expectedVersion != existingStudentDetails.getVersion()) {
+			throw new StudentDetailsVersionMismatchException("Student Details With Id: " + details.getStuNumber()
+					+ " has been modified, current version is " + existingStudentDetails.getVersion());
+		}
+
+		// Update the student details
 		existingStudentDetails.setFatherName(details.getFatherName());
 		existingStudentDetails.setFullName(details.getFullName());
 		existingStudentDetails.setBranchName(details.getBranchName());
 
 		// Save and return the updated details
-		return detailsRepo.save(existingStudentDetails);
+		StudentDetails updatedDetails = detailsRepo.save(existingStudentDetails);
+		nameIndex.put(updatedDetails.getStuNumber(), updatedDetails.getFullName());
+		studentCache.put(updatedDetails.getStuNumber(), updatedDetails);
+		listResponseCache.invalidate();
+		return updatedDetails;
 	}
 
 	/**
@@ -126,6 +298,8 @@ public class StudentDetailsDao {
 	 *                                      found.
 	 */
 	public String DeleteStudentDetailById(int id) {
+		ReadWriteRoutingContext.markWritten();
+
 		// Check if the student exists
 		if (!detailsRepo.existsById(id)) {
 			throw new StudentDetailsNotFoundWithId("Student Details with Id: " + id + " is Not Found");
@@ -133,6 +307,9 @@ public class StudentDetailsDao {
 
 		// Delete the student by ID
 		detailsRepo.deleteById(id);
+		nameIndex.remove(id);
+		studentCache.invalidate(id);
+		listResponseCache.invalidate();
 
 		// Return success message
 		return "Student Details with Id: " + id + " is Deleted";
@@ -8,6 +8,7 @@ import com.security.exception.InvalidStudentLoginDetailsException;
 import com.security.exception.StudentLoginDetailsCreationException;
 import com.security.studentdto.StudentLoginDetails;
 import com.security.studentrepo.StudentloginDetailsRepo;
+import com.security.warmcache.PrincipalCache;
 
 @Repository
 public class StudentlogindetailsDao {
@@ -15,6 +16,9 @@ public class StudentlogindetailsDao {
     @Autowired
     StudentloginDetailsRepo repo;
 
+    @Autowired
+    PrincipalCache principalCache; // Must not keep serving the login details replaced here
+
     /**
      * Saves the student login details to the database.
      * 
@@ -31,7 +35,9 @@ public class StudentlogindetailsDao {
 
         try {
             // Save the student login details to the database and return the saved entity
-            return repo.save(details);
+            StudentLoginDetails saved = repo.save(details);
+            principalCache.invalidate(saved.getUserName());
+            return saved;
         } catch (DataAccessException dae) {
             // Catch any database access issues and throw a custom exception with a message
             System.err.println("Data access error while creating Saving Student Details: " + dae.getMessage());
@@ -0,0 +1,21 @@
+package com.security.studentdto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Represents a request to introspect several tokens in one call. This class
+ * contains the tokens to be checked by the batch introspection.
+ */
+@Getter
+@Setter
+public class IntrospectionBatchRequest {
+
+	/**
+	 * The bearer tokens to check. Results are returned in this order.
+	 */
+	private List<String> tokens;
+
+}
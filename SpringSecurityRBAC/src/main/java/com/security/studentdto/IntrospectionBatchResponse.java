@@ -0,0 +1,23 @@
+package com.security.studentdto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Represents the result of a batch token introspection. This class contains
+ * one result per requested token, in the order they were requested.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class IntrospectionBatchResponse {
+
+	/**
+	 * The introspection results, in request order.
+	 */
+	private List<IntrospectionResult> results;
+
+}
@@ -0,0 +1,19 @@
+package com.security.studentdto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Represents a request to introspect a single token issued by this
+ * application.
+ */
+@Getter
+@Setter
+public class IntrospectionRequest {
+
+	/**
+	 * The bearer token to check, without the "Bearer " prefix.
+	 */
+	private String token;
+
+}
@@ -0,0 +1,51 @@
+package com.security.studentdto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Represents the introspection of one token, in the shape of an OAuth 2.0
+ * token introspection response (RFC 7662). An inactive token only carries
+ * "active": false, so that nothing is revealed about forged or revoked tokens.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IntrospectionResult {
+
+	private static final IntrospectionResult INACTIVE = new IntrospectionResult(false, null, null, null);
+
+	/**
+	 * Whether the token is genuine, unexpired and not revoked.
+	 */
+	private boolean active;
+
+	/**
+	 * The user the token was issued to.
+	 */
+	private String sub;
+
+	/**
+	 * The role of the user, such as "ROLE_USER".
+	 */
+	private String role;
+
+	/**
+	 * When the token expires, in seconds since the epoch.
+	 */
+	private Long exp;
+
+	/**
+	 * Returns the result for a token that is not active.
+	 *
+	 * @return The inactive result.
+	 */
+	public static IntrospectionResult inactive() {
+		return INACTIVE;
+	}
+
+}
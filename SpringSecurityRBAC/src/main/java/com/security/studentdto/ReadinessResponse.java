@@ -0,0 +1,29 @@
+package com.security.studentdto;
+
+import com.security.warmup.WarmupReport;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Represents the answer of the readiness probe. This class contains the
+ * readiness state of the application and the progress of the startup warm-up
+ * that holds it back.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class ReadinessResponse {
+
+	/**
+	 * ACCEPTING_TRAFFIC or REFUSING_TRAFFIC.
+	 */
+	private String status;
+
+	/**
+	 * The startup warm-up report.
+	 */
+	private WarmupReport warmup;
+
+}
@@ -0,0 +1,21 @@
+package com.security.studentdto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Represents an admin request to force-logout users. This class contains the
+ * user names whose active sessions are to be revoked.
+ */
+@Getter
+@Setter
+public class SessionRevocationRequest {
+
+	/**
+	 * The user names whose active tokens are revoked.
+	 */
+	private List<String> userNames;
+
+}
@@ -0,0 +1,31 @@
+package com.security.studentdto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Represents the result of a bulk session revocation. This class contains how
+ * many users and sessions were affected and how long the revocation took.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class SessionRevocationResponse {
+
+	/**
+	 * The number of users whose sessions were looked up.
+	 */
+	private int users;
+
+	/**
+	 * The number of active sessions that were revoked.
+	 */
+	private long sessionsRevoked;
+
+	/**
+	 * How long the revocation took, in milliseconds.
+	 */
+	private long elapsedMillis;
+
+}
@@ -4,6 +4,9 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -16,10 +19,14 @@ import lombok.Setter;
  * @Entity indicates that this class is a JPA entity.
  * @GeneratedValue(strategy = GenerationType.IDENTITY) indicates that the student number 
  * will be automatically generated by the database.
+ * @Table declares the indexes backing the branch and name-prefix search.
  */
 @Getter
 @Setter
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_student_details_branch_name", columnList = "branchName, fullName"),
+        @Index(name = "idx_student_details_full_name", columnList = "fullName") })
 public class StudentDetails {
 
     /**
@@ -28,6 +35,7 @@ public class StudentDetails {
      * The value will be generated automatically by the database.
      */
     @Id
+    @org.springframework.data.annotation.Id // Identifier for the R2DBC mapping used by the reactive mode
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int stuNumber;
 
@@ -46,4 +54,12 @@ public class StudentDetails {
      */
     private String branchName;
 
+    /**
+     * Optimistic-locking version of the record.
+     * Incremented by Hibernate on every update and exposed to clients as a strong
+     * ETag, so conditional GET/PUT requests can be answered without comparing bodies.
+     */
+    @Version
+    private long version;
+
 }
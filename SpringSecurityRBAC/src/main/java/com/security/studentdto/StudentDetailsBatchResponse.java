@@ -0,0 +1,29 @@
+package com.security.studentdto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Represents the result of a batch student lookup. This class contains the
+ * students that were found, in the order they were requested, and the
+ * student numbers that do not exist.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class StudentDetailsBatchResponse {
+
+	/**
+	 * The students that were found, in request order.
+	 */
+	private List<StudentDetailsResponse> students;
+
+	/**
+	 * The requested student numbers that were not found.
+	 */
+	private List<Integer> missingIds;
+
+}
@@ -0,0 +1,45 @@
+package com.security.studentdto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The student details sent to clients, in JSON or in a binary format (CBOR,
+ * Smile). Built explicitly from the StudentDetails entity, so a response never
+ * depends on the state of the persistence context, such as an uninitialized
+ * proxy or a lazily loaded association, and carries exactly these fields.
+ *
+ * @param stuNumber  Unique identifier of the student.
+ * @param fullName   Full name of the student.
+ * @param fatherName Father's name of the student.
+ * @param branchName Branch name that the student is enrolled in.
+ * @param version    Version of the details, also sent as the ETag.
+ */
+public record StudentDetailsResponse(int stuNumber, String fullName, String fatherName, String branchName,
+		long version) {
+
+	/**
+	 * Copies the fields of an entity.
+	 *
+	 * @param details The student details.
+	 * @return The response.
+	 */
+	public static StudentDetailsResponse from(StudentDetails details) {
+		return new StudentDetailsResponse(details.getStuNumber(), details.getFullName(), details.getFatherName(),
+				details.getBranchName(), details.getVersion());
+	}
+
+	/**
+	 * Copies the fields of several entities, keeping their order.
+	 *
+	 * @param details The student details.
+	 * @return The responses.
+	 */
+	public static List<StudentDetailsResponse> from(List<StudentDetails> details) {
+		List<StudentDetailsResponse> responses = new ArrayList<>(details.size());
+		for (StudentDetails student : details) {
+			responses.add(from(student));
+		}
+		return responses;
+	}
+}
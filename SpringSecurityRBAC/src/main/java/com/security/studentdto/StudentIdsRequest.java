@@ -0,0 +1,21 @@
+package com.security.studentdto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Represents a request to fetch several students in one call. This class
+ * contains the student numbers to be resolved by the batch lookup.
+ */
+@Getter
+@Setter
+public class StudentIdsRequest {
+
+	/**
+	 * The student numbers to look up. Results are returned in this order.
+	 */
+	private List<Integer> ids;
+
+}
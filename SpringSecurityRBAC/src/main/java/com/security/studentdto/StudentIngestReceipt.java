@@ -0,0 +1,67 @@
+package com.security.studentdto;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Records, in the same transaction as the student it created, that a
+ * write-behind ingestion was written. When the local ingest log is replayed
+ * after a crash, a record with a receipt is already in the database and is not
+ * inserted twice. Receipts are deleted once the log has durably marked their
+ * records as written.
+ * 
+ * @Entity indicates that this class is a JPA entity.
+ * Implements Persistable so that saving a new receipt inserts it directly
+ * instead of first looking up its assigned ID.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+public class StudentIngestReceipt implements Persistable<String> {
+
+	/**
+	 * The tracking ID handed to the client when the record was accepted.
+	 */
+	@Id
+	@Column(length = 36)
+	private String trackingId;
+
+	/**
+	 * The student number of the student created for the record.
+	 */
+	private int stuNumber;
+
+	@Transient
+	private boolean persisted;
+
+	public StudentIngestReceipt(String trackingId, int stuNumber) {
+		this.trackingId = trackingId;
+		this.stuNumber = stuNumber;
+	}
+
+	@Override
+	public String getId() {
+		return trackingId;
+	}
+
+	@Override
+	public boolean isNew() {
+		return !persisted;
+	}
+
+	@PostLoad
+	@PostPersist
+	void markPersisted() {
+		persisted = true;
+	}
+}
@@ -0,0 +1,17 @@
+package com.security.studentdto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The state of a student record accepted by the write-behind ingestion mode
+ * of /user/saveStudent.
+ *
+ * @param trackingId The ID to ask /user/ingestStatus/{trackingId} with.
+ * @param status     PENDING until the record is written, then WRITTEN, or
+ *                   FAILED if the database rejected it.
+ * @param stuNumber  The student number, once WRITTEN.
+ * @param error      Why the record was rejected, if FAILED.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StudentIngestStatus(String trackingId, String status, Integer stuNumber, String error) {
+}
@@ -30,6 +30,7 @@ public class StudentLoginDetails {
 	 * generated by the database.
 	 */
 	@Id
+	@org.springframework.data.annotation.Id // Identifier for the R2DBC mapping used by the reactive mode
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private int uid;
 
@@ -0,0 +1,52 @@
+package com.security.studentdto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Represents the query parameters of a student search. All filters are
+ * optional; paging and sorting fall back to the defaults below.
+ */
+@Getter
+@Setter
+public class StudentSearchRequest {
+
+	/**
+	 * Exact branch name to filter on.
+	 */
+	private String branch;
+
+	/**
+	 * Prefix the student's full name must start with.
+	 */
+	private String namePrefix;
+
+	/**
+	 * The fields to return (stuNumber, fullName, fatherName, branchName). All of
+	 * them when empty.
+	 */
+	private List<String> fields;
+
+	/**
+	 * The field to sort by (stuNumber, fullName or branchName).
+	 */
+	private String sort = "stuNumber";
+
+	/**
+	 * The sort direction, "asc" or "desc".
+	 */
+	private String direction = "asc";
+
+	/**
+	 * Zero-based page number.
+	 */
+	private int page = 0;
+
+	/**
+	 * Number of students per page.
+	 */
+	private int size = 20;
+
+}
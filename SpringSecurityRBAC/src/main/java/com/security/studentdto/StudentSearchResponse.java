@@ -0,0 +1,38 @@
+package com.security.studentdto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Represents one page of student search results. No total count is computed;
+ * hasNext tells the client whether another page exists.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class StudentSearchResponse {
+
+	/**
+	 * The students on this page, reduced to the requested fields.
+	 */
+	private List<StudentSummary> students;
+
+	/**
+	 * Zero-based page number.
+	 */
+	private int page;
+
+	/**
+	 * Requested page size.
+	 */
+	private int size;
+
+	/**
+	 * Whether there are more results after this page.
+	 */
+	private boolean hasNext;
+
+}
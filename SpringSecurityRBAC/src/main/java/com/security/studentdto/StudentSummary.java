@@ -0,0 +1,17 @@
+package com.security.studentdto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Lightweight, read-only projection of a student returned by the search
+ * EndPoint. Only the columns the client asked for are selected from the
+ * database; the others stay null and are left out of the JSON response.
+ *
+ * @param stuNumber  Unique identifier of the student.
+ * @param fullName   Full name of the student.
+ * @param fatherName Father's name of the student.
+ * @param branchName Branch name that the student is enrolled in.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StudentSummary(Integer stuNumber, String fullName, String fatherName, String branchName) {
+}
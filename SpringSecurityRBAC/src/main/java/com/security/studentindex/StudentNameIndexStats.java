@@ -0,0 +1,15 @@
+package com.security.studentindex;
+
+/**
+ * Size and memory statistics of the student name prefix index.
+ *
+ * @param snapshotEntries Names in the immutable sorted snapshot.
+ * @param overlayEntries  Names written since the snapshot was built.
+ * @param tombstones      Snapshot entries hidden by later updates or deletes.
+ * @param estimatedBytes  Estimated heap used by the index.
+ * @param builtAtMillis   When the snapshot was built, in epoch milliseconds.
+ * @param rebuilding      Whether a background rebuild is running.
+ */
+public record StudentNameIndexStats(int snapshotEntries, int overlayEntries, int tombstones, long estimatedBytes,
+		long builtAtMillis, boolean rebuilding) {
+}
@@ -0,0 +1,374 @@
+package com.security.studentindex;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.security.studentdto.StudentSummary;
+import com.security.studentrepo.StudentDetailsRepo;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory prefix index over student full names, used for type-ahead lookups.
+ *
+ * The bulk of the index is an immutable snapshot of two parallel arrays sorted
+ * by lower-cased name: the name keys and the student numbers. A prefix lookup
+ * is a binary search for the first key not smaller than the prefix followed by
+ * a short scan. Writes made through StudentDetailsDao go into a small sorted
+ * overlay and hide the stale snapshot entry with a tombstone. When the overlay
+ * grows past a threshold, the snapshot is rebuilt from StudentDetailsRepo on a
+ * background thread and swapped in atomically; writes that happen during the
+ * rebuild are journaled and replayed on top of the new snapshot.
+ */
+@Component
+public class StudentNamePrefixIndex {
+
+	private static final long ENTRY_OVERHEAD_BYTES = 96; // Skip list node, Entry object and map links
+
+	private static final long TOMBSTONE_BYTES = 48; // Boxed Integer plus hash table node
+
+	private static final Comparator<Entry> ENTRY_ORDER = Comparator.comparing((Entry entry) -> entry.key)
+			.thenComparingInt(entry -> entry.id);
+
+	@Autowired
+	private StudentDetailsRepo detailsRepo; // Source of truth for full rebuilds
+
+	// Overlay size after which the snapshot is rebuilt
+	@Value("${student.name-index.rebuild-threshold:1000}")
+	private int rebuildThreshold;
+
+	// Single background thread for rebuilds, so lookups and writes never wait on the database
+	private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "student-name-index-rebuild");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final AtomicReference<State> state = new AtomicReference<>(State.empty());
+
+	private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+	// Writes seen while a rebuild is reading the database, replayed after the swap
+	private volatile Queue<Write> journal;
+
+	/**
+	 * Builds the index off-thread once the application has started, unless the
+	 * startup warm-up already built it.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void buildOnStartup() {
+		if (state.get().base.builtAtMillis == 0) {
+			rebuildAsync();
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		rebuildExecutor.shutdownNow();
+	}
+
+	/**
+	 * Returns up to limit students whose full name starts with the given prefix,
+	 * ignoring case, ordered by name.
+	 *
+	 * @param prefix The prefix typed by the user.
+	 * @param limit  The maximum number of matches to return.
+	 * @return The matching students (student number and full name only).
+	 */
+	public List<StudentSummary> lookup(String prefix, int limit) {
+		List<StudentSummary> matches = new ArrayList<>(Math.min(limit, 16));
+		if (prefix == null || limit <= 0) {
+			return matches;
+		}
+
+		String key = normalize(prefix);
+		State current = state.get();
+		Snapshot base = current.base;
+
+		// Merge the snapshot range and the overlay range, both sorted by key then id
+		int i = base.lowerBound(key);
+		Iterator<Map.Entry<Entry, Boolean>> overlay = current.overlay
+				.tailMap(new Entry(key, Integer.MIN_VALUE, null), true).entrySet().iterator();
+		Entry nextOverlay = nextMatching(overlay, key);
+
+		while (matches.size() < limit) {
+			// Skip snapshot entries that were updated or deleted since it was built
+			while (i < base.size() && current.tombstones.contains(base.ids[i])) {
+				i++;
+			}
+			boolean baseMatches = i < base.size() && base.keys[i].startsWith(key);
+			if (!baseMatches && nextOverlay == null) {
+				break;
+			}
+
+			if (nextOverlay == null
+					|| (baseMatches && ENTRY_ORDER.compare(base.entry(i), nextOverlay) <= 0)) {
+				matches.add(new StudentSummary(base.ids[i], base.names[i], null, null));
+				i++;
+			} else {
+				matches.add(new StudentSummary(nextOverlay.id, nextOverlay.name, null, null));
+				nextOverlay = nextMatching(overlay, key);
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Records a created or updated student. Called by StudentDetailsDao after the
+	 * write has been committed.
+	 *
+	 * @param stuNumber The student number.
+	 * @param fullName  The current full name.
+	 */
+	public void put(int stuNumber, String fullName) {
+		apply(new Write(stuNumber, fullName));
+	}
+
+	/**
+	 * Records a deleted student. Called by StudentDetailsDao after the delete.
+	 *
+	 * @param stuNumber The student number.
+	 */
+	public void remove(int stuNumber) {
+		apply(new Write(stuNumber, null));
+	}
+
+	/**
+	 * Reports the size of the index and an estimate of its heap footprint.
+	 *
+	 * @return The index statistics.
+	 */
+	public StudentNameIndexStats stats() {
+		State current = state.get();
+		long overlayBytes = 0;
+		for (Entry entry : current.overlay.keySet()) {
+			overlayBytes += ENTRY_OVERHEAD_BYTES + stringBytes(entry.key) + stringBytes(entry.name);
+		}
+		overlayBytes += current.tombstones.size() * TOMBSTONE_BYTES;
+
+		return new StudentNameIndexStats(current.base.size(), current.overlay.size(), current.tombstones.size(),
+				current.base.estimatedBytes + overlayBytes, current.base.builtAtMillis, rebuilding.get());
+	}
+
+	/**
+	 * Schedules a full rebuild from the database unless one is already running.
+	 */
+	public void rebuildAsync() {
+		if (rebuilding.compareAndSet(false, true)) {
+			rebuildExecutor.execute(this::rebuild);
+		}
+	}
+
+	/**
+	 * Rebuilds the index on the calling thread unless a rebuild is already
+	 * running. Used by the startup warm-up so that lookups are served from a
+	 * full snapshot as soon as the application reports ready.
+	 *
+	 * @return true if the index holds a snapshot built from the database.
+	 */
+	public boolean rebuildNow() {
+		if (rebuilding.compareAndSet(false, true)) {
+			rebuild();
+		}
+		return state.get().base.builtAtMillis > 0;
+	}
+
+	// Applies a write to the live overlay and, during a rebuild, to the journal
+	private synchronized void apply(Write write) {
+		Queue<Write> pending = journal;
+		if (pending != null) {
+			pending.add(write);
+		}
+		state.get().apply(write);
+
+		if (state.get().overlay.size() + state.get().tombstones.size() >= rebuildThreshold) {
+			rebuildAsync();
+		}
+	}
+
+	private void rebuild() {
+		try {
+			journal = new ConcurrentLinkedQueue<>();
+
+			// Only the two indexed columns are read, as projections
+			List<StudentSummary> rows = detailsRepo.searchStudents(null, null, List.of("stuNumber", "fullName"),
+					"stuNumber", true, 0, Integer.MAX_VALUE);
+			Snapshot snapshot = Snapshot.build(rows);
+
+			synchronized (this) {
+				State next = new State(snapshot);
+				for (Write write : journal) {
+					next.apply(write);
+				}
+				state.set(next);
+				journal = null;
+			}
+		} catch (RuntimeException e) {
+			journal = null;
+			System.err.println("Failed to rebuild the student name index: " + e.getMessage());
+		} finally {
+			rebuilding.set(false);
+		}
+	}
+
+	private static Entry nextMatching(Iterator<Map.Entry<Entry, Boolean>> overlay, String key) {
+		if (overlay.hasNext()) {
+			Entry entry = overlay.next().getKey();
+			if (entry.key.startsWith(key)) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	static String normalize(String name) {
+		return name.trim().toLowerCase(Locale.ROOT);
+	}
+
+	// Rough heap cost of a compact Latin-1 String: object header, fields and byte[]
+	private static long stringBytes(String value) {
+		return value == null ? 0 : 40 + value.length();
+	}
+
+	/**
+	 * One indexed name: the normalized key, the student number and the name as
+	 * it should be displayed.
+	 */
+	private record Entry(String key, int id, String name) {
+	}
+
+	/**
+	 * A pending change: a new name for the student, or null when deleted.
+	 */
+	private record Write(int id, String name) {
+	}
+
+	/**
+	 * Immutable sorted snapshot of the names stored as parallel arrays.
+	 */
+	private static final class Snapshot {
+
+		private final String[] keys;
+		private final int[] ids;
+		private final String[] names;
+		private final long estimatedBytes;
+		private final long builtAtMillis;
+
+		private Snapshot(String[] keys, int[] ids, String[] names, long builtAtMillis) {
+			this.keys = keys;
+			this.ids = ids;
+			this.names = names;
+			this.builtAtMillis = builtAtMillis;
+
+			long bytes = 3 * 16L + keys.length * 12L; // Array headers, two reference arrays and one int array
+			for (int i = 0; i < keys.length; i++) {
+				bytes += stringBytes(keys[i]);
+				if (names[i] != keys[i]) {
+					bytes += stringBytes(names[i]);
+				}
+			}
+			this.estimatedBytes = bytes;
+		}
+
+		static Snapshot build(List<StudentSummary> rows) {
+			Entry[] entries = rows.stream()
+					.filter(row -> row.fullName() != null)
+					.map(row -> entryOf(row.stuNumber(), row.fullName()))
+					.sorted(ENTRY_ORDER)
+					.toArray(Entry[]::new);
+
+			String[] keys = new String[entries.length];
+			int[] ids = new int[entries.length];
+			String[] names = new String[entries.length];
+			for (int i = 0; i < entries.length; i++) {
+				keys[i] = entries[i].key;
+				ids[i] = entries[i].id;
+				names[i] = entries[i].name;
+			}
+			return new Snapshot(keys, ids, names, System.currentTimeMillis());
+		}
+
+		int size() {
+			return keys.length;
+		}
+
+		Entry entry(int i) {
+			return new Entry(keys[i], ids[i], names[i]);
+		}
+
+		// Index of the first key that is not smaller than the given one
+		int lowerBound(String key) {
+			int low = 0;
+			int high = keys.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (keys[mid].compareTo(key) < 0) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+
+	/**
+	 * The snapshot together with the writes applied since it was built. Replaced
+	 * as a whole on rebuild so readers never see a new snapshot with old
+	 * tombstones.
+	 */
+	private static final class State {
+
+		private final Snapshot base;
+		private final ConcurrentNavigableMap<Entry, Boolean> overlay = new ConcurrentSkipListMap<>(ENTRY_ORDER);
+		private final Map<Integer, Entry> overlayById = new ConcurrentHashMap<>();
+		private final Set<Integer> tombstones = ConcurrentHashMap.newKeySet();
+
+		private State(Snapshot base) {
+			this.base = base;
+		}
+
+		static State empty() {
+			return new State(new Snapshot(new String[0], new int[0], new String[0], 0));
+		}
+
+		// Writes are serialized by the enclosing index, reads are lock-free
+		void apply(Write write) {
+			Entry previous = write.name == null ? overlayById.remove(write.id)
+					: overlayById.put(write.id, entryOf(write.id, write.name));
+			if (previous != null) {
+				overlay.remove(previous);
+			}
+			tombstones.add(write.id);
+			if (write.name != null) {
+				overlay.put(overlayById.get(write.id), Boolean.TRUE);
+			}
+		}
+	}
+
+	private static Entry entryOf(int id, String name) {
+		String key = normalize(name);
+		// Share the String when the name is already in normalized form
+		return new Entry(key, id, key.equals(name) ? key : name);
+	}
+}
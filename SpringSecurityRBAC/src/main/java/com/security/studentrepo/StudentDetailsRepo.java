@@ -1,15 +1,42 @@
 package com.security.studentrepo;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.security.studentdto.StudentDetails;
 
 /**
  * Repository interface for performing CRUD operations on the StudentDetails entity.
  * Extends JpaRepository to provide built-in methods like save(), findById(), findAll(), deleteById().
+ * Extends StudentDetailsSearchRepo for filtered searches returning projections.
  * 
  */
-public interface StudentDetailsRepo extends JpaRepository<StudentDetails, Integer> {
-    
+public interface StudentDetailsRepo extends JpaRepository<StudentDetails, Integer>, StudentDetailsSearchRepo {
+
+    /**
+     * Fetches only the version column of a student, without loading the entity.
+     * Used to answer conditional requests (If-None-Match) cheaply.
+     *
+     * @param stuNumber The ID of the student.
+     * @return The current version, or empty if the student does not exist.
+     */
+    @Query("select s.version from StudentDetails s where s.stuNumber = :stuNumber")
+    Optional<Long> findVersionByStuNumber(@Param("stuNumber") int stuNumber);
+
+    /**
+     * Fetches the student numbers and versions of several students with one IN
+     * query, without loading the entities. Used to check a restored cache
+     * snapshot for students changed since it was written.
+     *
+     * @param stuNumbers The IDs of the students.
+     * @return One {stuNumber, version} row per student that still exists.
+     */
+    @Query("select s.stuNumber, s.version from StudentDetails s where s.stuNumber in :stuNumbers")
+    List<Object[]> findVersionsByStuNumberIn(@Param("stuNumbers") Collection<Integer> stuNumbers);
 }
 
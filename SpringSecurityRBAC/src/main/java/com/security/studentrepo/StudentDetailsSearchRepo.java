@@ -0,0 +1,27 @@
+package com.security.studentrepo;
+
+import java.util.List;
+
+import com.security.studentdto.StudentSummary;
+
+/**
+ * Custom repository fragment for filtered student searches that select only
+ * the requested columns instead of loading managed entities.
+ */
+public interface StudentDetailsSearchRepo {
+
+    /**
+     * Searches students by branch and name prefix.
+     *
+     * @param branchName Exact branch name to match, or null for any branch.
+     * @param namePrefix Prefix of the full name, or null for any name.
+     * @param fields     Entity attributes to select.
+     * @param sortField  Entity attribute to sort by.
+     * @param ascending  Whether to sort ascending.
+     * @param offset     Index of the first row to return.
+     * @param limit      Maximum number of rows to return.
+     * @return Projections holding only the selected fields.
+     */
+    List<StudentSummary> searchStudents(String branchName, String namePrefix, List<String> fields, String sortField,
+            boolean ascending, int offset, int limit);
+}
@@ -0,0 +1,82 @@
+package com.security.studentrepo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.security.studentdto.StudentDetails;
+import com.security.studentdto.StudentSummary;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Criteria-based implementation of StudentDetailsSearchRepo. Spring Data picks
+ * it up through the "Impl" suffix and merges it into StudentDetailsRepo.
+ */
+public class StudentDetailsSearchRepoImpl implements StudentDetailsSearchRepo {
+
+    @PersistenceContext
+    private EntityManager entityManager; // Used to build and run the criteria query
+
+    @Override
+    public List<StudentSummary> searchStudents(String branchName, String namePrefix, List<String> fields,
+            String sortField, boolean ascending, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<StudentDetails> root = query.from(StudentDetails.class);
+
+        // Select only the requested columns
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field : fields) {
+            selections.add(root.get(field).alias(field));
+        }
+        query.multiselect(selections);
+
+        // Both filters are served by the (branchName, fullName) and fullName indexes
+        List<Predicate> predicates = new ArrayList<>();
+        if (branchName != null) {
+            predicates.add(cb.equal(root.get("branchName"), branchName));
+        }
+        if (namePrefix != null) {
+            predicates.add(cb.like(root.get("fullName"), escapeLike(namePrefix) + "%", '\\'));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+
+        // Tie-break on the primary key so paging is stable
+        List<Order> orders = new ArrayList<>();
+        orders.add(ascending ? cb.asc(root.get(sortField)) : cb.desc(root.get(sortField)));
+        if (!"stuNumber".equals(sortField)) {
+            orders.add(cb.asc(root.get("stuNumber")));
+        }
+        query.orderBy(orders);
+
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+
+        List<StudentSummary> summaries = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            summaries.add(new StudentSummary(
+                    fields.contains("stuNumber") ? row.get("stuNumber", Integer.class) : null,
+                    fields.contains("fullName") ? row.get("fullName", String.class) : null,
+                    fields.contains("fatherName") ? row.get("fatherName", String.class) : null,
+                    fields.contains("branchName") ? row.get("branchName", String.class) : null));
+        }
+        return summaries;
+    }
+
+    /**
+     * Escapes LIKE wildcards so a user-supplied prefix is matched literally.
+     */
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
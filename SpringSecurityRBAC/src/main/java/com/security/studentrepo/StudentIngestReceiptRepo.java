@@ -0,0 +1,12 @@
+package com.security.studentrepo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.security.studentdto.StudentIngestReceipt;
+
+/**
+ * Repository interface for the receipts of write-behind ingestions, by
+ * tracking ID.
+ */
+public interface StudentIngestReceiptRepo extends JpaRepository<StudentIngestReceipt, String> {
+}
@@ -1,5 +1,8 @@
 package com.security.studentrepo;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.security.studentdto.StudentLoginDetails;
@@ -21,5 +24,13 @@ public interface StudentloginDetailsRepo extends JpaRepository<StudentLoginDetai
      *         If no student is found with the provided userName, returns null.
      */
     StudentLoginDetails findByUserName(String userName);
+
+    /**
+     * Finds the login details of several students with one IN query.
+     * 
+     * @param userNames The userNames of the students to be retrieved.
+     * @return The login details found; unknown userNames are simply absent.
+     */
+    List<StudentLoginDetails> findByUserNameIn(Collection<String> userNames);
 }
 
@@ -5,10 +5,12 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.security.studentdto.StudentLoginDetails;
 import com.security.studentdto.StudentloginDetailsPrinciple;
 import com.security.studentrepo.StudentloginDetailsRepo;
+import com.security.warmcache.PrincipalCache;
 
 @Service
 public class StudentDetailsLoginSecurityDetails implements UserDetailsService {
@@ -16,6 +18,9 @@ public class StudentDetailsLoginSecurityDetails implements UserDetailsService {
 	@Autowired
 	private StudentloginDetailsRepo detailsRepo; // Repository for accessing student login details
 
+	@Autowired
+	private PrincipalCache principalCache; // Recently loaded login details, restored from the warm cache snapshot
+
 	/**
 	 * Loads the user details by UserName for authentication.
 	 *
@@ -24,14 +29,19 @@ public class StudentDetailsLoginSecurityDetails implements UserDetailsService {
 	 * @throws UsernameNotFoundException If the user is not found in the database.
 	 */
 	@Override
+	@Transactional(readOnly = true) // Served by a read replica when routing is enabled
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-		// Fetch student login details from the repository
-		StudentLoginDetails details = detailsRepo.findByUserName(username);
+		// Fetch student login details from the cache, or else from the repository,
+		// once for all the requests missing the same user at the same time
+		StudentLoginDetails details = principalCache.getOrLoad(username, () -> {
+			StudentLoginDetails found = detailsRepo.findByUserName(username);
 
-		// If no details found, throw exception
-		if (details == null) {
-			throw new UsernameNotFoundException("Student login details not found for username: " + username);
-		}
+			// If no details found, throw exception
+			if (found == null) {
+				throw new UsernameNotFoundException("Student login details not found for username: " + username);
+			}
+			return found;
+		});
 
 		// Return a UserDetails implementation with the loaded details
 		return new StudentloginDetailsPrinciple(details, details.getRole());
@@ -1,24 +1,57 @@
 package com.security.studentservice;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.security.exception.InvalidStudentDetailsException;
 import com.security.studentdao.StudentDetailsDao;
 import com.security.studentdto.StudentDetails;
+import com.security.studentdto.StudentDetailsBatchResponse;
+import com.security.studentdto.StudentDetailsResponse;
+import com.security.studentdto.StudentSearchRequest;
+import com.security.studentdto.StudentSearchResponse;
+import com.security.studentdto.StudentSummary;
 
 /**
  * This service handles the business logic related to student details. It
  * interacts with the database through the StudentDetailsDao to perform CRUD
  * (Create, Read, Update, Delete) operations on student data.
+ *
+ * Read methods run in read-only transactions so that, with
+ * datasource.routing.enabled, they are served by the read replicas.
  */
 @Service
 public class StudentDetailsService {
 
+	// Fields a search may return, and the indexed fields it may sort by
+	private static final List<String> SEARCH_FIELDS = List.of("stuNumber", "fullName", "fatherName", "branchName");
+	private static final List<String> SORT_FIELDS = List.of("stuNumber", "fullName", "branchName");
+
 	@Autowired
 	StudentDetailsDao dao;
 
+	// Upper bound on the number of IDs accepted by a single batch lookup
+	@Value("${student.batch.max-ids:100}")
+	private int maxBatchIds;
+
+	// Upper bound on the page size of a search
+	@Value("${student.search.max-page-size:100}")
+	private int maxSearchPageSize;
+
+	// Upper bound on the rows a search may skip, as deep offsets scan every skipped row
+	@Value("${student.search.max-offset:10000}")
+	private long maxSearchOffset;
+
 	/**
 	 * Saves a new student's details into the database.
 	 * 
@@ -36,15 +69,130 @@ public class StudentDetailsService {
 	 * @param id the unique ID of the student whose details are to be retrieved.
 	 * @return the student details, or null if the student is not found.
 	 */
+	@Transactional(readOnly = true)
 	public StudentDetails getStudentDetailsService(int id) {
 		return dao.getStudentDetailsByIdDao(id);
 	}
 
+	/**
+	 * Retrieves the details of a student at least as new as the given version,
+	 * bypassing a cached copy that is older.
+	 * 
+	 * @param id             the unique ID of the student.
+	 * @param currentVersion the version just read with
+	 *                       getStudentDetailsVersionService.
+	 * @return the student details.
+	 */
+	@Transactional(readOnly = true)
+	public StudentDetails getStudentDetailsService(int id, long currentVersion) {
+		return dao.getStudentDetailsByIdDao(id, currentVersion);
+	}
+
+	/**
+	 * Retrieves several students in one query. Duplicate IDs are collapsed, the
+	 * found students are returned in request order and the IDs that do not exist
+	 * are reported separately.
+	 * 
+	 * @param ids the student IDs to be retrieved.
+	 * @return the found students and the missing IDs.
+	 * @throws InvalidStudentDetailsException if no IDs are given or more than the
+	 *                                        configured maximum.
+	 */
+	@Transactional(readOnly = true)
+	public StudentDetailsBatchResponse getStudentsByIdsService(List<Integer> ids) {
+		Set<Integer> requestedIds = ids == null ? new LinkedHashSet<>() : new LinkedHashSet<>(ids);
+		requestedIds.remove(null);
+		if (requestedIds.isEmpty()) {
+			throw new InvalidStudentDetailsException("Student Ids Should Not be Empty");
+		}
+		if (requestedIds.size() > maxBatchIds) {
+			throw new InvalidStudentDetailsException("At most " + maxBatchIds + " Student Ids can be requested at once");
+		}
+
+		// One IN query for the whole batch, then restore the request order
+		Map<Integer, StudentDetails> found = dao.getStudentDetailsByIdsDao(requestedIds).stream()
+				.collect(Collectors.toMap(StudentDetails::getStuNumber, Function.identity()));
+
+		List<StudentDetailsResponse> students = new ArrayList<>(found.size());
+		List<Integer> missingIds = new ArrayList<>();
+		for (Integer id : requestedIds) {
+			StudentDetails details = found.get(id);
+			if (details != null) {
+				students.add(StudentDetailsResponse.from(details));
+			} else {
+				missingIds.add(id);
+			}
+		}
+
+		return new StudentDetailsBatchResponse(students, missingIds);
+	}
+
+	/**
+	 * Searches students by branch and name prefix with paging and sorting. Only
+	 * the requested fields are selected, and one extra row is fetched to tell
+	 * whether a next page exists instead of running a count query.
+	 * 
+	 * @param request the filters, fields, sort and page to apply.
+	 * @return one page of matching students reduced to the requested fields.
+	 * @throws InvalidStudentDetailsException if a field, sort or page parameter is
+	 *                                        not valid.
+	 */
+	@Transactional(readOnly = true)
+	public StudentSearchResponse searchStudentsService(StudentSearchRequest request) {
+		List<String> fields = request.getFields() == null || request.getFields().isEmpty() ? SEARCH_FIELDS
+				: request.getFields().stream().distinct().toList();
+		for (String field : fields) {
+			if (!SEARCH_FIELDS.contains(field)) {
+				throw new InvalidStudentDetailsException("Unknown field: " + field + ", allowed fields are " + SEARCH_FIELDS);
+			}
+		}
+		if (!SORT_FIELDS.contains(request.getSort())) {
+			throw new InvalidStudentDetailsException("Cannot sort by: " + request.getSort() + ", allowed fields are " + SORT_FIELDS);
+		}
+		if (!"asc".equalsIgnoreCase(request.getDirection()) && !"desc".equalsIgnoreCase(request.getDirection())) {
+			throw new InvalidStudentDetailsException("Sort direction should be asc or desc");
+		}
+		if (request.getPage() < 0 || request.getSize() < 1 || request.getSize() > maxSearchPageSize) {
+			throw new InvalidStudentDetailsException(
+					"Page should be at least 0 and size between 1 and " + maxSearchPageSize);
+		}
+		// Computed in long, as page * size overflows an int for a large page
+		long offset = (long) request.getPage() * request.getSize();
+		if (offset > maxSearchOffset) {
+			throw new InvalidStudentDetailsException("Page " + request.getPage() + " is beyond the first "
+					+ maxSearchOffset + " matching students, narrow the search instead");
+		}
+
+		String branch = request.getBranch() == null || request.getBranch().isBlank() ? null : request.getBranch();
+		String namePrefix = request.getNamePrefix() == null || request.getNamePrefix().isBlank() ? null
+				: request.getNamePrefix();
+
+		List<StudentSummary> rows = dao.searchStudentDetailsDao(branch, namePrefix, fields, request.getSort(),
+				"asc".equalsIgnoreCase(request.getDirection()), (int) offset,
+				request.getSize() + 1);
+
+		boolean hasNext = rows.size() > request.getSize();
+		List<StudentSummary> students = hasNext ? rows.subList(0, request.getSize()) : rows;
+		return new StudentSearchResponse(students, request.getPage(), request.getSize(), hasNext);
+	}
+
+	/**
+	 * Retrieves only the current version of a student's details.
+	 * 
+	 * @param id the unique ID of the student.
+	 * @return the current version, used as the entity tag of the student.
+	 */
+	@Transactional(readOnly = true)
+	public long getStudentDetailsVersionService(int id) {
+		return dao.getStudentDetailsVersionDao(id);
+	}
+
 	/**
 	 * Retrieves the details of all students from the database.
 	 * 
 	 * @return a list of all student details.
 	 */
+	@Transactional(readOnly = true)
 	public List<StudentDetails> getAllStudentsService() {
 		return dao.getAllStudentDetails();
 	}
@@ -69,4 +217,17 @@ public class StudentDetailsService {
 		return dao.updateStudentDetailsDao(details);
 	}
 
+	/**
+	 * Updates the details of an existing student only if it still has the
+	 * expected version.
+	 * 
+	 * @param details         the student details to be updated.
+	 * @param expectedVersion the version from the If-Match header, or null for an
+	 *                        unconditional update.
+	 * @return the updated student details.
+	 */
+	public StudentDetails UpdateStudentDetailsService(StudentDetails details, Long expectedVersion) {
+		return dao.updateStudentDetailsDao(details, expectedVersion);
+	}
+
 }
@@ -1,17 +1,23 @@
 package com.security.studentservice;
 
-import java.util.concurrent.TimeUnit;
-
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.security.audit.AuditEventType;
+import com.security.audit.AuditLog;
+import com.security.blocklist.OpaqueSessionStore;
+import com.security.blocklist.RevocationSlot;
+import com.security.blocklist.SessionRegistry;
+import com.security.blocklist.TokenBlocklist;
+import com.security.concurrency.BlockingResourceLimiter;
+import com.security.concurrency.BlockingResourceLimiter.Resource;
 import com.security.exception.InvalidJwtToken;
 import com.security.exception.JwtTokenExpired;
 import com.security.jwtservice.JwtService;
@@ -19,6 +25,9 @@ import com.security.studentdao.StudentlogindetailsDao;
 import com.security.studentdto.StudentLoginDetails;
 import com.security.studentdto.StudentLoginForm;
 
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+
 @Service
 public class StudentlogindetailsService {
 
@@ -29,11 +38,23 @@ public class StudentlogindetailsService {
 	private JwtService jwtService; // Service for generating and validating JWT tokens
 
 	@Autowired
-	private RedisTemplate<String, String> redisTemplate; // Redis template for managing token blacklisting
+	private TokenBlocklist blocklist; // Revoked tokens, in Redis with an in-process fallback
+
+	@Autowired
+	private SessionRegistry sessionRegistry; // Active sessions per user and role, for bulk revocation
+
+	@Autowired
+	private OpaqueSessionStore sessionStore; // Sessions of opaque tokens when auth.token-mode=opaque
 
 	@Autowired
 	private AuthenticationManager authenticationManager; // Manages authentication for user login
 
+	@Autowired
+	private BlockingResourceLimiter limiter; // Bounds concurrent BCrypt work
+
+	@Autowired
+	private AuditLog auditLog; // Records logins and logouts without blocking
+
 	private final BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder(12); // Password encoder
 
 	/**
@@ -44,21 +65,30 @@ public class StudentlogindetailsService {
 	 */
 	public StudentLoginDetails saveStudentloginDetailsService(StudentLoginDetails details) {
 		// Encode the user's password before saving to the database
-		details.setPassword(bCryptPasswordEncoder.encode(details.getPassword()));
+		// Hashing is CPU-bound, so it runs under a hashing permit
+		details.setPassword(limiter.call(Resource.HASHING, () -> bCryptPasswordEncoder.encode(details.getPassword())));
 		return dao.saveLoginDetailsRepo(details);
 	}
 
 	/**
 	 * Verifies user credentials and generates a JWT token if authentication
-	 * succeeds.
+	 * succeeds, or an opaque session token when auth.token-mode=opaque.
 	 *
 	 * @param form Contains the userName and password for login.
-	 * @return A JWT token if authentication is successful, or "fail" otherwise.
+	 * @return A token if authentication is successful, or "fail" otherwise.
 	 */
 	public String verifyUser(StudentLoginForm form) {
-		// Authenticate user credentials using the authentication manager
-		Authentication authentication = authenticationManager
-				.authenticate(new UsernamePasswordAuthenticationToken(form.getUserName(), form.getPassword()));
+		// Authenticate user credentials using the authentication manager; its password encoder
+		// takes a hashing permit for the BCrypt check alone, not for the user lookup
+		Authentication authentication;
+		try {
+			authentication = authenticationManager
+					.authenticate(new UsernamePasswordAuthenticationToken(form.getUserName(), form.getPassword()));
+		} catch (AuthenticationException e) {
+			auditLog.publish(AuditEventType.LOGIN_FAILURE, form.getUserName(), e.getMessage(),
+					HttpStatus.UNAUTHORIZED.value());
+			throw e;
+		}
 
 		if (authentication.isAuthenticated()) {
 			// Extract the user's role from granted authorities
@@ -67,28 +97,60 @@ public class StudentlogindetailsService {
 					.findFirst() // Take the first (and only) role
 					.orElseThrow(() -> new IllegalArgumentException("No roles found"));
 
-			// Generate and return a JWT token with the UserName and role
-			return jwtService.generateToken(form.getUserName(), role);
+			String token = issueToken(form.getUserName(), role);
+			auditLog.publish(AuditEventType.LOGIN_SUCCESS, form.getUserName(), role, HttpStatus.OK.value());
+			return token;
 		}
 
 		// Return failure message if authentication fails
+		auditLog.publish(AuditEventType.LOGIN_FAILURE, form.getUserName(), "Not authenticated",
+				HttpStatus.UNAUTHORIZED.value());
 		return "fail";
 	}
+
+	// Issues an opaque session token or a JWT with the UserName, role and revocation slot
+	private String issueToken(String userName, String role) {
+		// In the opaque token mode the token only names a session
+		if (sessionStore.isEnabled()) {
+			String token = sessionStore.issue(userName, role);
+			sessionRegistry.registerOpaque(userName, role, token,
+					System.currentTimeMillis() + JwtService.TOKEN_VALIDITY_MILLIS);
+			return token;
+		}
+
+		RevocationSlot slot = blocklist.allocateSlot();
+		if (slot == null) {
+			return jwtService.generateToken(userName, role);
+		}
+		String token = jwtService.generateToken(userName, role, slot.claims());
+		sessionRegistry.register(userName, role, slot); // So an admin can revoke it in bulk
+		return token;
+	}
+
 	// log out
 
 	/**
-	 * Logs out a user by blacklisting their JWT token in Redis.
+	 * Logs out a user by blacklisting their JWT token. The token is revoked on
+	 * this node at once; if Redis is unavailable the write is buffered and
+	 * replayed to Redis when it recovers. An opaque token's session is deleted
+	 * instead.
 	 *
 	 * @param authHeader The JWT token from the user's authorization header.
 	 * @return A success or error message based on the operation result.
 	 */
 	public String logOut(String authHeader) {
-		// Access Redis operations for key-value storage
-		ValueOperations<String, String> valueOps = redisTemplate.opsForValue();
-
 		// Extract the JWT token from the Authorization header
 		String token = authHeader;
 
+		// An opaque token is ended by deleting its session
+		if (sessionStore.isEnabled() && OpaqueSessionStore.isOpaque(token)) {
+			if (!sessionStore.revoke(token)) {
+				return "Invalid or malformed token.";
+			}
+			auditLog.publish(AuditEventType.LOGOUT, null, "opaque session", HttpStatus.OK.value());
+			return "Logout successful.";
+		}
+
 		try {
 			// Extract the unique identifier (jti) from the token
 			String jti = jwtService.extractJtiFromToken(token);
@@ -98,25 +160,23 @@ public class StudentlogindetailsService {
 			}
 
 			// Calculate the remaining time until the token's expiration
-			long tokenExpiryDuration = jwtService.extractExpiration(token).getTime() - System.currentTimeMillis();
+			long expiresAt = jwtService.extractExpiration(token).getTime();
 
-			if (tokenExpiryDuration > 0) {
-				// Store the token in Redis with a TTL matching its expiration
-				valueOps.set("blacklisted:" + token, jti, tokenExpiryDuration, TimeUnit.MILLISECONDS);
+			if (expiresAt > System.currentTimeMillis()) {
+				// Revoke the token until it expires
+				blocklist.revoke(token, jti, expiresAt);
+				auditLog.publish(AuditEventType.LOGOUT, jti, "jwt", HttpStatus.OK.value());
 				return "Logout successful.";
 			} else {
 				throw new JwtTokenExpired("Token has already expired."); // Handle expired tokens
 			}
 
-		} catch (JwtTokenExpired e) {
+		} catch (JwtTokenExpired | ExpiredJwtException e) {
 			// Handle tokens that are already expired
 			return "Token has expired.";
-		} catch (InvalidJwtToken e) {
+		} catch (InvalidJwtToken | JwtException | IllegalArgumentException e) {
 			// Handle invalid or malformed tokens
 			return "Invalid or malformed token.";
-		} catch (Exception e) {
-			// Catch any unexpected errors
-			return e.getMessage();
 		}
 	}
 
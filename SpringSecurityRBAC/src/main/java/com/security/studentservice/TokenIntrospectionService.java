@@ -0,0 +1,158 @@
+package com.security.studentservice;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.security.blocklist.OpaqueSessionStore;
+import com.security.blocklist.SessionRecord;
+import com.security.blocklist.TokenBlocklist;
+import com.security.exception.BlocklistUnavailableException;
+import com.security.exception.IntrospectionClientUnauthorizedException;
+import com.security.exception.InvalidJwtToken;
+import com.security.jwtservice.JwtService;
+import com.security.studentdto.IntrospectionResult;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+
+/**
+ * This service tells other services whether tokens issued by this application
+ * are active. A JWT is active when JwtService verifies its signature and
+ * expiry and the TokenBlocklist has not revoked it; an opaque token when its
+ * session exists. A batch costs one verification per JWT, at most one
+ * pipelined Redis round trip for all revocation checks together and at most
+ * one MGET for all opaque sessions together. An opaque token whose session
+ * cannot be looked up is reported inactive on its own, without failing the
+ * rest of the batch.
+ *
+ * Unlike JwtFilter, introspection does not load the user from the database:
+ * the answer reflects the token as issued, so a role change shows once the
+ * user logs in again.
+ */
+@Service
+public class TokenIntrospectionService {
+
+	@Autowired
+	private JwtService jwtService; // Verifies signatures and expiry
+
+	@Autowired
+	private TokenBlocklist blocklist; // Revoked tokens
+
+	@Autowired
+	private OpaqueSessionStore sessionStore; // Sessions of opaque tokens
+
+	// Shared secret of the introspection callers, blank to disable introspection
+	@Value("${introspect.client-secret:}")
+	private String clientSecret;
+
+	// Upper bound on the number of tokens in one batch
+	@Value("${introspect.max-batch-size:1000}")
+	private int maxBatchSize;
+
+	/**
+	 * Checks that the caller presented the introspection client secret.
+	 *
+	 * @param presented The secret sent by the caller, possibly null.
+	 * @throws IntrospectionClientUnauthorizedException if introspection is not
+	 *                                                  configured or the
+	 *                                                  secret does not match.
+	 */
+	public void authorizeClient(String presented) {
+		if (clientSecret == null || clientSecret.isBlank()) {
+			throw new IntrospectionClientUnauthorizedException("Token introspection is not configured");
+		}
+		if (presented == null || !MessageDigest.isEqual(clientSecret.getBytes(StandardCharsets.UTF_8),
+				presented.getBytes(StandardCharsets.UTF_8))) {
+			throw new IntrospectionClientUnauthorizedException("Invalid introspection client secret");
+		}
+	}
+
+	/**
+	 * Introspects one token.
+	 *
+	 * @param token The bearer token.
+	 * @return The introspection result.
+	 */
+	public IntrospectionResult introspect(String token) {
+		if (token == null || token.isBlank()) {
+			throw new InvalidJwtToken("Token Should Not be Empty");
+		}
+		return introspectAll(List.of(token)).get(0);
+	}
+
+	/**
+	 * Introspects a batch of tokens.
+	 *
+	 * @param tokens The bearer tokens.
+	 * @return One result per token, in the order given.
+	 * @throws InvalidJwtToken if the batch is empty or too large.
+	 * @throws BlocklistUnavailableException if the revocation of a JWT cannot
+	 *                                       be checked and the blocklist fails
+	 *                                       closed.
+	 */
+	public List<IntrospectionResult> introspectAll(List<String> tokens) {
+		if (tokens == null || tokens.isEmpty()) {
+			throw new InvalidJwtToken("Tokens Should Not be Empty");
+		}
+		if (tokens.size() > maxBatchSize) {
+			throw new InvalidJwtToken("At most " + maxBatchSize + " Tokens can be introspected at once");
+		}
+
+		IntrospectionResult[] results = new IntrospectionResult[tokens.size()];
+		Arrays.fill(results, IntrospectionResult.inactive());
+		List<String> verified = new ArrayList<>(tokens.size());
+		List<Integer> positions = new ArrayList<>(tokens.size());
+		List<String> opaque = new ArrayList<>();
+		List<Integer> opaquePositions = new ArrayList<>();
+
+		for (int i = 0; i < tokens.size(); i++) {
+			String token = tokens.get(i);
+			if (token == null || token.isBlank()) {
+				continue;
+			}
+			if (sessionStore.isEnabled() && OpaqueSessionStore.isOpaque(token)) {
+				opaque.add(token);
+				opaquePositions.add(i);
+				continue;
+			}
+			try {
+				Claims claims = jwtService.verifyClaims(token);
+				results[i] = new IntrospectionResult(true, claims.getSubject(), claims.get("role", String.class),
+						claims.getExpiration().getTime() / 1000);
+				verified.add(token);
+				positions.add(i);
+			} catch (JwtException | IllegalArgumentException e) {
+				// Forged, malformed or expired: stays inactive
+			}
+		}
+
+		// All opaque sessions not known locally are fetched in one go
+		if (!opaque.isEmpty()) {
+			SessionRecord[] sessions = sessionStore.resolveAll(opaque);
+			for (int k = 0; k < sessions.length; k++) {
+				if (sessions[k] != null) {
+					results[opaquePositions.get(k)] = new IntrospectionResult(true, sessions[k].userName(),
+							"ROLE_" + sessions[k].role().name(), sessions[k].expiresAtMillis() / 1000);
+				}
+			}
+		}
+
+		// Only genuine, unexpired JWTs are checked against the blocklist, all in one go
+		if (!verified.isEmpty()) {
+			boolean[] revoked = blocklist.areRevoked(verified);
+			for (int k = 0; k < revoked.length; k++) {
+				if (revoked[k]) {
+					results[positions.get(k)] = IntrospectionResult.inactive();
+				}
+			}
+		}
+		return Arrays.asList(results);
+	}
+}
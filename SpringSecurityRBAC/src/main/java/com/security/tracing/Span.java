@@ -0,0 +1,112 @@
+package com.security.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A timed section of a request, such as a DAO call or a Redis command. Spans
+ * are opened with Tracer.startSpan and closed with try-with-resources; outside
+ * a recorded trace the shared NOOP span is returned, so an unsampled request
+ * allocates nothing.
+ */
+public final class Span implements AutoCloseable {
+
+	static final Span NOOP = new Span(null, null, null, null, null);
+
+	private final TraceContext trace;
+
+	private final String spanId;
+
+	private final String parentId;
+
+	private final String name;
+
+	private final String layer;
+
+	private final long startEpochMicros;
+
+	private final long startNanos;
+
+	private long durationNanos = -1;
+
+	// Time spent in the child spans, to derive the span's own time
+	long childNanos;
+
+	private Map<String, String> tags;
+
+	Span(TraceContext trace, String spanId, String parentId, String name, String layer) {
+		this.trace = trace;
+		this.spanId = spanId;
+		this.parentId = parentId;
+		this.name = name;
+		this.layer = layer;
+		this.startEpochMicros = trace == null ? 0 : System.currentTimeMillis() * 1000;
+		this.startNanos = trace == null ? 0 : System.nanoTime();
+	}
+
+	/**
+	 * Attaches a key/value pair to the span.
+	 *
+	 * @param key   The tag name.
+	 * @param value The tag value.
+	 * @return This span.
+	 */
+	public Span tag(String key, String value) {
+		if (trace != null) {
+			if (tags == null) {
+				tags = new LinkedHashMap<>();
+			}
+			tags.put(key, value);
+		}
+		return this;
+	}
+
+	/**
+	 * Tells whether this span belongs to a recorded trace.
+	 *
+	 * @return false for the NOOP span.
+	 */
+	public boolean isRecording() {
+		return trace != null;
+	}
+
+	@Override
+	public void close() {
+		if (trace != null && durationNanos < 0) {
+			durationNanos = System.nanoTime() - startNanos;
+			trace.end(this);
+		}
+	}
+
+	TraceContext getTrace() {
+		return trace;
+	}
+
+	String getSpanId() {
+		return spanId;
+	}
+
+	String getParentId() {
+		return parentId;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	String getLayer() {
+		return layer;
+	}
+
+	long getStartEpochMicros() {
+		return startEpochMicros;
+	}
+
+	long getDurationNanos() {
+		return durationNanos;
+	}
+
+	Map<String, String> getTags() {
+		return tags == null ? Map.of() : tags;
+	}
+}
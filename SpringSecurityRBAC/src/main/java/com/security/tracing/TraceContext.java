@@ -0,0 +1,75 @@
+package com.security.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The spans of one recorded request. Confined to the request thread: spans are
+ * opened and closed on the thread that handles the request.
+ */
+final class TraceContext {
+
+	private final String traceId;
+
+	private final boolean sampled;
+
+	private final Deque<Span> open = new ArrayDeque<>();
+
+	private final List<Span> finished = new ArrayList<>();
+
+	// Own time (excluding child spans) per layer, so the root span tells which layer made the request slow
+	private final Map<String, Long> layerNanos = new LinkedHashMap<>();
+
+	TraceContext(String traceId, boolean sampled) {
+		this.traceId = traceId;
+		this.sampled = sampled;
+	}
+
+	Span start(String name, String layer, String remoteParentId) {
+		Span parent = open.peek();
+		Span span = new Span(this, randomHex(16), parent != null ? parent.getSpanId() : remoteParentId, name, layer);
+		open.push(span);
+		return span;
+	}
+
+	void end(Span span) {
+		open.remove(span); // Normally the top of the stack
+		finished.add(span);
+		Span parent = open.peek();
+		if (parent != null) {
+			parent.childNanos += span.getDurationNanos();
+		}
+		layerNanos.merge(span.getLayer(), span.getDurationNanos() - span.childNanos, Long::sum);
+	}
+
+	String getTraceId() {
+		return traceId;
+	}
+
+	boolean isSampled() {
+		return sampled;
+	}
+
+	List<Span> getFinished() {
+		return finished;
+	}
+
+	Map<String, Long> getLayerNanos() {
+		return layerNanos;
+	}
+
+	static String randomHex(int digits) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		StringBuilder hex = new StringBuilder(digits);
+		while (hex.length() < digits) {
+			String chunk = Long.toHexString(random.nextLong() | Long.MIN_VALUE); // Always 16 digits
+			hex.append(chunk, 0, Math.min(16, digits - hex.length()));
+		}
+		return hex.toString();
+	}
+}
@@ -0,0 +1,47 @@
+package com.security.tracing;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import com.security.jsonlines.JsonLinesWriter;
+
+/**
+ * Writes finished traces to traces.jsonl in a local directory, one JSON span
+ * per line in the Zipkin v2 field layout (timestamp and duration in
+ * microseconds), so traces can be inspected offline or bulk-loaded into a
+ * tracing UI. Queueing, the writer thread and rolling the file at the size
+ * limit are those of JsonLinesWriter.
+ */
+class TraceFileExporter extends JsonLinesWriter<TraceContext> {
+
+	TraceFileExporter(Path directory, int queueSize, long maxFileBytes) {
+		super(directory, "traces", "trace-file-exporter", queueSize, maxFileBytes);
+	}
+
+	@Override
+	protected void format(TraceContext trace, StringBuilder lines) {
+		for (Span span : trace.getFinished()) {
+			lines.append("{\"traceId\":");
+			string(lines, trace.getTraceId());
+			lines.append(",\"id\":");
+			string(lines, span.getSpanId());
+			if (span.getParentId() != null) {
+				lines.append(",\"parentId\":");
+				string(lines, span.getParentId());
+			}
+			lines.append(",\"name\":");
+			string(lines, span.getName());
+			lines.append(",\"timestamp\":").append(span.getStartEpochMicros());
+			lines.append(",\"duration\":").append(span.getDurationNanos() / 1000);
+			lines.append(",\"tags\":{\"layer\":");
+			string(lines, span.getLayer());
+			for (Map.Entry<String, String> tag : span.getTags().entrySet()) {
+				lines.append(',');
+				string(lines, tag.getKey());
+				lines.append(':');
+				string(lines, tag.getValue());
+			}
+			lines.append("}}\n");
+		}
+	}
+}
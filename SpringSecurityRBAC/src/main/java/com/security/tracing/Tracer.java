@@ -0,0 +1,237 @@
+package com.security.tracing;
+
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Lightweight request tracing. TracingFilter starts a trace per request and
+ * the layers open spans inside it: the token filters, JwtService
+ * verification, user loading, DAO calls, Redis commands and BCrypt (see
+ * TracingAspect). Traces are exported to a local file by TraceFileExporter.
+ *
+ * A request is recorded when it is sampled (tracing.sample-rate, or the
+ * sampled flag of an incoming W3C traceparent header, honoured for at most
+ * tracing.max-forced-per-second requests so that callers cannot force every
+ * request into the trace file) or, with
+ * tracing.slow-threshold-ms above 0, recorded always and exported only when
+ * it turns out slower than the threshold, so that p99 outliers are kept
+ * whatever the sample rate. With tracing disabled, or for a request that is
+ * neither, every span is the shared NOOP span and costs one ThreadLocal read.
+ *
+ * A traceparent is only continued when it is well formed: version 00 and a
+ * trace id and parent span id of lowercase hex that are not all zero, as
+ * the W3C spec requires. Anything else starts a new trace.
+ *
+ * The root span carries the own time of each layer as "layer.&lt;name&gt;.us"
+ * tags, which tells at a glance where a slow request spent its time.
+ */
+@Component
+public class Tracer {
+
+	private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+
+	private final boolean enabled;
+
+	private final double sampleRate;
+
+	private final long slowThresholdNanos;
+
+	private final int maxForcedPerSecond;
+
+	/** The second (epoch millis / 1000) shifted left 32 bits, plus the forced samples taken in it. */
+	private final AtomicLong forcedWindow = new AtomicLong();
+
+	private final TraceFileExporter exporter;
+
+	/**
+	 * Creates the tracer.
+	 *
+	 * @param enabled         Whether requests are traced at all.
+	 * @param sampleRate      Share of requests exported, from 0 to 1.
+	 * @param slowThresholdMs Requests slower than this are exported even when
+	 *                        not sampled; 0 to record sampled requests only.
+	 * @param maxForcedPerSecond Requests per second whose traceparent sampled
+	 *                        flag is honoured beyond the sample rate.
+	 * @param directory       Where the trace file is written.
+	 * @param queueSize       Finished traces waiting for the exporter.
+	 * @param maxFileBytes    Size at which the trace file is rolled.
+	 */
+	@Autowired
+	public Tracer(@Value("${tracing.enabled:true}") boolean enabled,
+			@Value("${tracing.sample-rate:0.01}") double sampleRate,
+			@Value("${tracing.slow-threshold-ms:0}") long slowThresholdMs,
+			@Value("${tracing.max-forced-per-second:10}") int maxForcedPerSecond,
+			@Value("${tracing.directory:logs/traces}") String directory,
+			@Value("${tracing.queue-size:1024}") int queueSize,
+			@Value("${tracing.file-max-bytes:67108864}") long maxFileBytes) {
+		this.enabled = enabled;
+		this.sampleRate = sampleRate;
+		this.slowThresholdNanos = slowThresholdMs * 1_000_000;
+		this.maxForcedPerSecond = maxForcedPerSecond;
+		this.exporter = new TraceFileExporter(Paths.get(directory), queueSize, maxFileBytes);
+	}
+
+	@PostConstruct
+	public void start() {
+		if (enabled) {
+			exporter.start();
+		}
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		exporter.stop();
+	}
+
+	/**
+	 * Starts the trace of a request on the current thread.
+	 *
+	 * @param traceparent The incoming W3C traceparent header, possibly null.
+	 * @param name        The name of the root span.
+	 * @return The root span, or the NOOP span if the request is not recorded.
+	 */
+	public Span startTrace(String traceparent, String name) {
+		CURRENT.remove();
+		if (!enabled) {
+			return Span.NOOP;
+		}
+		// traceparent: 00-<32 hex trace id>-<16 hex parent span id>-<2 hex flags>
+		String[] parts = traceparent == null ? null : traceparent.split("-", -1);
+		boolean propagated = parts != null && parts.length == 4 && "00".equals(parts[0]) && isId(parts[1], 32)
+				&& isId(parts[2], 16) && parts[3].length() == 2 && Character.digit(parts[3].charAt(0), 16) >= 0
+				&& Character.digit(parts[3].charAt(1), 16) >= 0;
+		boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+		if (!sampled && propagated && (Character.digit(parts[3].charAt(1), 16) & 1) == 1) {
+			sampled = takeForcedSample();
+		}
+		if (!sampled && slowThresholdNanos <= 0) {
+			return Span.NOOP;
+		}
+
+		TraceContext trace = new TraceContext(propagated ? parts[1] : TraceContext.randomHex(32), sampled);
+		CURRENT.set(trace);
+		return trace.start(name, "http", propagated ? parts[2] : null);
+	}
+
+	/**
+	 * Tells whether a traceparent field is a valid id: the given number of
+	 * lowercase hex digits, not all zero.
+	 */
+	private static boolean isId(String value, int length) {
+		if (value.length() != length) {
+			return false;
+		}
+		boolean nonZero = false;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+				return false;
+			}
+			nonZero |= c != '0';
+		}
+		return nonZero;
+	}
+
+	/**
+	 * Counts a request sampled only because its caller asked for it, refusing
+	 * once tracing.max-forced-per-second were taken in the current second.
+	 */
+	private boolean takeForcedSample() {
+		long second = System.currentTimeMillis() / 1000;
+		while (true) {
+			long window = forcedWindow.get();
+			long taken = window >>> 32 == second ? window & 0xFFFFFFFFL : 0;
+			if (taken >= maxForcedPerSecond) {
+				return false;
+			}
+			if (forcedWindow.compareAndSet(window, (second << 32) | (taken + 1))) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Ends the trace started by startTrace and hands it to the exporter if it
+	 * was sampled or slow.
+	 *
+	 * @param root The root span.
+	 */
+	public void endTrace(Span root) {
+		CURRENT.remove();
+		if (!root.isRecording()) {
+			return;
+		}
+		root.close();
+		TraceContext trace = root.getTrace();
+		if (trace.isSampled() || (slowThresholdNanos > 0 && root.getDurationNanos() >= slowThresholdNanos)) {
+			for (Map.Entry<String, Long> layer : trace.getLayerNanos().entrySet()) {
+				root.tag("layer." + layer.getKey() + ".us", Long.toString(layer.getValue() / 1000));
+			}
+			exporter.offer(trace);
+		}
+	}
+
+	/**
+	 * Opens a span in the trace of the current thread.
+	 *
+	 * @param name  What the span measures, such as "StudentDetailsDao.save".
+	 * @param layer The layer, such as "db" or "redis".
+	 * @return The span, or the NOOP span outside a recorded trace.
+	 */
+	public Span startSpan(String name, String layer) {
+		TraceContext trace = CURRENT.get();
+		return trace == null ? Span.NOOP : trace.start(name, layer, null);
+	}
+
+	/**
+	 * Tells whether the current thread is recording a trace, so that callers
+	 * can skip building span names otherwise.
+	 *
+	 * @return true inside a recorded trace.
+	 */
+	public boolean isRecording() {
+		return CURRENT.get() != null;
+	}
+
+	/**
+	 * Returns the W3C traceparent header value that identifies the root span,
+	 * for the response and for calls to other services.
+	 *
+	 * @param root The root span.
+	 * @return The header value, or null if the request is not recorded.
+	 */
+	public String traceparent(Span root) {
+		if (!root.isRecording()) {
+			return null;
+		}
+		return "00-" + root.getTrace().getTraceId() + "-" + root.getSpanId() + "-"
+				+ (root.getTrace().isSampled() ? "01" : "00");
+	}
+
+	/**
+	 * Returns how many traces were written to the trace file.
+	 *
+	 * @return The exported count.
+	 */
+	public long getExported() {
+		return exporter.getWritten();
+	}
+
+	/**
+	 * Returns how many traces were lost because the export queue was full.
+	 *
+	 * @return The dropped count.
+	 */
+	public long getDropped() {
+		return exporter.getDropped();
+	}
+}
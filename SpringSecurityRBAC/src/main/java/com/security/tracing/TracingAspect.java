@@ -0,0 +1,63 @@
+package com.security.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.security.concurrency.BlockingResourceLimiter.Resource;
+
+/**
+ * Opens spans around the layers a request passes through without touching
+ * their code: DAO calls, JwtService verification, user loading, and the calls
+ * made under a BlockingResourceLimiter permit, which are the Redis commands
+ * and BCrypt. A limiter span includes the wait for the permit, which is often
+ * the very reason a request was slow.
+ */
+@Aspect
+@Component
+public class TracingAspect {
+
+	@Autowired
+	private Tracer tracer;
+
+	@Around("execution(public * com.security.studentdao.*.*(..))")
+	public Object dao(ProceedingJoinPoint joinPoint) throws Throwable {
+		return trace(joinPoint, "db");
+	}
+
+	@Around("execution(public * com.security.studentservice.StudentDetailsLoginSecurityDetails.loadUserByUsername(..))")
+	public Object loadUser(ProceedingJoinPoint joinPoint) throws Throwable {
+		return trace(joinPoint, "userdetails");
+	}
+
+	@Around("execution(public * com.security.jwtservice.JwtService.extract*(..))"
+			+ " || execution(public * com.security.jwtservice.JwtService.validateTokenWithRole(..))"
+			+ " || execution(public * com.security.jwtservice.JwtService.verifyClaims(..))")
+	public Object jwt(ProceedingJoinPoint joinPoint) throws Throwable {
+		return trace(joinPoint, "jwt");
+	}
+
+	@Around("execution(public * com.security.concurrency.BlockingResourceLimiter.call(..)) && args(resource, ..)")
+	public Object limited(ProceedingJoinPoint joinPoint, Resource resource) throws Throwable {
+		if (!tracer.isRecording()) {
+			return joinPoint.proceed();
+		}
+		String layer = resource == Resource.REDIS ? "redis" : "bcrypt";
+		try (Span span = tracer.startSpan(layer, layer)) {
+			return joinPoint.proceed();
+		}
+	}
+
+	private Object trace(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
+		if (!tracer.isRecording()) {
+			return joinPoint.proceed(); // No span name to build outside a recorded trace
+		}
+		String name = joinPoint.getSignature().getDeclaringType().getSimpleName() + "."
+				+ joinPoint.getSignature().getName();
+		try (Span span = tracer.startSpan(name, layer)) {
+			return joinPoint.proceed();
+		}
+	}
+}
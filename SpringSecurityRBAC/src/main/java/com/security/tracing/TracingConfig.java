@@ -0,0 +1,21 @@
+package com.security.tracing;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Registers the TracingFilter ahead of every other filter, including the
+ * Spring Security chain.
+ */
+@Configuration
+public class TracingConfig {
+
+	@Bean
+	public FilterRegistrationBean<TracingFilter> tracingFilter(Tracer tracer) {
+		FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(new TracingFilter(tracer));
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+}
@@ -0,0 +1,46 @@
+package com.security.tracing;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Opens the root span of each request, first in the filter chain so that the
+ * trace covers admission, the token filters and the controller. The trace id
+ * is taken from an incoming traceparent header and returned in the
+ * traceparent response header.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+	static final String TRACEPARENT = "traceparent";
+
+	private final Tracer tracer;
+
+	public TracingFilter(Tracer tracer) {
+		this.tracer = tracer;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		Span root = tracer.startTrace(request.getHeader(TRACEPARENT),
+				request.getMethod() + " " + request.getRequestURI());
+		String traceparent = tracer.traceparent(root);
+		if (traceparent != null) {
+			response.setHeader(TRACEPARENT, traceparent);
+		}
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			if (root.isRecording()) {
+				root.tag("http.status", Integer.toString(response.getStatus()));
+			}
+			tracer.endTrace(root);
+		}
+	}
+}
@@ -0,0 +1,246 @@
+package com.security.warmcache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process cache whose entries expire a fixed time after they were
+ * stored. Each entry also remembers when it was last read, so that the
+ * recently active part of the cache can be written to a WarmCacheSnapshot.
+ * A full cache first drops its expired entries and, if still full, does not
+ * take the new entry; the rejection is counted. Dropping the expired entries
+ * scans the whole cache, so it happens at most once a second however many
+ * puts find the cache full. Concurrent misses of one key
+ * loaded through getOrLoad run a single load (see SingleFlight). A put or
+ * invalidate of a key while it is being loaded wins over the load: the
+ * loaded value, read before the change, is returned but not cached.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class ExpiringCache<K, V> {
+
+	// Reads within this long of the recorded access do not write it again
+	private static final long ACCESS_RESOLUTION_MILLIS = 1000;
+
+	// A full cache scans for expired entries at most this often
+	private static final long PURGE_INTERVAL_MILLIS = 1000;
+
+	private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+	private final long ttlMillis;
+
+	private final int maxEntries;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final AtomicLong rejected = new AtomicLong();
+
+	// Earliest time a put to a full cache may purge again
+	private final AtomicLong nextPurgeMillis = new AtomicLong();
+
+	// The keys being loaded by getOrLoad, each with a token of its load that a
+	// put or invalidate removes, so that the load does not cache its stale value
+	private final Map<K, Object> pendingLoads = new ConcurrentHashMap<>();
+
+	private final SingleFlight<K, V> loads;
+
+	/**
+	 * Creates an empty cache.
+	 *
+	 * @param ttlMillis         How long an entry stays valid after it was stored.
+	 * @param maxEntries        The largest number of entries kept.
+	 * @param loadTimeoutMillis How long getOrLoad waits for a load of the same
+	 *                          key started by another caller.
+	 */
+	public ExpiringCache(long ttlMillis, int maxEntries, long loadTimeoutMillis) {
+		this.ttlMillis = ttlMillis;
+		this.maxEntries = maxEntries;
+		this.loads = new SingleFlight<>(loadTimeoutMillis, this::copy);
+	}
+
+	/**
+	 * Returns the cached value of a key.
+	 *
+	 * @param key The key.
+	 * @return The value, or null if it is not cached or has expired.
+	 */
+	public V get(K key) {
+		Entry<V> entry = entries.get(key);
+		long now = System.currentTimeMillis();
+		if (entry == null || entry.expiresAtMillis <= now) {
+			if (entry != null) {
+				entries.remove(key, entry);
+			}
+			misses.increment();
+			return null;
+		}
+		if (now - entry.lastAccessMillis >= ACCESS_RESOLUTION_MILLIS) {
+			entry.lastAccessMillis = now;
+		}
+		hits.increment();
+		return copy(entry.value);
+	}
+
+	/**
+	 * Returns the cached value of a key, or loads and caches it. Of the callers
+	 * missing the same key at the same time only one runs the loader; the others
+	 * wait for its result.
+	 *
+	 * @param key    The key.
+	 * @param loader Loads the value, or throws if there is none; a null value is
+	 *               returned but not cached.
+	 * @return The value.
+	 */
+	public V getOrLoad(K key, Supplier<V> loader) {
+		V cached = get(key);
+		if (cached != null) {
+			return cached;
+		}
+		return loads.load(key, () -> {
+			Object load = new Object();
+			pendingLoads.put(key, load);
+			try {
+				V value = loader.get();
+				if (value != null) {
+					// Cached before the waiting callers are released, unless the key
+					// was put or invalidated meanwhile; that check and the store are
+					// atomic with the removal of the token by put and invalidate
+					V stored = copy(value);
+					pendingLoads.computeIfPresent(key, (k, token) -> {
+						if (token != load) {
+							return token;
+						}
+						store(key, stored);
+						return null;
+					});
+				}
+				return value;
+			} finally {
+				pendingLoads.remove(key, load);
+			}
+		});
+	}
+
+	/**
+	 * Caches a value for the configured time to live.
+	 *
+	 * @param key   The key.
+	 * @param value The value.
+	 */
+	public void put(K key, V value) {
+		putOwned(key, copy(value));
+	}
+
+	/**
+	 * Caches a value that nothing else refers to, such as one just decoded from
+	 * a snapshot, without copying it.
+	 *
+	 * @param key   The key.
+	 * @param value The value.
+	 */
+	void putOwned(K key, V value) {
+		pendingLoads.remove(key);
+		store(key, value);
+	}
+
+	private void store(K key, V value) {
+		long now = System.currentTimeMillis();
+		if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+			long nextPurge = nextPurgeMillis.get();
+			if (now >= nextPurge && nextPurgeMillis.compareAndSet(nextPurge, now + PURGE_INTERVAL_MILLIS)) {
+				purgeExpired();
+			}
+			if (entries.size() >= maxEntries) {
+				rejected.incrementAndGet();
+				return;
+			}
+		}
+		entries.put(key, new Entry<>(value, now + ttlMillis, now));
+	}
+
+	/**
+	 * Removes a key, after its value was changed or deleted.
+	 *
+	 * @param key The key.
+	 */
+	public void invalidate(K key) {
+		pendingLoads.remove(key);
+		entries.remove(key);
+	}
+
+	/**
+	 * Removes the expired entries.
+	 */
+	public void purgeExpired() {
+		long now = System.currentTimeMillis();
+		entries.values().removeIf(entry -> entry.expiresAtMillis <= now);
+	}
+
+	/**
+	 * Visits the valid entries read or stored since the given time.
+	 *
+	 * @param activeSinceMillis The oldest access to include, in epoch millis.
+	 * @param visitor           Receives each key and value.
+	 */
+	public void forEachActive(long activeSinceMillis, BiConsumer<K, V> visitor) {
+		long now = System.currentTimeMillis();
+		entries.forEach((key, entry) -> {
+			if (entry.expiresAtMillis > now && entry.lastAccessMillis >= activeSinceMillis) {
+				visitor.accept(key, entry.value);
+			}
+		});
+	}
+
+	/**
+	 * Returns a copy of a value before it is handed out or stored, for mutable
+	 * values. The default shares the value.
+	 *
+	 * @param value The value.
+	 * @return The value to use.
+	 */
+	protected V copy(V value) {
+		return value;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	public SingleFlight<K, V> getLoads() {
+		return loads;
+	}
+
+	private static final class Entry<V> {
+
+		private final V value;
+
+		private final long expiresAtMillis;
+
+		private volatile long lastAccessMillis;
+
+		Entry(V value, long expiresAtMillis, long lastAccessMillis) {
+			this.value = value;
+			this.expiresAtMillis = expiresAtMillis;
+			this.lastAccessMillis = lastAccessMillis;
+		}
+	}
+}
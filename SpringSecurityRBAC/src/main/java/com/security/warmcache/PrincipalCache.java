@@ -0,0 +1,25 @@
+package com.security.warmcache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.security.studentdto.StudentLoginDetails;
+
+/**
+ * The login details behind the principals loaded by
+ * StudentDetailsLoginSecurityDetails, by user name, so that every
+ * authenticated request does not query the user again. Entries expire after
+ * cache.principals.ttl-ms, which bounds how long another node may keep using
+ * the login details of a changed user.
+ */
+@Component
+public class PrincipalCache extends ExpiringCache<String, StudentLoginDetails> {
+
+	@Autowired
+	public PrincipalCache(@Value("${cache.principals.ttl-ms:60000}") long ttlMillis,
+			@Value("${cache.principals.max-entries:1000000}") int maxEntries,
+			@Value("${cache.load-timeout-ms:2000}") long loadTimeoutMillis) {
+		super(ttlMillis, maxEntries, loadTimeoutMillis);
+	}
+}
@@ -0,0 +1,130 @@
+package com.security.warmcache;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the
+ * loader, and the callers arriving while it runs wait for its result instead
+ * of loading the key again. Without it, every request that misses an expired
+ * cache entry at the same moment queries the database for the same row.
+ *
+ * A waiting caller gets the loader's exception as its own, and receives a
+ * shared copy of the value (see the constructor). If the load takes longer
+ * than the timeout, or the waiting thread is interrupted, the caller stops
+ * waiting and runs the loader itself.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class SingleFlight<K, V> {
+
+	private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	private final long timeoutMillis;
+
+	private final UnaryOperator<V> share;
+
+	private final LongAdder loads = new LongAdder();
+
+	private final LongAdder coalesced = new LongAdder();
+
+	private final LongAdder timeouts = new LongAdder();
+
+	/**
+	 * Creates the coalescer.
+	 *
+	 * @param timeoutMillis How long a caller waits for a load run by another.
+	 * @param share         Turns the loaded value into the one handed to each
+	 *                      waiting caller, such as a copy of a mutable entity.
+	 */
+	public SingleFlight(long timeoutMillis, UnaryOperator<V> share) {
+		this.timeoutMillis = timeoutMillis;
+		this.share = share;
+	}
+
+	/**
+	 * Loads a key, or waits for the load of it already running.
+	 *
+	 * @param key    The key.
+	 * @param loader Loads the value; its exceptions reach every waiting caller.
+	 * @return The loaded value.
+	 */
+	public V load(K key, Supplier<V> loader) {
+		CompletableFuture<V> flight = new CompletableFuture<>();
+		CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+		if (running != null) {
+			coalesced.increment();
+			return await(running, loader);
+		}
+
+		loads.increment();
+		try {
+			V value = loader.get();
+			flight.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, flight);
+		}
+	}
+
+	private V await(CompletableFuture<V> running, Supplier<V> loader) {
+		V value;
+		try {
+			value = running.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if (e.getCause() instanceof Error cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (TimeoutException e) {
+			timeouts.increment();
+			return loader.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			timeouts.increment();
+			return loader.get();
+		}
+		return value == null ? null : share.apply(value);
+	}
+
+	/**
+	 * Returns the number of loads run.
+	 *
+	 * @return The loads that ran the loader, not counting timeouts.
+	 */
+	public long getLoads() {
+		return loads.sum();
+	}
+
+	/**
+	 * Returns the number of calls that waited for another caller's load.
+	 *
+	 * @return The coalesced calls.
+	 */
+	public long getCoalesced() {
+		return coalesced.sum();
+	}
+
+	/**
+	 * Returns the number of waiting calls that gave up and loaded on their own.
+	 *
+	 * @return The timed out or interrupted waits.
+	 */
+	public long getTimeouts() {
+		return timeouts.sum();
+	}
+}
@@ -0,0 +1,36 @@
+package com.security.warmcache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.security.studentdto.StudentDetails;
+
+/**
+ * Student details by student number, for StudentDetailsDao lookups by ID.
+ * Writes through StudentDetailsDao update or invalidate their entry; writes
+ * made on other nodes are seen once the entry expires after
+ * cache.students.ttl-ms. Entities are mutable, so the cache stores and hands
+ * out copies.
+ */
+@Component
+public class StudentCache extends ExpiringCache<Integer, StudentDetails> {
+
+	@Autowired
+	public StudentCache(@Value("${cache.students.ttl-ms:60000}") long ttlMillis,
+			@Value("${cache.students.max-entries:1000000}") int maxEntries,
+			@Value("${cache.load-timeout-ms:2000}") long loadTimeoutMillis) {
+		super(ttlMillis, maxEntries, loadTimeoutMillis);
+	}
+
+	@Override
+	protected StudentDetails copy(StudentDetails value) {
+		StudentDetails copy = new StudentDetails();
+		copy.setStuNumber(value.getStuNumber());
+		copy.setFullName(value.getFullName());
+		copy.setFatherName(value.getFatherName());
+		copy.setBranchName(value.getBranchName());
+		copy.setVersion(value.getVersion());
+		return copy;
+	}
+}
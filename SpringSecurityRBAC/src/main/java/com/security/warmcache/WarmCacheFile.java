@@ -0,0 +1,193 @@
+package com.security.warmcache;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.security.studentdto.StudentDetails;
+
+/**
+ * Reads and writes the memory-mapped file of a WarmCacheSnapshot, laid out as
+ *
+ * int MAGIC | int FORMAT_VERSION | long writtenAt | int users | int students
+ * users * (userName)
+ * students * (int stuNumber | long version | fullName | fatherName | branchName)
+ *
+ * where each string is a short byte count (-1 for null) followed by that many
+ * UTF-8 bytes. Only user names are stored for the principals, never their
+ * password hashes; they are loaded again from the database on restore.
+ *
+ * A snapshot is written to a temporary file and moved over the previous one,
+ * so a crash while writing leaves the previous snapshot in place.
+ */
+final class WarmCacheFile {
+
+	static final int MAGIC = 0x57435331; // "WCS1"
+
+	static final int FORMAT_VERSION = 1;
+
+	private static final int HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES;
+
+	private WarmCacheFile() {
+	}
+
+	/**
+	 * The content of a snapshot.
+	 *
+	 * @param writtenAtMillis When the snapshot was written.
+	 * @param userNames       The recently active principals.
+	 * @param students        The hot students, with their versions.
+	 */
+	record Contents(long writtenAtMillis, List<String> userNames, List<StudentDetails> students) {
+	}
+
+	/**
+	 * Replaces the snapshot at the path. Entries with a string longer than a
+	 * short byte count are left out.
+	 *
+	 * @param file     The snapshot file.
+	 * @param contents What to write.
+	 * @return The number of bytes written.
+	 * @throws IOException if the file cannot be written.
+	 */
+	static long write(Path file, Contents contents) throws IOException {
+		List<byte[]> users = new ArrayList<>(contents.userNames().size());
+		long size = HEADER_BYTES;
+		for (String userName : contents.userNames()) {
+			byte[] bytes = encode(userName);
+			if (fits(bytes)) {
+				users.add(bytes);
+				size += size(bytes);
+			}
+		}
+		List<StudentDetails> students = new ArrayList<>(contents.students().size());
+		List<byte[]> names = new ArrayList<>(contents.students().size() * 3);
+		for (StudentDetails details : contents.students()) {
+			byte[] fullName = encode(details.getFullName());
+			byte[] fatherName = encode(details.getFatherName());
+			byte[] branchName = encode(details.getBranchName());
+			if (fits(fullName) && fits(fatherName) && fits(branchName)) {
+				students.add(details);
+				names.add(fullName);
+				names.add(fatherName);
+				names.add(branchName);
+				size += Integer.BYTES + Long.BYTES + size(fullName) + size(fatherName) + size(branchName);
+			}
+		}
+
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.putInt(MAGIC);
+			buffer.putInt(FORMAT_VERSION);
+			buffer.putLong(contents.writtenAtMillis());
+			buffer.putInt(users.size());
+			buffer.putInt(students.size());
+			for (byte[] userName : users) {
+				put(buffer, userName);
+			}
+			int name = 0;
+			for (StudentDetails details : students) {
+				buffer.putInt(details.getStuNumber());
+				buffer.putLong(details.getVersion());
+				put(buffer, names.get(name++));
+				put(buffer, names.get(name++));
+				put(buffer, names.get(name++));
+			}
+			buffer.force();
+		}
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return size;
+	}
+
+	/**
+	 * Reads a snapshot.
+	 *
+	 * @param file The snapshot file.
+	 * @return Its content.
+	 * @throws IOException           if the file cannot be read, including when it
+	 *                               does not exist.
+	 * @throws IllegalStateException if the file is not a snapshot of this format
+	 *                               or is truncated.
+	 */
+	static Contents read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+				throw new IllegalStateException("Not a warm cache snapshot: " + file);
+			}
+			int version = buffer.getInt();
+			if (version != FORMAT_VERSION) {
+				throw new IllegalStateException("Unsupported warm cache snapshot version " + version + ": " + file);
+			}
+			long writtenAt = buffer.getLong();
+			int userCount = buffer.getInt();
+			int studentCount = buffer.getInt();
+			if (userCount < 0 || studentCount < 0) {
+				throw new IllegalStateException("Corrupt warm cache snapshot: " + file);
+			}
+			byte[] scratch = new byte[Short.MAX_VALUE];
+			try {
+				List<String> userNames = new ArrayList<>(Math.min(userCount, buffer.remaining() / Short.BYTES));
+				for (int i = 0; i < userCount; i++) {
+					userNames.add(get(buffer, scratch));
+				}
+				List<StudentDetails> students = new ArrayList<>(Math.min(studentCount, buffer.remaining() / 18));
+				for (int i = 0; i < studentCount; i++) {
+					StudentDetails details = new StudentDetails();
+					details.setStuNumber(buffer.getInt());
+					details.setVersion(buffer.getLong());
+					details.setFullName(get(buffer, scratch));
+					details.setFatherName(get(buffer, scratch));
+					details.setBranchName(get(buffer, scratch));
+					students.add(details);
+				}
+				return new Contents(writtenAt, userNames, students);
+			} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+				throw new IllegalStateException("Truncated warm cache snapshot: " + file);
+			}
+		}
+	}
+
+	private static byte[] encode(String value) {
+		return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static boolean fits(byte[] bytes) {
+		return bytes == null || bytes.length <= Short.MAX_VALUE;
+	}
+
+	private static int size(byte[] bytes) {
+		return Short.BYTES + (bytes == null ? 0 : bytes.length);
+	}
+
+	private static void put(MappedByteBuffer buffer, byte[] bytes) {
+		if (bytes == null) {
+			buffer.putShort((short) -1);
+		} else {
+			buffer.putShort((short) bytes.length);
+			buffer.put(bytes);
+		}
+	}
+
+	private static String get(MappedByteBuffer buffer, byte[] scratch) {
+		short length = buffer.getShort();
+		if (length < 0) {
+			return null;
+		}
+		buffer.get(scratch, 0, length);
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+}
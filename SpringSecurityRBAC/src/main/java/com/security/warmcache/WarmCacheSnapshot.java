@@ -0,0 +1,247 @@
+package com.security.warmcache;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.security.datasource.ReadWriteRoutingContext;
+import com.security.studentdto.StudentDetails;
+import com.security.studentdto.StudentLoginDetails;
+import com.security.studentrepo.StudentDetailsRepo;
+import com.security.studentrepo.StudentloginDetailsRepo;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the hot working set of the PrincipalCache and StudentCache across
+ * restarts. Every cache.snapshot.interval-ms, and once more on shutdown, the
+ * entries used within cache.snapshot.active-window-ms are written to a
+ * memory-mapped WarmCacheFile.
+ *
+ * On startup, before StartupWarmup and so before /readiness reports ready, a
+ * snapshot younger than cache.snapshot.max-age-ms is restored:
+ * <ul>
+ * <li>students are checked against the primary in batches of
+ * cache.snapshot.batch-size, comparing only their version column; a student
+ * that changed or was deleted since the snapshot is dropped;</li>
+ * <li>principals are loaded again from the database by user name in batches,
+ * since the snapshot holds no password hashes.</li>
+ * </ul>
+ * A missing, unreadable or older snapshot only means starting cold.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE) // Before StartupWarmup, which runs last
+public class WarmCacheSnapshot implements ApplicationRunner {
+
+	@Autowired
+	private PrincipalCache principalCache;
+
+	@Autowired
+	private StudentCache studentCache;
+
+	@Autowired
+	private StudentDetailsRepo detailsRepo;
+
+	@Autowired
+	private StudentloginDetailsRepo loginRepo;
+
+	@Value("${cache.snapshot.enabled:true}")
+	private boolean enabled;
+
+	@Value("${cache.snapshot.file:data/warm-cache.snap}")
+	private String file;
+
+	@Value("${cache.snapshot.interval-ms:60000}")
+	private long intervalMillis;
+
+	@Value("${cache.snapshot.max-age-ms:3600000}")
+	private long maxAgeMillis;
+
+	@Value("${cache.snapshot.active-window-ms:900000}")
+	private long activeWindowMillis;
+
+	@Value("${cache.snapshot.batch-size:1000}")
+	private int batchSize;
+
+	private ScheduledExecutorService executor;
+
+	private volatile long snapshots;
+
+	private volatile int lastSnapshotEntries;
+
+	private volatile long lastSnapshotBytes;
+
+	private volatile long lastSnapshotMillis;
+
+	private volatile int restoredPrincipals;
+
+	private volatile int restoredStudents;
+
+	private volatile int staleStudents;
+
+	private volatile long restoreDecodeMillis;
+
+	private volatile long restoreMillis;
+
+	private volatile String lastError;
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (!enabled) {
+			return;
+		}
+		restore();
+		// Started only after the restore, so an empty cache never overwrites the snapshot it is about to read
+		executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "warm-cache-snapshot");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::snapshotQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		if (executor == null) {
+			return;
+		}
+		executor.shutdown();
+		executor.awaitTermination(5, TimeUnit.SECONDS);
+		snapshotQuietly();
+	}
+
+	/**
+	 * Writes the recently used cache entries to the snapshot file.
+	 *
+	 * @return The number of entries written.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public synchronized int snapshot() throws IOException {
+		long start = System.nanoTime();
+		long now = System.currentTimeMillis();
+		long activeSince = now - activeWindowMillis;
+		List<String> userNames = new ArrayList<>();
+		principalCache.forEachActive(activeSince, (userName, details) -> userNames.add(userName));
+		List<StudentDetails> students = new ArrayList<>();
+		studentCache.forEachActive(activeSince, (stuNumber, details) -> students.add(details));
+
+		lastSnapshotBytes = WarmCacheFile.write(path(), new WarmCacheFile.Contents(now, userNames, students));
+		lastSnapshotEntries = userNames.size() + students.size();
+		lastSnapshotMillis = (System.nanoTime() - start) / 1_000_000;
+		snapshots++;
+		return lastSnapshotEntries;
+	}
+
+	/**
+	 * Fills the caches from the snapshot file, dropping what changed since.
+	 */
+	public synchronized void restore() {
+		long start = System.nanoTime();
+		WarmCacheFile.Contents contents;
+		try {
+			contents = WarmCacheFile.read(path());
+		} catch (NoSuchFileException e) {
+			return; // First start, nothing to restore
+		} catch (IOException | IllegalStateException e) {
+			lastError = "restore: " + e.getMessage();
+			return;
+		}
+		restoreDecodeMillis = (System.nanoTime() - start) / 1_000_000;
+		if (System.currentTimeMillis() - contents.writtenAtMillis() > maxAgeMillis) {
+			lastError = "restore: snapshot older than cache.snapshot.max-age-ms, ignored";
+			return;
+		}
+
+		try {
+			// The checks must see the primary, not a lagging replica
+			ReadWriteRoutingContext.markWritten();
+			restoreStudents(contents.students());
+			restorePrincipals(contents.userNames());
+		} catch (RuntimeException e) {
+			// The database is down or failing; what was checked stays cached
+			lastError = "restore: " + e.getMessage();
+		} finally {
+			ReadWriteRoutingContext.clear();
+		}
+		restoreMillis = (System.nanoTime() - start) / 1_000_000;
+	}
+
+	private void restoreStudents(List<StudentDetails> students) {
+		int size = Math.max(1, batchSize);
+		for (int from = 0; from < students.size(); from += size) {
+			List<StudentDetails> batch = students.subList(from, Math.min(students.size(), from + size));
+			List<Integer> stuNumbers = new ArrayList<>(batch.size());
+			for (StudentDetails details : batch) {
+				stuNumbers.add(details.getStuNumber());
+			}
+			Map<Integer, Long> versions = new HashMap<>();
+			for (Object[] row : detailsRepo.findVersionsByStuNumberIn(stuNumbers)) {
+				versions.put((Integer) row[0], (Long) row[1]);
+			}
+			for (StudentDetails details : batch) {
+				Long version = versions.get(details.getStuNumber());
+				if (version != null && version == details.getVersion()) {
+					studentCache.putOwned(details.getStuNumber(), details);
+					restoredStudents++;
+				} else {
+					staleStudents++;
+				}
+			}
+		}
+	}
+
+	private void restorePrincipals(List<String> userNames) {
+		int size = Math.max(1, batchSize);
+		for (int from = 0; from < userNames.size(); from += size) {
+			List<String> batch = userNames.subList(from, Math.min(userNames.size(), from + size));
+			for (StudentLoginDetails details : loginRepo.findByUserNameIn(batch)) {
+				principalCache.putOwned(details.getUserName(), details);
+				restoredPrincipals++;
+			}
+		}
+	}
+
+	private void snapshotQuietly() {
+		try {
+			snapshot();
+		} catch (IOException | RuntimeException e) {
+			lastError = "snapshot: " + e.getMessage();
+		}
+	}
+
+	private Path path() {
+		return Paths.get(file);
+	}
+
+	/**
+	 * Returns the cache and snapshot statistics.
+	 *
+	 * @return The statistics.
+	 */
+	public WarmCacheStats stats() {
+		return new WarmCacheStats(principalCache.size(), principalCache.getHits(), principalCache.getMisses(),
+				studentCache.size(), studentCache.getHits(), studentCache.getMisses(),
+				principalCache.getLoads().getLoads(), principalCache.getLoads().getCoalesced(),
+				studentCache.getLoads().getLoads(), studentCache.getLoads().getCoalesced(),
+				principalCache.getLoads().getTimeouts() + studentCache.getLoads().getTimeouts(),
+				principalCache.getRejected() + studentCache.getRejected(), snapshots, lastSnapshotEntries,
+				lastSnapshotBytes, lastSnapshotMillis, restoredPrincipals, restoredStudents, staleStudents,
+				restoreDecodeMillis, restoreMillis, lastError);
+	}
+}
@@ -0,0 +1,40 @@
+package com.security.warmcache;
+
+/**
+ * State of the principal and student caches and of their snapshot.
+ *
+ * @param principals          Principals cached.
+ * @param principalHits       Principal lookups answered by the cache.
+ * @param principalMisses     Principal lookups that went to the database.
+ * @param students            Students cached.
+ * @param studentHits         Student lookups answered by the cache.
+ * @param studentMisses       Student lookups that went to the database.
+ * @param principalLoads      Principal misses loaded from the database.
+ * @param principalCoalesced  Principal misses that waited for the load of
+ *                            the same user by another request instead.
+ * @param studentLoads        Student misses loaded from the database.
+ * @param studentCoalesced    Student misses that waited for the load of the
+ *                            same student by another request instead.
+ * @param loadTimeouts        Waits for another request's load that timed out
+ *                            and loaded on their own.
+ * @param rejected            Entries not cached because a cache was full.
+ * @param snapshots           Snapshots written since startup.
+ * @param lastSnapshotEntries Entries in the last snapshot written.
+ * @param lastSnapshotBytes   Size of the last snapshot written.
+ * @param lastSnapshotMillis  Time taken to write it.
+ * @param restoredPrincipals  Principals loaded at startup from the snapshot.
+ * @param restoredStudents    Students restored at startup whose version still
+ *                            matched the database.
+ * @param staleStudents       Students in the snapshot dropped because they
+ *                            changed or were deleted since.
+ * @param restoreDecodeMillis Time taken to read the snapshot file.
+ * @param restoreMillis       Time taken by the whole restore, including the
+ *                            database checks.
+ * @param lastError           The last snapshot or restore failure, or null.
+ */
+public record WarmCacheStats(int principals, long principalHits, long principalMisses, int students,
+		long studentHits, long studentMisses, long principalLoads, long principalCoalesced, long studentLoads,
+		long studentCoalesced, long loadTimeouts, long rejected, long snapshots, int lastSnapshotEntries,
+		long lastSnapshotBytes, long lastSnapshotMillis, int restoredPrincipals, int restoredStudents,
+		int staleStudents, long restoreDecodeMillis, long restoreMillis, String lastError) {
+}
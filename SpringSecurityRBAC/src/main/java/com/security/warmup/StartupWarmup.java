@@ -0,0 +1,215 @@
+package com.security.warmup;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.security.jwtservice.JwtService;
+import com.security.studentdto.StudentDetails;
+import com.security.studentdto.StudentSummary;
+import com.security.studentindex.StudentNamePrefixIndex;
+import com.security.studentrepo.StudentDetailsRepo;
+import com.security.studentrepo.StudentloginDetailsRepo;
+import com.security.studentservice.StudentDetailsLoginSecurityDetails;
+
+/**
+ * Runs the hot code paths of the application before it reports ready, so that
+ * the first real requests after a deploy do not pay for class loading,
+ * interpretation and empty caches. Stages, in order:
+ * <ul>
+ * <li>jwt: signs and verifies synthetic tokens through JwtService;</li>
+ * <li>json: serializes and reads StudentDetails and StudentSummary with the
+ * application ObjectMapper;</li>
+ * <li>bcrypt: hashes and checks a password (at cost 4, which runs the same
+ * code as the login cost with far fewer rounds);</li>
+ * <li>repository: runs the student and login queries in a read-only
+ * transaction that is always rolled back; nothing is inserted, so no
+ * AUTO_INCREMENT values are used up;</li>
+ * <li>preload: builds the student name index and loads the configured hot
+ * principals and the first students, warming the database buffer pool.</li>
+ * </ul>
+ * As an ApplicationRunner it runs after the web server has started but before
+ * Spring Boot publishes ReadinessState.ACCEPTING_TRAFFIC, so /readiness keeps
+ * answering 503 until the warm-up is done. A failing stage is recorded in the
+ * report and does not hold back readiness.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+	private static final String WARMUP_USER = "warmup-user";
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private ObjectMapper objectMapper; // The one Spring MVC serializes responses with
+
+	@Autowired
+	private StudentDetailsRepo detailsRepo;
+
+	@Autowired
+	private StudentloginDetailsRepo loginRepo;
+
+	@Autowired
+	private StudentDetailsLoginSecurityDetails userDetailsService;
+
+	@Autowired
+	private StudentNamePrefixIndex nameIndex;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${warmup.enabled:true}")
+	private boolean enabled;
+
+	// Rounds of the jwt and json stages; a few thousand get the hot methods compiled
+	@Value("${warmup.iterations:2000}")
+	private int iterations;
+
+	@Value("${warmup.bcrypt-iterations:20}")
+	private int bcryptIterations;
+
+	@Value("${warmup.repository-iterations:50}")
+	private int repositoryIterations;
+
+	@Value("${warmup.preload-users:}")
+	private List<String> preloadUsers;
+
+	@Value("${warmup.preload-students:0}")
+	private int preloadStudents;
+
+	private volatile String state = "PENDING";
+
+	private volatile long totalMillis;
+
+	private final Map<String, Long> stageMillis = new LinkedHashMap<>();
+
+	private final Map<String, String> failures = new LinkedHashMap<>();
+
+	// One warm-up stage; any exception it throws is recorded as its failure
+	private interface Stage {
+		void run() throws Exception;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (!enabled) {
+			state = "DISABLED";
+			return;
+		}
+		state = "RUNNING";
+		long start = System.nanoTime();
+		stage("jwt", this::warmJwt);
+		stage("json", this::warmJson);
+		stage("bcrypt", this::warmBcrypt);
+		stage("repository", this::warmRepository);
+		stage("preload", this::preload);
+		totalMillis = (System.nanoTime() - start) / 1_000_000;
+		state = "DONE";
+	}
+
+	/**
+	 * Returns the progress of the warm-up.
+	 *
+	 * @return The warm-up report.
+	 */
+	public synchronized WarmupReport report() {
+		return new WarmupReport(state, totalMillis, new LinkedHashMap<>(stageMillis), new LinkedHashMap<>(failures));
+	}
+
+	private void stage(String name, Stage stage) {
+		long start = System.nanoTime();
+		try {
+			stage.run();
+		} catch (Exception e) {
+			synchronized (this) {
+				failures.put(name, e.getClass().getSimpleName() + ": " + e.getMessage());
+			}
+		}
+		synchronized (this) {
+			stageMillis.put(name, (System.nanoTime() - start) / 1_000_000);
+		}
+	}
+
+	private void warmJwt() {
+		for (int i = 0; i < iterations; i++) {
+			String token = jwtService.generateToken(WARMUP_USER, "ROLE_USER");
+			jwtService.verifyClaims(token);
+			jwtService.extractUserName(token);
+			jwtService.extractRole(token);
+			jwtService.verifiedRole(token);
+		}
+	}
+
+	private void warmJson() throws Exception {
+		StudentDetails details = sampleStudent();
+		StudentSummary summary = new StudentSummary(1, details.getFullName(), null, details.getBranchName());
+		for (int i = 0; i < iterations; i++) {
+			byte[] json = objectMapper.writeValueAsBytes(details);
+			objectMapper.readValue(json, StudentDetails.class);
+			objectMapper.writeValueAsBytes(List.of(details, details));
+			objectMapper.writeValueAsBytes(summary);
+		}
+	}
+
+	private void warmBcrypt() {
+		BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+		String hash = encoder.encode("warmup-password");
+		for (int i = 0; i < bcryptIterations; i++) {
+			encoder.matches("warmup-password", hash);
+		}
+	}
+
+	private void warmRepository() {
+		// Reads only: a rolled-back insert would still use up an AUTO_INCREMENT value each time
+		TransactionTemplate scratch = new TransactionTemplate(transactionManager);
+		scratch.setReadOnly(true);
+		for (int i = 0; i < repositoryIterations; i++) {
+			scratch.executeWithoutResult(status -> {
+				status.setRollbackOnly(); // Nothing is ever committed here
+				int stuNumber = detailsRepo.findAll(PageRequest.of(0, 1)).stream().findFirst()
+						.map(StudentDetails::getStuNumber).orElse(1);
+				detailsRepo.findById(stuNumber);
+				detailsRepo.findVersionByStuNumber(stuNumber);
+				detailsRepo.findAllById(List.of(stuNumber));
+				detailsRepo.findVersionsByStuNumberIn(List.of(stuNumber));
+				detailsRepo.searchStudents("CSE", "warm", List.of("stuNumber", "fullName"), "fullName", true, 0, 10);
+				loginRepo.findByUserName(WARMUP_USER);
+			});
+		}
+	}
+
+	private void preload() {
+		nameIndex.rebuildNow();
+		for (String userName : preloadUsers) {
+			try {
+				userDetailsService.loadUserByUsername(userName.trim());
+			} catch (UsernameNotFoundException e) {
+				// A stale entry in warmup.preload-users, nothing to warm
+			}
+		}
+		if (preloadStudents > 0) {
+			detailsRepo.findAll(PageRequest.of(0, preloadStudents));
+		}
+	}
+
+	private static StudentDetails sampleStudent() {
+		StudentDetails details = new StudentDetails();
+		details.setFullName("Warmup Student");
+		details.setFatherName("Warmup Parent");
+		details.setBranchName("WARMUP");
+		return details;
+	}
+}
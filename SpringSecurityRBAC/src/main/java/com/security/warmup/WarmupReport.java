@@ -0,0 +1,16 @@
+package com.security.warmup;
+
+import java.util.Map;
+
+/**
+ * Outcome of the startup warm-up.
+ *
+ * @param state       PENDING, RUNNING, DONE or DISABLED.
+ * @param totalMillis Time spent warming up so far.
+ * @param stageMillis Time spent in each finished stage, in stage order.
+ * @param failures    The error of each stage that failed; a failed stage
+ *                    does not hold back readiness.
+ */
+public record WarmupReport(String state, long totalMillis, Map<String, Long> stageMillis,
+		Map<String, String> failures) {
+}
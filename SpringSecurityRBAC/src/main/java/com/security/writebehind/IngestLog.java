@@ -0,0 +1,412 @@
+package com.security.writebehind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import com.security.studentdto.StudentDetails;
+
+/**
+ * Append-only log of the student records accepted by the write-behind
+ * ingestion, in segment files named ingest-NNNNNNNN.log. Each segment starts
+ * with the MAGIC number and holds records of the form
+ *
+ * int length | int crc32 | byte type | long uuid msb | long uuid lsb | body
+ *
+ * where length and crc32 cover the bytes after them. An ACCEPTED record's body
+ * is the full name, father's name and branch name, each a short byte count (-1
+ * for null) followed by that many UTF-8 bytes; a DONE record's body is the int
+ * student number, or -1 if the record was rejected.
+ *
+ * Appends go through the file channel and are made durable by sync, which
+ * forces once for every append made before it (group commit). A segment is
+ * deleted once every record accepted into it and into the segments before it
+ * is DONE, so that no DONE record is lost while its accepted record is still
+ * on disk. On open, the records accepted but not DONE are copied into a fresh
+ * segment and returned, and the old segments deleted; reading a segment stops
+ * at the first torn or corrupt record.
+ *
+ * Thread-safe.
+ */
+public class IngestLog implements Closeable {
+
+	static final int MAGIC = 0x49474C31; // "IGL1"
+
+	static final int MAX_STRING_BYTES = Short.MAX_VALUE;
+
+	private static final byte ACCEPTED = 1;
+
+	private static final byte DONE = 2;
+
+	private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+	private static final int ID_BYTES = Byte.BYTES + 2 * Long.BYTES;
+
+	private static final long MIN_SEGMENT_BYTES = 64 * 1024;
+
+	private static final Pattern SEGMENT_NAME = Pattern.compile("ingest-(\\d{8})\\.log");
+
+	private final Path directory;
+
+	private final long segmentBytes;
+
+	// Records accepted into each segment that are not DONE yet
+	private final Map<Integer, Integer> outstanding = new HashMap<>();
+
+	private final AtomicLong forced = new AtomicLong();
+
+	private final Object syncLock = new Object();
+
+	private final List<Accepted> recovered;
+
+	private FileChannel channel;
+
+	private int segment;
+
+	// The oldest segment not deleted yet
+	private int oldest;
+
+	private long segmentPosition;
+
+	// Bytes appended since the log was opened, over all segments
+	private long written;
+
+	/**
+	 * A student record accepted into the log.
+	 *
+	 * @param trackingId The ID the client tracks the record with.
+	 * @param fullName   The full name.
+	 * @param fatherName The father's name.
+	 * @param branchName The branch name.
+	 * @param segment    The segment holding the record.
+	 * @param position   The log position to sync to for the record to be
+	 *                   durable.
+	 * @param recovered  Whether the record was recovered from an earlier run,
+	 *                   or is retried after an unclear failure, and may
+	 *                   already have been written.
+	 */
+	record Accepted(UUID trackingId, String fullName, String fatherName, String branchName, int segment,
+			long position, boolean recovered) {
+
+		StudentDetails toStudentDetails() {
+			StudentDetails details = new StudentDetails();
+			details.setFullName(fullName);
+			details.setFatherName(fatherName);
+			details.setBranchName(branchName);
+			return details;
+		}
+
+		// The same record, to be looked up by receipt before it is written again
+		Accepted retried() {
+			return new Accepted(trackingId, fullName, fatherName, branchName, segment, position, true);
+		}
+	}
+
+	/**
+	 * Opens the log in the directory, recovering the records of earlier runs
+	 * that are not DONE.
+	 *
+	 * @param directory    Where the segments are written.
+	 * @param segmentBytes The size at which a new segment is started, at least
+	 *                     64 KiB.
+	 * @throws IOException if the directory or a segment cannot be read or
+	 *                     created.
+	 */
+	public IngestLog(Path directory, long segmentBytes) throws IOException {
+		this.directory = directory;
+		this.segmentBytes = Math.max(MIN_SEGMENT_BYTES, segmentBytes);
+		Files.createDirectories(directory);
+		this.recovered = recover();
+	}
+
+	/**
+	 * Returns the records recovered when the log was opened, in the order they
+	 * were accepted.
+	 *
+	 * @return The records accepted by an earlier run but not DONE.
+	 */
+	public List<Accepted> getRecovered() {
+		return recovered;
+	}
+
+	/**
+	 * Appends an accepted record. It is durable once sync has been called with
+	 * its position.
+	 *
+	 * @param trackingId The ID the client tracks the record with.
+	 * @param details    The student details; each string at most
+	 *                   MAX_STRING_BYTES long in UTF-8.
+	 * @return The record.
+	 * @throws IOException if the record cannot be written.
+	 */
+	public Accepted appendAccepted(UUID trackingId, StudentDetails details) throws IOException {
+		byte[] fullName = encode(details.getFullName());
+		byte[] fatherName = encode(details.getFatherName());
+		byte[] branchName = encode(details.getBranchName());
+		ByteBuffer record = record(ACCEPTED, trackingId,
+				3 * Short.BYTES + size(fullName) + size(fatherName) + size(branchName));
+		put(record, fullName);
+		put(record, fatherName);
+		put(record, branchName);
+		synchronized (this) {
+			long position = append(record);
+			outstanding.merge(segment, 1, Integer::sum);
+			return new Accepted(trackingId, details.getFullName(), details.getFatherName(), details.getBranchName(),
+					segment, position, false);
+		}
+	}
+
+	/**
+	 * Appends the DONE record of an accepted one, deleting the segments in which
+	 * nothing is outstanding any more.
+	 *
+	 * @param accepted  The accepted record.
+	 * @param stuNumber The student number it was written as, or -1 if it was
+	 *                  rejected.
+	 * @return The log position to sync to for the DONE record to be durable.
+	 * @throws IOException if the record cannot be written.
+	 */
+	public long appendDone(Accepted accepted, int stuNumber) throws IOException {
+		ByteBuffer record = record(DONE, accepted.trackingId(), Integer.BYTES);
+		record.putInt(stuNumber);
+		synchronized (this) {
+			long position = append(record);
+			if (outstanding.merge(accepted.segment(), -1, Integer::sum) <= 0) {
+				outstanding.remove(accepted.segment());
+				deleteFinished();
+			}
+			return position;
+		}
+	}
+
+	/**
+	 * Makes every record up to a position durable. Concurrent callers share one
+	 * force of the file.
+	 *
+	 * @param position The position returned by an append.
+	 * @throws IOException if the file cannot be forced.
+	 */
+	public void sync(long position) throws IOException {
+		if (forced.get() >= position) {
+			return;
+		}
+		synchronized (syncLock) {
+			if (forced.get() >= position) {
+				return; // Forced by the caller that held the lock before
+			}
+			FileChannel current;
+			long target;
+			synchronized (this) {
+				current = channel;
+				target = written;
+			}
+			try {
+				current.force(false);
+			} catch (ClosedChannelException e) {
+				// Rotated meanwhile; rotation forces the segment it closes
+				if (forced.get() < position) {
+					throw e;
+				}
+				return;
+			}
+			forced.accumulateAndGet(target, Math::max);
+		}
+	}
+
+	/**
+	 * Returns the number of the segment being written.
+	 *
+	 * @return The current segment.
+	 */
+	public synchronized int getSegment() {
+		return segment;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		channel.force(false);
+		forced.accumulateAndGet(written, Math::max);
+		channel.close();
+	}
+
+	private long append(ByteBuffer record) throws IOException {
+		if (segmentPosition + record.capacity() > segmentBytes && segmentPosition > Integer.BYTES) {
+			rotate();
+		}
+		seal(record).flip();
+		while (record.hasRemaining()) {
+			segmentPosition += channel.write(record);
+		}
+		written += record.limit();
+		return written;
+	}
+
+	private void rotate() throws IOException {
+		channel.force(false);
+		forced.accumulateAndGet(written, Math::max);
+		channel.close();
+		open(segment + 1);
+		deleteFinished();
+	}
+
+	// Deletes the finished segments before the current one, oldest first
+	private void deleteFinished() throws IOException {
+		while (oldest < segment && !outstanding.containsKey(oldest)) {
+			Files.deleteIfExists(segmentPath(oldest));
+			oldest++;
+		}
+	}
+
+	private void open(int number) throws IOException {
+		segment = number;
+		channel = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES).putInt(MAGIC).flip();
+		while (magic.hasRemaining()) {
+			channel.write(magic);
+		}
+		segmentPosition = Integer.BYTES;
+	}
+
+	private List<Accepted> recover() throws IOException {
+		List<Integer> existing = new ArrayList<>();
+		try (Stream<Path> files = Files.list(directory)) {
+			files.forEach(file -> {
+				Matcher name = SEGMENT_NAME.matcher(file.getFileName().toString());
+				if (name.matches()) {
+					existing.add(Integer.parseInt(name.group(1)));
+				}
+			});
+		}
+		existing.sort(null);
+
+		Map<UUID, String[]> pending = new LinkedHashMap<>();
+		for (int number : existing) {
+			read(segmentPath(number), pending);
+		}
+
+		open(existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1);
+		oldest = segment;
+		List<Accepted> records = new ArrayList<>(pending.size());
+		for (Map.Entry<UUID, String[]> record : pending.entrySet()) {
+			StudentDetails details = new StudentDetails();
+			details.setFullName(record.getValue()[0]);
+			details.setFatherName(record.getValue()[1]);
+			details.setBranchName(record.getValue()[2]);
+			Accepted accepted = appendAccepted(record.getKey(), details);
+			records.add(new Accepted(accepted.trackingId(), accepted.fullName(), accepted.fatherName(),
+					accepted.branchName(), accepted.segment(), accepted.position(), true));
+		}
+		// The copies are durable before the originals go
+		channel.force(false);
+		forced.set(written);
+		for (int number : existing) {
+			Files.deleteIfExists(segmentPath(number));
+		}
+		return List.copyOf(records);
+	}
+
+	// Adds the accepted records of a segment to pending and removes the DONE ones
+	private static void read(Path path, Map<UUID, String[]> pending) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+		if (buffer.remaining() < Integer.BYTES || buffer.getInt() != MAGIC) {
+			return;
+		}
+		CRC32 crc = new CRC32();
+		while (buffer.remaining() >= HEADER_BYTES) {
+			int length = buffer.getInt();
+			int checksum = buffer.getInt();
+			if (length < ID_BYTES || length > buffer.remaining()) {
+				return; // Torn tail of a segment being written
+			}
+			crc.reset();
+			crc.update(buffer.array(), buffer.position(), length);
+			if ((int) crc.getValue() != checksum) {
+				return;
+			}
+			ByteBuffer record = buffer.slice(buffer.position(), length);
+			buffer.position(buffer.position() + length);
+			byte type = record.get();
+			UUID trackingId = new UUID(record.getLong(), record.getLong());
+			if (type == ACCEPTED) {
+				pending.put(trackingId, new String[] { get(record), get(record), get(record) });
+			} else if (type == DONE) {
+				pending.remove(trackingId);
+			}
+		}
+	}
+
+	private Path segmentPath(int number) {
+		return directory.resolve(String.format("ingest-%08d.log", number));
+	}
+
+	// Allocates a record with its id written, to be completed with its body
+	private static ByteBuffer record(byte type, UUID trackingId, int bodyBytes) {
+		ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + ID_BYTES + bodyBytes);
+		record.position(HEADER_BYTES);
+		record.put(type);
+		record.putLong(trackingId.getMostSignificantBits());
+		record.putLong(trackingId.getLeastSignificantBits());
+		return record;
+	}
+
+	// Fills in the length and checksum of a completed record
+	private static ByteBuffer seal(ByteBuffer record) {
+		CRC32 crc = new CRC32();
+		crc.update(record.array(), HEADER_BYTES, record.position() - HEADER_BYTES);
+		record.putInt(0, record.position() - HEADER_BYTES);
+		record.putInt(Integer.BYTES, (int) crc.getValue());
+		return record;
+	}
+
+	static byte[] encode(String value) {
+		if (value == null) {
+			return null;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > MAX_STRING_BYTES) {
+			throw new IllegalArgumentException("String of " + bytes.length + " bytes exceeds " + MAX_STRING_BYTES);
+		}
+		return bytes;
+	}
+
+	private static int size(byte[] bytes) {
+		return bytes == null ? 0 : bytes.length;
+	}
+
+	private static void put(ByteBuffer buffer, byte[] bytes) {
+		if (bytes == null) {
+			buffer.putShort((short) -1);
+		} else {
+			buffer.putShort((short) bytes.length);
+			buffer.put(bytes);
+		}
+	}
+
+	private static String get(ByteBuffer buffer) {
+		short length = buffer.getShort();
+		if (length < 0) {
+			return null;
+		}
+		String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+				StandardCharsets.UTF_8);
+		buffer.position(buffer.position() + length);
+		return value;
+	}
+}
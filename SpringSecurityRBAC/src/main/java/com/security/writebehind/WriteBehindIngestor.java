@@ -0,0 +1,425 @@
+package com.security.writebehind;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.security.datasource.ReadWriteRoutingContext;
+import com.security.exception.IngestTrackingIdNotFoundException;
+import com.security.exception.InvalidStudentDetailsException;
+import com.security.exception.ResourceLimitExceededException;
+import com.security.exception.StudentDetailsCreationException;
+import com.security.studentdao.StudentDetailsDao;
+import com.security.studentdto.StudentDetails;
+import com.security.studentdto.StudentIngestReceipt;
+import com.security.studentdto.StudentIngestStatus;
+import com.security.studentrepo.StudentIngestReceiptRepo;
+import com.security.warmcache.ExpiringCache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind ingestion for POST /user/saveStudent, used when
+ * ingest.write-behind.enabled is set and the client sends
+ * "Prefer: respond-async". A record is appended to the IngestLog and synced
+ * (shared with the concurrent requests) before the request is answered with a
+ * tracking ID, so an accepted record survives a crash. A single writer thread
+ * then saves the queued records in batches of up to batch-size, each in one
+ * transaction, instead of one transaction per request.
+ *
+ * Each batch also saves a StudentIngestReceipt per record, in the same
+ * transaction; a record recovered from the log, or retried after an unclear
+ * failure, is first looked up by receipt, so that it is never saved twice.
+ * A batch failing for a transient reason, such as a lost connection, is retried
+ * with backoff, receipt lookup included; a database rejection is narrowed down
+ * to the records the database rejects, which are reported FAILED. Any other
+ * failure puts the unfinished records back on the queue, so none stays
+ * PENDING while holding its place.
+ *
+ * At most queue-capacity records wait at a time; a request finding the queue
+ * full for offer-timeout-ms is turned away with a 503, so that callers slow
+ * down instead of the log growing without bound.
+ */
+@Component
+public class WriteBehindIngestor {
+
+	public static final String PENDING = "PENDING";
+
+	public static final String WRITTEN = "WRITTEN";
+
+	public static final String FAILED = "FAILED";
+
+	private static final long MAX_BACKOFF_MILLIS = 5000;
+
+	@Autowired
+	private StudentDetailsDao dao;
+
+	@Autowired
+	private StudentIngestReceiptRepo receiptRepo;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Value("${ingest.write-behind.enabled:false}")
+	private boolean enabled;
+
+	@Value("${ingest.write-behind.directory:data/ingest}")
+	private String directory;
+
+	@Value("${ingest.write-behind.queue-capacity:10000}")
+	private int queueCapacity;
+
+	// How long a request waits for room in a full queue before it gets a 503
+	@Value("${ingest.write-behind.offer-timeout-ms:100}")
+	private long offerTimeoutMillis;
+
+	@Value("${ingest.write-behind.batch-size:500}")
+	private int batchSize;
+
+	// How long the writer waits for a batch to fill once it has a record
+	@Value("${ingest.write-behind.linger-ms:20}")
+	private long lingerMillis;
+
+	@Value("${ingest.write-behind.segment-bytes:67108864}")
+	private long segmentBytes;
+
+	// How long the outcome of a record can be asked for once it is written
+	@Value("${ingest.write-behind.status-retention-ms:3600000}")
+	private long statusRetentionMillis;
+
+	@Value("${ingest.write-behind.status-max-entries:1000000}")
+	private int statusMaxEntries;
+
+	// How long shutdown waits for the queue to drain; the rest is replayed on the next start
+	@Value("${ingest.write-behind.shutdown-timeout-ms:5000}")
+	private long shutdownTimeoutMillis;
+
+	private IngestLog log;
+
+	private Semaphore permits;
+
+	private final BlockingQueue<IngestLog.Accepted> queue = new LinkedBlockingQueue<>();
+
+	private final Map<String, IngestLog.Accepted> pending = new ConcurrentHashMap<>();
+
+	private ExpiringCache<String, StudentIngestStatus> finished;
+
+	private TransactionTemplate transactionTemplate;
+
+	private Thread writer;
+
+	private volatile boolean running;
+
+	private final LongAdder accepted = new LongAdder();
+
+	private final LongAdder written = new LongAdder();
+
+	private final LongAdder failed = new LongAdder();
+
+	private final LongAdder rejected = new LongAdder();
+
+	private final LongAdder batches = new LongAdder();
+
+	private final LongAdder retries = new LongAdder();
+
+	private volatile long recovered;
+
+	private volatile String lastError;
+
+	@PostConstruct
+	public void start() throws IOException {
+		if (!enabled) {
+			return;
+		}
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		finished = new ExpiringCache<>(statusRetentionMillis, statusMaxEntries, 0);
+		log = new IngestLog(Paths.get(directory), segmentBytes);
+		List<IngestLog.Accepted> replay = log.getRecovered();
+		recovered = replay.size();
+		// Replayed records count against the capacity, which may start out overdrawn
+		permits = new Semaphore(queueCapacity - replay.size());
+		for (IngestLog.Accepted record : replay) {
+			pending.put(record.trackingId().toString(), record);
+			queue.add(record);
+		}
+		running = true;
+		writer = new Thread(this::drain, "write-behind-ingest");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@PreDestroy
+	public void stop() throws IOException, InterruptedException {
+		if (writer == null) {
+			return;
+		}
+		running = false;
+		writer.join(shutdownTimeoutMillis);
+		if (writer.isAlive()) {
+			writer.interrupt(); // Stuck retrying; what is left is replayed on the next start
+			writer.join(shutdownTimeoutMillis);
+		}
+		log.close();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Accepts a student record to be written in the background. Returns once
+	 * the record is durable in the log.
+	 *
+	 * @param details The student details.
+	 * @return The PENDING status of the record, with its tracking ID.
+	 * @throws InvalidStudentDetailsException  if the details are null or a
+	 *                                         field is too long.
+	 * @throws ResourceLimitExceededException  if the queue stayed full for
+	 *                                         offer-timeout-ms.
+	 * @throws StudentDetailsCreationException if the log cannot be written.
+	 */
+	public StudentIngestStatus accept(StudentDetails details) {
+		if (details == null) {
+			throw new InvalidStudentDetailsException("Student Details Should Not be Null");
+		}
+		try {
+			if (!permits.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				rejected.increment();
+				throw new ResourceLimitExceededException("Too many student records waiting to be written, retry later");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ResourceLimitExceededException("Interrupted while waiting to queue the student record");
+		}
+		IngestLog.Accepted record;
+		try {
+			record = log.appendAccepted(UUID.randomUUID(), details);
+			log.sync(record.position());
+		} catch (IllegalArgumentException e) {
+			permits.release();
+			throw new InvalidStudentDetailsException("Student Details field is too long: " + e.getMessage());
+		} catch (IOException e) {
+			permits.release();
+			lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+			throw new StudentDetailsCreationException("Failed to queue Student Details due to a log write error");
+		}
+		String trackingId = record.trackingId().toString();
+		pending.put(trackingId, record);
+		queue.add(record);
+		accepted.increment();
+		return new StudentIngestStatus(trackingId, PENDING, null, null);
+	}
+
+	/**
+	 * Returns the status of an accepted record.
+	 *
+	 * @param trackingId The tracking ID returned when it was accepted.
+	 * @return The status.
+	 * @throws IngestTrackingIdNotFoundException if the ID is unknown, or its
+	 *                                           outcome is no longer retained.
+	 */
+	public StudentIngestStatus status(String trackingId) {
+		if (enabled) {
+			if (pending.containsKey(trackingId)) {
+				return new StudentIngestStatus(trackingId, PENDING, null, null);
+			}
+			StudentIngestStatus status = finished.get(trackingId);
+			if (status != null) {
+				return status;
+			}
+		}
+		throw new IngestTrackingIdNotFoundException("No Student ingestion with tracking Id: " + trackingId);
+	}
+
+	/**
+	 * Returns the ingestion totals since startup.
+	 *
+	 * @return The statistics.
+	 */
+	public WriteBehindStats stats() {
+		return new WriteBehindStats(enabled, pending.size(), accepted.sum(), written.sum(), failed.sum(),
+				rejected.sum(), recovered, batches.sum(), retries.sum(), lastError);
+	}
+
+	// The writer thread: takes batches off the queue until stopped and drained
+	private void drain() {
+		List<IngestLog.Accepted> batch = new ArrayList<>(batchSize);
+		int failures = 0;
+		while (running || !queue.isEmpty()) {
+			try {
+				if (failures > 0) {
+					Thread.sleep(backoff(failures - 1));
+				}
+				IngestLog.Accepted first = queue.poll(250, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+				while (batch.size() < batchSize) {
+					queue.drainTo(batch, batchSize - batch.size());
+					long remaining = deadline - System.nanoTime();
+					if (batch.size() >= batchSize || remaining <= 0) {
+						break;
+					}
+					IngestLog.Accepted next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+					if (next != null) {
+						batch.add(next);
+					}
+				}
+				flush(batch);
+				failures = 0;
+			} catch (InterruptedException e) {
+				return;
+			} catch (IOException | RuntimeException e) {
+				lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+				failures++;
+				// Unfinished records go back on the queue, to be looked up by receipt before they are written again
+				for (IngestLog.Accepted record : batch) {
+					if (pending.containsKey(record.trackingId().toString())) {
+						queue.add(record.retried());
+					}
+				}
+			} finally {
+				batch.clear();
+				ReadWriteRoutingContext.clear();
+			}
+		}
+	}
+
+	// Writes a batch, retrying transient failures and isolating rejected records
+	void flush(List<IngestLog.Accepted> batch) throws InterruptedException, IOException {
+		boolean mayBeWritten = batch.stream().anyMatch(IngestLog.Accepted::recovered);
+		List<IngestLog.Accepted> todo = batch;
+		for (int attempt = 0;; attempt++) {
+			try {
+				if (mayBeWritten) {
+					todo = withoutReceipts(todo);
+				}
+				if (todo.isEmpty()) {
+					return;
+				}
+				write(todo);
+				return;
+			} catch (TransientDataAccessException | RecoverableDataAccessException
+					| DataAccessResourceFailureException | CannotCreateTransactionException e) {
+				// The commit may or may not have happened
+				lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+				if (!running) {
+					return; // Left in the log for the next start
+				}
+				retries.increment();
+				mayBeWritten = true;
+				Thread.sleep(backoff(attempt));
+			} catch (RuntimeException e) {
+				lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+				if (todo.size() == 1) {
+					log.sync(finish(todo.get(0), -1, e.getMessage()));
+					return;
+				}
+				for (IngestLog.Accepted record : todo) {
+					flush(List.of(record));
+				}
+				return;
+			}
+		}
+	}
+
+	private static long backoff(int attempt) {
+		return Math.min(MAX_BACKOFF_MILLIS, 50L << Math.min(attempt, 10));
+	}
+
+	// Finishes the records whose receipt shows they were written, and returns the others
+	private List<IngestLog.Accepted> withoutReceipts(List<IngestLog.Accepted> batch) throws IOException {
+		List<String> ids = batch.stream().map(record -> record.trackingId().toString()).toList();
+		Map<String, Integer> receipts = new HashMap<>();
+		ReadWriteRoutingContext.markWritten(); // The receipt may have just been committed on the primary
+		for (StudentIngestReceipt receipt : receiptRepo.findAllById(ids)) {
+			receipts.put(receipt.getTrackingId(), receipt.getStuNumber());
+		}
+		if (receipts.isEmpty()) {
+			return batch;
+		}
+		List<IngestLog.Accepted> todo = new ArrayList<>(batch.size());
+		long position = 0;
+		for (IngestLog.Accepted record : batch) {
+			Integer stuNumber = receipts.get(record.trackingId().toString());
+			if (stuNumber == null) {
+				todo.add(record);
+			} else {
+				position = finish(record, stuNumber, null);
+			}
+		}
+		log.sync(position);
+		try {
+			receiptRepo.deleteAllByIdInBatch(receipts.keySet());
+		} catch (RuntimeException e) {
+			lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+		}
+		return todo;
+	}
+
+	private void write(List<IngestLog.Accepted> batch) throws IOException {
+		List<StudentDetails> saved = transactionTemplate.execute(status -> {
+			List<StudentDetails> students = dao
+					.saveStudentDetailsBatchDao(batch.stream().map(IngestLog.Accepted::toStudentDetails).toList());
+			List<StudentIngestReceipt> receipts = new ArrayList<>(batch.size());
+			for (int i = 0; i < batch.size(); i++) {
+				receipts.add(new StudentIngestReceipt(batch.get(i).trackingId().toString(),
+						students.get(i).getStuNumber()));
+			}
+			receiptRepo.saveAll(receipts);
+			return students;
+		});
+		batches.increment();
+
+		long position = 0;
+		for (int i = 0; i < batch.size(); i++) {
+			position = finish(batch.get(i), saved.get(i).getStuNumber(), null);
+		}
+		log.sync(position);
+		try {
+			// Once the DONE records are durable the receipts are no longer needed
+			receiptRepo.deleteAllByIdInBatch(batch.stream().map(record -> record.trackingId().toString()).toList());
+		} catch (RuntimeException e) {
+			lastError = e.getClass().getSimpleName() + ": " + e.getMessage();
+		}
+	}
+
+	// Records the outcome of a record and frees its place in the queue
+	private long finish(IngestLog.Accepted record, int stuNumber, String error) throws IOException {
+		long position = log.appendDone(record, stuNumber);
+		String trackingId = record.trackingId().toString();
+		if (error == null) {
+			finished.put(trackingId, new StudentIngestStatus(trackingId, WRITTEN, stuNumber, null));
+			written.increment();
+		} else {
+			finished.put(trackingId, new StudentIngestStatus(trackingId, FAILED, null, error));
+			failed.increment();
+		}
+		pending.remove(trackingId);
+		permits.release();
+		return position;
+	}
+}
@@ -0,0 +1,19 @@
+package com.security.writebehind;
+
+/**
+ * Write-behind ingestion totals since startup.
+ *
+ * @param enabled   Whether /user/saveStudent accepts records asynchronously.
+ * @param pending   Records accepted and not written yet.
+ * @param accepted  Records accepted.
+ * @param written   Records written to the database.
+ * @param failed    Records the database rejected.
+ * @param rejected  Requests turned away because the queue was full.
+ * @param recovered Records replayed from the log of an earlier run.
+ * @param batches   Transactions committed.
+ * @param retries   Batches retried after a transient database failure.
+ * @param lastError The last database failure, or null.
+ */
+public record WriteBehindStats(boolean enabled, int pending, long accepted, long written, long failed, long rejected,
+		long recovered, long batches, long retries, String lastError) {
+}
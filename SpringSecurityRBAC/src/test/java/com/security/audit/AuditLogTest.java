@@ -0,0 +1,82 @@
+package com.security.audit;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AuditLogTest {
+
+    @TempDir
+    Path directory;
+
+    // Test that a full ring buffer drops and counts events instead of blocking
+    @Test
+    void fullBufferCountsOverflow() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        for (int i = 0; i < 6; i++) {
+            buffer.offer(i, AuditEventType.LOGIN_SUCCESS, 200, "user" + i, null, null);
+        }
+        Assertions.assertEquals(2, buffer.overflowCount());
+
+        List<String> subjects = new ArrayList<>();
+        Assertions.assertEquals(4, buffer.drain(event -> subjects.add(event.subject), 10));
+        Assertions.assertEquals(List.of("user0", "user1", "user2", "user3"), subjects);
+
+        // Drained slots can be claimed again
+        Assertions.assertTrue(buffer.offer(7, AuditEventType.LOGOUT, 200, "user7", null, null));
+    }
+
+    // Test that stop wakes a parked writer at once, and that the writer writes what is left
+    @Test
+    void idleWriterIsWokenAndStopped() throws Exception {
+        AuditLog auditLog = new AuditLog(true, directory.toString(), 16, 64 * 1024, 60_000);
+        auditLog.start();
+        for (int i = 0; i < 3; i++) {
+            auditLog.publish(AuditEventType.LOGIN_FAILURE, "user" + i, "/loginStudent", 401);
+        }
+        Assertions.assertTimeout(Duration.ofSeconds(2), auditLog::stop, "stop would wait 5 s for a writer left parked");
+
+        Assertions.assertEquals(3, auditLog.stats().written());
+        List<String> json = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path segment : files.sorted().toList()) {
+                AuditLogReader.read(segment, json::add);
+            }
+        }
+        Assertions.assertEquals(3, json.size());
+    }
+
+    // Test that events written across segment rotations read back as JSON in order
+    @Test
+    void writtenEventsReadBackAsJson() throws IOException {
+        AuditEvent event = new AuditEvent();
+        String detail = "x".repeat(1000);
+        try (MappedAuditLog log = new MappedAuditLog(directory, 64 * 1024)) {
+            for (int i = 0; i < 100; i++) {
+                event.set(1_700_000_000_000L + i, AuditEventType.ACCESS_DENIED, 403, "user\"" + i, "10.0.0.1",
+                        detail);
+                log.append(event);
+            }
+            Assertions.assertEquals(2, log.getSegments(), "100 records of about 1KB need a second 64KB segment");
+        }
+
+        List<String> json = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path segment : files.sorted().toList()) {
+                AuditLogReader.read(segment, json::add);
+            }
+        }
+        Assertions.assertEquals(100, json.size());
+        Assertions.assertTrue(json.get(99).startsWith(
+                "{\"time\":\"2023-11-14T22:13:20.099Z\",\"type\":\"ACCESS_DENIED\",\"status\":403,\"subject\":\"user\\\"99\""),
+                json.get(99));
+    }
+}
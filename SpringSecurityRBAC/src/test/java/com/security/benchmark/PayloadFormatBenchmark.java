@@ -0,0 +1,92 @@
+package com.security.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.security.studentdto.StudentDetailsResponse;
+
+/**
+ * Compares the JSON, CBOR and Smile representations of the student responses
+ * negotiated by BinaryFormatConfig: payload size (raw and gzipped) and the
+ * time to write and read a single student and a list of students.
+ *
+ * Not a unit test: run it after "mvn test-compile", e.g.
+ * java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)
+ * com.security.benchmark.PayloadFormatBenchmark
+ *
+ * Tunable with -Dbench.listSize, -Dbench.iterations and -Dbench.warmupIterations.
+ */
+public class PayloadFormatBenchmark {
+
+	private static final int LIST_SIZE = Integer.getInteger("bench.listSize", 1_000);
+	private static final int ITERATIONS = Integer.getInteger("bench.iterations", 2_000);
+	private static final int WARMUP_ITERATIONS = Integer.getInteger("bench.warmupIterations", 2_000);
+
+	private static final TypeReference<List<StudentDetailsResponse>> LIST = new TypeReference<>() {
+	};
+
+	public static void main(String[] args) throws Exception {
+		List<StudentDetailsResponse> students = new ArrayList<>(LIST_SIZE);
+		for (int i = 0; i < LIST_SIZE; i++) {
+			students.add(new StudentDetailsResponse(100_000 + i, "Student Full Name " + i, "Father Name " + i,
+					i % 3 == 0 ? "CSE" : "ECE", i % 7));
+		}
+
+		ObjectMapper[] mappers = { new ObjectMapper(), new ObjectMapper(new CBORFactory()),
+				new ObjectMapper(new SmileFactory()) };
+		String[] names = { "json", "cbor", "smile" };
+
+		System.out.printf("%-6s %-6s %10s %10s %12s %12s%n", "format", "body", "bytes", "gzipped", "write ns/op",
+				"read ns/op");
+		for (int i = 0; i < mappers.length; i++) {
+			run(names[i], "single", mappers[i], students.get(0), StudentDetailsResponse.class, ITERATIONS * 100);
+			run(names[i], "list", mappers[i], students, LIST, ITERATIONS);
+		}
+	}
+
+	private static void run(String format, String body, ObjectMapper mapper, Object value, Object type,
+			int iterations) throws IOException {
+		byte[] bytes = mapper.writeValueAsBytes(value);
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			read(mapper, mapper.writeValueAsBytes(value), type);
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			bytes = mapper.writeValueAsBytes(value);
+		}
+		long writeNanos = (System.nanoTime() - start) / iterations;
+
+		start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			read(mapper, bytes, type);
+		}
+		long readNanos = (System.nanoTime() - start) / iterations;
+
+		System.out.printf("%-6s %-6s %10d %10d %12d %12d%n", format, body, bytes.length, gzip(bytes).length,
+				writeNanos, readNanos);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object read(ObjectMapper mapper, byte[] bytes, Object type) throws IOException {
+		if (type instanceof Class<?> clazz) {
+			return mapper.readValue(bytes, clazz);
+		}
+		return mapper.readValue(bytes, (TypeReference<Object>) type);
+	}
+
+	private static byte[] gzip(byte[] bytes) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+			gzip.write(bytes);
+		}
+		return compressed.toByteArray();
+	}
+}
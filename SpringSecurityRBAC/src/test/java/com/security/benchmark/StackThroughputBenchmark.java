@@ -0,0 +1,178 @@
+package com.security.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator comparing the servlet application with the reactive gateway
+ * (ReactiveGatewayApplication). It first opens a number of idle keep-alive
+ * connections and leaves them open, then drives authenticated reads at a fixed
+ * concurrency and reports throughput, latency percentiles, errors and how many
+ * idle connections the server kept open.
+ *
+ * Not a unit test: start one deployment, then run for example
+ * java -Dbench.results=benchmarks/stack-throughput.csv -cp target/test-classes
+ * com.security.benchmark.StackThroughputBenchmark
+ * http://localhost:8081/user/getStudentById/1 &lt;bearer token&gt; servlet
+ * and repeat against the other deployment with the same arguments and the
+ * label "reactive". With bench.results set, each run appends one CSV row
+ * (date, label, settings and figures) to that file, writing the header first
+ * if the file is new, so that the runs compared are kept with the code.
+ *
+ * Tunable with -Dbench.concurrency, -Dbench.seconds, -Dbench.idleConnections
+ * and -Dbench.results.
+ */
+public class StackThroughputBenchmark {
+
+	private static final int CONCURRENCY = Integer.getInteger("bench.concurrency", 256);
+	private static final int SECONDS = Integer.getInteger("bench.seconds", 30);
+	private static final int IDLE_CONNECTIONS = Integer.getInteger("bench.idleConnections", 10_000);
+	private static final String RESULTS = System.getProperty("bench.results");
+
+	private static final String RESULTS_HEADER = "date,label,concurrency,seconds,idle_opened,throughput_rps,"
+			+ "p50_ms,p99_ms,p999_ms,errors,idle_still_open";
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.out.println("usage: StackThroughputBenchmark <url> <bearer token> [label]");
+			return;
+		}
+		URI uri = URI.create(args[0]);
+		String token = args[1];
+		String label = args.length > 2 ? args[2] : uri.getAuthority();
+
+		List<Socket> idle = openIdleConnections(uri, token);
+		System.out.printf("idle keep-alive connections opened: %d/%d%n", idle.size(), IDLE_CONNECTIONS);
+
+		HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		HttpRequest request = HttpRequest.newBuilder(uri).header("Authorization", "Bearer " + token)
+				.timeout(Duration.ofSeconds(10)).GET().build();
+
+		Semaphore inFlight = new Semaphore(CONCURRENCY);
+		ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+		AtomicLong errors = new AtomicLong();
+		long deadline = System.nanoTime() + SECONDS * 1_000_000_000L;
+		long start = System.nanoTime();
+
+		while (System.nanoTime() < deadline) {
+			inFlight.acquire();
+			long sent = System.nanoTime();
+			client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+				if (failure != null || response.statusCode() >= 400) {
+					errors.incrementAndGet();
+				} else {
+					latencies.add(System.nanoTime() - sent);
+				}
+				inFlight.release();
+			});
+		}
+		inFlight.acquire(CONCURRENCY); // Wait for the tail
+		long elapsed = System.nanoTime() - start;
+
+		long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+		Arrays.sort(sorted);
+		double throughput = sorted.length / (elapsed / 1e9);
+		double p50 = sorted.length == 0 ? 0 : sorted[sorted.length / 2] / 1e6;
+		double p99 = sorted.length == 0 ? 0 : sorted[(int) (sorted.length * 0.99)] / 1e6;
+		double p999 = sorted.length == 0 ? 0 : sorted[(int) (sorted.length * 0.999)] / 1e6;
+		if (sorted.length == 0) {
+			System.out.printf("no successful requests, errors=%d%n", errors.get());
+		} else {
+			System.out.printf("throughput=%,.0f req/s p50=%.2fms p99=%.2fms p999=%.2fms errors=%d%n", throughput, p50,
+					p99, p999, errors.get());
+		}
+
+		int stillOpen = countOpen(idle);
+		System.out.printf("idle connections still open: %d/%d%n", stillOpen, idle.size());
+		for (Socket socket : idle) {
+			socket.close();
+		}
+
+		if (RESULTS != null) {
+			record(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%.0f,%.2f,%.2f,%.2f,%d,%d", LocalDate.now(), label,
+					CONCURRENCY, SECONDS, idle.size(), throughput, p50, p99, p999, errors.get(), stillOpen));
+		}
+	}
+
+	// Appends one result row, after the header if the file is new
+	private static void record(String row) throws IOException {
+		Path results = Path.of(RESULTS);
+		if (results.getParent() != null) {
+			Files.createDirectories(results.getParent());
+		}
+		List<String> lines = Files.exists(results) ? List.of(row) : List.of(RESULTS_HEADER, row);
+		Files.write(results, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		System.out.println("result appended to " + results);
+	}
+
+	// Each idle connection makes one request with keep-alive and then stays silent
+	private static List<Socket> openIdleConnections(URI uri, String token) {
+		List<Socket> sockets = new ArrayList<>(IDLE_CONNECTIONS);
+		int port = uri.getPort() == -1 ? 80 : uri.getPort();
+		byte[] request = ("GET " + uri.getRawPath() + " HTTP/1.1\r\nHost: " + uri.getHost() + "\r\nAuthorization: Bearer "
+				+ token + "\r\nConnection: keep-alive\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+		for (int i = 0; i < IDLE_CONNECTIONS; i++) {
+			try {
+				Socket socket = new Socket();
+				socket.connect(new InetSocketAddress(uri.getHost(), port), 2000);
+				socket.setSoTimeout(2000);
+				OutputStream out = socket.getOutputStream();
+				out.write(request);
+				out.flush();
+				drain(socket.getInputStream());
+				sockets.add(socket);
+			} catch (IOException e) {
+				break; // The server or the OS refused more connections
+			}
+		}
+		return sockets;
+	}
+
+	// Reads whatever the server sent for the keep-alive request
+	private static void drain(InputStream in) throws IOException {
+		byte[] buffer = new byte[8192];
+		int read = in.read(buffer);
+		while (read > 0 && in.available() > 0) {
+			read = in.read(buffer);
+		}
+	}
+
+	// A connection closed by the server reads end-of-stream
+	private static int countOpen(List<Socket> sockets) {
+		int open = 0;
+		for (Socket socket : sockets) {
+			try {
+				socket.setSoTimeout(1);
+				if (socket.getInputStream().read() != -1) {
+					open++;
+				}
+			} catch (SocketTimeoutException e) {
+				open++; // Nothing to read, still open
+			} catch (IOException e) {
+				// Reset by the server
+			}
+		}
+		return open;
+	}
+}
@@ -0,0 +1,216 @@
+package com.security.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.security.concurrency.BlockingResourceLimiter;
+import com.security.concurrency.BlockingResourceLimiter.Resource;
+import com.security.concurrency.LimitedPasswordEncoder;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Compares request handling on a Tomcat-sized platform thread pool with one
+ * virtual thread per request, for the blocking request path of this app:
+ * a Redis blocklist check, a student query through a bounded HikariCP pool,
+ * JSON serialization of the result with Jackson, other unbounded blocking I/O
+ * (slow clients, downstream calls) and, for a share of requests, a login: a
+ * user query, then a BCrypt check under a hashing permit. The database work is
+ * real, against an in-memory H2 database, and so are the serialization and
+ * BCrypt. Only the Redis round trip and the downstream I/O, which are waits on
+ * other machines, are modelled as sleeps; Redis goes through the real
+ * BlockingResourceLimiter.
+ *
+ * Not a unit test: run it on a Java 21+ runtime after "mvn test-compile", e.g.
+ * java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)
+ * com.security.benchmark.ThreadModeBenchmark
+ *
+ * Tunable with -Dbench.requests, -Dbench.inflight, -Dbench.platformThreads,
+ * -Dbench.dbPool, -Dbench.students, -Dbench.redisMillis, -Dbench.ioMillis and
+ * -Dbench.loginEvery.
+ */
+public class ThreadModeBenchmark {
+
+	private static final int REQUESTS = Integer.getInteger("bench.requests", 50_000);
+	private static final int IN_FLIGHT = Integer.getInteger("bench.inflight", 5_000);
+	private static final int PLATFORM_THREADS = Integer.getInteger("bench.platformThreads", 200);
+	private static final int DB_POOL = Integer.getInteger("bench.dbPool", 20);
+	private static final int STUDENTS = Integer.getInteger("bench.students", 10_000);
+	private static final int REDIS_MILLIS = Integer.getInteger("bench.redisMillis", 1);
+	private static final int IO_MILLIS = Integer.getInteger("bench.ioMillis", 20);
+	private static final int LOGIN_EVERY = Integer.getInteger("bench.loginEvery", 100);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	public static void main(String[] args) throws Exception {
+		System.out.printf("requests=%d inflight=%d platformThreads=%d dbPool=%d students=%d redisMs=%d ioMs=%d%n",
+				REQUESTS, IN_FLIGHT, PLATFORM_THREADS, DB_POOL, STUDENTS, REDIS_MILLIS, IO_MILLIS);
+
+		try (HikariDataSource dataSource = database()) {
+			run("platform", Executors.newFixedThreadPool(PLATFORM_THREADS), dataSource);
+
+			ExecutorService virtual = virtualThreadExecutor();
+			if (virtual == null) {
+				System.out.println("virtual: skipped, needs a Java 21+ runtime");
+			} else {
+				run("virtual", virtual, dataSource);
+			}
+		}
+	}
+
+	// An in-memory database with the students and one login per student, behind a pool of DB_POOL connections
+	private static HikariDataSource database() throws SQLException {
+		HikariConfig config = new HikariConfig();
+		config.setJdbcUrl("jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1");
+		config.setMaximumPoolSize(DB_POOL);
+		config.setConnectionTimeout(60_000);
+		HikariDataSource dataSource = new HikariDataSource(config);
+
+		String hash = new BCryptPasswordEncoder(4).encode("password");
+		try (Connection connection = dataSource.getConnection(); Statement ddl = connection.createStatement()) {
+			ddl.execute("CREATE TABLE student_details (stu_number INT PRIMARY KEY, full_name VARCHAR(100), "
+					+ "father_name VARCHAR(100), branch_name VARCHAR(50))");
+			ddl.execute("CREATE TABLE student_login_details (user_name VARCHAR(100) PRIMARY KEY, "
+					+ "password VARCHAR(100), role VARCHAR(20))");
+			try (PreparedStatement students = connection
+					.prepareStatement("INSERT INTO student_details VALUES (?, ?, ?, ?)");
+					PreparedStatement logins = connection
+							.prepareStatement("INSERT INTO student_login_details VALUES (?, ?, ?)")) {
+				for (int i = 0; i < STUDENTS; i++) {
+					students.setInt(1, i);
+					students.setString(2, "Student " + i);
+					students.setString(3, "Parent " + i);
+					students.setString(4, "CSE");
+					students.addBatch();
+					logins.setString(1, "user" + i);
+					logins.setString(2, hash);
+					logins.setString(3, "USER");
+					logins.addBatch();
+				}
+				students.executeBatch();
+				logins.executeBatch();
+			}
+		}
+		return dataSource;
+	}
+
+	private static void run(String mode, ExecutorService executor, DataSource dataSource) throws Exception {
+		BlockingResourceLimiter limiter = new BlockingResourceLimiter(64, 0, 10_000);
+		PasswordEncoder encoder = new LimitedPasswordEncoder(new BCryptPasswordEncoder(4), limiter);
+		Semaphore inFlight = new Semaphore(IN_FLIGHT); // Clients keep this many requests open
+
+		// Warm up code paths before measuring
+		measure(executor, limiter, encoder, dataSource, inFlight, REQUESTS / 10);
+		long[] latencies = new long[REQUESTS];
+		long start = System.nanoTime();
+		measure(executor, limiter, encoder, dataSource, inFlight, REQUESTS, latencies);
+		long elapsed = System.nanoTime() - start;
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+
+		Arrays.sort(latencies);
+		System.out.printf("%-8s throughput=%,.0f req/s p50=%.1fms p99=%.1fms max=%.1fms%n", mode,
+				REQUESTS / (elapsed / 1e9), latencies[REQUESTS / 2] / 1e6, latencies[(int) (REQUESTS * 0.99)] / 1e6,
+				latencies[REQUESTS - 1] / 1e6);
+	}
+
+	private static void measure(ExecutorService executor, BlockingResourceLimiter limiter, PasswordEncoder encoder,
+			DataSource dataSource, Semaphore inFlight, int requests) throws Exception {
+		measure(executor, limiter, encoder, dataSource, inFlight, requests, new long[requests]);
+	}
+
+	private static void measure(ExecutorService executor, BlockingResourceLimiter limiter, PasswordEncoder encoder,
+			DataSource dataSource, Semaphore inFlight, int requests, long[] latencies) throws Exception {
+		List<Future<?>> futures = new ArrayList<>(requests);
+		for (int i = 0; i < requests; i++) {
+			int request = i;
+			inFlight.acquire();
+			long submitted = System.nanoTime();
+			futures.add(executor.submit(() -> {
+				try {
+					handle(request, limiter, encoder, dataSource);
+					return null;
+				} finally {
+					latencies[request] = System.nanoTime() - submitted;
+					inFlight.release();
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+	}
+
+	// One request through the blocking layers of the app
+	private static void handle(int request, BlockingResourceLimiter limiter, PasswordEncoder encoder,
+			DataSource dataSource) throws Exception {
+		limiter.call(Resource.REDIS, () -> sleep(REDIS_MILLIS));
+
+		if (LOGIN_EVERY > 0 && request % LOGIN_EVERY == 0) {
+			// As in the application: the user query holds no hashing permit, only the BCrypt check does
+			String hash = (String) query(dataSource, "SELECT password FROM student_login_details WHERE user_name = ?",
+					"user" + request % STUDENTS).get("PASSWORD");
+			encoder.matches("password", hash);
+		}
+
+		Map<String, Object> student = query(dataSource, "SELECT * FROM student_details WHERE stu_number = ?",
+				request % STUDENTS);
+		MAPPER.writeValueAsBytes(student);
+
+		sleep(IO_MILLIS);
+	}
+
+	// Runs a single-row query on a pooled connection and returns the row by column name
+	private static Map<String, Object> query(DataSource dataSource, String sql, Object parameter) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setObject(1, parameter);
+			try (ResultSet rows = statement.executeQuery()) {
+				Map<String, Object> row = new HashMap<>();
+				if (rows.next()) {
+					for (int column = 1; column <= rows.getMetaData().getColumnCount(); column++) {
+						row.put(rows.getMetaData().getColumnLabel(column), rows.getObject(column));
+					}
+				}
+				return row;
+			}
+		}
+	}
+
+	private static Void sleep(int millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return null;
+	}
+
+	// Looked up reflectively so the project can keep compiling for Java 17
+	private static ExecutorService virtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.security.binaryformat;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.security.studentdto.StudentDetailsResponse;
+
+public class BinaryFormatConfigTest {
+
+    private final BinaryFormatConfig config = new BinaryFormatConfig();
+
+    private final StudentDetailsResponse student = new StudentDetailsResponse(7, "John Michael Smith", "Robert Smith",
+            "CSE", 3);
+
+    // Test that both binary formats carry the same fields as JSON in fewer bytes
+    @Test
+    void binaryFormatsRoundTripSmallerThanJson() throws Exception {
+        int jsonBytes = new ObjectMapper().writeValueAsBytes(student).length;
+
+        assertRoundTrip(config.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json()),
+                MediaType.APPLICATION_CBOR, jsonBytes);
+        assertRoundTrip(config.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()),
+                MediaType.valueOf("application/x-jackson-smile"), jsonBytes);
+    }
+
+    private void assertRoundTrip(AbstractJackson2HttpMessageConverter converter, MediaType mediaType, int jsonBytes)
+            throws Exception {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(student, mediaType, output);
+        byte[] written = output.getBodyAsBytes();
+
+        Assertions.assertEquals(mediaType, output.getHeaders().getContentType());
+        Assertions.assertTrue(written.length < jsonBytes, mediaType + " is smaller than JSON");
+        Assertions.assertEquals(student,
+                converter.read(StudentDetailsResponse.class, new MockHttpInputMessage(written)));
+    }
+}
@@ -0,0 +1,78 @@
+package com.security.blocklist;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import com.security.concurrency.BlockingResourceLimiter;
+import com.security.exception.BlocklistUnavailableException;
+import com.security.jwtservice.JwtService;
+import com.security.studentdto.Role;
+
+@ExtendWith(MockitoExtension.class)
+public class OpaqueSessionStoreTest {
+
+    @Mock
+    RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    ValueOperations<String, String> valueOps;
+
+    private OpaqueSessionStore store(long recheckMillis) {
+        TokenBlocklist blocklist = new TokenBlocklist(redisTemplate, new BlockingResourceLimiter(4, 1, 1000),
+                new JwtService(), "open", 2, 50, 60_000, 100, 1000, true, 300_000, 0);
+        return new OpaqueSessionStore(redisTemplate, blocklist, "opaque", recheckMillis);
+    }
+
+    // Test that an issued token resolves locally and stops resolving after logout
+    @Test
+    void issuedTokenResolvesLocallyUntilRevoked() {
+        OpaqueSessionStore store = store(60_000);
+        Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOps);
+
+        String token = store.issue("john", "ROLE_MODERATOR");
+
+        Assertions.assertEquals(32, token.length());
+        Assertions.assertTrue(OpaqueSessionStore.isOpaque(token));
+        verify(valueOps).set(eq("session:" + token), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        SessionRecord session = store.resolve(token);
+        Assertions.assertEquals("john", session.userName());
+        Assertions.assertEquals(Role.MODERATOR, session.role());
+        verify(valueOps, never()).get(anyString()); // Answered by the local map
+
+        store.revoke(token);
+        verify(redisTemplate).delete("session:" + token);
+        Mockito.when(valueOps.get("session:" + token)).thenReturn(null);
+        Assertions.assertNull(store.resolve(token));
+    }
+
+    // Test that a session started on another node is read from Redis, and that an outage is reported
+    @Test
+    void unknownTokenIsLookedUpInRedis() {
+        OpaqueSessionStore store = store(60_000);
+        Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        Mockito.when(valueOps.get("session:elsewhere")).thenReturn(expiresAt + ":USER:jane:doe");
+
+        SessionRecord session = store.resolve("elsewhere");
+        Assertions.assertEquals("jane:doe", session.userName());
+        Assertions.assertEquals(expiresAt, session.expiresAtMillis());
+
+        Mockito.when(valueOps.get("session:unknown")).thenThrow(new RedisConnectionFailureException("Redis is down"));
+        Assertions.assertThrows(BlocklistUnavailableException.class, () -> store.resolve("unknown"));
+    }
+}
@@ -0,0 +1,129 @@
+package com.security.blocklist;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import com.security.concurrency.BlockingResourceLimiter;
+import com.security.jwtservice.JwtService;
+import com.security.studentdto.Role;
+import com.security.studentdto.SessionRevocationResponse;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class SessionRegistryTest {
+
+    @Mock
+    RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    ValueOperations<String, String> valueOps;
+
+    @Mock
+    ZSetOperations<String, String> zSetOps;
+
+    // Receives the commands of every pipeline
+    final RedisConnection connection = Mockito.mock(RedisConnection.class, Mockito.RETURNS_DEEP_STUBS);
+
+    OpaqueSessionStore store;
+
+    SessionRegistry registry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        Mockito.when(redisTemplate.opsForZSet()).thenReturn(zSetOps);
+        Mockito.when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(call -> {
+            call.<RedisCallback<Object>>getArgument(0).doInRedis(connection);
+            return List.of();
+        });
+        TokenBlocklist blocklist = new TokenBlocklist(redisTemplate, new BlockingResourceLimiter(4, 1, 1000),
+                new JwtService(), "open", 2, 50, 60_000, 100, 1000, true, 300_000, 0);
+        store = new OpaqueSessionStore(redisTemplate, blocklist, "opaque", 60_000);
+        registry = new SessionRegistry(redisTemplate, blocklist, store, 100);
+    }
+
+    // Test that an opaque session is registered and ended by a bulk revocation of its user
+    @Test
+    @SuppressWarnings("unchecked")
+    void opaqueSessionIsRevokedWithItsUser() {
+        String token = store.issue("john", "ROLE_USER");
+        long expiresAt = System.currentTimeMillis() + JwtService.TOKEN_VALIDITY_MILLIS;
+        registry.registerOpaque("john", "ROLE_USER", token, expiresAt);
+
+        verify(connection.zSetCommands()).zAdd(bytes("sessions:user:john"), expiresAt, bytes("opaque:" + token));
+        verify(connection.zSetCommands()).zAdd(bytes("sessions:role-users:USER"), expiresAt, bytes("john"));
+
+        Mockito.when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(List.of(Set.of("opaque:" + token)));
+        SessionRevocationResponse response = registry.revokeUsers(List.of("john"));
+
+        Assertions.assertEquals(1, response.getSessionsRevoked());
+        verify(connection.keyCommands()).del(bytes("session:" + token));
+        verify(connection.keyCommands()).del(bytes("sessions:user:john"));
+        verify(connection.zSetCommands()).zRem(bytes("sessions:role-users:USER"), bytes("john"));
+        Assertions.assertNull(store.resolve(token), "Resolved from Redis, where it is gone");
+    }
+
+    // Test that each login drops expired users from its role, and that a role revocation only reads live ones
+    @Test
+    void roleIndexIsPrunedOfExpiredUsers() {
+        registry.registerOpaque("john", "ROLE_MODERATOR", "token", System.currentTimeMillis() + 60_000);
+
+        ArgumentCaptor<Double> prunedUpTo = ArgumentCaptor.forClass(Double.class);
+        verify(connection.zSetCommands()).zRemRangeByScore(eq(bytes("sessions:role-users:MODERATOR")),
+                eq(Double.NEGATIVE_INFINITY), prunedUpTo.capture());
+        Assertions.assertTrue(prunedUpTo.getValue() <= System.currentTimeMillis());
+
+        long before = System.currentTimeMillis();
+        Mockito.when(zSetOps.rangeByScore(eq("sessions:role-users:MODERATOR"), anyDouble(),
+                eq(Double.POSITIVE_INFINITY))).thenReturn(Set.of());
+        registry.revokeRole(Role.MODERATOR);
+
+        ArgumentCaptor<Double> liveFrom = ArgumentCaptor.forClass(Double.class);
+        verify(zSetOps).rangeByScore(eq("sessions:role-users:MODERATOR"), liveFrom.capture(),
+                eq(Double.POSITIVE_INFINITY));
+        Assertions.assertTrue(liveFrom.getValue() >= before, "Users whose sessions all expired are skipped");
+    }
+
+    // Test that revoking a user also revokes the slots of their JWTs
+    @Test
+    @SuppressWarnings("unchecked")
+    void jwtSessionsAreRevokedBySlot() {
+        Mockito.when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(new ArrayList<>(List.of(Set.of("5:7", "5:9"))));
+
+        SessionRevocationResponse response = registry.revokeUsers(List.of("jane", "jane"));
+
+        Assertions.assertEquals(1, response.getUsers());
+        Assertions.assertEquals(2, response.getSessionsRevoked());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+package com.security.blocklist;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TimingWheelTtlStoreTest {
+
+    // Test that keys expire at their own time, across the level boundaries of the wheel
+    @Test
+    void keysExpireAfterCascading() {
+        TimingWheelTtlStore store = new TimingWheelTtlStore(1000, 0);
+        store.put("soon", 3_500);
+        store.put("level1", 100_000); // Beyond the 64 ticks of level 0
+        store.put("level2", 5_000_000); // Beyond the 4096 ticks of level 1
+
+        store.advance(4_000);
+        Assertions.assertFalse(store.contains("soon", 4_000));
+        Assertions.assertEquals(2, store.size(), "Only the first key should have been removed");
+
+        store.advance(99_000);
+        Assertions.assertTrue(store.contains("level1", 99_000));
+        store.advance(100_000);
+        Assertions.assertEquals(1, store.size());
+
+        store.advance(4_999_000);
+        Assertions.assertTrue(store.contains("level2", 4_999_000));
+        store.advance(5_000_000);
+        Assertions.assertEquals(0, store.size());
+    }
+
+    // Test that storing a key again extends its expiry
+    @Test
+    void putExtendsExpiry() {
+        TimingWheelTtlStore store = new TimingWheelTtlStore(1000, 0);
+        store.put("token", 2_000);
+        store.put("token", 10_000);
+
+        store.advance(5_000);
+        Assertions.assertTrue(store.contains("token", 5_000), "The later expiry should win");
+        store.advance(10_000);
+        Assertions.assertFalse(store.contains("token", 10_000));
+        Assertions.assertEquals(0, store.size());
+    }
+}
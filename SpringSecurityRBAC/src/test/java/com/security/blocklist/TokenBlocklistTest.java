@@ -0,0 +1,218 @@
+package com.security.blocklist;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import com.security.concurrency.BlockingResourceLimiter;
+import com.security.exception.BlocklistUnavailableException;
+import com.security.exception.ResourceLimitExceededException;
+import com.security.jwtservice.JwtService;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenBlocklistTest {
+
+    @Mock
+    RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    ValueOperations<String, String> valueOps;
+
+    private static final long BUCKET_MILLIS = 300_000;
+
+    private final JwtService jwtService = new JwtService();
+
+    private TokenBlocklist blocklist(String failurePolicy, long mirrorIntervalMillis) {
+        // Breaker opens after two failures and allows a probe after 50ms
+        return new TokenBlocklist(redisTemplate, new BlockingResourceLimiter(4, 1, 1000), jwtService, failurePolicy,
+                2, 50, 60_000, 100, 1000, true, BUCKET_MILLIS, mirrorIntervalMillis);
+    }
+
+    private TokenBlocklist blocklist(String failurePolicy) {
+        return blocklist(failurePolicy, 0);
+    }
+
+    // A signed token carrying the given revocation slot
+    private String tokenWithSlot(long bucket, long sequence) {
+        return jwtService.generateToken("john", "ROLE_USER",
+                Map.of(RevocationSlot.BUCKET_CLAIM, bucket, RevocationSlot.SEQUENCE_CLAIM, sequence));
+    }
+
+    // Test that a Redis outage falls back to the local store and replays logouts on recovery
+    @Test
+    void logoutDuringOutageIsEnforcedLocallyAndReplayed() throws InterruptedException {
+        TokenBlocklist blocklist = blocklist("open");
+        RedisConnectionFailureException down = new RedisConnectionFailureException("Redis is down");
+        Mockito.when(redisTemplate.hasKey(anyString())).thenThrow(down);
+        Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        doThrow(down).when(valueOps).set(anyString(), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        blocklist.revoke("revoked-token", "john", expiresAt);
+
+        Assertions.assertTrue(blocklist.isRevoked("revoked-token"), "The local store should know the logout");
+        Assertions.assertFalse(blocklist.isRevoked("other-token"), "Failing open should allow unknown tokens");
+        Assertions.assertFalse(blocklist.isRevoked("other-token"));
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, blocklist.stats().breakerState());
+        Assertions.assertEquals(1, blocklist.stats().pendingWrites());
+
+        // Redis comes back: after the open period the buffered logout is replayed
+        reset(valueOps);
+        Thread.sleep(60);
+        blocklist.maintain();
+
+        verify(valueOps).set(eq("blacklisted:revoked-token"), eq("john"), anyLong(), eq(TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(0, blocklist.stats().pendingWrites());
+        Assertions.assertEquals(1, blocklist.stats().replayed());
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, blocklist.stats().breakerState());
+    }
+
+    // Test that failing closed refuses unknown tokens once Redis cannot be reached
+    @Test
+    void failClosedRefusesUnknownTokens() {
+        TokenBlocklist blocklist = blocklist("closed");
+        Mockito.when(redisTemplate.hasKey(anyString())).thenThrow(new RedisConnectionFailureException("Redis is down"));
+
+        Assertions.assertThrows(BlocklistUnavailableException.class, () -> blocklist.isRevoked("token"));
+        Assertions.assertThrows(BlocklistUnavailableException.class, () -> blocklist.isRevoked("token"));
+
+        // The breaker is open now, so Redis is not called again
+        reset(redisTemplate);
+        Assertions.assertThrows(BlocklistUnavailableException.class, () -> blocklist.isRevoked("token"));
+        verify(redisTemplate, never()).hasKey(anyString());
+    }
+
+    // Test that running out of Redis permits is a 503 even when failing open, and never opens the breaker
+    @Test
+    void saturationIsNotARedisFailure() {
+        TokenBlocklist blocklist = new TokenBlocklist(redisTemplate, new BlockingResourceLimiter(0, 1, 0), jwtService,
+                "open", 2, 50, 60_000, 100, 1000, true, BUCKET_MILLIS, 0);
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertThrows(ResourceLimitExceededException.class, () -> blocklist.isRevoked("token"));
+        }
+
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, blocklist.stats().breakerState());
+        Assertions.assertEquals(0, blocklist.stats().redisFailures());
+        Assertions.assertEquals(3, blocklist.stats().saturated());
+        Assertions.assertEquals(0, blocklist.stats().fallbacks(), "A saturated lookup is never answered unchecked");
+        verify(redisTemplate, never()).hasKey(anyString());
+    }
+
+    // Test that a token with a slot is revoked with one bit, not a key of its own
+    @Test
+    @SuppressWarnings("unchecked")
+    void slottedLogoutSetsABitInsteadOfAKey() {
+        TokenBlocklist blocklist = blocklist("open");
+        long bucket = System.currentTimeMillis() / BUCKET_MILLIS + 9;
+        String revoked = tokenWithSlot(bucket, 5);
+
+        blocklist.revoke(revoked, "john", System.currentTimeMillis() + 60_000);
+
+        Assertions.assertTrue(blocklist.isRevoked(revoked));
+        Assertions.assertFalse(blocklist.isRevoked(tokenWithSlot(bucket, 6)), "Only bit 5 was set");
+        verify(redisTemplate).executePipelined(any(RedisCallback.class)); // SETBIT and PEXPIREAT together
+        verify(redisTemplate, never()).opsForValue();
+    }
+
+    // Test that a forged negative or huge slot is treated as no slot: no exception, no Redis failure
+    @Test
+    void forgedSlotIsIgnored() {
+        TokenBlocklist blocklist = blocklist("closed");
+        long bucket = System.currentTimeMillis() / BUCKET_MILLIS + 9;
+        blocklist.revoke(tokenWithSlot(bucket, 5), "john", System.currentTimeMillis() + 60_000); // Bucket is mirrored
+        Mockito.when(redisTemplate.hasKey(anyString())).thenReturn(false);
+
+        Assertions.assertFalse(blocklist.isRevoked(tokenWithSlot(bucket, -5)));
+        Assertions.assertFalse(blocklist.isRevoked(tokenWithSlot(bucket, Integer.MAX_VALUE + 1L)));
+        Assertions.assertFalse(blocklist.isRevoked(tokenWithSlot(-1, 5)));
+        Assertions.assertNull(RevocationSlot.parse(String.valueOf(bucket), "-5"));
+
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, blocklist.stats().breakerState());
+        Assertions.assertEquals(0, blocklist.stats().redisFailures());
+    }
+
+    // Test that bits set by other nodes are picked up by the local mirror
+    @Test
+    @SuppressWarnings("unchecked")
+    void mirrorPicksUpRevocationsFromRedis() {
+        TokenBlocklist blocklist = blocklist("open", 1000);
+        long bucket = System.currentTimeMillis() / BUCKET_MILLIS;
+
+        // Redis numbers bits from the top of each byte, so 0x04 is bit 5
+        List<Object> bitmaps = new ArrayList<>();
+        bitmaps.add(new byte[] { 0x04 });
+        for (int i = 0; i < 20; i++) {
+            bitmaps.add(null);
+        }
+        Mockito.when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(bitmaps);
+
+        blocklist.maintain();
+
+        Assertions.assertTrue(blocklist.isRevoked(tokenWithSlot(bucket, 5)));
+        Assertions.assertFalse(blocklist.isRevoked(tokenWithSlot(bucket, 4)));
+        // Both answers came from the fresh mirror, without a GETBIT
+        verify(redisTemplate, never()).execute(any(RedisCallback.class));
+    }
+
+    // Test that a bulk revocation is written in pipelined batches and applies locally at once
+    @Test
+    @SuppressWarnings("unchecked")
+    void bulkRevocationIsPipelinedInBatches() {
+        TokenBlocklist blocklist = blocklist("open");
+        long bucket = System.currentTimeMillis() / BUCKET_MILLIS + 9;
+        List<RevocationSlot> slots = new ArrayList<>();
+        for (int sequence = 0; sequence < 25_000; sequence++) {
+            slots.add(new RevocationSlot(bucket, sequence));
+        }
+
+        blocklist.revokeSlots(slots, 10_000);
+
+        verify(redisTemplate, times(3)).executePipelined(any(RedisCallback.class));
+        Assertions.assertTrue(blocklist.isRevoked(tokenWithSlot(bucket, 24_999)));
+        Assertions.assertFalse(blocklist.isRevoked(tokenWithSlot(bucket, 25_000)));
+    }
+
+    // Test that a batch lookup asks Redis once for every token not answered locally
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchLookupUsesOneRoundTrip() {
+        TokenBlocklist blocklist = blocklist("open");
+        long bucket = System.currentTimeMillis() / BUCKET_MILLIS + 9;
+        String locallyRevoked = tokenWithSlot(bucket, 1);
+        blocklist.revoke(locallyRevoked, "john", System.currentTimeMillis() + 60_000);
+        reset(redisTemplate);
+
+        // One GETBIT for the slotted token, one EXISTS for the legacy token
+        Mockito.when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(true, false));
+        boolean[] revoked = blocklist.areRevoked(List.of(locallyRevoked, tokenWithSlot(bucket, 2), "legacy-token"));
+
+        Assertions.assertArrayEquals(new boolean[] { true, true, false }, revoked);
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        Assertions.assertTrue(blocklist.isRevoked(tokenWithSlot(bucket, 2)), "Redis answers are remembered locally");
+    }
+}
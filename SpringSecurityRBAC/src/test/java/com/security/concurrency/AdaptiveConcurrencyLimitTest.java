@@ -0,0 +1,67 @@
+package com.security.concurrency;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    // Keeps the limit saturated: every finished request is replaced by a new one
+    private static void saturate(AdaptiveConcurrencyLimit limit, int samples, long rttNanos) {
+        while (limit.tryAcquire()) {
+            // Fill up to the current limit
+        }
+        for (int i = 0; i < samples; i++) {
+            limit.release(rttNanos);
+            while (limit.tryAcquire()) {
+                // Refill if the limit grew
+            }
+        }
+    }
+
+    // Test that requests beyond the limit are shed and counted
+    @Test
+    void requestsOverTheLimitAreRejected() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("reads", 2, 1, 10, 0.2);
+
+        Assertions.assertTrue(limit.tryAcquire());
+        Assertions.assertTrue(limit.tryAcquire());
+        Assertions.assertFalse(limit.tryAcquire(), "The third concurrent request should be shed");
+
+        limit.release(MILLIS);
+        Assertions.assertTrue(limit.tryAcquire(), "A released slot should be reusable");
+        Assertions.assertEquals(1, limit.stats().rejected());
+    }
+
+    // Test that the limit grows under steady latency and shrinks when latency rises
+    @Test
+    void limitFollowsLatency() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("reads", 20, 4, 100, 0.2);
+
+        saturate(limit, 200, MILLIS);
+        int healthyLimit = limit.stats().limit();
+        Assertions.assertTrue(healthyLimit > 20, "The limit should grow while latency is steady");
+
+        // A dependency brownout multiplies latency by ten
+        saturate(limit, 100, 10 * MILLIS);
+        Assertions.assertTrue(limit.stats().limit() < healthyLimit / 2,
+                "The limit should back off when latency rises, was " + limit.stats().limit());
+    }
+
+    // Test that a fresh node admits up to the maximum of each class, and that a limit starting there still backs off
+    @Test
+    void limitsStartAtTheirMaximum() {
+        AdaptiveConcurrencyFilter filter = new AdaptiveConcurrencyFilter(true, 4, 0.2, 32, 200, 100);
+        Assertions.assertEquals(List.of(32, 200, 100),
+                filter.stats().stream().map(ConcurrencyLimitStats::limit).toList());
+
+        AdaptiveConcurrencyLimit auth = new AdaptiveConcurrencyLimit("auth", 32, 4, 32, 0.2);
+        saturate(auth, 100, 100 * MILLIS);
+        Assertions.assertEquals(32, auth.stats().limit(), "Steady BCrypt latency keeps the limit");
+        saturate(auth, 100, 1000 * MILLIS);
+        Assertions.assertTrue(auth.stats().limit() < 16, "Was " + auth.stats().limit());
+    }
+}
@@ -0,0 +1,74 @@
+package com.security.concurrency;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.security.concurrency.BlockingResourceLimiter.Resource;
+import com.security.exception.ResourceLimitExceededException;
+
+public class LimitedPasswordEncoderTest {
+
+    private static final String HASH = new BCryptPasswordEncoder(4).encode("password");
+
+    final BlockingResourceLimiter limiter = new BlockingResourceLimiter(1, 1, 0);
+
+    // Records whether a hashing permit was held by the user lookup and by the password check
+    boolean permitHeldDuringLookup;
+
+    boolean permitHeldDuringMatch;
+
+    private DaoAuthenticationProvider provider() {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                permitHeldDuringMatch = limiter.availablePermits(Resource.HASHING) == 0;
+                return super.matches(rawPassword, encodedPassword);
+            }
+        };
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setPasswordEncoder(new LimitedPasswordEncoder(bcrypt, limiter));
+        provider.setUserDetailsService(userName -> {
+            permitHeldDuringLookup = limiter.availablePermits(Resource.HASHING) == 0;
+            return new User(userName, HASH, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        });
+        return provider;
+    }
+
+    // Test that a login holds the hashing permit for the BCrypt check only, not for the user lookup
+    @Test
+    void permitCoversOnlyThePasswordCheck() {
+        Authentication authentication = provider()
+                .authenticate(new UsernamePasswordAuthenticationToken("john", "password"));
+
+        Assertions.assertTrue(authentication.isAuthenticated());
+        Assertions.assertFalse(permitHeldDuringLookup, "The user lookup ran without a hashing permit");
+        Assertions.assertTrue(permitHeldDuringMatch, "The BCrypt check ran under a hashing permit");
+        Assertions.assertEquals(1, limiter.availablePermits(Resource.HASHING));
+
+        Assertions.assertThrows(BadCredentialsException.class,
+                () -> provider().authenticate(new UsernamePasswordAuthenticationToken("john", "wrong")));
+        Assertions.assertEquals(1, limiter.availablePermits(Resource.HASHING));
+    }
+
+    // Test that a saturated hasher fails the login fast instead of reporting bad credentials
+    @Test
+    void saturatedHashingFailsFast() {
+        DaoAuthenticationProvider provider = provider();
+        limiter.call(Resource.HASHING, () -> {
+            Assertions.assertThrows(ResourceLimitExceededException.class,
+                    () -> provider.authenticate(new UsernamePasswordAuthenticationToken("john", "password")));
+            return null;
+        });
+        Assertions.assertFalse(permitHeldDuringMatch, "The BCrypt check never ran");
+    }
+}
@@ -0,0 +1,84 @@
+package com.security.concurrency;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class WeightedFairAdmissionTest {
+
+    private static final Map<AdmissionPriority, Integer> WEIGHTS = Map.of(AdmissionPriority.ADMIN, 8,
+            AdmissionPriority.MODERATOR, 4, AdmissionPriority.USER, 1, AdmissionPriority.ANONYMOUS, 1);
+
+    // Counts down a latch whenever a request joins a queue
+    private static final class ObservedAdmission extends WeightedFairAdmission {
+
+        volatile CountDownLatch queued = new CountDownLatch(0);
+
+        ObservedAdmission(int permits, int maxQueueLength, long queueTimeoutMillis) {
+            super(permits, WEIGHTS, maxQueueLength, queueTimeoutMillis);
+        }
+
+        @Override
+        void onQueued(AdmissionPriority priority) {
+            queued.countDown();
+        }
+    }
+
+    // Starts a request that records its admission and leaves right away, once it is queued
+    private static Thread request(ObservedAdmission admission, AdmissionPriority priority, String name,
+            List<String> admitted) throws InterruptedException {
+        CountDownLatch queued = new CountDownLatch(1);
+        admission.queued = queued;
+        Thread thread = new Thread(() -> {
+            if (admission.acquire(priority)) {
+                admitted.add(name);
+                admission.release();
+            }
+        });
+        thread.start();
+        Assertions.assertTrue(queued.await(5, TimeUnit.SECONDS), "The request should have been queued");
+        return thread;
+    }
+
+    // Test that a saturated node serves a later admin request before earlier user requests
+    @Test
+    void adminOvertakesQueuedUsers() throws InterruptedException {
+        ObservedAdmission admission = new ObservedAdmission(1, 10, 5_000);
+        List<String> admitted = new CopyOnWriteArrayList<>();
+
+        Assertions.assertTrue(admission.acquire(AdmissionPriority.USER), "A free slot should be taken at once");
+        Thread user1 = request(admission, AdmissionPriority.USER, "user1", admitted);
+        Thread user2 = request(admission, AdmissionPriority.USER, "user2", admitted);
+        Thread admin = request(admission, AdmissionPriority.ADMIN, "admin", admitted);
+
+        admission.release();
+        user1.join();
+        user2.join();
+        admin.join();
+
+        Assertions.assertEquals(List.of("admin", "user1", "user2"), admitted);
+        Assertions.assertEquals(3, admission.stats().get(AdmissionPriority.USER.ordinal()).admitted());
+    }
+
+    // Test that a full queue is refused and a long wait times out
+    @Test
+    void fullQueueIsRejectedAndWaitTimesOut() throws InterruptedException {
+        ObservedAdmission admission = new ObservedAdmission(1, 1, 50);
+        List<String> admitted = new CopyOnWriteArrayList<>();
+
+        Assertions.assertTrue(admission.acquire(AdmissionPriority.USER));
+        Thread waiting = request(admission, AdmissionPriority.USER, "waiting", admitted);
+        Assertions.assertFalse(admission.acquire(AdmissionPriority.USER), "The queue of one should be full");
+
+        waiting.join();
+        PriorityAdmissionStats stats = admission.stats().get(AdmissionPriority.USER.ordinal());
+        Assertions.assertEquals(1, stats.rejected());
+        Assertions.assertEquals(1, stats.timedOut());
+        Assertions.assertTrue(admitted.isEmpty(), "The waiter should have given up");
+    }
+}
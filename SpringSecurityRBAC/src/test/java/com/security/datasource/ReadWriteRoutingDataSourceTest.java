@@ -0,0 +1,123 @@
+package com.security.datasource;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Routes between two embedded H2 databases, each holding a row naming itself
+public class ReadWriteRoutingDataSourceTest {
+
+    EmbeddedDatabase primary;
+    EmbeddedDatabase replica;
+    ReadWriteRoutingDataSource routingDataSource;
+    JdbcTemplate jdbc;
+    TransactionTemplate readWrite;
+    TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        routingDataSource = new ReadWriteRoutingDataSource(primary, Map.of("replica", replica));
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        ReadWriteRoutingContext.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadWriteRoutingContext.clear();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName(name).build();
+        JdbcTemplate template = new JdbcTemplate(database);
+        template.execute("CREATE TABLE marker (name VARCHAR(20))");
+        template.update("INSERT INTO marker VALUES (?)", name);
+        return database;
+    }
+
+    private String servedBy(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbc.queryForObject("SELECT name FROM marker", String.class));
+    }
+
+    // Test that read-only transactions use the replica and the others the primary
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        Assertions.assertEquals("replica", servedBy(readOnly));
+        ReadWriteRoutingContext.clear();
+        Assertions.assertEquals("primary", servedBy(readWrite));
+    }
+
+    // Test that a request reads its own writes from the primary until it ends
+    @Test
+    void readsAfterAWriteStayOnThePrimary() {
+        readWrite.executeWithoutResult(status -> jdbc.update("INSERT INTO marker VALUES ('written')"));
+
+        Assertions.assertEquals(List.of("primary", "written"), readOnly.execute(
+                status -> jdbc.queryForList("SELECT name FROM marker ORDER BY name", String.class)));
+
+        // The next request reads from the replica again
+        ReadWriteRoutingContext.clear();
+        Assertions.assertEquals("replica", servedBy(readOnly));
+    }
+
+    // Test that without routing nothing is left in the thread local, which no filter would clear
+    @Test
+    void writesAreNotRememberedWithoutRouting() throws Exception {
+        routingDataSource.destroy();
+        ReadWriteRoutingContext.markWritten();
+        Assertions.assertFalse(ReadWriteRoutingContext.hasWritten());
+
+        routingDataSource = new ReadWriteRoutingDataSource(primary, Map.of("replica", replica));
+        ReadWriteRoutingContext.markWritten();
+        Assertions.assertTrue(ReadWriteRoutingContext.hasWritten());
+    }
+
+    // Test that a replica without the current heartbeat is reported and skipped
+    @Test
+    void laggingReplicaIsReportedAndSkipped() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(routingDataSource, 60_000, 5_000);
+        monitor.start();
+        try {
+            // Nothing is replicated between the two databases, so the replica has no heartbeat
+            ReplicaLag lag = monitor.report().get(0);
+            Assertions.assertEquals("replica", lag.name());
+            Assertions.assertFalse(lag.usable(), "A replica without heartbeat should not serve reads");
+            Assertions.assertEquals("primary", servedBy(readOnly));
+
+            // Copy the heartbeat by hand, as replication would
+            Long beat = new JdbcTemplate(primary).queryForObject("SELECT beat_millis FROM replication_heartbeat",
+                    Long.class);
+            JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+            replicaJdbc.execute(ReplicaLagMonitor.CREATE_TABLE);
+            replicaJdbc.update("INSERT INTO replication_heartbeat VALUES (1, ?)", beat);
+            monitor.beat();
+
+            lag = monitor.report().get(0);
+            Assertions.assertEquals(0, lag.lagMillis());
+            Assertions.assertTrue(lag.usable(), "An up to date replica should serve reads");
+            Assertions.assertEquals("replica", servedBy(readOnly));
+        } finally {
+            monitor.stop();
+        }
+    }
+}
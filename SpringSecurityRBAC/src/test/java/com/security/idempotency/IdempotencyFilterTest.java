@@ -0,0 +1,268 @@
+package com.security.idempotency;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.security.blocklist.CircuitBreaker;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class IdempotencyFilterTest {
+
+    @Mock
+    RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    ValueOperations<String, String> valueOps;
+
+    // Stands in for Redis
+    final Map<String, String> redis = new HashMap<>();
+
+    final AtomicInteger executions = new AtomicInteger();
+
+    IdempotencyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        Mockito.when(valueOps.setIfAbsent(anyString(), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenAnswer(call -> redis.putIfAbsent(call.getArgument(0), call.getArgument(1)) == null);
+        Mockito.when(valueOps.get(anyString())).thenAnswer(call -> redis.get(call.getArgument(0)));
+        Mockito.doAnswer(call -> redis.put(call.getArgument(0), call.getArgument(1))).when(valueOps)
+                .set(anyString(), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        Mockito.when(redisTemplate.delete(anyString())).thenAnswer(call -> redis.remove(call.getArgument(0)) != null);
+        filter = new IdempotencyFilter(redisTemplate, true, List.of("/registerStudent", "/user/saveStudent"),
+                List.of("/registerStudent"), 60_000, 30_000, 65536, 1024, 1000, 10, 2, 60_000, 4);
+    }
+
+    // Test that a retried request gets the recorded response without running again
+    @Test
+    void duplicateIsReplayedWithoutRunning() throws Exception {
+        MockHttpServletResponse original = send("/user/saveStudent", "key-1", "{\"userName\":\"john\"}");
+        MockHttpServletResponse retry = send("/user/saveStudent", "key-1", "{\"userName\":\"john\"}");
+
+        Assertions.assertEquals(1, executions.get(), "The controller runs once");
+        Assertions.assertEquals(HttpServletResponse.SC_CREATED, original.getStatus());
+        Assertions.assertEquals("{\"userName\":\"john\"}", original.getContentAsString());
+        Assertions.assertEquals(HttpServletResponse.SC_CREATED, retry.getStatus());
+        Assertions.assertEquals("{\"userName\":\"john\"}", retry.getContentAsString());
+        Assertions.assertEquals("/students/1", retry.getHeader("Location"));
+        Assertions.assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        Assertions.assertNull(original.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+
+        send("/user/saveStudent", "key-2", "{\"userName\":\"john\"}");
+        Assertions.assertEquals(2, executions.get(), "Another key runs again");
+        Assertions.assertEquals(1, filter.stats().replayed());
+    }
+
+    // Test that a key reused with another body is turned away, and one still in flight too where requests cannot wait
+    @Test
+    void mismatchedOrInFlightDuplicateIsRejected() throws Exception {
+        send("/user/saveStudent", "key-1", "{\"userName\":\"john\"}");
+        Assertions.assertEquals(422, send("/user/saveStudent", "key-1", "{\"userName\":\"jane\"}").getStatus());
+
+        String fingerprint = IdempotentResponse.parse(redis.get(key("/user/saveStudent", "key-1"))).fingerprint();
+        redis.put(key("/user/saveStudent", "key-3"), IdempotentResponse.inFlight(fingerprint).format());
+        MockHttpServletResponse inFlight = send("/user/saveStudent", "key-3", "{\"userName\":\"john\"}");
+        Assertions.assertEquals(HttpServletResponse.SC_CONFLICT, inFlight.getStatus());
+        Assertions.assertEquals("1", inFlight.getHeader("Retry-After"));
+        Assertions.assertEquals(1, executions.get());
+        Mockito.verify(valueOps, Mockito.times(1)).get(key("/user/saveStudent", "key-3")); // No polling
+    }
+
+    // Test that a duplicate arriving while the first request runs waits for it without a thread and gets its response
+    @Test
+    void concurrentDuplicateWaitsForFirst() throws Exception {
+        MockHttpServletRequest duplicate = request("/user/saveStudent", "key-1", "{\"userName\":\"john\"}");
+        duplicate.setAsyncSupported(true);
+        MockHttpServletResponse duplicateResponse = new MockHttpServletResponse();
+        CountDownLatch completed = new CountDownLatch(1);
+
+        MockHttpServletResponse original = send("/user/saveStudent", "key-1", "{\"userName\":\"john\"}", () -> {
+            filter.doFilter(duplicate, duplicateResponse, (req, res) -> executions.incrementAndGet());
+            Assertions.assertTrue(duplicate.isAsyncStarted(), "The duplicate waits in async mode");
+            duplicate.getAsyncContext().addListener(completion(completed));
+        });
+
+        Assertions.assertTrue(completed.await(5, TimeUnit.SECONDS), "The duplicate is completed");
+        Assertions.assertEquals(1, executions.get(), "The controller runs once");
+        Assertions.assertEquals(HttpServletResponse.SC_CREATED, original.getStatus());
+        Assertions.assertEquals(HttpServletResponse.SC_CREATED, duplicateResponse.getStatus());
+        Assertions.assertEquals("{\"userName\":\"john\"}", duplicateResponse.getContentAsString());
+        Assertions.assertEquals("true", duplicateResponse.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        Assertions.assertEquals(1, filter.stats().replayed());
+    }
+
+    // Test that a duplicate still waiting when the wait is over is answered 409
+    @Test
+    void waitingDuplicateGivesUp() throws Exception {
+        send("/user/saveStudent", "key-1", "{\"userName\":\"john\"}");
+        String fingerprint = IdempotentResponse.parse(redis.get(key("/user/saveStudent", "key-1"))).fingerprint();
+        redis.put(key("/user/saveStudent", "key-2"), IdempotentResponse.inFlight(fingerprint).format());
+
+        MockHttpServletRequest duplicate = request("/user/saveStudent", "key-2", "{\"userName\":\"john\"}");
+        duplicate.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        CountDownLatch completed = new CountDownLatch(1);
+        filter.doFilter(duplicate, response, (req, res) -> executions.incrementAndGet());
+        duplicate.getAsyncContext().addListener(completion(completed));
+
+        Assertions.assertTrue(completed.await(5, TimeUnit.SECONDS), "The duplicate is completed");
+        Assertions.assertEquals(HttpServletResponse.SC_CONFLICT, response.getStatus());
+        Assertions.assertEquals("1", response.getHeader("Retry-After"));
+        Assertions.assertEquals(1, executions.get());
+        Mockito.verify(valueOps, Mockito.atLeast(2)).get(key("/user/saveStudent", "key-2")); // Re-read while waiting
+        Assertions.assertEquals(1, filter.stats().conflicts());
+    }
+
+    // Test that the registration response, which carries the password hash, is replayed without its body
+    @Test
+    void statusOnlyPathDoesNotRecordBody() throws Exception {
+        MockHttpServletResponse original = send("/registerStudent", "key-1", "{\"password\":\"$2a$12$hash\"}");
+        MockHttpServletResponse retry = send("/registerStudent", "key-1", "{\"password\":\"$2a$12$hash\"}");
+
+        Assertions.assertEquals("{\"password\":\"$2a$12$hash\"}", original.getContentAsString());
+        Assertions.assertFalse(redis.get(key("/registerStudent", "key-1")).contains(
+                Base64.getEncoder().encodeToString("$2a$12$hash".getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertEquals(1, executions.get());
+        Assertions.assertEquals(HttpServletResponse.SC_CREATED, retry.getStatus());
+        Assertions.assertEquals("/students/1", retry.getHeader("Location"));
+        Assertions.assertEquals(0, retry.getContentLength());
+    }
+
+    // Test that a value the filter did not write is left alone, and that Redis failures only open its own breaker
+    @Test
+    void foreignValueAndRedisFailureBypass() throws Exception {
+        redis.put(key("/user/saveStudent", "key-1"), "not ours");
+        send("/user/saveStudent", "key-1", "{}");
+        Assertions.assertEquals("not ours", redis.get(key("/user/saveStudent", "key-1")));
+        Mockito.verify(redisTemplate, Mockito.never()).delete(anyString());
+
+        Mockito.when(valueOps.setIfAbsent(anyString(), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenThrow(new IllegalStateException("Redis is down"));
+        send("/user/saveStudent", "key-2", "{}");
+        send("/user/saveStudent", "key-3", "{}");
+        send("/user/saveStudent", "key-4", "{}");
+
+        Assertions.assertEquals(4, executions.get(), "Every request still runs");
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, filter.stats().breakerState());
+        Assertions.assertEquals(2, filter.stats().redisFailures(), "The open breaker stops calling Redis");
+        Assertions.assertEquals(4, filter.stats().bypassed());
+    }
+
+    // Test that a body over the limit is refused before it is read, with or without a Content-Length
+    @Test
+    void oversizedBodyIsRefused() throws Exception {
+        String large = "{\"userName\":\"" + "j".repeat(1024) + "\"}";
+        MockHttpServletResponse response = send("/user/saveStudent", "key-1", large);
+        Assertions.assertEquals(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, response.getStatus());
+
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/user/saveStudent") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.setServletPath("/user/saveStudent");
+        chunked.addHeader(IdempotencyFilter.HEADER, "key-2");
+        chunked.setContent(large.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse chunkedResponse = new MockHttpServletResponse();
+        filter.doFilter(chunked, chunkedResponse, (req, res) -> executions.incrementAndGet());
+        Assertions.assertEquals(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, chunkedResponse.getStatus());
+
+        Assertions.assertEquals(0, executions.get());
+        Assertions.assertTrue(redis.isEmpty(), "No key is claimed");
+    }
+
+    private static String key(String path, String idempotencyKey) {
+        return IdempotencyFilter.KEY_PREFIX + path + ":anonymous@127.0.0.1:" + idempotencyKey;
+    }
+
+    // Counts down when the async request it is added to completes
+    private static AsyncListener completion(CountDownLatch completed) {
+        return new AsyncListener() {
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+                completed.countDown();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        };
+    }
+
+    private static MockHttpServletRequest request(String path, String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setServletPath(path);
+        request.addHeader(IdempotencyFilter.HEADER, key);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletResponse send(String path, String key, String body) throws Exception {
+        return send(path, key, body, () -> {
+        });
+    }
+
+    // Sends a request whose controller runs the given step before it answers
+    private MockHttpServletResponse send(String path, String key, String body, Step whileRunning) throws Exception {
+        MockHttpServletRequest request = request(path, key, body);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (req, res) -> {
+            executions.incrementAndGet();
+            whileRunning.run();
+            HttpServletResponse http = (HttpServletResponse) res;
+            http.setStatus(HttpServletResponse.SC_CREATED);
+            http.setHeader("Location", "/students/1");
+            http.setContentType("application/json");
+            http.getOutputStream().write(req.getInputStream().readAllBytes()); // Echoes the body it could still read
+        };
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private interface Step {
+        void run() throws ServletException, IOException;
+    }
+}
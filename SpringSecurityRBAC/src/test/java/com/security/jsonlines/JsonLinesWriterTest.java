@@ -0,0 +1,62 @@
+package com.security.jsonlines;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JsonLinesWriterTest {
+
+    @TempDir
+    Path directory;
+
+    // Writes each string as {"value":"..."}
+    private JsonLinesWriter<String> writer(long maxFileBytes) {
+        return new JsonLinesWriter<>(directory, "values", "values-writer", 100, maxFileBytes) {
+            @Override
+            protected void format(String value, StringBuilder lines) {
+                lines.append("{\"value\":");
+                string(lines, value);
+                lines.append("}\n");
+            }
+        };
+    }
+
+    // Test that queued items are written on stop, with quotes, backslashes and control characters escaped
+    @Test
+    void writesEscapedLines() throws Exception {
+        JsonLinesWriter<String> writer = writer(1 << 20);
+        writer.start();
+        writer.offer("say \"hi\"");
+        writer.offer("C:\\temp\n\t");
+        writer.stop();
+
+        Assertions.assertEquals(List.of("{\"value\":\"say \\\"hi\\\"\"}", "{\"value\":\"C:\\\\temp\\u000a\\u0009\"}"),
+                Files.readAllLines(directory.resolve("values.jsonl")));
+        Assertions.assertEquals(2, writer.getWritten());
+        Assertions.assertEquals(0, writer.getDropped());
+    }
+
+    // Test that a full file is renamed on the next start and writing goes on in a new one
+    @Test
+    void rollsFullFile() throws Exception {
+        JsonLinesWriter<String> first = writer(10);
+        first.start();
+        first.offer("first line over ten bytes");
+        first.stop();
+
+        JsonLinesWriter<String> second = writer(10);
+        second.start();
+        second.offer("second");
+        second.stop();
+
+        Assertions.assertEquals(List.of("{\"value\":\"second\"}"), Files.readAllLines(directory.resolve("values.jsonl")));
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(2, files.count(), "The full file was kept as values-<millis>.jsonl");
+        }
+    }
+}
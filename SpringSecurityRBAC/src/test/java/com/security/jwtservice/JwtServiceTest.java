@@ -0,0 +1,31 @@
+package com.security.jwtservice;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class JwtServiceTest {
+
+    // Test that only a token signed with this service's key yields its role
+    @Test
+    void verifiedRoleRejectsForgedTokens() {
+        JwtService jwtService = new JwtService();
+        String token = jwtService.generateToken("john", "ROLE_USER");
+        Assertions.assertEquals("ROLE_USER", jwtService.verifiedRole(token));
+
+        // Same signature, payload rewritten to claim the admin role
+        String[] parts = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+        String forged = parts[0] + "."
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(
+                        payload.replace("ROLE_USER", "ROLE_ADMIN").getBytes(StandardCharsets.UTF_8))
+                + "." + parts[2];
+        Assertions.assertEquals("ROLE_ADMIN", jwtService.peekClaim(forged, "role"));
+        Assertions.assertNull(jwtService.verifiedRole(forged));
+
+        Assertions.assertNull(jwtService.verifiedRole(new JwtService().generateToken("eve", "ROLE_ADMIN")));
+        Assertions.assertNull(jwtService.verifiedRole("not-a-token"));
+    }
+}
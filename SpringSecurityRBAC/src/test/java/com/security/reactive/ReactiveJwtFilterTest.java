@@ -0,0 +1,78 @@
+package com.security.reactive;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.web.server.WebFilterChain;
+
+import com.security.jwtservice.JwtService;
+import com.security.studentdto.Role;
+import com.security.studentdto.StudentLoginDetails;
+import com.security.studentdto.StudentloginDetailsPrinciple;
+
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveJwtFilterTest {
+
+    @Spy
+    JwtService jwtService = new JwtService();
+
+    @Mock
+    ReactiveStudentLoginDetailsService userDetailsService;
+
+    @InjectMocks
+    ReactiveJwtFilter filter;
+
+    private static MockServerWebExchange exchange(String token) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/user/getStudentById/7")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+    }
+
+    // Test that a malformed token is a 401 that never reaches the rest of the chain
+    @Test
+    void malformedTokenIsUnauthorized() {
+        MockServerWebExchange exchange = exchange("not.a.jwt");
+        WebFilterChain chain = Mockito.mock(WebFilterChain.class);
+
+        filter.filter(exchange, chain).block();
+
+        Assertions.assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+        Assertions.assertTrue(exchange.getResponse().getBodyAsString().block().contains("Unauthorized"));
+        Mockito.verifyNoInteractions(chain, userDetailsService);
+    }
+
+    // Test that a valid token runs the chain once, authenticated, and that its errors are not turned into 401s
+    @Test
+    void validTokenAuthenticatesTheChain() {
+        StudentLoginDetails login = new StudentLoginDetails();
+        login.setUserName("john");
+        login.setRole(Role.USER);
+        Mockito.when(userDetailsService.findByUsername("john"))
+                .thenReturn(Mono.just(new StudentloginDetailsPrinciple(login, Role.USER)));
+        String token = jwtService.generateToken("john", "ROLE_USER");
+
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+        filter.filter(exchange(token), exchange -> ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication).doOnNext(seen::set).then()).block();
+        Assertions.assertEquals("john", seen.get().getName());
+
+        IllegalArgumentException failure = new IllegalArgumentException("handler failure");
+        Assertions.assertSame(failure, Assertions.assertThrows(IllegalArgumentException.class,
+                () -> filter.filter(exchange(token), exchange -> Mono.error(failure)).block()));
+    }
+}
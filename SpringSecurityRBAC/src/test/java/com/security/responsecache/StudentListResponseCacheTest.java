@@ -0,0 +1,147 @@
+package com.security.responsecache;
+
+import static org.mockito.ArgumentMatchers.any;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.security.studentdto.StudentDetails;
+import com.security.studentdto.StudentDetailsResponse;
+import com.security.studentrepo.StudentDetailsRepo;
+
+@ExtendWith(MockitoExtension.class)
+public class StudentListResponseCacheTest {
+
+    @Mock
+    StudentDetailsRepo detailsRepo;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    StudentListResponseCache cache;
+
+    private static StudentDetails student(int stuNumber, String fullName) {
+        StudentDetails details = new StudentDetails();
+        details.setStuNumber(stuNumber);
+        details.setFullName(fullName);
+        details.setFatherName("Robert Smith");
+        details.setBranchName("CSE");
+        return details;
+    }
+
+    private void build(List<StudentDetails> students) {
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxAgeMillis", 60_000L);
+        ReflectionTestUtils.setField(cache, "maxBytes", 1 << 20);
+        Mockito.when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        Mockito.when(detailsRepo.findAll()).thenReturn(students);
+        cache.rebuild();
+    }
+
+    // Test that the cached body is the JSON Jackson writes, gzipped when accepted, and revalidated by its ETag
+    @Test
+    void servesEncodedBodyWithETag() throws Exception {
+        List<StudentDetails> students = List.of(student(1, "John Michael Smith"), student(2, "John Michael Smith"));
+        build(students);
+        byte[] json = objectMapper.writeValueAsBytes(StudentDetailsResponse.from(students));
+
+        ResponseEntity<byte[]> identity = cache.serve("application/json", null, null);
+        Assertions.assertArrayEquals(json, identity.getBody());
+        Assertions.assertEquals(json.length, identity.getHeaders().getContentLength());
+        Assertions.assertNull(identity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+        ResponseEntity<byte[]> gzipped = cache.serve(null, "br, gzip;q=0.8", null);
+        Assertions.assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assertions.assertEquals(gzipped.getBody().length, gzipped.getHeaders().getContentLength());
+        Assertions.assertArrayEquals(json, new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody())).readAllBytes());
+        Assertions.assertNotEquals(identity.getHeaders().getETag(), gzipped.getHeaders().getETag(),
+                "Each encoding has its own strong ETag");
+
+        ResponseEntity<byte[]> revalidated = cache.serve(null, "gzip", identity.getHeaders().getETag());
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getStatusCode());
+        Assertions.assertNull(cache.serve(null, "gzip;q=0", "\"0other\"").getHeaders()
+                .getFirst(HttpHeaders.CONTENT_ENCODING), "q=0 refuses gzip");
+        Assertions.assertNull(cache.serve("application/xml", null, null), "Other media types are served uncached");
+    }
+
+    // Test that the cached JSON is only served where content negotiation would pick JSON too
+    @Test
+    void servedOnlyWhenJsonIsPreferred() {
+        build(List.of(student(1, "John Michael Smith")));
+
+        Assertions.assertNotNull(cache.serve("*/*", null, null));
+        Assertions.assertNotNull(cache.serve("application/json, application/cbor;q=0.5", null, null));
+        Assertions.assertNotNull(cache.serve("application/cbor;q=0.5, */*", null, null));
+        Assertions.assertNull(cache.serve("application/cbor, application/json;q=0.9", null, null),
+                "CBOR is ranked first");
+        Assertions.assertNull(cache.serve("application/x-jackson-smile, */*;q=0.1", null, null));
+        Assertions.assertNull(cache.serve("application/json;q=0", null, null));
+        Assertions.assertNull(cache.serve("application/json;q=", null, null), "Malformed Accept is left to Spring MVC");
+    }
+
+    // Test that a write discards the body, and a rebuild that read before the write is not published
+    @Test
+    void invalidationDiscardsBodyAndStaleRebuild() throws Exception {
+        cache.stop(); // Rebuilds are run by the test only
+        build(List.of(student(1, "John Michael Smith")));
+        Assertions.assertNotNull(cache.serve(null, null, null));
+
+        // A write lands while a rebuild is reading the old list
+        Mockito.when(detailsRepo.findAll()).thenAnswer(invocation -> {
+            cache.invalidate();
+            return List.of(student(1, "John Michael Smith"));
+        });
+        cache.invalidate();
+        cache.rebuild();
+        Assertions.assertNull(cache.serve(null, null, null), "The rebuild overlapping a write was discarded");
+
+        Mockito.when(detailsRepo.findAll()).thenReturn(List.of(student(1, "Jane Doe")));
+        cache.rebuild();
+        Assertions.assertTrue(new String(cache.serve(null, null, null).getBody()).contains("Jane Doe"));
+        Assertions.assertEquals(3, cache.stats().invalidations());
+    }
+
+    // Test that a burst of writes puts the rebuild off until it goes quiet, but never past the maximum delay
+    @Test
+    void rebuildWaitsForQuietPeriod() {
+        cache.stop(); // Rebuilds are run by the test only
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "rebuildQuietMillis", 250L);
+        ReflectionTestUtils.setField(cache, "rebuildMaxDelayMillis", 1000L);
+
+        cache.invalidate();
+        long first = (long) ReflectionTestUtils.getField(cache, "firstInvalidatedMillis");
+        Assertions.assertEquals(250, cache.rebuildDelay(first));
+
+        ReflectionTestUtils.setField(cache, "lastInvalidatedMillis", first + 600);
+        Assertions.assertEquals(250, cache.rebuildDelay(first + 600), "A later write restarts the quiet period");
+        ReflectionTestUtils.setField(cache, "lastInvalidatedMillis", first + 900);
+        Assertions.assertEquals(100, cache.rebuildDelay(first + 900), "Capped at the maximum delay");
+        Assertions.assertEquals(0, cache.rebuildDelay(first + 1000));
+
+        build(List.of(student(1, "John Michael Smith")));
+        Assertions.assertEquals(0, cache.rebuildDelay(first + 900), "Nothing left to wait for after the rebuild");
+        Assertions.assertEquals(1, cache.stats().rebuilds());
+    }
+}
@@ -0,0 +1,90 @@
+package com.security.sqltiming;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+// Times statements against an embedded H2 database holding a few students
+public class SqlTimingDataSourceTest {
+
+    @TempDir
+    Path directory;
+
+    EmbeddedDatabase database;
+    SqlStatementMonitor monitor;
+    JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("sqltiming").build();
+        // Every statement counts as slow, and three runs of one statement in a request are an N+1 pattern
+        monitor = new SqlStatementMonitor(true, 0, 1.0, 3, directory.toString(), 64, 1 << 20);
+        monitor.start();
+        jdbc = new JdbcTemplate(new SqlTimingDataSource(database, monitor));
+        jdbc.execute("CREATE TABLE student (id INT PRIMARY KEY, name VARCHAR(40))");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        monitor.stop();
+        database.shutdown();
+    }
+
+    // Test that statements are counted by kind and logged with their rows and caller
+    @Test
+    void statementsAreCountedAndLogged() throws Exception {
+        try (QueryCount count = QueryCount.start()) {
+            jdbc.update("INSERT INTO student VALUES (?, ?)", 1, "John Smith");
+            jdbc.update("INSERT INTO student VALUES (?, ?)", 2, "Jane Doe");
+            List<String> names = jdbc.queryForList("SELECT name FROM student ORDER BY id", String.class);
+
+            Assertions.assertEquals(List.of("John Smith", "Jane Doe"), names);
+            count.assertInserts(2);
+            count.assertSelects(1);
+            count.assertTotal(3);
+            Assertions.assertThrows(AssertionError.class, () -> count.assertSelects(0));
+        }
+        monitor.stop();
+
+        List<String> entries = Files.readAllLines(directory.resolve("slow-queries.jsonl"));
+        String select = entries.get(entries.size() - 1);
+        Assertions.assertTrue(select.contains("\"kind\":\"slow\""));
+        Assertions.assertTrue(select.contains("\"rows\":2"), "The rows read from the result set are counted");
+        Assertions.assertTrue(select.contains("\"caller\":\"SqlTimingDataSourceTest.statementsAreCountedAndLogged\""));
+        Assertions.assertTrue(select.contains("\"sql\":\"SELECT name FROM student ORDER BY id\""));
+    }
+
+    // Test that a statement repeated within one request is flagged once as an N+1 pattern
+    @Test
+    void repeatedStatementInRequestIsFlagged() throws Exception {
+        jdbc.update("INSERT INTO student VALUES (?, ?)", 1, "John Smith");
+
+        monitor.beginRequest("GET /moderator/getAllStudent");
+        for (int i = 0; i < 4; i++) {
+            jdbc.queryForObject("SELECT name FROM student WHERE id = ?", String.class, 1);
+        }
+        monitor.endRequest();
+
+        monitor.beginRequest("GET /user/getStudentById/1");
+        jdbc.queryForObject("SELECT name FROM student WHERE id = ?", String.class, 1);
+        monitor.endRequest();
+        monitor.stop();
+
+        Assertions.assertEquals(1, monitor.stats().nPlusOneRequests());
+        List<String> flagged = Files.readAllLines(directory.resolve("slow-queries.jsonl")).stream()
+                .filter(entry -> entry.contains("\"kind\":\"n+1\"")).toList();
+        Assertions.assertEquals(1, flagged.size());
+        Assertions.assertTrue(flagged.get(0).contains("\"executions\":4"));
+        Assertions.assertTrue(flagged.get(0).contains("\"request\":\"GET /moderator/getAllStudent\""));
+    }
+}
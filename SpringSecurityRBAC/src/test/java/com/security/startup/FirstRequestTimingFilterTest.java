@@ -0,0 +1,62 @@
+package com.security.startup;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class FirstRequestTimingFilterTest {
+
+    final StartupTimings timings = new StartupTimings();
+
+    final FirstRequestTimingFilter filter = new FirstRequestTimingFilter(timings, Set.of("/readiness"));
+
+    private void perform(String path) throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", path), new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    private void readiness(ReadinessState state) {
+        timings.readinessChanged(new AvailabilityChangeEvent<>(this, state));
+    }
+
+    // Test that requests answered during the warm-up are not the first request
+    @Test
+    void requestsBeforeAcceptingTrafficAreIgnored() throws Exception {
+        readiness(ReadinessState.REFUSING_TRAFFIC);
+        perform("/user/getStudentById/7");
+        Assertions.assertFalse(timings.isFirstRequestRecorded());
+
+        readiness(ReadinessState.ACCEPTING_TRAFFIC);
+        perform("/user/getStudentById/7");
+        Assertions.assertTrue(timings.isFirstRequestRecorded());
+        Assertions.assertTrue(timings.report().firstRequestMillis() >= 0);
+    }
+
+    // Test that readiness probes never count, even once traffic is accepted
+    @Test
+    void probesAreIgnored() throws Exception {
+        perform("/readiness");
+        readiness(ReadinessState.ACCEPTING_TRAFFIC);
+        perform("/readiness");
+        Assertions.assertFalse(timings.isFirstRequestRecorded());
+        Assertions.assertEquals(-1, timings.report().firstRequestMillis());
+
+        perform("/moderator/getAllStudent");
+        Assertions.assertTrue(timings.isFirstRequestRecorded());
+    }
+
+    // Test that the first request is recorded once, and later requests leave it alone
+    @Test
+    void firstRequestIsRecordedOnce() throws Exception {
+        readiness(ReadinessState.ACCEPTING_TRAFFIC);
+        perform("/user/getStudentById/7");
+        long first = timings.report().firstRequestMillis();
+        perform("/user/getStudentById/8");
+        Assertions.assertEquals(first, timings.report().firstRequestMillis());
+    }
+}
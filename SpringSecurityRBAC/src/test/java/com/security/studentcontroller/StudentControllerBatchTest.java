@@ -0,0 +1,113 @@
+package com.security.studentcontroller;
+
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.security.exception.Exceptions;
+import com.security.studentdao.StudentDetailsDao;
+import com.security.studentdto.StudentDetails;
+import com.security.studentservice.StudentDetailsService;
+import com.security.writebehind.WriteBehindIngestor;
+
+@ExtendWith(MockitoExtension.class)
+public class StudentControllerBatchTest {
+
+    @Mock
+    WriteBehindIngestor writeBehindIngestor;
+
+    // Real service over a mocked DAO, so that the batch validation runs as in production
+    @Spy
+    StudentDetailsService studentDetailsService = new StudentDetailsService();
+
+    @InjectMocks
+    StudentController controller;
+
+    StudentDetailsDao dao = Mockito.mock(StudentDetailsDao.class);
+
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(studentDetailsService, "dao", dao);
+        ReflectionTestUtils.setField(studentDetailsService, "maxBatchIds", 3);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new Exceptions()).build();
+    }
+
+    private static StudentDetails student(int stuNumber) {
+        StudentDetails details = new StudentDetails();
+        details.setStuNumber(stuNumber);
+        details.setFullName("Student " + stuNumber);
+        details.setBranchName("CSE");
+        return details;
+    }
+
+    private void perform(String ids, ResultMatcher... expectations) throws Exception {
+        mockMvc.perform(post("/user/getStudentsByIds").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":" + ids + "}")).andExpectAll(expectations);
+    }
+
+    // Test that duplicates are queried once and answered once, in request order, with missing IDs listed apart
+    @Test
+    void duplicateAndMissingIds() throws Exception {
+        Mockito.when(dao.getStudentDetailsByIdsDao(anyCollection())).thenReturn(List.of(student(2), student(7)));
+
+        perform("[7, 2, 7, 9, 2]", status().isOk(),
+                jsonPath("$.students.length()").value(2),
+                jsonPath("$.students[0].stuNumber").value(7),
+                jsonPath("$.students[1].stuNumber").value(2),
+                jsonPath("$.missingIds").value(contains(9)));
+
+        Mockito.verify(dao).getStudentDetailsByIdsDao(Set.of(7, 2, 9));
+    }
+
+    // Test that a batch where no ID exists is still a 200, with every ID reported missing
+    @Test
+    void allIdsMissing() throws Exception {
+        Mockito.when(dao.getStudentDetailsByIdsDao(anyCollection())).thenReturn(List.of());
+
+        perform("[4, 5]", status().isOk(),
+                jsonPath("$.students.length()").value(0),
+                jsonPath("$.missingIds").value(contains(4, 5)));
+    }
+
+    // Test that empty and null-only lists are 400s that never reach the DAO
+    @Test
+    void emptyIdsAreRejected() throws Exception {
+        perform("[]", status().isBadRequest());
+        perform("null", status().isBadRequest());
+        perform("[null]", status().isBadRequest());
+
+        Mockito.verifyNoInteractions(dao);
+    }
+
+    // Test that the limit counts distinct IDs: duplicates do not push a batch over it, more distinct IDs do
+    @Test
+    void overLimitIsRejected() throws Exception {
+        Mockito.when(dao.getStudentDetailsByIdsDao(anyCollection())).thenReturn(List.of());
+
+        perform("[1, 2, 3, 3, 1]", status().isOk());
+        perform("[1, 2, 3, 4]", status().isBadRequest());
+
+        Mockito.verify(dao, Mockito.times(1)).getStudentDetailsByIdsDao(anyCollection());
+    }
+}
@@ -0,0 +1,101 @@
+package com.security.studentcontroller;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.security.exception.Exceptions;
+import com.security.responsecache.StudentListResponseCache;
+import com.security.studentdao.StudentDetailsDao;
+import com.security.studentdto.StudentSummary;
+import com.security.studentservice.StudentDetailsService;
+
+@ExtendWith(MockitoExtension.class)
+public class StudentControllerModeratorTest {
+
+    @Mock
+    StudentListResponseCache listResponseCache;
+
+    // Real service over a mocked DAO, so that the request validation runs as in production
+    @Spy
+    StudentDetailsService studentDetailsService = new StudentDetailsService();
+
+    @InjectMocks
+    StudentControllerModerator controller;
+
+    StudentDetailsDao dao = Mockito.mock(StudentDetailsDao.class);
+
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(studentDetailsService, "dao", dao);
+        ReflectionTestUtils.setField(studentDetailsService, "maxSearchPageSize", 100);
+        ReflectionTestUtils.setField(studentDetailsService, "maxSearchOffset", 10_000L);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new Exceptions()).build();
+    }
+
+    // Test that a page is fetched at its offset with one extra row telling whether a next page exists
+    @Test
+    void searchReturnsPageWithNextFlag() throws Exception {
+        Mockito.when(dao.searchStudentDetailsDao(eq("CSE"), isNull(), eq(List.of("stuNumber", "fullName")),
+                eq("fullName"), eq(true), eq(40), eq(21)))
+                .thenReturn(Collections.nCopies(21, new StudentSummary(1, "John Smith", null, null)));
+
+        mockMvc.perform(get("/moderator/searchStudents").param("branch", "CSE").param("fields", "stuNumber,fullName")
+                .param("sort", "fullName").param("page", "2").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.students.length()").value(20))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
+
+    // Test that a page whose offset overflows an int, or passes the offset cap, is a 400 that never reaches the DAO
+    @Test
+    void searchRejectsPageBeyondOffsetCap() throws Exception {
+        mockMvc.perform(get("/moderator/searchStudents").param("page", "107374183").param("size", "20"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/moderator/searchStudents").param("page", "501").param("size", "20"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/moderator/searchStudents").param("page", "500").param("size", "20"))
+                .andExpect(status().isOk());
+
+        Mockito.verify(dao).searchStudentDetailsDao(isNull(), isNull(), anyList(), anyString(), anyBoolean(),
+                eq(10_000), anyInt());
+    }
+
+    // Test that negative pages, out-of-range sizes and unknown fields are 400s
+    @Test
+    void searchRejectsInvalidParameters() throws Exception {
+        mockMvc.perform(get("/moderator/searchStudents").param("page", "-1")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/moderator/searchStudents").param("size", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/moderator/searchStudents").param("size", "-20")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/moderator/searchStudents").param("size", "101")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/moderator/searchStudents").param("fields", "password"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/moderator/searchStudents").param("sort", "fatherName"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(dao);
+    }
+}
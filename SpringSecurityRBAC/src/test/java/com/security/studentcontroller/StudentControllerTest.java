@@ -0,0 +1,108 @@
+package com.security.studentcontroller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.security.exception.Exceptions;
+import com.security.studentdto.StudentDetails;
+import com.security.studentservice.StudentDetailsService;
+import com.security.writebehind.WriteBehindIngestor;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class StudentControllerTest {
+
+    @Mock
+    StudentDetailsService studentDetailsService;
+
+    @Mock
+    WriteBehindIngestor writeBehindIngestor;
+
+    @InjectMocks
+    StudentController controller;
+
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        // The default converters, JSON first, then Smile and CBOR, as in the application
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new Exceptions()).build();
+        StudentDetails details = new StudentDetails();
+        details.setStuNumber(7);
+        details.setFullName("John Smith");
+        details.setBranchName("CSE");
+        details.setVersion(3);
+        Mockito.when(studentDetailsService.getStudentDetailsService(7)).thenReturn(details);
+        Mockito.when(studentDetailsService.getStudentDetailsService(7, 3L)).thenReturn(details);
+        Mockito.when(studentDetailsService.getStudentDetailsVersionService(7)).thenReturn(3L);
+    }
+
+    // Test that a missing Accept header and */* both get JSON with the plain version as ETag
+    @Test
+    void getByIdDefaultsToJson() throws Exception {
+        mockMvc.perform(get("/user/getStudentById/7"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(header().string("Vary", "Accept"));
+        mockMvc.perform(get("/user/getStudentById/7").header("Accept", "*/*"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    // Test that each binary format gets an ETag of its own, so a cached JSON body never validates a CBOR request
+    @Test
+    void getByIdTagsEachFormat() throws Exception {
+        mockMvc.perform(get("/user/getStudentById/7").header("Accept", "application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", "\"3-cbor\""))
+                .andExpect(header().string("Vary", "Accept"));
+        mockMvc.perform(get("/user/getStudentById/7").header("Accept", "application/x-jackson-smile"))
+                .andExpect(header().string("ETag", "\"3-smile\""));
+
+        mockMvc.perform(get("/user/getStudentById/7").header("Accept", "application/cbor")
+                .header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/user/getStudentById/7").header("Accept", "application/cbor")
+                .header("If-None-Match", "\"3-cbor\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", "Accept"));
+    }
+
+    // Test that a failed If-None-Match reads the body at the version it was compared with
+    @Test
+    void changedVersionIsReadAtThatVersion() throws Exception {
+        mockMvc.perform(get("/user/getStudentById/7").header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+        Mockito.verify(studentDetailsService).getStudentDetailsService(7, 3L);
+        Mockito.verify(studentDetailsService, Mockito.never()).getStudentDetailsService(7);
+    }
+
+    // Test that an If-Match tag of any format names the same version
+    @Test
+    void ifMatchAcceptsEveryFormat() {
+        Assertions.assertEquals(3L, StudentDetailsETag.expectedVersion("\"3\""));
+        Assertions.assertEquals(3L, StudentDetailsETag.expectedVersion("\"3-cbor\""));
+        Assertions.assertEquals(3L, StudentDetailsETag.expectedVersion("\"3-smile\""));
+        Assertions.assertEquals(-1L, StudentDetailsETag.expectedVersion("\"3-xml\""));
+    }
+}
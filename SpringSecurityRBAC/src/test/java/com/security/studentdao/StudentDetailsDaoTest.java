@@ -0,0 +1,101 @@
+package com.security.studentdao;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.security.exception.StudentDetailsVersionMismatchException;
+import com.security.responsecache.StudentListResponseCache;
+import com.security.studentdto.StudentDetails;
+import com.security.studentindex.StudentNamePrefixIndex;
+import com.security.studentrepo.StudentDetailsRepo;
+import com.security.warmcache.StudentCache;
+
+@ExtendWith(MockitoExtension.class) // Enables Mockito extension for JUnit 5 to support mocking
+public class StudentDetailsDaoTest {
+
+    // Mocking the repository to simulate the database interaction
+    @Mock
+    StudentDetailsRepo detailsRepo;
+
+    // Mocking the name index that the DAO keeps in step with writes
+    @Mock
+    StudentNamePrefixIndex nameIndex;
+
+    // Mocking the cache of students read by ID
+    @Mock
+    StudentCache studentCache;
+
+    // Mocking the serialized list of all students that writes discard
+    @Mock
+    StudentListResponseCache listResponseCache;
+
+    // Injecting the mock repository into the DAO
+    @InjectMocks
+    StudentDetailsDao dao;
+
+    // Builds a stored student with the given version
+    private StudentDetails storedStudent(long version) {
+        StudentDetails details = new StudentDetails();
+        details.setStuNumber(7);
+        details.setFullName("John Michael Smith");
+        details.setFatherName("Robert Smith");
+        details.setBranchName("CSE");
+        details.setVersion(version);
+        return details;
+    }
+
+    // Test that a cached copy older than the version just read is dropped and read again, and a newer one kept
+    @Test
+    void getStudentDetailsByIdDaoReloadsStaleCopy() {
+        Mockito.when(studentCache.getOrLoad(Mockito.eq(7), any())).thenReturn(storedStudent(2), storedStudent(3));
+        Assertions.assertEquals(3, dao.getStudentDetailsByIdDao(7, 3).getVersion());
+        verify(studentCache).invalidate(7);
+
+        Mockito.reset(studentCache);
+        Mockito.when(studentCache.getOrLoad(Mockito.eq(7), any())).thenReturn(storedStudent(4));
+        Assertions.assertEquals(4, dao.getStudentDetailsByIdDao(7, 3).getVersion());
+        verify(studentCache, never()).invalidate(7);
+    }
+
+    // Test that an update with a matching If-Match version is applied
+    @Test
+    void updateStudentDetailsDaoWithMatchingVersion() {
+        StudentDetails stored = storedStudent(3);
+        Mockito.when(detailsRepo.findById(7)).thenReturn(Optional.of(stored));
+        Mockito.when(detailsRepo.save(stored)).thenReturn(stored);
+
+        StudentDetails update = storedStudent(0);
+        update.setBranchName("ECE");
+
+        StudentDetails testResult = dao.updateStudentDetailsDao(update, 3L);
+
+        // Asserting that the new branch name was copied onto the stored entity
+        Assertions.assertEquals("ECE", testResult.getBranchName(), "The branch name should be updated");
+        verify(detailsRepo).save(stored);
+        verify(nameIndex).put(7, "John Michael Smith");
+        verify(listResponseCache).invalidate();
+    }
+
+    // Test that an update based on a stale version is rejected without writing
+    @Test
+    void updateStudentDetailsDaoWithStaleVersion() {
+        Mockito.when(detailsRepo.findById(7)).thenReturn(Optional.of(storedStudent(4)));
+
+        Assertions.assertThrows(StudentDetailsVersionMismatchException.class,
+                () -> dao.updateStudentDetailsDao(storedStudent(0), 3L), "A stale version should be rejected");
+
+        // Verifying that nothing was written
+        verify(detailsRepo, never()).save(any(StudentDetails.class));
+    }
+}
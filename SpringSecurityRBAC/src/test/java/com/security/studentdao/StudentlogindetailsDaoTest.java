@@ -0,0 +1,83 @@
+package com.security.studentdao;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.security.exception.StudentLoginDetailsCreationException;
+import com.security.studentdto.Role;
+import com.security.studentdto.StudentLoginDetails;
+import com.security.studentrepo.StudentloginDetailsRepo;
+import com.security.studentservice.StudentDetailsLoginSecurityDetails;
+import com.security.warmcache.PrincipalCache;
+
+@ExtendWith(MockitoExtension.class)
+public class StudentlogindetailsDaoTest {
+
+    @Mock
+    StudentloginDetailsRepo repo;
+
+    // Real cache shared by the DAO and the UserDetailsService, as in the application
+    PrincipalCache principalCache = new PrincipalCache(60_000, 100, 1000);
+
+    StudentlogindetailsDao dao = new StudentlogindetailsDao();
+
+    StudentDetailsLoginSecurityDetails userDetailsService = new StudentDetailsLoginSecurityDetails();
+
+    @BeforeEach
+    void setUp() {
+        dao.repo = repo;
+        dao.principalCache = principalCache;
+        ReflectionTestUtils.setField(userDetailsService, "detailsRepo", repo);
+        ReflectionTestUtils.setField(userDetailsService, "principalCache", principalCache);
+    }
+
+    private static StudentLoginDetails login(String userName, Role role) {
+        StudentLoginDetails details = new StudentLoginDetails();
+        details.setUserName(userName);
+        details.setPassword("$2a$12$password-hash");
+        details.setRole(role);
+        return details;
+    }
+
+    // Test that the principal is loaded once, and that saving new login details discards the cached ones
+    @Test
+    void saveInvalidatesCachedPrincipal() {
+        Mockito.when(repo.findByUserName("john")).thenReturn(login("john", Role.USER));
+        userDetailsService.loadUserByUsername("john");
+        UserDetails cached = userDetailsService.loadUserByUsername("john");
+        Assertions.assertTrue(cached.getAuthorities().toString().contains("ROLE_USER"));
+        verify(repo, times(1)).findByUserName("john");
+
+        StudentLoginDetails promoted = login("john", Role.MODERATOR);
+        Mockito.when(repo.save(promoted)).thenReturn(promoted);
+        dao.saveLoginDetailsRepo(promoted);
+        Assertions.assertNull(principalCache.get("john"), "The old login details are no longer served");
+
+        Mockito.when(repo.findByUserName("john")).thenReturn(promoted);
+        UserDetails reloaded = userDetailsService.loadUserByUsername("john");
+        Assertions.assertTrue(reloaded.getAuthorities().toString().contains("ROLE_MODERATOR"));
+        verify(repo, times(2)).findByUserName("john");
+    }
+
+    // Test that a failed save leaves the cached principal alone
+    @Test
+    void failedSaveKeepsCachedPrincipal() {
+        StudentLoginDetails details = login("jane", Role.USER);
+        principalCache.put("jane", details);
+        Mockito.when(repo.save(details)).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        Assertions.assertThrows(StudentLoginDetailsCreationException.class, () -> dao.saveLoginDetailsRepo(details));
+        Assertions.assertNotNull(principalCache.get("jane"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.security.studentindex;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.security.studentdto.StudentSummary;
+import com.security.studentrepo.StudentDetailsRepo;
+
+@ExtendWith(MockitoExtension.class) // Enables Mockito extension for JUnit 5 to support mocking
+public class StudentNamePrefixIndexTest {
+
+    // Mocking the repository the index is rebuilt from
+    @Mock
+    StudentDetailsRepo detailsRepo;
+
+    // Injecting the mock repository into the index
+    @InjectMocks
+    StudentNamePrefixIndex index;
+
+    // Builds the snapshot from the given rows and waits for the background swap
+    private void buildFrom(List<StudentSummary> rows) throws InterruptedException {
+        ReflectionTestUtils.setField(index, "rebuildThreshold", 1000);
+        Mockito.when(detailsRepo.searchStudents(isNull(), isNull(), any(), anyString(), anyBoolean(), anyInt(),
+                anyInt())).thenReturn(rows);
+        index.rebuildAsync();
+        for (int i = 0; i < 500 && index.stats().builtAtMillis() == 0; i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(rows.size(), index.stats().snapshotEntries(), "The snapshot should be built");
+    }
+
+    // Test that lookups are case-insensitive, ordered by name and limited to k
+    @Test
+    void lookupReturnsTopKMatchesInNameOrder() throws InterruptedException {
+        buildFrom(List.of(new StudentSummary(1, "John Smith", null, null),
+                new StudentSummary(2, "Alice Brown", null, null),
+                new StudentSummary(3, "johanna Berg", null, null),
+                new StudentSummary(4, "Jonas Weber", null, null)));
+
+        List<StudentSummary> matches = index.lookup("JO", 2);
+
+        Assertions.assertEquals(List.of(3, 1), matches.stream().map(StudentSummary::stuNumber).toList(),
+                "The two first names starting with 'jo' should be returned");
+        Assertions.assertTrue(index.stats().estimatedBytes() > 0, "Memory use should be reported");
+    }
+
+    // Test that writes after the snapshot are visible and hide stale entries
+    @Test
+    void writesOverlayTheSnapshot() throws InterruptedException {
+        buildFrom(List.of(new StudentSummary(1, "John Smith", null, null),
+                new StudentSummary(2, "Jonas Weber", null, null)));
+
+        index.put(1, "Mary Smith"); // Renamed, so no longer matches "jo"
+        index.remove(2); // Deleted
+        index.put(5, "Joe Black"); // Created
+
+        Assertions.assertEquals(List.of(5), index.lookup("jo", 10).stream().map(StudentSummary::stuNumber).toList(),
+                "Only the newly created student should match");
+        Assertions.assertEquals(List.of(1), index.lookup("mary", 10).stream().map(StudentSummary::stuNumber).toList(),
+                "The renamed student should match its new name");
+    }
+}
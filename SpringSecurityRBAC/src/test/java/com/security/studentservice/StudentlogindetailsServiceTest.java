@@ -10,9 +10,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import com.security.concurrency.BlockingResourceLimiter;
 import com.security.studentdao.StudentlogindetailsDao;
 import com.security.studentdto.Role;
 import com.security.studentdto.StudentLoginDetails;
@@ -24,6 +26,10 @@ public class StudentlogindetailsServiceTest {
     @Mock
     StudentlogindetailsDao dao;
 
+    // Real limiter with single permits, so hashing runs through it as in production
+    @Spy
+    BlockingResourceLimiter limiter = new BlockingResourceLimiter(1, 1, 1000);
+
     // Injecting the mock DAO into the service class
     @InjectMocks
     StudentlogindetailsService service;
@@ -0,0 +1,106 @@
+package com.security.studentservice;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.security.blocklist.OpaqueSessionStore;
+import com.security.blocklist.SessionRecord;
+import com.security.blocklist.TokenBlocklist;
+import com.security.concurrency.BlockingResourceLimiter;
+import com.security.jwtservice.JwtService;
+import com.security.studentdto.IntrospectionResult;
+import com.security.studentdto.Role;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class TokenIntrospectionServiceTest {
+
+    @Mock
+    RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    ValueOperations<String, String> valueOps;
+
+    final JwtService jwtService = new JwtService();
+
+    OpaqueSessionStore sessionStore;
+
+    TokenIntrospectionService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        // Bitmap mirror disabled, so a JWT without a slot is checked with EXISTS
+        TokenBlocklist blocklist = new TokenBlocklist(redisTemplate, new BlockingResourceLimiter(4, 1, 1000),
+                jwtService, "open", 2, 50, 60_000, 100, 1000, true, 300_000, 0);
+        Mockito.when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenAnswer(call -> new ArrayList<>(List.of(false)));
+        // Sessions are trusted locally for no time at all, so each one is looked up in Redis
+        sessionStore = new OpaqueSessionStore(redisTemplate, blocklist, "opaque", 0);
+        service = new TokenIntrospectionService();
+        ReflectionTestUtils.setField(service, "jwtService", jwtService);
+        ReflectionTestUtils.setField(service, "blocklist", blocklist);
+        ReflectionTestUtils.setField(service, "sessionStore", sessionStore);
+        ReflectionTestUtils.setField(service, "maxBatchSize", 10);
+    }
+
+    // Test that all opaque sessions of a batch are fetched with one MGET next to the JWT checks
+    @Test
+    void opaqueTokensAreResolvedWithOneMget() {
+        String john = sessionStore.issue("john", "ROLE_USER");
+        String jane = sessionStore.issue("jane", "ROLE_MODERATOR");
+        String jwt = jwtService.generateToken("mod", "ROLE_MODERATOR");
+        Mockito.when(valueOps.multiGet(anyList())).thenAnswer(call -> {
+            List<String> keys = call.getArgument(0);
+            return keys.stream().map(key -> key.endsWith(jane) ? null
+                    : new SessionRecord("john", Role.USER, System.currentTimeMillis() + 60_000).format()).toList();
+        });
+
+        List<IntrospectionResult> results = service.introspectAll(List.of(john, jwt, jane, "forged.jwt.token"));
+
+        Assertions.assertTrue(results.get(0).isActive());
+        Assertions.assertEquals("ROLE_USER", results.get(0).getRole());
+        Assertions.assertTrue(results.get(1).isActive());
+        Assertions.assertEquals("mod", results.get(1).getSub());
+        Assertions.assertFalse(results.get(2).isActive(), "Logged out on another node");
+        Assertions.assertFalse(results.get(3).isActive());
+        verify(valueOps).multiGet(List.of("session:" + john, "session:" + jane));
+        verify(valueOps, never()).get(anyString());
+    }
+
+    // Test that a failed session lookup only makes the unknown opaque tokens inactive
+    @Test
+    void failedLookupIsPerToken() {
+        String known = sessionStore.issue("john", "ROLE_USER");
+        Mockito.when(valueOps.multiGet(anyList())).thenThrow(new RedisConnectionFailureException("Redis is down"));
+        String jwt = jwtService.generateToken("mod", "ROLE_MODERATOR");
+
+        List<IntrospectionResult> results = service.introspectAll(List.of(known, "unknownopaquetoken", jwt));
+
+        Assertions.assertEquals(Arrays.asList(true, false, true),
+                results.stream().map(IntrospectionResult::isActive).toList());
+    }
+}
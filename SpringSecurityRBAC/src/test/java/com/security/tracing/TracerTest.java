@@ -0,0 +1,108 @@
+package com.security.tracing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TracerTest {
+
+    @TempDir
+    Path directory;
+
+    private Tracer tracer(double sampleRate, long slowThresholdMs) {
+        return tracer(sampleRate, slowThresholdMs, 10);
+    }
+
+    private Tracer tracer(double sampleRate, long slowThresholdMs, int maxForcedPerSecond) {
+        return new Tracer(true, sampleRate, slowThresholdMs, maxForcedPerSecond, directory.toString(), 16, 1 << 20);
+    }
+
+    // Test that a propagated, sampled trace keeps its trace id and nests spans under the root
+    @Test
+    void propagatedTraceIsExportedWithNestedSpans() throws Exception {
+        Tracer tracer = tracer(0, 0);
+        tracer.start();
+        String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+        Span root = tracer.startTrace("00-" + traceId + "-00f067aa0ba902b7-01", "GET /user/getStudentById/1");
+        try (Span filter = tracer.startSpan("JwtFilter", "filter")) {
+            try (Span db = tracer.startSpan("StudentDetailsDao.getStudentDetailsByIdDao", "db")) {
+                Thread.sleep(2);
+            }
+        }
+        Assertions.assertTrue(tracer.traceparent(root).startsWith("00-" + traceId + "-"));
+        tracer.endTrace(root);
+        tracer.stop();
+
+        List<String> spans = Files.readAllLines(directory.resolve("traces.jsonl"));
+        Assertions.assertEquals(3, spans.size());
+        Assertions.assertTrue(spans.get(0).contains("\"name\":\"StudentDetailsDao.getStudentDetailsByIdDao\""));
+        String rootSpan = spans.get(2);
+        Assertions.assertTrue(rootSpan.contains("\"traceId\":\"" + traceId + "\""));
+        Assertions.assertTrue(rootSpan.contains("\"parentId\":\"00f067aa0ba902b7\""), "Remote parent is kept");
+        Assertions.assertTrue(rootSpan.contains("\"layer.db.us\":\""), "The root span attributes time per layer");
+    }
+
+    // Test that an unsampled request records nothing and hands out the shared no-op span
+    @Test
+    void unsampledRequestIsNotRecorded() throws InterruptedException, IOException {
+        Tracer tracer = tracer(0, 0);
+        tracer.start();
+
+        Span root = tracer.startTrace(null, "GET /user/testUser");
+        Assertions.assertSame(Span.NOOP, root);
+        Assertions.assertSame(Span.NOOP, tracer.startSpan("JwtFilter", "filter"));
+        Assertions.assertNull(tracer.traceparent(root));
+        tracer.endTrace(root);
+        tracer.stop();
+
+        Assertions.assertFalse(Files.exists(directory.resolve("traces.jsonl")));
+    }
+
+    // Test that a malformed or all-zero traceparent starts a new trace instead of being continued
+    @Test
+    void invalidTraceparentStartsNewTrace() throws InterruptedException {
+        Tracer tracer = tracer(1, 0);
+        String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+        String[] invalid = {
+                "00-" + traceId.toUpperCase() + "-00f067aa0ba902b7-01",
+                "00-00000000000000000000000000000000-00f067aa0ba902b7-01",
+                "00-" + traceId + "-0000000000000000-01",
+                "00-" + traceId.substring(0, 31) + "\"-00f067aa0ba902b7-01",
+                "ff-" + traceId + "-00f067aa0ba902b7-01",
+                "00-" + traceId + "-00f067aa0ba902b7-zz",
+        };
+        for (String traceparent : invalid) {
+            Span root = tracer.startTrace(traceparent, "GET /user/testUser");
+            Assertions.assertTrue(root.isRecording());
+            Assertions.assertNotEquals(traceId, root.getTrace().getTraceId(), traceparent);
+            Assertions.assertNull(root.getParentId(), traceparent);
+            tracer.endTrace(root);
+        }
+        tracer.stop();
+    }
+
+    // Test that the sampled flag of callers forces sampling only up to the per-second cap
+    @Test
+    void forcedSamplingIsCapped() throws InterruptedException {
+        Tracer tracer = tracer(0, 0, 2);
+        String traceparent = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+        int recorded = 0;
+        for (int i = 0; i < 10; i++) {
+            Span root = tracer.startTrace(traceparent, "GET /user/testUser");
+            if (root.isRecording()) {
+                recorded++;
+            }
+            tracer.endTrace(root);
+        }
+        tracer.stop();
+
+        // Two per second; the loop may straddle a second boundary.
+        Assertions.assertTrue(recorded >= 2 && recorded <= 4, "Recorded " + recorded);
+    }
+}
@@ -0,0 +1,79 @@
+package com.security.warmcache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ExpiringCacheTest {
+
+    // Test that a stored value is read back until it expires, and that reads and misses are counted
+    @Test
+    void entriesExpireAfterTheirTtl() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(60_000, 10, 1000);
+        cache.put("john", "USER");
+        Assertions.assertEquals("USER", cache.get("john"));
+        Assertions.assertNull(cache.get("jane"));
+
+        ExpiringCache<String, String> expired = new ExpiringCache<>(0, 10, 1000);
+        expired.put("john", "USER");
+        Assertions.assertNull(expired.get("john"), "An entry with no time to live is never served");
+        Assertions.assertEquals(0, expired.size(), "The expired entry was dropped on read");
+
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(1, cache.getMisses());
+    }
+
+    // Test that a full cache purges its expired entries to make room, but not again on every put
+    @Test
+    void fullCachePurgesAtMostOncePerInterval() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(0, 2, 1000);
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        cache.put("c", "3"); // Full: purges a and b
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(0, cache.getRejected());
+
+        cache.put("d", "4");
+        cache.put("e", "5"); // Full again, with c and d expired, but the last purge was just now
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(1, cache.getRejected());
+
+        cache.purgeExpired();
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    // Test that replacing a key of a full cache is never rejected
+    @Test
+    void fullCacheStillReplacesKeys() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(60_000, 1, 1000);
+        cache.put("john", "USER");
+        cache.put("john", "MODERATOR");
+        cache.put("jane", "USER");
+
+        Assertions.assertEquals("MODERATOR", cache.get("john"));
+        Assertions.assertNull(cache.get("jane"));
+        Assertions.assertEquals(1, cache.getRejected());
+    }
+
+    // Test that a key invalidated or put while it is loaded keeps the change instead of the loaded value
+    @Test
+    void changeDuringLoadIsNotOverwritten() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(60_000, 10, 1000);
+
+        String loaded = cache.getOrLoad("john", () -> {
+            cache.invalidate("john"); // A write committed after the loader read the row
+            return "USER";
+        });
+        Assertions.assertEquals("USER", loaded, "The caller still gets what was loaded");
+        Assertions.assertNull(cache.get("john"), "The stale value is not cached");
+
+        cache.getOrLoad("jane", () -> {
+            cache.put("jane", "MODERATOR");
+            return "USER";
+        });
+        Assertions.assertEquals("MODERATOR", cache.get("jane"));
+
+        Assertions.assertEquals("USER", cache.getOrLoad("joe", () -> "USER"));
+        Assertions.assertEquals("USER", cache.get("joe"), "An undisturbed load is cached");
+    }
+}
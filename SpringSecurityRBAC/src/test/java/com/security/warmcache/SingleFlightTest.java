@@ -0,0 +1,117 @@
+package com.security.warmcache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.security.exception.StudentDetailsNotFoundWithId;
+import com.security.studentdto.StudentDetails;
+
+public class SingleFlightTest {
+
+    ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    private static StudentDetails student(int stuNumber) {
+        StudentDetails details = new StudentDetails();
+        details.setStuNumber(stuNumber);
+        details.setFullName("John Michael Smith");
+        return details;
+    }
+
+    // Waits until the given number of callers are waiting on the load in flight
+    private static void awaitCoalesced(SingleFlight<?, ?> flight, long callers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.getCoalesced() < callers && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    // Test that concurrent misses of one student run one load and each get their own copy
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        StudentCache cache = new StudentCache(60_000, 100, 5_000);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        List<Future<StudentDetails>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(() -> cache.getOrLoad(7, () -> {
+                loads.incrementAndGet();
+                awaitQuietly(release);
+                return student(7);
+            })));
+            if (i == 0) {
+                while (loads.get() == 0) {
+                    Thread.sleep(5); // The first caller is now the one loading
+                }
+            }
+        }
+        awaitCoalesced(cache.getLoads(), 7);
+        release.countDown();
+
+        List<StudentDetails> students = new ArrayList<>();
+        for (Future<StudentDetails> result : results) {
+            students.add(result.get(5, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(1, loads.get(), "Only one caller queried the database");
+        Assertions.assertEquals(7, cache.getLoads().getCoalesced());
+        Assertions.assertEquals(8, students.stream().distinct().count(), "Each caller got its own copy");
+        Assertions.assertEquals("John Michael Smith", cache.get(7).getFullName(), "The loaded student was cached");
+    }
+
+    // Test that waiting callers get the loader's exception, and load on their own after the timeout
+    @Test
+    void failuresAreSharedAndSlowLoadsTimeOut() throws Exception {
+        SingleFlight<Integer, String> flight = new SingleFlight<>(50, value -> value);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> failing = callers.submit(() -> flight.load(1, () -> {
+            awaitQuietly(release);
+            throw new StudentDetailsNotFoundWithId("Student Details With Id:1 is Not Found");
+        }));
+        while (flight.getLoads() == 0) {
+            Thread.sleep(5);
+        }
+        Future<String> waiting = callers.submit(() -> flight.load(1, () -> "unused"));
+        awaitCoalesced(flight, 1);
+        release.countDown();
+        Exception shared = Assertions.assertThrows(Exception.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(StudentDetailsNotFoundWithId.class, shared.getCause());
+        Assertions.assertThrows(Exception.class, () -> failing.get(5, TimeUnit.SECONDS));
+
+        CountDownLatch slow = new CountDownLatch(1);
+        Future<String> slowLoad = callers.submit(() -> flight.load(2, () -> {
+            awaitQuietly(slow);
+            return "slow";
+        }));
+        while (flight.getLoads() == 1) {
+            Thread.sleep(5);
+        }
+        Assertions.assertEquals("own", flight.load(2, () -> "own"), "After the timeout the caller loads on its own");
+        Assertions.assertEquals(1, flight.getTimeouts());
+        slow.countDown();
+        Assertions.assertEquals("slow", slowLoad.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
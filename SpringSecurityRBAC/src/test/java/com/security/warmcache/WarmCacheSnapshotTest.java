@@ -0,0 +1,119 @@
+package com.security.warmcache;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.security.studentdto.Role;
+import com.security.studentdto.StudentDetails;
+import com.security.studentdto.StudentLoginDetails;
+import com.security.studentrepo.StudentDetailsRepo;
+import com.security.studentrepo.StudentloginDetailsRepo;
+
+@ExtendWith(MockitoExtension.class)
+public class WarmCacheSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    StudentDetailsRepo detailsRepo;
+
+    @Mock
+    StudentloginDetailsRepo loginRepo;
+
+    // A snapshotter over its own caches, as after a restart
+    private WarmCacheSnapshot snapshotter(PrincipalCache principals, StudentCache students, long maxAgeMillis) {
+        WarmCacheSnapshot snapshot = new WarmCacheSnapshot();
+        ReflectionTestUtils.setField(snapshot, "principalCache", principals);
+        ReflectionTestUtils.setField(snapshot, "studentCache", students);
+        ReflectionTestUtils.setField(snapshot, "detailsRepo", detailsRepo);
+        ReflectionTestUtils.setField(snapshot, "loginRepo", loginRepo);
+        ReflectionTestUtils.setField(snapshot, "file", directory.resolve("warm-cache.snap").toString());
+        ReflectionTestUtils.setField(snapshot, "maxAgeMillis", maxAgeMillis);
+        ReflectionTestUtils.setField(snapshot, "activeWindowMillis", 60_000L);
+        ReflectionTestUtils.setField(snapshot, "batchSize", 2);
+        return snapshot;
+    }
+
+    private static StudentDetails student(int stuNumber, long version) {
+        StudentDetails details = new StudentDetails();
+        details.setStuNumber(stuNumber);
+        details.setFullName("Student " + stuNumber);
+        details.setFatherName(null);
+        details.setBranchName("CSE");
+        details.setVersion(version);
+        return details;
+    }
+
+    private static StudentLoginDetails login(String userName) {
+        StudentLoginDetails details = new StudentLoginDetails();
+        details.setUserName(userName);
+        details.setPassword("$2a$12$secret-password-hash");
+        details.setRole(Role.USER);
+        return details;
+    }
+
+    // Test that a restart restores the unchanged students and reloads the principals, never storing passwords
+    @Test
+    void restoreKeepsUnchangedEntriesOnly() throws Exception {
+        PrincipalCache principals = new PrincipalCache(60_000, 100, 1000);
+        StudentCache students = new StudentCache(60_000, 100, 1000);
+        principals.put("john", login("john"));
+        for (int stuNumber = 1; stuNumber <= 3; stuNumber++) {
+            students.put(stuNumber, student(stuNumber, 1));
+        }
+        Assertions.assertEquals(4, snapshotter(principals, students, 60_000).snapshot());
+        String written = new String(Files.readAllBytes(directory.resolve("warm-cache.snap")), StandardCharsets.UTF_8);
+        Assertions.assertFalse(written.contains("secret-password-hash"), "Only user names are written");
+
+        // Since the snapshot, student 2 was updated and student 3 deleted
+        Mockito.when(detailsRepo.findVersionsByStuNumberIn(List.of(1, 2)))
+                .thenReturn(List.of(new Object[] { 1, 1L }, new Object[] { 2, 2L }));
+        Mockito.when(detailsRepo.findVersionsByStuNumberIn(List.of(3))).thenReturn(List.of());
+        Mockito.when(loginRepo.findByUserNameIn(List.of("john"))).thenReturn(List.of(login("john")));
+
+        PrincipalCache restoredPrincipals = new PrincipalCache(60_000, 100, 1000);
+        StudentCache restoredStudents = new StudentCache(60_000, 100, 1000);
+        WarmCacheSnapshot restarted = snapshotter(restoredPrincipals, restoredStudents, 60_000);
+        restarted.restore();
+
+        Assertions.assertEquals("Student 1", restoredStudents.get(1).getFullName());
+        Assertions.assertNull(restoredStudents.get(2), "A student changed since the snapshot is dropped");
+        Assertions.assertNull(restoredStudents.get(3), "A deleted student is dropped");
+        Assertions.assertEquals(Role.USER, restoredPrincipals.get("john").getRole());
+        WarmCacheStats stats = restarted.stats();
+        Assertions.assertEquals(1, stats.restoredStudents());
+        Assertions.assertEquals(2, stats.staleStudents());
+        Assertions.assertEquals(1, stats.restoredPrincipals());
+        Assertions.assertNull(stats.lastError());
+    }
+
+    // Test that a snapshot older than the maximum age is ignored without querying the database
+    @Test
+    void oldSnapshotIsIgnored() throws Exception {
+        StudentCache students = new StudentCache(60_000, 100, 1000);
+        students.put(1, student(1, 1));
+        snapshotter(new PrincipalCache(60_000, 100, 1000), students, 60_000).snapshot();
+
+        StudentCache restoredStudents = new StudentCache(60_000, 100, 1000);
+        WarmCacheSnapshot restarted = snapshotter(new PrincipalCache(60_000, 100, 1000), restoredStudents, -1);
+        restarted.restore();
+
+        Assertions.assertEquals(0, restoredStudents.size());
+        Assertions.assertNotNull(restarted.stats().lastError());
+        Mockito.verify(detailsRepo, Mockito.never()).findVersionsByStuNumberIn(anyCollection());
+    }
+}
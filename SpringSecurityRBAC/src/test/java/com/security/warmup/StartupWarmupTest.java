@@ -0,0 +1,122 @@
+package com.security.warmup;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.security.jwtservice.JwtService;
+import com.security.studentdto.StudentDetails;
+import com.security.studentindex.StudentNamePrefixIndex;
+import com.security.studentrepo.StudentDetailsRepo;
+import com.security.studentrepo.StudentloginDetailsRepo;
+import com.security.studentservice.StudentDetailsLoginSecurityDetails;
+
+@ExtendWith(MockitoExtension.class)
+public class StartupWarmupTest {
+
+    @Mock
+    JwtService jwtService;
+
+    @Mock
+    ObjectMapper objectMapper;
+
+    @Mock
+    StudentDetailsRepo detailsRepo;
+
+    @Mock
+    StudentloginDetailsRepo loginRepo;
+
+    @Mock
+    StudentDetailsLoginSecurityDetails userDetailsService;
+
+    @Mock
+    StudentNamePrefixIndex nameIndex;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    StartupWarmup warmup;
+
+    // Test that a failing stage is reported, its read-only transaction rolled back, and later stages still run
+    @Test
+    void failingStageDoesNotStopTheWarmup() {
+        ReflectionTestUtils.setField(warmup, "enabled", true);
+        ReflectionTestUtils.setField(warmup, "iterations", 10);
+        ReflectionTestUtils.setField(warmup, "bcryptIterations", 1);
+        ReflectionTestUtils.setField(warmup, "repositoryIterations", 1);
+        ReflectionTestUtils.setField(warmup, "preloadUsers", List.of("ghost"));
+
+        SimpleTransactionStatus scratch = new SimpleTransactionStatus();
+        Mockito.when(transactionManager.getTransaction(any())).thenReturn(scratch);
+        Mockito.when(detailsRepo.findAll(any(Pageable.class)))
+                .thenThrow(new DataAccessResourceFailureException("database unavailable"));
+        Mockito.when(userDetailsService.loadUserByUsername("ghost")).thenThrow(new UsernameNotFoundException("ghost"));
+
+        warmup.run(null);
+
+        WarmupReport report = warmup.report();
+        Assertions.assertEquals("DONE", report.state());
+        Assertions.assertEquals(List.of("jwt", "json", "bcrypt", "repository", "preload"),
+                List.copyOf(report.stageMillis().keySet()));
+        Assertions.assertEquals(List.of("repository"), List.copyOf(report.failures().keySet()),
+                "Only the repository stage failed; an unknown preload user is not a failure");
+        Assertions.assertTrue(scratch.isRollbackOnly(), "The scratch transaction is never committed");
+        verify(transactionManager).rollback(scratch);
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+        verify(nameIndex).rebuildNow();
+    }
+
+    // Test that the repository stage only reads, so it never uses up AUTO_INCREMENT values
+    @Test
+    void repositoryStageNeverInserts() {
+        ReflectionTestUtils.setField(warmup, "enabled", true);
+        ReflectionTestUtils.setField(warmup, "repositoryIterations", 3);
+        ReflectionTestUtils.setField(warmup, "preloadUsers", List.of());
+        Mockito.when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        Mockito.when(detailsRepo.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(student(7))));
+
+        warmup.run(null);
+
+        Assertions.assertTrue(warmup.report().failures().isEmpty(), () -> warmup.report().failures().toString());
+        verify(detailsRepo, times(3)).findById(7);
+        verify(detailsRepo, never()).saveAndFlush(any());
+        verify(detailsRepo, never()).save(any());
+    }
+
+    private static StudentDetails student(int stuNumber) {
+        StudentDetails details = new StudentDetails();
+        details.setStuNumber(stuNumber);
+        return details;
+    }
+
+    // Test that a disabled warm-up reports so and touches nothing
+    @Test
+    void disabledWarmupDoesNothing() {
+        warmup.run(null);
+
+        Assertions.assertEquals("DISABLED", warmup.report().state());
+        Mockito.verifyNoInteractions(jwtService, detailsRepo, transactionManager, nameIndex);
+    }
+}
@@ -0,0 +1,92 @@
+package com.security.writebehind;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.security.studentdto.StudentDetails;
+
+public class IngestLogTest {
+
+    @TempDir
+    Path directory;
+
+    // Test that reopening returns the records accepted but not DONE, ignoring a torn record at the end
+    @Test
+    void reopenRecoversPendingRecords() throws IOException {
+        IngestLog log = new IngestLog(directory, 1 << 20);
+        IngestLog.Accepted written = log.appendAccepted(UUID.randomUUID(), student("John Smith"));
+        IngestLog.Accepted pending = log.appendAccepted(UUID.randomUUID(), student("Jane Doe"));
+        log.appendDone(written, 7);
+        log.sync(log.appendAccepted(UUID.randomUUID(), student(null)).position());
+        log.close();
+
+        // A crash in the middle of an append leaves a partial record behind
+        try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(12).putInt(64).putInt(0).flip());
+        }
+
+        IngestLog reopened = new IngestLog(directory, 1 << 20);
+        List<IngestLog.Accepted> recovered = reopened.getRecovered();
+        Assertions.assertEquals(2, recovered.size());
+        Assertions.assertEquals(pending.trackingId(), recovered.get(0).trackingId());
+        Assertions.assertEquals("Jane Doe", recovered.get(0).fullName());
+        Assertions.assertEquals("CSE", recovered.get(0).branchName());
+        Assertions.assertNull(recovered.get(1).fullName());
+        Assertions.assertTrue(recovered.get(0).recovered());
+        Assertions.assertEquals(List.of(directory.resolve("ingest-00000002.log")), segments(),
+                "The pending records are copied into a fresh segment and the old one is deleted");
+        reopened.close();
+
+        // Nothing is replayed twice
+        Assertions.assertEquals(2, new IngestLog(directory, 1 << 20).getRecovered().size());
+    }
+
+    // Test that a segment is deleted only once it and every older segment are finished
+    @Test
+    void finishedSegmentsAreDeletedInOrder() throws IOException {
+        IngestLog log = new IngestLog(directory, 64 * 1024);
+        String name = "x".repeat(20_000);
+        IngestLog.Accepted first = log.appendAccepted(UUID.randomUUID(), student(name));
+        IngestLog.Accepted second = log.appendAccepted(UUID.randomUUID(), student(name));
+        IngestLog.Accepted third = log.appendAccepted(UUID.randomUUID(), student(name));
+        IngestLog.Accepted fourth = log.appendAccepted(UUID.randomUUID(), student(name));
+        Assertions.assertEquals(2, fourth.segment());
+
+        log.appendDone(fourth, 4);
+        log.appendDone(second, 2);
+        Assertions.assertEquals(2, segments().size(), "The first segment still holds an outstanding record");
+        log.appendDone(first, 1);
+        log.appendDone(third, -1);
+        log.close();
+        Assertions.assertEquals(List.of(directory.resolve("ingest-00000002.log")), segments());
+        Assertions.assertTrue(new IngestLog(directory, 64 * 1024).getRecovered().isEmpty());
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> log.appendAccepted(UUID.randomUUID(), student("x".repeat(IngestLog.MAX_STRING_BYTES + 1))));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static StudentDetails student(String fullName) {
+        StudentDetails details = new StudentDetails();
+        details.setFullName(fullName);
+        details.setFatherName("Parent");
+        details.setBranchName("CSE");
+        return details;
+    }
+}
@@ -0,0 +1,161 @@
+package com.security.writebehind;
+
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.security.studentdao.StudentDetailsDao;
+import com.security.studentdto.StudentDetails;
+import com.security.studentdto.StudentIngestReceipt;
+import com.security.studentdto.StudentIngestStatus;
+import com.security.studentrepo.StudentIngestReceiptRepo;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class WriteBehindIngestorTest {
+
+    @Mock
+    StudentDetailsDao dao;
+
+    @Mock
+    StudentIngestReceiptRepo receiptRepo;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    WriteBehindIngestor ingestor;
+
+    @TempDir
+    Path directory;
+
+    // Hands out student numbers to the saved records
+    final AtomicInteger nextStuNumber = new AtomicInteger(100);
+
+    IngestLog log;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(ingestor, "enabled", true);
+        ReflectionTestUtils.setField(ingestor, "directory", directory.toString());
+        ReflectionTestUtils.setField(ingestor, "queueCapacity", 100);
+        ReflectionTestUtils.setField(ingestor, "batchSize", 10);
+        ReflectionTestUtils.setField(ingestor, "segmentBytes", 1 << 20);
+        ReflectionTestUtils.setField(ingestor, "statusRetentionMillis", 60_000L);
+        ReflectionTestUtils.setField(ingestor, "statusMaxEntries", 100);
+        ReflectionTestUtils.setField(ingestor, "shutdownTimeoutMillis", 1000L);
+        ingestor.start();
+        log = (IngestLog) ReflectionTestUtils.getField(ingestor, "log");
+        Mockito.when(receiptRepo.findAllById(anyIterable())).thenReturn(List.of());
+        Mockito.when(dao.saveStudentDetailsBatchDao(anyList())).thenAnswer(call -> {
+            List<StudentDetails> students = new ArrayList<>(call.<List<StudentDetails>>getArgument(0));
+            students.forEach(student -> student.setStuNumber(nextStuNumber.getAndIncrement()));
+            return students;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ingestor.stop();
+    }
+
+    // Test that a batch is retried after a lost connection, including the receipt lookup of a recovered record
+    @Test
+    void transientFailureIsRetried() throws Exception {
+        IngestLog.Accepted recovered = accepted("John Smith").retried();
+        IngestLog.Accepted fresh = accepted("Jane Doe");
+        Mockito.when(receiptRepo.findAllById(anyIterable()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"))
+                .thenReturn(List.of());
+        Mockito.when(dao.saveStudentDetailsBatchDao(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Connection reset"))
+                .thenAnswer(call -> List.of(student(100), student(101)));
+
+        ingestor.flush(List.of(recovered, fresh));
+
+        Assertions.assertEquals(WriteBehindIngestor.WRITTEN, status(recovered).status());
+        Assertions.assertEquals(101, status(fresh).stuNumber());
+        Assertions.assertEquals(2, ingestor.stats().retries());
+        Mockito.verify(dao, Mockito.times(2)).saveStudentDetailsBatchDao(anyList());
+    }
+
+    // Test that a record the database rejects fails on its own while the rest of its batch is written
+    @Test
+    void rejectedRecordIsIsolated() throws Exception {
+        Mockito.when(dao.saveStudentDetailsBatchDao(anyList())).thenAnswer(call -> {
+            List<StudentDetails> students = call.getArgument(0);
+            if (students.stream().anyMatch(student -> student.getFullName() == null)) {
+                throw new DataIntegrityViolationException("Column 'full_name' cannot be null");
+            }
+            students.forEach(student -> student.setStuNumber(nextStuNumber.getAndIncrement()));
+            return students;
+        });
+        IngestLog.Accepted john = accepted("John Smith");
+        IngestLog.Accepted nameless = accepted(null);
+        IngestLog.Accepted jane = accepted("Jane Doe");
+
+        ingestor.flush(List.of(john, nameless, jane));
+
+        Assertions.assertEquals(WriteBehindIngestor.WRITTEN, status(john).status());
+        Assertions.assertEquals(WriteBehindIngestor.WRITTEN, status(jane).status());
+        Assertions.assertEquals(WriteBehindIngestor.FAILED, status(nameless).status());
+        Assertions.assertEquals(2, ingestor.stats().written());
+        Assertions.assertEquals(1, ingestor.stats().failed());
+    }
+
+    // Test that a recovered record with a receipt is finished from it instead of being saved again
+    @Test
+    void receiptPreventsDuplicateWrite() throws Exception {
+        IngestLog.Accepted saved = accepted("John Smith").retried();
+        IngestLog.Accepted unsaved = accepted("Jane Doe").retried();
+        Mockito.when(receiptRepo.findAllById(anyIterable()))
+                .thenReturn(List.of(new StudentIngestReceipt(saved.trackingId().toString(), 7)));
+
+        ingestor.flush(List.of(saved, unsaved));
+
+        Assertions.assertEquals(7, status(saved).stuNumber());
+        Assertions.assertEquals(100, status(unsaved).stuNumber());
+        Mockito.verify(dao).saveStudentDetailsBatchDao(Mockito.argThat(students -> students.size() == 1
+                && "Jane Doe".equals(students.get(0).getFullName())));
+        Mockito.verify(receiptRepo, Mockito.atLeastOnce()).deleteAllByIdInBatch(anyIterable());
+    }
+
+    private IngestLog.Accepted accepted(String fullName) throws Exception {
+        StudentDetails details = new StudentDetails();
+        details.setFullName(fullName);
+        details.setBranchName("CSE");
+        return log.appendAccepted(UUID.randomUUID(), details);
+    }
+
+    private StudentIngestStatus status(IngestLog.Accepted record) {
+        return ingestor.status(record.trackingId().toString());
+    }
+
+    private static StudentDetails student(int stuNumber) {
+        StudentDetails details = new StudentDetails();
+        details.setStuNumber(stuNumber);
+        return details;
+    }
+}